@@ -0,0 +1,10 @@
+package android;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public final class Manifest {
+    public static final class permission {
+        public static final String ACCESS_FINE_LOCATION = "android.permission.ACCESS_FINE_LOCATION";
+    }
+}
@@ -0,0 +1,22 @@
+package android.app;
+
+import android.content.Context;
+import android.content.Intent;
+
+import java.io.File;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public class Activity extends Context {
+    public static final int RESULT_CANCELED = 0;
+    public static final int RESULT_OK = -1;
+
+    public Activity(File dataDir) {
+        super(dataDir);
+    }
+
+    public void startActivityForResult(Intent intent, int requestCode) {
+        throw new UnsupportedOperationException("activities cannot be started on the JVM");
+    }
+}
@@ -0,0 +1,12 @@
+package android.content;
+
+import android.content.res.Configuration;
+
+/**
+ * Stand-in for the Android interface of the same name, with only what the plugin uses.
+ */
+public interface ComponentCallbacks {
+    void onConfigurationChanged(Configuration newConfig);
+
+    void onLowMemory();
+}
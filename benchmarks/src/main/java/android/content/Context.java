@@ -0,0 +1,47 @@
+package android.content;
+
+import java.io.File;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public class Context {
+    public static final String LOCATION_SERVICE = "location";
+
+    private final File mDataDir;
+
+    /**
+     * Creates a context whose files are kept in dataDir.
+     */
+    public Context(File dataDir) {
+        mDataDir = dataDir;
+    }
+
+    public File getFilesDir() {
+        File directory = new File(mDataDir, "files");
+        directory.mkdirs();
+        return directory;
+    }
+
+    public File getCacheDir() {
+        File directory = new File(mDataDir, "cache");
+        directory.mkdirs();
+        return directory;
+    }
+
+    /**
+     * There are no system services on the JVM.
+     */
+    public Object getSystemService(String name) {
+        return null;
+    }
+
+    /**
+     * Nothing calls back on the JVM.
+     */
+    public void registerComponentCallbacks(ComponentCallbacks callback) {
+    }
+
+    public void unregisterComponentCallbacks(ComponentCallbacks callback) {
+    }
+}
@@ -0,0 +1,9 @@
+package android.content.pm;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public abstract class PackageManager {
+    public static final int PERMISSION_GRANTED = 0;
+    public static final int PERMISSION_DENIED = -1;
+}
@@ -0,0 +1,7 @@
+package android.content.res;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public class Configuration {
+}
@@ -0,0 +1,63 @@
+package android.graphics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ *
+ * Bitmaps have a size but no pixels: they are compressed to a header giving their size,
+ * followed by padding standing in for the JPEG data, which {@link BitmapFactory} decodes.
+ */
+public final class Bitmap {
+    public enum CompressFormat {
+        JPEG, PNG, WEBP
+    }
+
+    public enum Config {
+        ARGB_8888
+    }
+
+    static final String HEADER = "BITMAP";
+    // compressed bytes per pixel, about that of a JPEG photo
+    private static final double COMPRESSED_BYTES_PER_PIXEL = 0.15;
+
+    private final int mWidth;
+    private final int mHeight;
+
+    private Bitmap(int width, int height) {
+        mWidth = width;
+        mHeight = height;
+    }
+
+    public static Bitmap createBitmap(int width, int height, Config config) {
+        return new Bitmap(width, height);
+    }
+
+    public static Bitmap createScaledBitmap(Bitmap bitmap, int width, int height, boolean filter) {
+        return new Bitmap(width, height);
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getByteCount() {
+        return 4 * mWidth * mHeight;
+    }
+
+    public boolean compress(CompressFormat format, int quality, OutputStream stream) {
+        try {
+            stream.write((HEADER + " " + mWidth + " " + mHeight + "\n").getBytes(StandardCharsets.US_ASCII));
+            stream.write(new byte[(int)(mWidth * mHeight * COMPRESSED_BYTES_PER_PIXEL)]);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
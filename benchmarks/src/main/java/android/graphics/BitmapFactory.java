@@ -0,0 +1,43 @@
+package android.graphics;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses: it decodes
+ * the files written by {@link Bitmap#compress}.
+ */
+public final class BitmapFactory {
+    private BitmapFactory() {
+    }
+
+    public static class Options {
+        public boolean inJustDecodeBounds;
+        public int inSampleSize;
+        public int outWidth;
+        public int outHeight;
+    }
+
+    public static Bitmap decodeFile(String pathName, Options options) {
+        String[] header;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(pathName), StandardCharsets.US_ASCII))) {
+            String line = reader.readLine();
+            header = line != null ? line.split(" ") : new String[0];
+        } catch (IOException e) {
+            return null;
+        }
+        if (header.length != 3 || !Bitmap.HEADER.equals(header[0])) {
+            return null;
+        }
+        int sampleSize = Math.max(1, options.inSampleSize);
+        options.outWidth = Integer.parseInt(header[1]) / sampleSize;
+        options.outHeight = Integer.parseInt(header[2]) / sampleSize;
+        if (options.inJustDecodeBounds) {
+            return null;
+        }
+        return Bitmap.createBitmap(options.outWidth, options.outHeight, Bitmap.Config.ARGB_8888);
+    }
+}
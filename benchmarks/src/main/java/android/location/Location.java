@@ -0,0 +1,67 @@
+package android.location;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public class Location {
+    private static final double EARTH_RADIUS = 6371009; // meters
+
+    private double mLatitude;
+    private double mLongitude;
+    private long mTime;
+    private float mAccuracy;
+    private boolean mHasAccuracy;
+
+    public Location(String provider) {
+    }
+
+    public double getLatitude() {
+        return mLatitude;
+    }
+
+    public void setLatitude(double latitude) {
+        mLatitude = latitude;
+    }
+
+    public double getLongitude() {
+        return mLongitude;
+    }
+
+    public void setLongitude(double longitude) {
+        mLongitude = longitude;
+    }
+
+    public boolean hasAccuracy() {
+        return mHasAccuracy;
+    }
+
+    public float getAccuracy() {
+        return mAccuracy;
+    }
+
+    public void setAccuracy(float accuracy) {
+        mAccuracy = accuracy;
+        mHasAccuracy = true;
+    }
+
+    public long getTime() {
+        return mTime;
+    }
+
+    public void setTime(long time) {
+        mTime = time;
+    }
+
+    /**
+     * Great-circle distance, in meters (the real class uses the WGS84 ellipsoid).
+     */
+    public float distanceTo(Location dest) {
+        double lat1 = Math.toRadians(mLatitude);
+        double lat2 = Math.toRadians(dest.mLatitude);
+        double dLat = lat2 - lat1;
+        double dLng = Math.toRadians(dest.mLongitude - mLongitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return (float)(2 * EARTH_RADIUS * Math.asin(Math.sqrt(a)));
+    }
+}
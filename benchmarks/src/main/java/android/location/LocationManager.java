@@ -0,0 +1,17 @@
+package android.location;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public class LocationManager {
+    public List<String> getProviders(boolean enabledOnly) {
+        return Collections.emptyList();
+    }
+
+    public Location getLastKnownLocation(String provider) {
+        return null;
+    }
+}
@@ -0,0 +1,27 @@
+package android.net;
+
+import java.io.File;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public final class Uri {
+    private final String mUri;
+
+    private Uri(String uri) {
+        mUri = uri;
+    }
+
+    public static Uri parse(String uri) {
+        return new Uri(uri);
+    }
+
+    public static Uri fromFile(File file) {
+        return new Uri(file.toURI().toString().replaceFirst("^file:/+", "file:///"));
+    }
+
+    @Override
+    public String toString() {
+        return mUri;
+    }
+}
@@ -0,0 +1,25 @@
+package android.os;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public class Handler {
+    private final Looper mLooper;
+
+    public Handler(Looper looper) {
+        mLooper = looper;
+    }
+
+    public final boolean post(Runnable r) {
+        return postDelayed(r, 0);
+    }
+
+    public final boolean postDelayed(Runnable r, long delayMillis) {
+        mLooper.enqueue(this, r, SystemClock.elapsedRealtime() + Math.max(0, delayMillis));
+        return true;
+    }
+
+    public final void removeCallbacks(Runnable r) {
+        mLooper.remove(this, r);
+    }
+}
@@ -0,0 +1,107 @@
+package android.os;
+
+import android.util.Log;
+
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public final class Looper {
+    private static final Looper MAIN_LOOPER = new Looper("main");
+
+    private static final class Message implements Comparable<Message> {
+        final Handler handler;
+        final Runnable callback;
+        final long when;
+        final long sequence;
+
+        Message(Handler handler, Runnable callback, long when, long sequence) {
+            this.handler = handler;
+            this.callback = callback;
+            this.when = when;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Message other) {
+            if (when != other.when) {
+                return when < other.when ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    private final PriorityQueue<Message> mQueue = new PriorityQueue<Message>();
+    private final Thread mThread;
+    private long mSequence;
+
+    /**
+     * Starts a thread running the messages of the looper, in order, as the main thread of
+     * an app does.
+     */
+    private Looper(String name) {
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, name);
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN_LOOPER;
+    }
+
+    public static Looper myLooper() {
+        return Thread.currentThread() == MAIN_LOOPER.mThread ? MAIN_LOOPER : null;
+    }
+
+    public Thread getThread() {
+        return mThread;
+    }
+
+    synchronized void enqueue(Handler handler, Runnable callback, long when) {
+        mQueue.add(new Message(handler, callback, when, mSequence++));
+        notifyAll();
+    }
+
+    synchronized void remove(Handler handler, Runnable callback) {
+        Iterator<Message> it = mQueue.iterator();
+        while (it.hasNext()) {
+            Message message = it.next();
+            if (message.handler == handler && message.callback == callback) {
+                it.remove();
+            }
+        }
+    }
+
+    private void loop() {
+        while (true) {
+            Message message;
+            synchronized (this) {
+                while (true) {
+                    Message next = mQueue.peek();
+                    long now = SystemClock.elapsedRealtime();
+                    if (next != null && next.when <= now) {
+                        message = mQueue.poll();
+                        break;
+                    }
+                    try {
+                        wait(next != null ? next.when - now : 0);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+            try {
+                message.callback.run();
+            } catch (RuntimeException e) {
+                Log.e("Looper", "Uncaught exception on the " + mThread.getName() + " thread", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package android.os;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public class Process {
+    public static final int THREAD_PRIORITY_BACKGROUND = 10;
+
+    /**
+     * Thread priorities are left to the JVM.
+     */
+    public static void setThreadPriority(int priority) {
+    }
+}
@@ -0,0 +1,13 @@
+package android.os;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public final class SystemClock {
+    private SystemClock() {
+    }
+
+    public static long elapsedRealtime() {
+        return System.nanoTime() / 1000000;
+    }
+}
@@ -0,0 +1,7 @@
+package android.text.style;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public abstract class CharacterStyle {
+}
@@ -0,0 +1,68 @@
+package android.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ */
+public class LruCache<K, V> {
+    private final LinkedHashMap<K, V> mMap = new LinkedHashMap<K, V>(16, 0.75f, true);
+    private final int mMaxSize;
+    private int mSize;
+
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        mMaxSize = maxSize;
+    }
+
+    protected int sizeOf(K key, V value) {
+        return 1;
+    }
+
+    public final synchronized V get(K key) {
+        return mMap.get(key);
+    }
+
+    public final synchronized V put(K key, V value) {
+        V previous = mMap.put(key, value);
+        mSize += sizeOf(key, value);
+        if (previous != null) {
+            mSize -= sizeOf(key, previous);
+        }
+        trimToSize(mMaxSize);
+        return previous;
+    }
+
+    public final synchronized V remove(K key) {
+        V previous = mMap.remove(key);
+        if (previous != null) {
+            mSize -= sizeOf(key, previous);
+        }
+        return previous;
+    }
+
+    public synchronized void trimToSize(int maxSize) {
+        Iterator<Map.Entry<K, V>> eldest = mMap.entrySet().iterator();
+        while (mSize > maxSize && eldest.hasNext()) {
+            Map.Entry<K, V> entry = eldest.next();
+            mSize -= sizeOf(entry.getKey(), entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    public final void evictAll() {
+        trimToSize(-1);
+    }
+
+    public final synchronized int size() {
+        return mSize;
+    }
+
+    public final synchronized int maxSize() {
+        return mMaxSize;
+    }
+}
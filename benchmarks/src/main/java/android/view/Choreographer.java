@@ -0,0 +1,65 @@
+package android.view;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stand-in for the Android class of the same name, with only what the plugin uses.
+ *
+ * Frames run on the main looper, at the vsyncs of a 60 Hz display. As on a device, a frame
+ * held back by the main looper is given the time of the latest vsync, the others being skipped.
+ */
+public final class Choreographer {
+    private static final long FRAME_NANOS = 1000000000 / 60;
+    private static final Choreographer MAIN_CHOREOGRAPHER = new Choreographer();
+
+    public interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Map<FrameCallback, Runnable> mFrames = new HashMap<FrameCallback, Runnable>();
+    private long mLastFrameNanos;
+
+    private Choreographer() {
+    }
+
+    public static Choreographer getInstance() {
+        if (Looper.myLooper() == null) {
+            throw new IllegalStateException("The current thread must have a looper!");
+        }
+        return MAIN_CHOREOGRAPHER;
+    }
+
+    public synchronized void postFrameCallback(final FrameCallback callback) {
+        removeFrameCallback(callback);
+        long now = System.nanoTime();
+        // the looper may run a frame slightly ahead of its vsync: the next one is after it
+        final long nextVsync = Math.max(now - now % FRAME_NANOS, mLastFrameNanos) + FRAME_NANOS;
+        Runnable frame = new Runnable() {
+            @Override
+            public void run() {
+                long now = System.nanoTime();
+                long frameTimeNanos = Math.max(nextVsync, now - now % FRAME_NANOS);
+                synchronized (Choreographer.this) {
+                    mFrames.remove(callback);
+                    mLastFrameNanos = Math.max(mLastFrameNanos, frameTimeNanos);
+                }
+                callback.doFrame(frameTimeNanos);
+            }
+        };
+        mFrames.put(callback, frame);
+        // rounded up, the looper counting in milliseconds
+        mHandler.postDelayed(frame, (nextVsync - now + 999999) / 1000000);
+    }
+
+    public synchronized void removeFrameCallback(FrameCallback callback) {
+        Runnable frame = mFrames.remove(callback);
+        if (frame != null) {
+            mHandler.removeCallbacks(frame);
+        }
+    }
+}
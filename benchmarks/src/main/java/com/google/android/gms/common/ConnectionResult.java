@@ -0,0 +1,22 @@
+package com.google.android.gms.common;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public final class ConnectionResult {
+    private final int mErrorCode;
+    private final String mErrorMessage;
+
+    public ConnectionResult(int errorCode, String errorMessage) {
+        mErrorCode = errorCode;
+        mErrorMessage = errorMessage;
+    }
+
+    public int getErrorCode() {
+        return mErrorCode;
+    }
+
+    public String getErrorMessage() {
+        return mErrorMessage;
+    }
+}
@@ -0,0 +1,12 @@
+package com.google.android.gms.common;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public final class GooglePlayServicesNotAvailableException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    public GooglePlayServicesNotAvailableException(int errorCode) {
+        super("Google Play Services not available (error " + errorCode + ")");
+    }
+}
@@ -0,0 +1,16 @@
+package com.google.android.gms.common.api;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public final class Api<O> {
+    private final String mName;
+
+    public Api(String name) {
+        mName = name;
+    }
+
+    public String getName() {
+        return mName;
+    }
+}
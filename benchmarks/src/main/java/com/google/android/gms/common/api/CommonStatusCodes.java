@@ -0,0 +1,14 @@
+package com.google.android.gms.common.api;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public class CommonStatusCodes {
+    public static final int SUCCESS = 0;
+    public static final int NETWORK_ERROR = 7;
+    public static final int INTERNAL_ERROR = 8;
+    public static final int ERROR = 13;
+    public static final int INTERRUPTED = 14;
+    public static final int TIMEOUT = 15;
+    public static final int CANCELED = 16;
+}
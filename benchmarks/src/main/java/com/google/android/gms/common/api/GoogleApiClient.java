@@ -0,0 +1,109 @@
+package com.google.android.gms.common.api;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.android.gms.common.ConnectionResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public abstract class GoogleApiClient {
+    public interface ConnectionCallbacks {
+        void onConnected(@Nullable Bundle connectionHint);
+
+        void onConnectionSuspended(int cause);
+    }
+
+    public interface OnConnectionFailedListener {
+        void onConnectionFailed(@NonNull ConnectionResult result);
+    }
+
+    /**
+     * Builds clients which connect right away (on the main looper), as there is nothing
+     * to connect to on the JVM.
+     */
+    public static final class Builder {
+        private final List<ConnectionCallbacks> mConnectionCallbacks = new ArrayList<ConnectionCallbacks>();
+
+        public Builder(Context context) {
+        }
+
+        public Builder addApi(Api<?> api) {
+            return this;
+        }
+
+        public Builder addConnectionCallbacks(ConnectionCallbacks listener) {
+            mConnectionCallbacks.add(listener);
+            return this;
+        }
+
+        public Builder addOnConnectionFailedListener(OnConnectionFailedListener listener) {
+            return this;
+        }
+
+        public GoogleApiClient build() {
+            return new LocalClient(mConnectionCallbacks);
+        }
+    }
+
+    private static final class LocalClient extends GoogleApiClient {
+        private final List<ConnectionCallbacks> mConnectionCallbacks;
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+        private volatile boolean mConnected;
+        private volatile boolean mConnecting;
+
+        LocalClient(List<ConnectionCallbacks> connectionCallbacks) {
+            mConnectionCallbacks = connectionCallbacks;
+        }
+
+        @Override
+        public void connect() {
+            mConnecting = true;
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!mConnecting) {
+                        return;
+                    }
+                    mConnecting = false;
+                    mConnected = true;
+                    for (ConnectionCallbacks callbacks : mConnectionCallbacks) {
+                        callbacks.onConnected(null);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void disconnect() {
+            mConnecting = false;
+            mConnected = false;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return mConnected;
+        }
+
+        @Override
+        public boolean isConnecting() {
+            return mConnecting;
+        }
+    }
+
+    public abstract void connect();
+
+    public abstract void disconnect();
+
+    public abstract boolean isConnected();
+
+    public abstract boolean isConnecting();
+}
@@ -0,0 +1,12 @@
+package com.google.android.gms.common.api;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public abstract class PendingResult<R extends Result> {
+    public abstract void setResultCallback(ResultCallback<? super R> callback);
+
+    public abstract void cancel();
+
+    public abstract boolean isCanceled();
+}
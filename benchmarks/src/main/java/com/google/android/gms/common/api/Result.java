@@ -0,0 +1,8 @@
+package com.google.android.gms.common.api;
+
+/**
+ * Stand-in for the Play Services interface of the same name, with only what the plugin uses.
+ */
+public interface Result {
+    Status getStatus();
+}
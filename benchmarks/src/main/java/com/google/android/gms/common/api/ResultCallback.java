@@ -0,0 +1,10 @@
+package com.google.android.gms.common.api;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Stand-in for the Play Services interface of the same name, with only what the plugin uses.
+ */
+public interface ResultCallback<R extends Result> {
+    void onResult(@NonNull R result);
+}
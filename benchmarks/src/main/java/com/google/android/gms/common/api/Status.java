@@ -0,0 +1,39 @@
+package com.google.android.gms.common.api;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public final class Status implements Result {
+    private final int mStatusCode;
+    private final String mStatusMessage;
+
+    public Status(int statusCode) {
+        this(statusCode, null);
+    }
+
+    public Status(int statusCode, String statusMessage) {
+        mStatusCode = statusCode;
+        mStatusMessage = statusMessage;
+    }
+
+    public int getStatusCode() {
+        return mStatusCode;
+    }
+
+    public String getStatusMessage() {
+        return mStatusMessage;
+    }
+
+    public boolean isSuccess() {
+        return mStatusCode <= CommonStatusCodes.SUCCESS;
+    }
+
+    public boolean isCanceled() {
+        return mStatusCode == CommonStatusCodes.CANCELED;
+    }
+
+    @Override
+    public Status getStatus() {
+        return this;
+    }
+}
@@ -0,0 +1,44 @@
+package com.google.android.gms.common.data;
+
+import com.google.android.gms.common.api.Releasable;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public abstract class AbstractDataBuffer<T> implements Iterable<T>, Releasable {
+    public abstract int getCount();
+
+    public abstract T get(int position);
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int mPosition;
+
+            @Override
+            public boolean hasNext() {
+                return mPosition < getCount();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(mPosition++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public void release() {
+    }
+}
@@ -0,0 +1,10 @@
+package com.google.android.gms.common.data;
+
+/**
+ * Stand-in for the Play Services interface of the same name, with only what the plugin uses.
+ */
+public interface Freezable<T> {
+    T freeze();
+
+    boolean isDataValid();
+}
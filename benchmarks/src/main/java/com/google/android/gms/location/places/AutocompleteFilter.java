@@ -0,0 +1,48 @@
+package com.google.android.gms.location.places;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public final class AutocompleteFilter {
+    public static final int TYPE_FILTER_NONE = 0;
+    public static final int TYPE_FILTER_GEOCODE = 1007;
+    public static final int TYPE_FILTER_ADDRESS = 2;
+    public static final int TYPE_FILTER_ESTABLISHMENT = 34;
+    public static final int TYPE_FILTER_REGIONS = 4;
+    public static final int TYPE_FILTER_CITIES = 5;
+
+    private final int mTypeFilter;
+    private final String mCountry;
+
+    private AutocompleteFilter(int typeFilter, String country) {
+        mTypeFilter = typeFilter;
+        mCountry = country;
+    }
+
+    public int getTypeFilter() {
+        return mTypeFilter;
+    }
+
+    public String getCountry() {
+        return mCountry;
+    }
+
+    public static final class Builder {
+        private int mTypeFilter = TYPE_FILTER_NONE;
+        private String mCountry;
+
+        public Builder setTypeFilter(int typeFilter) {
+            mTypeFilter = typeFilter;
+            return this;
+        }
+
+        public Builder setCountry(String country) {
+            mCountry = country;
+            return this;
+        }
+
+        public AutocompleteFilter build() {
+            return new AutocompleteFilter(mTypeFilter, mCountry);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.google.android.gms.location.places;
+
+import android.text.style.CharacterStyle;
+
+import com.google.android.gms.common.data.Freezable;
+
+import java.util.List;
+
+/**
+ * Stand-in for the Play Services interface of the same name, with only what the plugin uses.
+ */
+public interface AutocompletePrediction extends Freezable<AutocompletePrediction> {
+    CharSequence getFullText(CharacterStyle matchStyle);
+
+    CharSequence getPrimaryText(CharacterStyle matchStyle);
+
+    CharSequence getSecondaryText(CharacterStyle matchStyle);
+
+    String getPlaceId();
+
+    List<Integer> getPlaceTypes();
+}
@@ -0,0 +1,10 @@
+package com.google.android.gms.location.places;
+
+import com.google.android.gms.common.api.Result;
+import com.google.android.gms.common.data.AbstractDataBuffer;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public abstract class AutocompletePredictionBuffer extends AbstractDataBuffer<AutocompletePrediction> implements Result {
+}
@@ -0,0 +1,16 @@
+package com.google.android.gms.location.places;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.PendingResult;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+/**
+ * Stand-in for the Play Services interface of the same name, with only what the plugin uses.
+ */
+public interface GeoDataApi {
+    PendingResult<AutocompletePredictionBuffer> getAutocompletePredictions(GoogleApiClient client, String query, LatLngBounds bounds, AutocompleteFilter filter);
+
+    PendingResult<PlaceBuffer> getPlaceById(GoogleApiClient client, String... placeIds);
+
+    PendingResult<PlacePhotoMetadataResult> getPlacePhotos(GoogleApiClient client, String placeId);
+}
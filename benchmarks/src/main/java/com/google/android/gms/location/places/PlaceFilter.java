@@ -0,0 +1,7 @@
+package com.google.android.gms.location.places;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public final class PlaceFilter {
+}
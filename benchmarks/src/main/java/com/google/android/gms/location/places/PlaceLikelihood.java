@@ -0,0 +1,12 @@
+package com.google.android.gms.location.places;
+
+import com.google.android.gms.common.data.Freezable;
+
+/**
+ * Stand-in for the Play Services interface of the same name, with only what the plugin uses.
+ */
+public interface PlaceLikelihood extends Freezable<PlaceLikelihood> {
+    float getLikelihood();
+
+    Place getPlace();
+}
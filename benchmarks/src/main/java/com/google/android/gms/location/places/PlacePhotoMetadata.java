@@ -0,0 +1,18 @@
+package com.google.android.gms.location.places;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.PendingResult;
+import com.google.android.gms.common.data.Freezable;
+
+/**
+ * Stand-in for the Play Services interface of the same name, with only what the plugin uses.
+ */
+public interface PlacePhotoMetadata extends Freezable<PlacePhotoMetadata> {
+    int getMaxWidth();
+
+    int getMaxHeight();
+
+    CharSequence getAttributions();
+
+    PendingResult<PlacePhotoResult> getScaledPhoto(GoogleApiClient client, int width, int height);
+}
@@ -0,0 +1,12 @@
+package com.google.android.gms.location.places;
+
+import android.graphics.Bitmap;
+
+import com.google.android.gms.common.api.Result;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public abstract class PlacePhotoResult implements Result {
+    public abstract Bitmap getBitmap();
+}
@@ -0,0 +1,44 @@
+package com.google.android.gms.location.places;
+
+import com.google.android.gms.common.api.Api;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.PendingResult;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public class Places {
+    public static final Api<Object> GEO_DATA_API = new Api<Object>("Places.GEO_DATA_API");
+    public static final Api<Object> PLACE_DETECTION_API = new Api<Object>("Places.PLACE_DETECTION_API");
+
+    /**
+     * The Places API cannot be reached from the JVM: calls fail right away.
+     */
+    public static final GeoDataApi GeoDataApi = new GeoDataApi() {
+        @Override
+        public PendingResult<AutocompletePredictionBuffer> getAutocompletePredictions(GoogleApiClient client, String query, LatLngBounds bounds, AutocompleteFilter filter) {
+            throw new UnsupportedOperationException("the Places API is not available on the JVM");
+        }
+
+        @Override
+        public PendingResult<PlaceBuffer> getPlaceById(GoogleApiClient client, String... placeIds) {
+            throw new UnsupportedOperationException("the Places API is not available on the JVM");
+        }
+
+        @Override
+        public PendingResult<PlacePhotoMetadataResult> getPlacePhotos(GoogleApiClient client, String placeId) {
+            throw new UnsupportedOperationException("the Places API is not available on the JVM");
+        }
+    };
+
+    public static final PlaceDetectionApi PlaceDetectionApi = new PlaceDetectionApi() {
+        @Override
+        public PendingResult<PlaceLikelihoodBuffer> getCurrentPlace(GoogleApiClient client, PlaceFilter filter) {
+            throw new UnsupportedOperationException("the Places API is not available on the JVM");
+        }
+    };
+
+    private Places() {
+    }
+}
@@ -0,0 +1,18 @@
+package com.google.android.gms.location.places;
+
+import com.google.android.gms.common.api.CommonStatusCodes;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public final class PlacesStatusCodes extends CommonStatusCodes {
+    public static final int USAGE_LIMIT_EXCEEDED = 9001;
+    public static final int KEY_INVALID = 9002;
+    public static final int ACCESS_NOT_CONFIGURED = 9003;
+    public static final int RATE_LIMIT_EXCEEDED = 9005;
+    public static final int DEVICE_RATE_LIMIT_EXCEEDED = 9006;
+    public static final int KEY_EXPIRED = 9007;
+
+    private PlacesStatusCodes() {
+    }
+}
@@ -0,0 +1,31 @@
+package com.google.android.gms.location.places.ui;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+import com.google.android.gms.common.GooglePlayServicesNotAvailableException;
+import com.google.android.gms.common.GooglePlayServicesRepairableException;
+import com.google.android.gms.common.api.Status;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public class PlaceAutocomplete {
+    public static final int MODE_FULLSCREEN = 1;
+    public static final int MODE_OVERLAY = 2;
+    public static final int RESULT_ERROR = 2;
+
+    public static class IntentBuilder {
+        public IntentBuilder(int mode) {
+        }
+
+        public Intent build(Activity activity) throws GooglePlayServicesRepairableException, GooglePlayServicesNotAvailableException {
+            throw new GooglePlayServicesNotAvailableException(1);
+        }
+    }
+
+    public static Status getStatus(Context context, Intent intent) {
+        return null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.google.android.gms.location.places.ui;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+import com.google.android.gms.common.GooglePlayServicesNotAvailableException;
+import com.google.android.gms.common.GooglePlayServicesRepairableException;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public class PlacePicker {
+    public static final int RESULT_ERROR = 2;
+
+    public static class IntentBuilder {
+        public IntentBuilder setLatLngBounds(LatLngBounds bounds) {
+            return this;
+        }
+
+        public Intent build(Activity activity) throws GooglePlayServicesRepairableException, GooglePlayServicesNotAvailableException {
+            throw new GooglePlayServicesNotAvailableException(1);
+        }
+    }
+
+    public static Place getPlace(Context context, Intent intent) {
+        return null;
+    }
+
+    public static Status getStatus(Context context, Intent intent) {
+        return null;
+    }
+}
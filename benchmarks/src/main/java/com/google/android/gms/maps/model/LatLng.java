@@ -0,0 +1,14 @@
+package com.google.android.gms.maps.model;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public final class LatLng {
+    public final double latitude;
+    public final double longitude;
+
+    public LatLng(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+}
@@ -0,0 +1,31 @@
+package com.google.android.gms.maps.model;
+
+/**
+ * Stand-in for the Play Services class of the same name, with only what the plugin uses.
+ */
+public final class LatLngBounds {
+    public final LatLng southwest;
+    public final LatLng northeast;
+
+    public LatLngBounds(LatLng southwest, LatLng northeast) {
+        // same check as the real class
+        if (northeast.latitude < southwest.latitude) {
+            throw new IllegalArgumentException("southern latitude exceeds northern latitude ("
+                    + southwest.latitude + " > " + northeast.latitude + ")");
+        }
+        this.southwest = southwest;
+        this.northeast = northeast;
+    }
+
+    public LatLng getCenter() {
+        double latitude = (southwest.latitude + northeast.latitude) / 2;
+        double longitude = southwest.longitude <= northeast.longitude
+                ? (southwest.longitude + northeast.longitude) / 2
+                : (southwest.longitude + northeast.longitude + 360) / 2;
+        // same wrapping as the real LatLng
+        if (longitude >= 180) {
+            longitude -= 360;
+        }
+        return new LatLng(latitude, longitude);
+    }
+}
@@ -0,0 +1,12 @@
+package org.apache.cordova;
+
+import android.app.Activity;
+
+/**
+ * Stand-in for the Cordova interface of the same name, with only what the plugin uses.
+ */
+public interface CordovaInterface {
+    Activity getActivity();
+
+    void setActivityResultCallback(CordovaPlugin plugin);
+}
@@ -0,0 +1,44 @@
+package org.apache.cordova;
+
+import android.content.Intent;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/**
+ * Stand-in for the Cordova class of the same name, with only what the plugin uses.
+ */
+public class CordovaPlugin {
+    public CordovaWebView webView;
+    public CordovaInterface cordova;
+    protected CordovaPreferences preferences;
+
+    public final void privateInitialize(String serviceName, CordovaInterface cordova, CordovaWebView webView, CordovaPreferences preferences) {
+        this.cordova = cordova;
+        this.webView = webView;
+        this.preferences = preferences;
+        initialize(cordova, webView);
+    }
+
+    public void initialize(CordovaInterface cordova, CordovaWebView webView) {
+    }
+
+    public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
+        return false;
+    }
+
+    public void onActivityResult(int requestCode, int resultCode, Intent intent) {
+    }
+
+    public void onPause(boolean multitasking) {
+    }
+
+    public void onResume(boolean multitasking) {
+    }
+
+    public void onDestroy() {
+    }
+
+    public void onReset() {
+    }
+}
@@ -0,0 +1,21 @@
+package org.apache.cordova;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stand-in for the Cordova class of the same name, with only what the plugin uses.
+ */
+public class CordovaPreferences {
+    private final Map<String, String> mPrefs = new HashMap<String, String>();
+
+    public void set(String name, String value) {
+        mPrefs.put(name.toLowerCase(Locale.ENGLISH), value);
+    }
+
+    public int getInteger(String name, int defaultValue) {
+        String value = mPrefs.get(name.toLowerCase(Locale.ENGLISH));
+        return value != null ? Integer.decode(value) : defaultValue;
+    }
+}
@@ -0,0 +1,8 @@
+package org.apache.cordova;
+
+/**
+ * Stand-in for the Cordova interface of the same name, with only what the plugin uses.
+ */
+public interface CordovaWebView {
+    void sendPluginResult(PluginResult cr, String callbackId);
+}
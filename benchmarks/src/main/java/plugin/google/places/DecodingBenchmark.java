@@ -0,0 +1,67 @@
+package plugin.google.places;
+
+import com.google.android.gms.location.places.AutocompleteFilter;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of the arguments of autocompleteQuery and pickPlace.
+ *
+ * The autocompleteRequest benchmarks build the request of a query with bounds and a filter,
+ * decoded from JSON or taken from a registered search context.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodingBenchmark {
+    private JSONObject mCoordinateBounds;
+    private JSONObject mAutocompleteFilter;
+    private SearchContext mSearchContext;
+
+    @Setup
+    public void setUp() throws JSONException {
+        mCoordinateBounds = Payloads.coordinateBounds();
+        mAutocompleteFilter = Payloads.autocompleteFilter();
+        mSearchContext = SearchContext.decode(new JSONObject()
+                .put("bounds", mCoordinateBounds)
+                .put("filter", mAutocompleteFilter));
+    }
+
+    @Benchmark
+    public LatLngBounds coordinateBounds() throws JSONException {
+        return RequestDecoder.decodeCoordinateBounds(mCoordinateBounds);
+    }
+
+    @Benchmark
+    public AutocompleteFilter autocompleteFilter() throws JSONException {
+        return RequestDecoder.decodeAutocompleteFilter(mAutocompleteFilter);
+    }
+
+    @Benchmark
+    public AutocompleteRequest autocompleteRequest() throws JSONException {
+        LatLngBounds bounds = RequestDecoder.decodeCoordinateBounds(mCoordinateBounds);
+        return new AutocompleteRequest("22 rue de Rivoli", SearchContext.create(bounds, mAutocompleteFilter), ResultOptions.ALL);
+    }
+
+    @Benchmark
+    public AutocompleteRequest autocompleteRequestWithContext() {
+        return new AutocompleteRequest("22 rue de Rivoli", mSearchContext, ResultOptions.ALL);
+    }
+}
@@ -0,0 +1,187 @@
+package plugin.google.places;
+
+import android.location.Location;
+
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.location.places.PlaceLikelihood;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of the results sent to JS, in both formats.
+ *
+ * The list benchmarks follow encodeAutocompletePredictions and encodePlaceLikelihoods
+ * of CordovaGooglePlaces, without the place store. The "topPlaces" ones return the ID, name
+ * and coordinate of the 3 most likely places, as with result options. placeLikelihoodsCached
+ * looks up the likelihoods kept by CurrentPlaceCache instead, as repeated currentPlace calls
+ * made from the same cell do.
+ *
+ * The "Indexed" benchmarks run the whole currentPlace encoding path, storing the places into
+ * a PlaceIndex as they are: whole JSON results index the places they encode, projected results
+ * encode whole only the places not indexed yet (all of them with topPlacesJsonIndexedNew, none
+ * once they were, with topPlacesJsonIndexed).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+    private List<AutocompletePrediction> mPredictions;
+    private List<PlaceLikelihood> mPlaceLikelihoods;
+    private Place mFullPlace;
+    private Place mMinimalPlace;
+    private ResultOptions mTopPlacesOptions;
+    private CurrentPlaceCache mCurrentPlaceCache;
+    private Location mLocation;
+    private PlaceIndex mPlaceIndex;
+
+    @Setup
+    public void setUp() throws JSONException {
+        mPredictions = Payloads.autocompletePredictions(5);
+        mPlaceLikelihoods = Payloads.placeLikelihoods(20);
+        mFullPlace = Payloads.fullPlace(0);
+        mMinimalPlace = Payloads.minimalPlace(0);
+        mTopPlacesOptions = ResultOptions.decode(new JSONObject()
+                .put("fields", new JSONArray().put("placeID").put("name").put("coordinate"))
+                .put("limit", 3));
+
+        mLocation = new Location("fused");
+        mLocation.setLatitude(48.8566);
+        mLocation.setLongitude(2.3522);
+        mLocation.setAccuracy(20);
+        mCurrentPlaceCache = new CurrentPlaceCache();
+        mCurrentPlaceCache.put("currentPlace:json:", mLocation, EncodedResult.json(placeLikelihoodsJson()));
+
+        mPlaceIndex = new PlaceIndex(1000);
+        placeLikelihoodsJsonIndexed();
+    }
+
+    private static void indexWholePlaces(PlaceIndex placeIndex, List<PlaceLikelihood> placeLikelihoods) throws JSONException {
+        for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+            Place place = placeLikelihood.getPlace();
+            if (!placeIndex.contains(place.getId())) {
+                placeIndex.put(place, ResultEncoder.get().place(place).toJson());
+            }
+        }
+    }
+
+    @Benchmark
+    public String autocompletePredictionsJson() throws JSONException {
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        for (AutocompletePrediction prediction : mPredictions) {
+            encoder.autocompletePrediction(prediction);
+        }
+        return encoder.endArray().toJson();
+    }
+
+    @Benchmark
+    public byte[] autocompletePredictionsBinary() {
+        return BinaryResultEncoder.get().autocompletePredictions(mPredictions).toBytes();
+    }
+
+    @Benchmark
+    public String placeLikelihoodsJson() throws JSONException {
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        for (PlaceLikelihood placeLikelihood : mPlaceLikelihoods) {
+            encoder.placeLikelihood(placeLikelihood);
+        }
+        return encoder.endArray().toJson();
+    }
+
+    @Benchmark
+    public String placeLikelihoodsJsonIndexed() throws JSONException {
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        for (PlaceLikelihood placeLikelihood : mPlaceLikelihoods) {
+            Place place = placeLikelihood.getPlace();
+            encoder.beginObject().name("likelihood").value(placeLikelihood.getLikelihood()).name("place");
+            int placeStart = encoder.position();
+            encoder.place(place);
+            mPlaceIndex.put(place, encoder.toJson(placeStart));
+            encoder.endObject();
+        }
+        return encoder.endArray().toJson();
+    }
+
+    @Benchmark
+    public EncodedResult placeLikelihoodsCached() {
+        return mCurrentPlaceCache.get("currentPlace:json:", mLocation, 60000);
+    }
+
+    @Benchmark
+    public byte[] placeLikelihoodsBinary() {
+        return BinaryResultEncoder.get().placeLikelihoods(mPlaceLikelihoods).toBytes();
+    }
+
+    @Benchmark
+    public String topPlacesJson() throws JSONException {
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        for (PlaceLikelihood placeLikelihood : mTopPlacesOptions.trimLikelihoods(mPlaceLikelihoods)) {
+            encoder.placeLikelihood(placeLikelihood, mTopPlacesOptions.fields);
+        }
+        return encoder.endArray().toJson();
+    }
+
+    @Benchmark
+    public String topPlacesJsonIndexed() throws JSONException {
+        List<PlaceLikelihood> placeLikelihoods = mTopPlacesOptions.trimLikelihoods(mPlaceLikelihoods);
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+            encoder.placeLikelihood(placeLikelihood, mTopPlacesOptions.fields);
+        }
+        String result = encoder.endArray().toJson();
+        indexWholePlaces(mPlaceIndex, placeLikelihoods);
+        return result;
+    }
+
+    @Benchmark
+    public String topPlacesJsonIndexedNew() throws JSONException {
+        List<PlaceLikelihood> placeLikelihoods = mTopPlacesOptions.trimLikelihoods(mPlaceLikelihoods);
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+            encoder.placeLikelihood(placeLikelihood, mTopPlacesOptions.fields);
+        }
+        String result = encoder.endArray().toJson();
+        indexWholePlaces(new PlaceIndex(1000), placeLikelihoods);
+        return result;
+    }
+
+    @Benchmark
+    public byte[] topPlacesBinary() {
+        return BinaryResultEncoder.get()
+                .placeLikelihoods(mTopPlacesOptions.trimLikelihoods(mPlaceLikelihoods), mTopPlacesOptions.fields)
+                .toBytes();
+    }
+
+    @Benchmark
+    public String fullPlace() throws JSONException {
+        return ResultEncoder.get().place(mFullPlace).toJson();
+    }
+
+    @Benchmark
+    public String minimalPlace() throws JSONException {
+        return ResultEncoder.get().place(mMinimalPlace).toJson();
+    }
+
+    @Benchmark
+    public String placeTypes() {
+        return ResultEncoder.get().placeTypes(mFullPlace.getPlaceTypes()).toJson();
+    }
+}
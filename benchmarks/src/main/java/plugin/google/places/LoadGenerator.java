@@ -0,0 +1,397 @@
+package plugin.google.places;
+
+import android.app.Activity;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaInterface;
+import org.apache.cordova.CordovaPlugin;
+import org.apache.cordova.CordovaPreferences;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays keystroke traces through the plugin, with a {@link MemoryBackend} standing in for
+ * the Places API, and reports the throughput and tail latency of the calls.
+ *
+ * Traces are text files with one keystroke per line:
+ *
+ *     <offset in milliseconds> <session> <query>
+ *
+ * where the query is the whole text typed so far in the session. Blank lines and lines
+ * starting with # are ignored. Each keystroke is sent to execute() as a typeaheadQuery call
+ * in a typeahead session opened for its session (or as a plain autocompleteQuery call),
+ * and is timed from the call to its final result, as the JS code would see it.
+ *
+ * With --pick, the user of each session then picks one of the predictions of its last
+ * keystroke, PICK_DELAY after typing it: the place is looked up with lookUpPlaces, and
+ * these lookups are timed apart from the keystrokes.
+ *
+ * Options (all optional):
+ *
+ *     --mode=typeahead|autocomplete   the action sent for each keystroke (typeahead)
+ *     --latency=<ms>                  latency of the Places API calls (150)
+ *     --jitter=<ms>                   random latency added to each call (100)
+ *     --error-rate=<ratio>            ratio of calls failing (0.01)
+ *     --seed=<n>                      seed of the latencies and failures (42)
+ *     --speed=<factor>                replay speed, e.g. 10 to type 10 times faster (1)
+ *     --repeat=<n>                    number of times the trace is replayed (1)
+ *     --corpus=<n>                    number of places known to the backend (1000)
+ *     --cache-size=<n>                entries in the autocomplete cache, 0 to disable it (as in config.xml)
+ *     --rate=<n>                      autocomplete calls per second, 0 for no limit (as in config.xml)
+ *     --pick=<index>                  prediction picked at the end of each session, from 0 (none)
+ *     --prefetch=<n>                  number of top predictions prefetched (0)
+ */
+public final class LoadGenerator {
+    private static final String DEFAULT_TRACE = "traces/keystrokes.txt";
+    private static final long DRAIN_TIMEOUT = 30; // seconds
+    private static final long PICK_DELAY = 800; // milliseconds
+
+    private LoadGenerator() {
+    }
+
+    static final class Keystroke {
+        final long offsetMillis;
+        final String session;
+        final String query;
+
+        Keystroke(long offsetMillis, String session, String query) {
+            this.offsetMillis = offsetMillis;
+            this.session = session;
+            this.query = query;
+        }
+    }
+
+    /**
+     * A call sent to execute(), waiting for its final result.
+     */
+    static final class Call {
+        final long startNanos = System.nanoTime();
+        final CountDownLatch done = new CountDownLatch(1);
+        final boolean pick;
+        volatile PluginResult result;
+
+        Call(boolean pick) {
+            this.pick = pick;
+        }
+    }
+
+    /**
+     * The pick of a prediction at the end of a session.
+     */
+    static final class Pick {
+        final long offsetMillis;
+        final String session;
+
+        Pick(long offsetMillis, String session) {
+            this.offsetMillis = offsetMillis;
+            this.session = session;
+        }
+    }
+
+    /**
+     * Stands in for the web view, receiving the results of the calls as the JS bridge would.
+     */
+    static final class Bridge implements CordovaWebView {
+        private final Map<String, Call> mPendingCalls = new ConcurrentHashMap<String, Call>();
+        private final AtomicLong mNextCallbackId = new AtomicLong(1);
+
+        final Metrics.Histogram latency = new Metrics.Histogram(); // microseconds
+        final Metrics.Histogram pickLatency = new Metrics.Histogram(); // microseconds
+        final AtomicLong picks = new AtomicLong();
+        final AtomicLong ok = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong cancels = new AtomicLong();
+        volatile long lastResultNanos;
+
+        Call call(CordovaPlugin plugin, String action, JSONArray args) throws Exception {
+            return call(plugin, action, args, false);
+        }
+
+        Call call(CordovaPlugin plugin, String action, JSONArray args, boolean pick) throws Exception {
+            String callbackId = "GooglePlaces" + mNextCallbackId.getAndIncrement();
+            Call call = new Call(pick);
+            mPendingCalls.put(callbackId, call);
+            if (!plugin.execute(action, args, new CallbackContext(callbackId, this))) {
+                throw new IllegalArgumentException("unknown action: " + action);
+            }
+            return call;
+        }
+
+        int pendingCalls() {
+            return mPendingCalls.size();
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult result, String callbackId) {
+            if (result.getKeepCallback()) {
+                return;
+            }
+            Call call = mPendingCalls.remove(callbackId);
+            if (call == null) {
+                return;
+            }
+            long now = System.nanoTime();
+            call.result = result;
+            if (call.pick) {
+                pickLatency.record((now - call.startNanos) / 1000);
+                picks.incrementAndGet();
+                call.done.countDown();
+                return;
+            }
+            latency.record((now - call.startNanos) / 1000);
+            lastResultNanos = now;
+            if (result.getStatus() == PluginResult.Status.OK.ordinal()) {
+                ok.incrementAndGet();
+            } else if (result.getMessage().contains("\"code\":\"" + CordovaGooglePlaces.ERROR_SUPERSEDED + "\"")
+                    || result.getMessage().contains("\"code\":\"" + CordovaGooglePlaces.ERROR_CANCELED + "\"")) {
+                cancels.incrementAndGet();
+            } else {
+                errors.incrementAndGet();
+            }
+            call.done.countDown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<String, String>();
+        String tracePath = DEFAULT_TRACE;
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.indexOf('=') > 0) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("options are given as --name=value: " + arg);
+            } else {
+                tracePath = arg;
+            }
+        }
+        boolean typeahead = !"autocomplete".equals(option(options, "mode", "typeahead"));
+        long latency = Long.parseLong(option(options, "latency", "150"));
+        long jitter = Long.parseLong(option(options, "jitter", "100"));
+        double errorRate = Double.parseDouble(option(options, "error-rate", "0.01"));
+        long seed = Long.parseLong(option(options, "seed", "42"));
+        double speed = Double.parseDouble(option(options, "speed", "1"));
+        int repeat = Integer.parseInt(option(options, "repeat", "1"));
+        int corpusSize = Integer.parseInt(option(options, "corpus", "1000"));
+        String cacheSize = option(options, "cache-size", null);
+        String rate = option(options, "rate", null);
+        int pickIndex = Integer.parseInt(option(options, "pick", "-1"));
+        int prefetch = Integer.parseInt(option(options, "prefetch", "0"));
+        if (!options.isEmpty()) {
+            throw new IllegalArgumentException("unknown options: " + options.keySet());
+        }
+
+        List<Keystroke> trace = readTrace(tracePath, repeat);
+        List<Pick> picks = pickIndex >= 0 ? picksOf(trace) : new ArrayList<Pick>();
+        final MemoryBackend backend = new MemoryBackend(corpusSize, latency, jitter, errorRate, seed);
+        CordovaGooglePlaces plugin = new CordovaGooglePlaces() {
+            @Override
+            PlacesBackend createBackend() {
+                return backend;
+            }
+        };
+        CordovaPreferences preferences = new CordovaPreferences();
+        if (cacheSize != null) {
+            preferences.set(CordovaGooglePlaces.PREF_AUTOCOMPLETE_CACHE_SIZE, cacheSize);
+        }
+        if (rate != null) {
+            preferences.set(CordovaGooglePlaces.PREF_GEO_DATA_API_RATE, rate);
+        }
+        final Activity activity = new Activity(Files.createTempDirectory("places-load").toFile());
+        Bridge bridge = new Bridge();
+        plugin.privateInitialize("GooglePlaces", new CordovaInterface() {
+            @Override
+            public Activity getActivity() {
+                return activity;
+            }
+
+            @Override
+            public void setActivityResultCallback(CordovaPlugin plugin) {
+            }
+        }, bridge, preferences);
+
+        Map<String, Integer> sessions = new LinkedHashMap<String, Integer>();
+        if (typeahead) {
+            for (Keystroke keystroke : trace) {
+                if (!sessions.containsKey(keystroke.session)) {
+                    Call call = bridge.call(plugin, "openTypeaheadSession", new JSONArray());
+                    call.done.await();
+                    sessions.put(keystroke.session, Integer.valueOf(call.result.getMessage()));
+                }
+            }
+        }
+        plugin.execute("setPrefetchCount", new JSONArray().put(prefetch), new CallbackContext("setPrefetchCount", bridge));
+        // only measure the keystrokes
+        plugin.execute("resetStats", new JSONArray(), new CallbackContext("resetStats", bridge));
+        bridge.latency.reset();
+        bridge.ok.set(0);
+        bridge.errors.set(0);
+        bridge.cancels.set(0);
+
+        long startNanos = System.nanoTime();
+        Map<String, Call> lastCalls = new LinkedHashMap<String, Call>();
+        int nextPick = 0;
+        int requests = 0;
+        for (Keystroke keystroke : trace) {
+            while (nextPick < picks.size() && picks.get(nextPick).offsetMillis <= keystroke.offsetMillis) {
+                pick(plugin, bridge, picks.get(nextPick++), lastCalls, pickIndex, startNanos, speed);
+            }
+            waitUntil(startNanos, keystroke.offsetMillis, speed);
+            Call call;
+            if (typeahead) {
+                call = bridge.call(plugin, "typeaheadQuery", new JSONArray().put(sessions.get(keystroke.session)).put(keystroke.query));
+            } else {
+                call = bridge.call(plugin, "autocompleteQuery", new JSONArray().put(String.valueOf(++requests)).put(keystroke.query));
+            }
+            lastCalls.put(keystroke.session, call);
+        }
+        while (nextPick < picks.size()) {
+            pick(plugin, bridge, picks.get(nextPick++), lastCalls, pickIndex, startNanos, speed);
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT);
+        while (bridge.pendingCalls() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        long unanswered = bridge.pendingCalls();
+        double seconds = (bridge.lastResultNanos - startNanos) / 1e9;
+        long answered = bridge.ok.get() + bridge.errors.get() + bridge.cancels.get();
+        long pickCount = bridge.picks.get();
+        System.out.println(String.format(Locale.ROOT, "trace:      %d keystrokes in %d sessions, replayed at %.1fx",
+                trace.size(), countSessions(trace), speed));
+        System.out.println(String.format(Locale.ROOT, "backend:    %d ms latency + up to %d ms jitter, %.1f%% errors, seed %d",
+                latency, jitter, errorRate * 100, seed));
+        System.out.println(String.format(Locale.ROOT, "calls:      %d %sQuery calls in %.2f s (%.1f calls/s)",
+                trace.size(), typeahead ? "typeahead" : "autocomplete", seconds, answered / seconds));
+        System.out.println(String.format(Locale.ROOT, "results:    %d ok, %d errors, %d canceled or superseded, %d unanswered",
+                bridge.ok.get(), bridge.errors.get(), bridge.cancels.get(), unanswered));
+        System.out.println(String.format(Locale.ROOT, "latency:    p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms",
+                bridge.latency.percentile(50) / 1000.0, bridge.latency.percentile(90) / 1000.0,
+                bridge.latency.percentile(99) / 1000.0, bridge.latency.percentile(100) / 1000.0));
+        if (pickIndex >= 0) {
+            System.out.println(String.format(Locale.ROOT, "picks:      %d lookups of prediction #%d, %d prefetched, p50 %.1f ms, p90 %.1f ms, max %.1f ms",
+                    pickCount, pickIndex, prefetch, bridge.pickLatency.percentile(50) / 1000.0,
+                    bridge.pickLatency.percentile(90) / 1000.0, bridge.pickLatency.percentile(100) / 1000.0));
+        }
+        Call stats = bridge.call(plugin, "getStats", new JSONArray());
+        stats.done.await();
+        plugin.onDestroy();
+        System.out.println("getStats:   " + new JSONObject(stats.result.getMessage()).toString(2));
+    }
+
+    private static void waitUntil(long startNanos, long offsetMillis, double speed) throws InterruptedException {
+        long dueNanos = startNanos + (long)(offsetMillis / speed * 1000000);
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Looks up the prediction picked among the final predictions of the last keystroke of
+     * a session, if any.
+     */
+    private static void pick(CordovaPlugin plugin, Bridge bridge, Pick pick, Map<String, Call> lastCalls,
+                             int pickIndex, long startNanos, double speed) throws Exception {
+        waitUntil(startNanos, pick.offsetMillis, speed);
+        Call lastCall = lastCalls.get(pick.session);
+        PluginResult result = lastCall != null ? lastCall.result : null;
+        if (result == null || result.getStatus() != PluginResult.Status.OK.ordinal()) {
+            return;
+        }
+        JSONArray predictions = new JSONArray(result.getMessage());
+        if (predictions.length() == 0) {
+            return;
+        }
+        String placeId = predictions.getJSONObject(Math.min(pickIndex, predictions.length() - 1)).getString("placeID");
+        bridge.call(plugin, "lookUpPlaces", new JSONArray().put(new JSONArray().put(placeId)), true);
+    }
+
+    /**
+     * The picks at the end of each session of a trace, in order.
+     */
+    static List<Pick> picksOf(List<Keystroke> trace) {
+        Map<String, Long> lastOffsets = new LinkedHashMap<String, Long>();
+        for (Keystroke keystroke : trace) {
+            lastOffsets.put(keystroke.session, keystroke.offsetMillis);
+        }
+        List<Pick> picks = new ArrayList<Pick>();
+        for (Map.Entry<String, Long> entry : lastOffsets.entrySet()) {
+            picks.add(new Pick(entry.getValue() + PICK_DELAY, entry.getKey()));
+        }
+        Collections.sort(picks, new Comparator<Pick>() {
+            @Override
+            public int compare(Pick pick1, Pick pick2) {
+                return Long.compare(pick1.offsetMillis, pick2.offsetMillis);
+            }
+        });
+        return picks;
+    }
+
+    private static String option(Map<String, String> options, String name, String defaultValue) {
+        String value = options.remove(name);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Reads a trace, repeated the given number of times back to back.
+     */
+    static List<Keystroke> readTrace(String path, int repeat) throws IOException {
+        List<Keystroke> keystrokes = new ArrayList<Keystroke>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(Paths.get(path)), StandardCharsets.UTF_8));
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(" ", 3);
+                if (fields.length < 3) {
+                    throw new IOException(path + ":" + lineNumber + ": expected <offset> <session> <query>");
+                }
+                keystrokes.add(new Keystroke(Long.parseLong(fields[0]), fields[1], fields[2]));
+            }
+        } finally {
+            reader.close();
+        }
+
+        long duration = keystrokes.isEmpty() ? 0 : keystrokes.get(keystrokes.size() - 1).offsetMillis;
+        int count = keystrokes.size();
+        for (int i = 1; i < repeat; i++) {
+            for (int j = 0; j < count; j++) {
+                Keystroke keystroke = keystrokes.get(j);
+                keystrokes.add(new Keystroke(keystroke.offsetMillis + i * (duration + 1000), keystroke.session + "#" + i, keystroke.query));
+            }
+        }
+        return keystrokes;
+    }
+
+    private static int countSessions(List<Keystroke> trace) {
+        Map<String, Boolean> sessions = new LinkedHashMap<String, Boolean>();
+        for (Keystroke keystroke : trace) {
+            sessions.put(keystroke.session, Boolean.TRUE);
+        }
+        return sessions.size();
+    }
+}
@@ -0,0 +1,150 @@
+package plugin.google.places;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.places.AutocompleteFilter;
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.location.places.PlaceLikelihood;
+import com.google.android.gms.location.places.PlacePhotoMetadata;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * In-memory stand-in for the Places API, for load tests.
+ *
+ * Places come from a fixed corpus of addresses, and autocomplete predictions are the first
+ * places whose address contains the query. Each place has PHOTOS_PER_PLACE photos of
+ * PHOTO_WIDTH x PHOTO_HEIGHT pixels. Every call is answered on the main looper after
+ * the configured latency, plus a random jitter, and fails with the configured rate. Given
+ * a seed, the latencies and failures are the same from one run to the next (as long as
+ * calls are made in the same order).
+ */
+class MemoryBackend implements PlacesBackend {
+    static final int MAX_PREDICTIONS = 5;
+    static final int CURRENT_PLACES = 20;
+    static final int PHOTOS_PER_PLACE = 3;
+    static final int PHOTO_WIDTH = 1600;
+    static final int PHOTO_HEIGHT = 1200;
+
+    private final long mLatencyMillis;
+    private final long mJitterMillis;
+    private final double mErrorRate;
+    private final Random mRandom;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    // places of the corpus by ID, and their address in lower case
+    private final Map<String, Place> mPlaces = new LinkedHashMap<String, Place>();
+    private final Map<Place, String> mAddresses = new LinkedHashMap<Place, String>();
+
+    MemoryBackend(int corpusSize, long latencyMillis, long jitterMillis, double errorRate, long seed) {
+        mLatencyMillis = latencyMillis;
+        mJitterMillis = jitterMillis;
+        mErrorRate = errorRate;
+        mRandom = new Random(seed);
+        for (int i = 0; i < corpusSize; i++) {
+            Place place = Payloads.minimalPlace(i);
+            mPlaces.put(place.getId(), place);
+            mAddresses.put(place, place.getAddress().toString().toLowerCase(Locale.FRANCE));
+        }
+    }
+
+    @Override
+    public Request getCurrentPlace(Callback<List<PlaceLikelihood>> callback) {
+        return deliver(Payloads.placeLikelihoods(CURRENT_PLACES), callback);
+    }
+
+    @Override
+    public Request getAutocompletePredictions(String query, LatLngBounds bounds, AutocompleteFilter filter, Callback<List<AutocompletePrediction>> callback) {
+        String needle = query.toLowerCase(Locale.FRANCE);
+        List<AutocompletePrediction> predictions = new ArrayList<AutocompletePrediction>(MAX_PREDICTIONS);
+        for (Map.Entry<Place, String> entry : mAddresses.entrySet()) {
+            if (entry.getValue().contains(needle)) {
+                predictions.add(predictionOf(entry.getKey()));
+                if (predictions.size() == MAX_PREDICTIONS) {
+                    break;
+                }
+            }
+        }
+        return deliver(predictions, callback);
+    }
+
+    @Override
+    public Request getPlacesById(String[] placeIds, Callback<List<Place>> callback) {
+        List<Place> places = new ArrayList<Place>(placeIds.length);
+        for (String placeId : placeIds) {
+            Place place = mPlaces.get(placeId);
+            if (place != null) {
+                places.add(place);
+            }
+        }
+        return deliver(places, callback);
+    }
+
+    @Override
+    public Request getPlacePhotos(String placeId, Callback<List<PlacePhotoMetadata>> callback) {
+        List<PlacePhotoMetadata> photos = new ArrayList<PlacePhotoMetadata>(PHOTOS_PER_PLACE);
+        if (mPlaces.containsKey(placeId)) {
+            for (int i = 0; i < PHOTOS_PER_PLACE; i++) {
+                photos.add(new Payloads.FakePlacePhotoMetadata(PHOTO_WIDTH, PHOTO_HEIGHT, "Photo " + (i + 1) + " by a Places user"));
+            }
+        }
+        return deliver(photos, callback);
+    }
+
+    @Override
+    public Request getScaledPhoto(PlacePhotoMetadata photo, int maxWidth, int maxHeight, Callback<Bitmap> callback) {
+        double scale = Math.min(1, Math.min((double)maxWidth / photo.getMaxWidth(), (double)maxHeight / photo.getMaxHeight()));
+        Bitmap bitmap = Bitmap.createBitmap((int)Math.round(photo.getMaxWidth() * scale),
+                (int)Math.round(photo.getMaxHeight() * scale), Bitmap.Config.ARGB_8888);
+        return deliver(bitmap, callback);
+    }
+
+    private <T> Request deliver(final T result, final Callback<T> callback) {
+        final boolean fails;
+        final long delay;
+        synchronized (mRandom) {
+            fails = mRandom.nextDouble() < mErrorRate;
+            delay = mLatencyMillis + (mJitterMillis > 0 ? (long)(mRandom.nextDouble() * mJitterMillis) : 0);
+        }
+
+        final Runnable delivery = new Runnable() {
+            @Override
+            public void run() {
+                if (fails) {
+                    callback.onFailure(new Status(CommonStatusCodes.ERROR, "injected failure"));
+                } else {
+                    callback.onResult(result);
+                }
+            }
+        };
+        mHandler.postDelayed(delivery, delay);
+
+        return new Request() {
+            @Override
+            public void cancel() {
+                mHandler.removeCallbacks(delivery);
+            }
+        };
+    }
+
+    private static AutocompletePrediction predictionOf(Place place) {
+        String address = place.getAddress().toString();
+        int comma = address.indexOf(", ");
+        return new Payloads.FakeAutocompletePrediction(
+                address.substring(0, comma),
+                address.substring(comma + 2),
+                place.getId(),
+                place.getPlaceTypes());
+    }
+}
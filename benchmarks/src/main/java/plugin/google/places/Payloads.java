@@ -0,0 +1,331 @@
+package plugin.google.places;
+
+import android.net.Uri;
+import android.text.style.CharacterStyle;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.PendingResult;
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.location.places.PlaceLikelihood;
+import com.google.android.gms.location.places.PlacePhotoMetadata;
+import com.google.android.gms.location.places.PlacePhotoResult;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Realistic payloads for the benchmarks, modeled on actual Places API responses.
+ */
+final class Payloads {
+    private Payloads() {
+    }
+
+    static final class FakePlace implements Place {
+        private final String mId;
+        private final String mName;
+        private final String mAddress;
+        private final String mPhoneNumber;
+        private final List<Integer> mTypes;
+        private final LatLng mLatLng;
+        private final LatLngBounds mViewport;
+        private final Uri mWebsiteUri;
+        private final float mRating;
+        private final int mPriceLevel;
+
+        FakePlace(String id, String name, String address, String phoneNumber, List<Integer> types, LatLng latLng,
+                  LatLngBounds viewport, Uri websiteUri, float rating, int priceLevel) {
+            mId = id;
+            mName = name;
+            mAddress = address;
+            mPhoneNumber = phoneNumber;
+            mTypes = types;
+            mLatLng = latLng;
+            mViewport = viewport;
+            mWebsiteUri = websiteUri;
+            mRating = rating;
+            mPriceLevel = priceLevel;
+        }
+
+        @Override
+        public String getId() {
+            return mId;
+        }
+
+        @Override
+        public List<Integer> getPlaceTypes() {
+            return mTypes;
+        }
+
+        @Override
+        public CharSequence getAddress() {
+            return mAddress;
+        }
+
+        @Override
+        public Locale getLocale() {
+            return Locale.FRANCE;
+        }
+
+        @Override
+        public CharSequence getName() {
+            return mName;
+        }
+
+        @Override
+        public LatLng getLatLng() {
+            return mLatLng;
+        }
+
+        @Override
+        public LatLngBounds getViewport() {
+            return mViewport;
+        }
+
+        @Override
+        public Uri getWebsiteUri() {
+            return mWebsiteUri;
+        }
+
+        @Override
+        public CharSequence getPhoneNumber() {
+            return mPhoneNumber;
+        }
+
+        @Override
+        public float getRating() {
+            return mRating;
+        }
+
+        @Override
+        public int getPriceLevel() {
+            return mPriceLevel;
+        }
+
+        @Override
+        public CharSequence getAttributions() {
+            return null;
+        }
+
+        @Override
+        public Place freeze() {
+            return this;
+        }
+
+        @Override
+        public boolean isDataValid() {
+            return true;
+        }
+    }
+
+    static final class FakePlaceLikelihood implements PlaceLikelihood {
+        private final Place mPlace;
+        private final float mLikelihood;
+
+        FakePlaceLikelihood(Place place, float likelihood) {
+            mPlace = place;
+            mLikelihood = likelihood;
+        }
+
+        @Override
+        public float getLikelihood() {
+            return mLikelihood;
+        }
+
+        @Override
+        public Place getPlace() {
+            return mPlace;
+        }
+
+        @Override
+        public PlaceLikelihood freeze() {
+            return this;
+        }
+
+        @Override
+        public boolean isDataValid() {
+            return true;
+        }
+    }
+
+    static final class FakeAutocompletePrediction implements AutocompletePrediction {
+        private final String mPrimaryText;
+        private final String mSecondaryText;
+        private final String mPlaceId;
+        private final List<Integer> mTypes;
+
+        FakeAutocompletePrediction(String primaryText, String secondaryText, String placeId, List<Integer> types) {
+            mPrimaryText = primaryText;
+            mSecondaryText = secondaryText;
+            mPlaceId = placeId;
+            mTypes = types;
+        }
+
+        @Override
+        public CharSequence getFullText(CharacterStyle matchStyle) {
+            return mPrimaryText + ", " + mSecondaryText;
+        }
+
+        @Override
+        public CharSequence getPrimaryText(CharacterStyle matchStyle) {
+            return mPrimaryText;
+        }
+
+        @Override
+        public CharSequence getSecondaryText(CharacterStyle matchStyle) {
+            return mSecondaryText;
+        }
+
+        @Override
+        public String getPlaceId() {
+            return mPlaceId;
+        }
+
+        @Override
+        public List<Integer> getPlaceTypes() {
+            return mTypes;
+        }
+
+        @Override
+        public AutocompletePrediction freeze() {
+            return this;
+        }
+
+        @Override
+        public boolean isDataValid() {
+            return true;
+        }
+    }
+
+    static final class FakePlacePhotoMetadata implements PlacePhotoMetadata {
+        private final int mMaxWidth;
+        private final int mMaxHeight;
+        private final String mAttributions;
+
+        FakePlacePhotoMetadata(int maxWidth, int maxHeight, String attributions) {
+            mMaxWidth = maxWidth;
+            mMaxHeight = maxHeight;
+            mAttributions = attributions;
+        }
+
+        @Override
+        public int getMaxWidth() {
+            return mMaxWidth;
+        }
+
+        @Override
+        public int getMaxHeight() {
+            return mMaxHeight;
+        }
+
+        @Override
+        public CharSequence getAttributions() {
+            return mAttributions;
+        }
+
+        @Override
+        public PendingResult<PlacePhotoResult> getScaledPhoto(GoogleApiClient client, int width, int height) {
+            throw new UnsupportedOperationException("the Places API is not available on the JVM");
+        }
+
+        @Override
+        public PlacePhotoMetadata freeze() {
+            return this;
+        }
+
+        @Override
+        public boolean isDataValid() {
+            return true;
+        }
+    }
+
+    private static final String[] STREETS = {
+            "Rue de Rivoli", "Boulevard Saint-Germain", "Avenue des Champs-Élysées", "Rue du Faubourg Saint-Honoré",
+            "Quai de la Tournelle", "Rue Mouffetard", "Place de la Bastille", "Rue Oberkampf",
+    };
+
+    /**
+     * A restaurant with all its details, including its viewport and website.
+     */
+    static Place fullPlace(int i) {
+        double latitude = 48.8566 + i * 0.0007;
+        double longitude = 2.3522 - i * 0.0005;
+        return new FakePlace(
+                "ChIJD7fiBh9u5kcRYJSMaMOCCw" + (char)('A' + i % 26),
+                "Le Petit Bistrot n°" + (i + 1),
+                (i * 7 % 120 + 1) + " " + STREETS[i % STREETS.length] + ", 75004 Paris, France",
+                "+33 1 42 72 " + (10 + i % 90) + " " + (10 + i * 3 % 90),
+                Arrays.asList(Place.TYPE_RESTAURANT, Place.TYPE_FOOD, Place.TYPE_POINT_OF_INTEREST, Place.TYPE_ESTABLISHMENT),
+                new LatLng(latitude, longitude),
+                new LatLngBounds(new LatLng(latitude - 0.00135, longitude - 0.00135), new LatLng(latitude + 0.00135, longitude + 0.00135)),
+                Uri.parse("http://www.le-petit-bistrot-" + (i + 1) + ".fr/"),
+                3.5f + (i % 15) / 10f,
+                i % 5);
+    }
+
+    /**
+     * A place with only its name, address, types and coordinate: no viewport, website nor rating.
+     */
+    static Place minimalPlace(int i) {
+        return new FakePlace(
+                "EiZSdWUgZGUgUml2b2xpLCBQYXJpcywgRnJhbmNl" + i,
+                (i * 7 % 120 + 1) + " " + STREETS[i % STREETS.length],
+                (i * 7 % 120 + 1) + " " + STREETS[i % STREETS.length] + ", 75001 Paris, France",
+                null,
+                Arrays.asList(Place.TYPE_STREET_ADDRESS),
+                new LatLng(48.8606 + i * 0.0003, 2.3376 + i * 0.0004),
+                null,
+                null,
+                0,
+                -1);
+    }
+
+    /**
+     * A currentPlace response: mostly full places, along with a few bare addresses.
+     */
+    static List<PlaceLikelihood> placeLikelihoods(int count) {
+        List<PlaceLikelihood> placeLikelihoods = new ArrayList<PlaceLikelihood>(count);
+        for (int i = 0; i < count; i++) {
+            Place place = i % 4 == 3 ? minimalPlace(i) : fullPlace(i);
+            placeLikelihoods.add(new FakePlaceLikelihood(place, 0.9f / (i + 1)));
+        }
+        return placeLikelihoods;
+    }
+
+    /**
+     * An autocompleteQuery response for a partially typed address.
+     */
+    static List<AutocompletePrediction> autocompletePredictions(int count) {
+        List<AutocompletePrediction> predictions = new ArrayList<AutocompletePrediction>(count);
+        for (int i = 0; i < count; i++) {
+            predictions.add(new FakeAutocompletePrediction(
+                    STREETS[i % STREETS.length],
+                    "Paris, France",
+                    "EiZSdWUgZGUgUml2b2xpLCBQYXJpcywgRnJhbmNl" + i,
+                    Arrays.asList(Place.TYPE_ROUTE, Place.TYPE_GEOCODE)));
+        }
+        return predictions;
+    }
+
+    /**
+     * The bounds argument, as decoded by Cordova from the JS call.
+     */
+    static JSONObject coordinateBounds() throws JSONException {
+        return new JSONObject("{\"northEast\":{\"latitude\":48.9021,\"longitude\":2.4699},"
+                + "\"southWest\":{\"latitude\":48.8156,\"longitude\":2.2241}}");
+    }
+
+    /**
+     * The filter argument, as decoded by Cordova from the JS call.
+     */
+    static JSONObject autocompleteFilter() throws JSONException {
+        return new JSONObject("{\"type\":\"address\",\"country\":\"FR\"}");
+    }
+}
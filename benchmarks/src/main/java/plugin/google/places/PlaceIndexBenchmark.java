@@ -0,0 +1,78 @@
+package plugin.google.places;
+
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.json.JSONException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in the spatial index of places, as made by a map screen on every pan: places
+ * scattered over Paris, looked up in a viewport of about 1 km² and around its center.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaceIndexBenchmark {
+    @Param({"1000", "5000"})
+    public int places;
+
+    private PlaceIndex mIndex;
+    private LatLngBounds mViewport;
+    private LatLng mCenter;
+
+    @Setup
+    public void setUp() throws JSONException {
+        mIndex = new PlaceIndex(places);
+        Random random = new Random(42);
+        for (int i = 0; i < places; i++) {
+            Place place = new Payloads.FakePlace(
+                    "place" + i,
+                    "Place n°" + i,
+                    (i % 120 + 1) + " Rue de Rivoli, 75001 Paris, France",
+                    null,
+                    Arrays.asList(i % 3 == 0 ? Place.TYPE_RESTAURANT : Place.TYPE_STORE),
+                    new LatLng(48.815 + random.nextDouble() * 0.087, 2.224 + random.nextDouble() * 0.246),
+                    null,
+                    null,
+                    0,
+                    -1);
+            mIndex.put(place, ResultEncoder.get().place(place).toJson());
+        }
+        mViewport = new LatLngBounds(new LatLng(48.8566, 2.3522), new LatLng(48.8656, 2.3658));
+        mCenter = mViewport.getCenter();
+    }
+
+    @Benchmark
+    public String placesInBounds() {
+        return mIndex.placesInBounds(mViewport, null);
+    }
+
+    @Benchmark
+    public String placesInBoundsWithTypes() {
+        return mIndex.placesInBounds(mViewport, new int[] { Place.TYPE_RESTAURANT });
+    }
+
+    @Benchmark
+    public String nearestPlaces() throws JSONException {
+        return mIndex.nearestPlaces(mCenter, 10);
+    }
+}
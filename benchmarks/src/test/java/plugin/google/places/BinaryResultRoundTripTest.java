@@ -0,0 +1,186 @@
+package plugin.google.places;
+
+import android.net.Uri;
+
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.location.places.PlaceLikelihood;
+import com.google.android.gms.maps.model.LatLng;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Decodes the binary results of BinaryResultEncoder with decodeBinaryResult (run by node,
+ * from www/GooglePlaces.js), and checks them against the results of ResultEncoder, field by
+ * field, whole and with field masks.
+ *
+ * Skipped when node is not installed.
+ */
+public class BinaryResultRoundTripTest {
+    private static final File PLUGIN_SCRIPT = new File("../www/GooglePlaces.js");
+
+    private static final int[] PREDICTION_FIELDS = {
+            ResultOptions.ALL_FIELDS,
+            ResultOptions.PRIMARY_TEXT | ResultOptions.SECONDARY_TEXT,
+            ResultOptions.FULL_TEXT | ResultOptions.PLACE_ID | ResultOptions.TYPES,
+            0,
+    };
+
+    private static final int[] PLACE_FIELDS = {
+            ResultOptions.ALL_FIELDS,
+            ResultOptions.NAME | ResultOptions.PLACE_ID,
+            ResultOptions.RATING | ResultOptions.PRICE_LEVEL | ResultOptions.COORDINATE | ResultOptions.VIEWPORT,
+            ResultOptions.PHONE_NUMBER | ResultOptions.FORMATTED_ADDRESS | ResultOptions.TYPES | ResultOptions.WEBSITE
+                    | ResultOptions.ATTRIBUTIONS,
+            0,
+    };
+
+    @BeforeClass
+    public static void checkNode() {
+        boolean installed;
+        try {
+            installed = new ProcessBuilder("node", "--version").start().waitFor() == 0;
+        } catch (IOException e) {
+            installed = false;
+        } catch (InterruptedException e) {
+            installed = false;
+        }
+        assumeTrue("node is not installed", installed);
+    }
+
+    @Test
+    public void autocompletePredictions() throws Exception {
+        List<AutocompletePrediction> predictions = Payloads.autocompletePredictions(20);
+        List<byte[]> binaryResults = new ArrayList<byte[]>();
+        List<String> jsonResults = new ArrayList<String>();
+        for (int fields : PREDICTION_FIELDS) {
+            binaryResults.add(BinaryResultEncoder.get().autocompletePredictions(predictions, fields).toBytes());
+            ResultEncoder encoder = ResultEncoder.get().beginArray();
+            for (AutocompletePrediction prediction : predictions) {
+                encoder.autocompletePrediction(prediction, fields);
+            }
+            jsonResults.add(encoder.endArray().toJson());
+        }
+        assertSameResults(PREDICTION_FIELDS, jsonResults, decode(binaryResults));
+    }
+
+    @Test
+    public void placeLikelihoods() throws Exception {
+        List<PlaceLikelihood> placeLikelihoods = new ArrayList<PlaceLikelihood>(Payloads.placeLikelihoods(20));
+        // characters taking 3 and 4 bytes in UTF-8, and types without a name
+        Place place = new Payloads.FakePlace("ChIJ51cu8IcbXWARiRtXIothAS4", "寿司 🍣 Sushi", "東京都中央区築地, Japan",
+                null, Arrays.asList(Place.TYPE_RESTAURANT, -1, 9999), new LatLng(35.6654, 139.7707), null,
+                Uri.parse("https://例え.jp/"), 5, 4);
+        placeLikelihoods.add(new Payloads.FakePlaceLikelihood(place, 0.01f));
+
+        List<byte[]> binaryResults = new ArrayList<byte[]>();
+        List<String> jsonResults = new ArrayList<String>();
+        for (int fields : PLACE_FIELDS) {
+            binaryResults.add(BinaryResultEncoder.get().placeLikelihoods(placeLikelihoods, fields).toBytes());
+            ResultEncoder encoder = ResultEncoder.get().beginArray();
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                encoder.placeLikelihood(placeLikelihood, fields);
+            }
+            jsonResults.add(encoder.endArray().toJson());
+        }
+        assertSameResults(PLACE_FIELDS, jsonResults, decode(binaryResults));
+    }
+
+    @Test
+    public void emptyResults() throws Exception {
+        List<byte[]> binaryResults = Arrays.asList(
+                BinaryResultEncoder.get().autocompletePredictions(new ArrayList<AutocompletePrediction>()).toBytes(),
+                BinaryResultEncoder.get().placeLikelihoods(new ArrayList<PlaceLikelihood>()).toBytes());
+        assertSameResults(new int[] { ResultOptions.ALL_FIELDS, ResultOptions.ALL_FIELDS }, Arrays.asList("[]", "[]"),
+                decode(binaryResults));
+    }
+
+    private static void assertSameResults(int[] fields, List<String> jsonResults, JSONArray decodedResults) throws JSONException {
+        assertEquals(jsonResults.size(), decodedResults.length());
+        for (int i = 0; i < jsonResults.size(); i++) {
+            assertSame("fields " + Integer.toHexString(fields[i]), new JSONArray(jsonResults.get(i)), decodedResults.get(i));
+        }
+    }
+
+    private static void assertSame(String path, Object expected, Object actual) throws JSONException {
+        if (expected instanceof JSONObject && actual instanceof JSONObject) {
+            JSONObject expectedObject = (JSONObject)expected;
+            JSONObject actualObject = (JSONObject)actual;
+            Set<String> keys = keys(expectedObject);
+            assertEquals(path, keys, keys(actualObject));
+            for (String key : keys) {
+                assertSame(path + "." + key, expectedObject.get(key), actualObject.get(key));
+            }
+        } else if (expected instanceof JSONArray && actual instanceof JSONArray) {
+            JSONArray expectedArray = (JSONArray)expected;
+            JSONArray actualArray = (JSONArray)actual;
+            assertEquals(path + ".length", expectedArray.length(), actualArray.length());
+            for (int i = 0; i < expectedArray.length(); i++) {
+                assertSame(path + "[" + i + "]", expectedArray.get(i), actualArray.get(i));
+            }
+        } else if (expected instanceof Number && actual instanceof Number) {
+            // doubles are written by Java and JavaScript alike, but parsed as integers when round
+            assertEquals(path, ((Number)expected).doubleValue(), ((Number)actual).doubleValue(), 0);
+        } else {
+            assertEquals(path, expected, actual);
+        }
+    }
+
+    private static Set<String> keys(JSONObject object) throws JSONException {
+        Set<String> keys = new TreeSet<String>();
+        JSONArray names = object.names();
+        for (int i = 0; names != null && i < names.length(); i++) {
+            keys.add(names.getString(i));
+        }
+        return keys;
+    }
+
+    /**
+     * Decodes the binary results with a single node process.
+     */
+    private static JSONArray decode(List<byte[]> binaryResults) throws Exception {
+        File script = new File(BinaryResultRoundTripTest.class.getResource("decode-binary-results.js").toURI());
+        Process process = new ProcessBuilder("node", script.getPath(), PLUGIN_SCRIPT.getPath())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        OutputStream input = process.getOutputStream();
+        for (byte[] binaryResult : binaryResults) {
+            input.write(Base64.getEncoder().encode(binaryResult));
+            input.write('\n');
+        }
+        input.close();
+        String output = readFully(process.getInputStream());
+        assertEquals("node exit status", 0, process.waitFor());
+        return new JSONArray(output);
+    }
+
+    private static String readFully(InputStream stream) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = stream.read(buffer)) != -1) {
+            output.write(buffer, 0, n);
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
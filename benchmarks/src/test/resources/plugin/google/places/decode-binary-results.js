@@ -0,0 +1,31 @@
+// Decodes the binary results read from stdin (base64, one per line) with the
+// `decodeBinaryResult` function of www/GooglePlaces.js, given as argument, and writes
+// them to stdout as a JSON array.
+"use strict";
+
+const fs = require("fs");
+
+const source = fs
+  .readFileSync(process.argv[2], "utf8")
+  .replace(
+    'import isFunction from "lodash/isFunction";',
+    'const isFunction = value => typeof value === "function";',
+  );
+const decodeBinaryResult = new Function(
+  "module",
+  "cordova",
+  "performance",
+  source + "\nreturn decodeBinaryResult;",
+)({ exports: {} }, {}, undefined);
+
+const results = fs
+  .readFileSync(0, "utf8")
+  .split("\n")
+  .filter(line => line)
+  .map(line => {
+    const bytes = Buffer.from(line, "base64");
+    return decodeBinaryResult(
+      bytes.buffer.slice(bytes.byteOffset, bytes.byteOffset + bytes.length),
+    );
+  });
+process.stdout.write(JSON.stringify(results));
@@ -0,0 +1,238 @@
+package plugin.google.places;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.location.places.Places;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Manages the connection of the GoogleApiClient used by the plugin.
+ *
+ * The client connects as soon as the plugin is loaded, and calls made before it is connected
+ * are queued until it is. After a connection failure, queued and new calls fail right away
+ * with the "unavailable" code, while the connection is retried with an exponential backoff.
+ * The client is disconnected while the app is paused.
+ *
+ * The connection state is only touched from the main looper, where the GoogleApiClient
+ * callbacks are delivered too.
+ */
+class ApiConnection implements GoogleApiClient.ConnectionCallbacks, GoogleApiClient.OnConnectionFailedListener {
+    private static final String TAG = CordovaGooglePlaces.TAG;
+    private static final long MIN_RECONNECT_DELAY = 1000; // milliseconds
+    private static final long MAX_RECONNECT_DELAY = 60 * 1000; // milliseconds
+
+    /**
+     * A Places API call, to be run once the client is connected.
+     */
+    abstract static class Call {
+        final CallbackContext callbackContext;
+
+        Call(CallbackContext callbackContext) {
+            this.callbackContext = callbackContext;
+        }
+
+        abstract void run();
+    }
+
+    private final GoogleApiClient mClient;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final List<Call> mPendingCalls = new ArrayList<Call>();
+    private final long mCreatedAt = SystemClock.elapsedRealtime();
+
+    private boolean mStarted;
+    private volatile ConnectionResult mLastFailure;
+    private long mReconnectDelay = MIN_RECONNECT_DELAY;
+
+    // read from any thread by encodeStats()
+    private volatile long mFirstConnectionTime = -1;
+    private volatile int mConnections;
+    private volatile int mFailures;
+
+    private final Runnable mReconnect = new Runnable() {
+        @Override
+        public void run() {
+            connect();
+        }
+    };
+
+    ApiConnection(Context context) {
+        mClient = new GoogleApiClient
+                .Builder(context)
+                .addApi(Places.GEO_DATA_API)
+                .addApi(Places.PLACE_DETECTION_API)
+                .addConnectionCallbacks(this)
+                .addOnConnectionFailedListener(this)
+                .build();
+    }
+
+    GoogleApiClient getClient() {
+        return mClient;
+    }
+
+    boolean isConnected() {
+        return mClient.isConnected();
+    }
+
+    /**
+     * Connects the client, in the background.
+     */
+    void start() {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mStarted = true;
+                connect();
+            }
+        });
+    }
+
+    /**
+     * Disconnects the client. Queued calls are kept until the next start().
+     */
+    void stop() {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mStarted = false;
+                mHandler.removeCallbacks(mReconnect);
+                mClient.disconnect();
+            }
+        });
+    }
+
+    /**
+     * Disconnects the client for good, canceling the queued calls.
+     */
+    void close() {
+        stop();
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                failPendingCalls(CordovaGooglePlaces.ERROR_CANCELED, "the plugin was destroyed");
+            }
+        });
+    }
+
+    void execute(final Call call) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mClient.isConnected()) {
+                    runUnlessAbandoned(call);
+                } else if (mLastFailure != null) {
+                    fail(call, CordovaGooglePlaces.ERROR_UNAVAILABLE, failureMessage(mLastFailure));
+                } else {
+                    mPendingCalls.add(call);
+                }
+            }
+        });
+    }
+
+    private void connect() {
+        if (mStarted && !mClient.isConnected() && !mClient.isConnecting()) {
+            mClient.connect();
+        }
+    }
+
+    @Override
+    public void onConnected(@Nullable Bundle bundle) {
+        mConnections++;
+        if (mFirstConnectionTime < 0) {
+            mFirstConnectionTime = SystemClock.elapsedRealtime() - mCreatedAt;
+        }
+        mLastFailure = null;
+        mReconnectDelay = MIN_RECONNECT_DELAY;
+
+        List<Call> calls = new ArrayList<Call>(mPendingCalls);
+        mPendingCalls.clear();
+        for (Call call : calls) {
+            runUnlessAbandoned(call);
+        }
+    }
+
+    @Override
+    public void onConnectionSuspended(int cause) {
+        // the client reconnects by itself: calls are queued in the meantime
+        Log.w(TAG, "Connection to Google Play Services suspended (cause " + cause + ")");
+    }
+
+    @Override
+    public void onConnectionFailed(@NonNull ConnectionResult connectionResult) {
+        Log.e(TAG, "Could not initalize Google Places SDK: " + connectionResult.getErrorMessage());
+        mFailures++;
+        mLastFailure = connectionResult;
+        failPendingCalls(CordovaGooglePlaces.ERROR_UNAVAILABLE, failureMessage(connectionResult));
+
+        if (mStarted) {
+            mHandler.removeCallbacks(mReconnect);
+            mHandler.postDelayed(mReconnect, mReconnectDelay);
+            mReconnectDelay = Math.min(mReconnectDelay * 2, MAX_RECONNECT_DELAY);
+        }
+    }
+
+    JSONObject encodeStats() throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("connected", mClient.isConnected());
+        result.put("connections", mConnections);
+        result.put("failures", mFailures);
+        if (mFirstConnectionTime >= 0) {
+            result.put("timeToConnect", mFirstConnectionTime);
+        }
+        ConnectionResult lastFailure = mLastFailure;
+        if (lastFailure != null) {
+            result.put("lastError", failureMessage(lastFailure));
+        }
+        return result;
+    }
+
+    /**
+     * Time elapsed since the plugin was loaded, in milliseconds.
+     */
+    long uptime() {
+        return SystemClock.elapsedRealtime() - mCreatedAt;
+    }
+
+    private void failPendingCalls(String code, String message) {
+        List<Call> calls = new ArrayList<Call>(mPendingCalls);
+        mPendingCalls.clear();
+        for (Call call : calls) {
+            fail(call, code, message);
+        }
+    }
+
+    private static void runUnlessAbandoned(Call call) {
+        // the caller may have given up while the call was queued
+        if (!call.callbackContext.isFinished()) {
+            call.run();
+        }
+    }
+
+    private static void fail(Call call, String code, String message) {
+        if (!call.callbackContext.isFinished()) {
+            call.callbackContext.error(CordovaGooglePlaces.encodeError(code, message));
+        }
+    }
+
+    private static String failureMessage(ConnectionResult connectionResult) {
+        String message = connectionResult.getErrorMessage();
+        if (message == null) {
+            message = "could not connect to Google Play Services (error " + connectionResult.getErrorCode() + ")";
+        }
+        return message;
+    }
+}
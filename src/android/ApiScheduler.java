@@ -0,0 +1,413 @@
+package plugin.google.places;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.places.AutocompleteFilter;
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.location.places.PlaceLikelihood;
+import com.google.android.gms.location.places.PlacePhotoMetadata;
+import com.google.android.gms.location.places.PlacesStatusCodes;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules the Places API calls made by the plugin, so that bursts stay within quota and
+ * background work does not eat the budget of the calls the user waits for.
+ *
+ * Each call has a priority: calls are made highest priority first, at most
+ * MAX_CONCURRENT_CALLS at a time, and each one takes a token from the bucket of its API
+ * (GeoDataApi or PlaceDetectionApi), refilled at the configured rate. Lower priorities must
+ * leave a reserve of tokens in the bucket: when interactive calls drain it, calls of lower
+ * priority are delayed until it refills.
+ *
+ * Queued calls are shed, and fail with the THROTTLED status, when the queue is full (lowest
+ * priority and oldest first) and when background calls waited too long. A quota error from
+ * the Places API empties the bucket of its API, so that the following calls wait for it
+ * to refill instead of failing too. When memory runs critically low, the queued background
+ * calls are shed as well.
+ *
+ * The queue is only touched from the main looper, where results are delivered too.
+ */
+class ApiScheduler implements MemoryGovernor.Consumer {
+    enum Priority {
+        // calls the user is waiting for, such as autocomplete queries
+        INTERACTIVE(0),
+        NORMAL(0.25),
+        // calls made ahead of time or for watches, which can wait
+        BACKGROUND(0.5);
+
+        // share of the bucket capacity left for higher priorities
+        final double reserve;
+
+        Priority(double reserve) {
+            this.reserve = reserve;
+        }
+    }
+
+    // status code of the calls shed by the scheduler, outside of the Play Services ranges
+    static final int THROTTLED = 19000;
+
+    static final int MAX_CONCURRENT_CALLS = 4;
+    static final int MAX_QUEUED_CALLS = 32;
+    static final long MAX_BACKGROUND_WAIT = 10000; // milliseconds
+
+    private static final int GEO_DATA_API = 0;
+    private static final int PLACE_DETECTION_API = 1;
+
+    /**
+     * Tokens refilled continuously at a given rate, up to a capacity of twice the rate
+     * (one token at least). A rate of zero disables the bucket: it never runs out of tokens.
+     */
+    static final class TokenBucket {
+        private final double mRate; // tokens per millisecond
+        private final double mCapacity;
+        private double mTokens;
+        private long mRefilledAt = SystemClock.elapsedRealtime();
+
+        TokenBucket(double ratePerSecond) {
+            mRate = ratePerSecond / 1000;
+            mCapacity = Math.max(1, 2 * ratePerSecond);
+            mTokens = mCapacity;
+        }
+
+        /**
+         * Takes a token if more than reserve (a share of the capacity) would be left,
+         * otherwise returns the time until then, in milliseconds.
+         */
+        long take(double reserve) {
+            if (mRate <= 0) {
+                return 0;
+            }
+            refill();
+            double needed = 1 + reserve * mCapacity;
+            if (mTokens >= needed) {
+                mTokens--;
+                return 0;
+            }
+            return Math.max(1, (long)Math.ceil((needed - mTokens) / mRate));
+        }
+
+        void empty() {
+            refill();
+            mTokens = 0;
+        }
+
+        private void refill() {
+            long now = SystemClock.elapsedRealtime();
+            mTokens = Math.min(mCapacity, mTokens + (now - mRefilledAt) * mRate);
+            mRefilledAt = now;
+        }
+    }
+
+    /**
+     * A call waiting in the queue, or in flight.
+     */
+    private abstract class Call<T> implements PlacesBackend.Request, PlacesBackend.Callback<T> {
+        final Priority priority;
+        final int api;
+        final long queuedAt = SystemClock.elapsedRealtime();
+        private final PlacesBackend.Callback<T> mCallback;
+        private PlacesBackend.Request mRequest;
+        private boolean mDelayed;
+        private boolean mDone;
+
+        Call(Priority priority, int api, PlacesBackend.Callback<T> callback) {
+            this.priority = priority;
+            this.api = api;
+            mCallback = callback;
+        }
+
+        abstract PlacesBackend.Request start(PlacesBackend backend);
+
+        void submit() {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    enqueue(Call.this);
+                }
+            });
+        }
+
+        void run() {
+            mInFlight++;
+            mRequest = start(mBackend);
+        }
+
+        void shed(String message) {
+            mShed.incrementAndGet();
+            mDone = true;
+            mCallback.onFailure(new Status(THROTTLED, message));
+        }
+
+        @Override
+        public void cancel() {
+            mHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (mDone) {
+                        return;
+                    }
+                    mDone = true;
+                    if (mRequest != null) {
+                        // in flight: canceled calls deliver no result
+                        mRequest.cancel();
+                        finished();
+                    } else {
+                        mQueue.remove(Call.this);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onResult(T result) {
+            if (!mDone) {
+                mDone = true;
+                finished();
+                mCallback.onResult(result);
+            }
+        }
+
+        @Override
+        public void onFailure(Status status) {
+            if (!mDone) {
+                mDone = true;
+                if (isQuotaError(status)) {
+                    // wait for the bucket to refill before making calls again
+                    mQuotaErrors.incrementAndGet();
+                    mBuckets[api].empty();
+                }
+                finished();
+                mCallback.onFailure(status);
+            }
+        }
+    }
+
+    private final PlacesBackend mBackend;
+    private final TokenBucket[] mBuckets;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    // queued calls, in the order they were submitted
+    private final ArrayDeque<Call<?>> mQueue = new ArrayDeque<Call<?>>();
+    private int mInFlight;
+
+    private final AtomicLong mCalls = new AtomicLong();
+    private final AtomicLong mDelayed = new AtomicLong();
+    private final AtomicLong mShed = new AtomicLong();
+    private final AtomicLong mQuotaErrors = new AtomicLong();
+
+    private final Runnable mDispatch = new Runnable() {
+        @Override
+        public void run() {
+            dispatch();
+        }
+    };
+
+    ApiScheduler(PlacesBackend backend, double geoDataRate, double placeDetectionRate) {
+        mBackend = backend;
+        mBuckets = new TokenBucket[] { new TokenBucket(geoDataRate), new TokenBucket(placeDetectionRate) };
+    }
+
+    static boolean isQuotaError(Status status) {
+        int code = status.getStatusCode();
+        return code == PlacesStatusCodes.USAGE_LIMIT_EXCEEDED
+                || code == PlacesStatusCodes.RATE_LIMIT_EXCEEDED
+                || code == PlacesStatusCodes.DEVICE_RATE_LIMIT_EXCEEDED;
+    }
+
+    /**
+     * The backend making calls of the given priority through the scheduler.
+     */
+    PlacesBackend backend(final Priority priority) {
+        return new PlacesBackend() {
+            @Override
+            public Request getCurrentPlace(Callback<List<PlaceLikelihood>> callback) {
+                Call<List<PlaceLikelihood>> call = new Call<List<PlaceLikelihood>>(priority, PLACE_DETECTION_API, callback) {
+                    @Override
+                    PlacesBackend.Request start(PlacesBackend backend) {
+                        return backend.getCurrentPlace(this);
+                    }
+                };
+                call.submit();
+                return call;
+            }
+
+            @Override
+            public Request getAutocompletePredictions(final String query, final LatLngBounds bounds, final AutocompleteFilter filter,
+                                                      Callback<List<AutocompletePrediction>> callback) {
+                Call<List<AutocompletePrediction>> call = new Call<List<AutocompletePrediction>>(priority, GEO_DATA_API, callback) {
+                    @Override
+                    PlacesBackend.Request start(PlacesBackend backend) {
+                        return backend.getAutocompletePredictions(query, bounds, filter, this);
+                    }
+                };
+                call.submit();
+                return call;
+            }
+
+            @Override
+            public Request getPlacesById(final String[] placeIds, Callback<List<Place>> callback) {
+                Call<List<Place>> call = new Call<List<Place>>(priority, GEO_DATA_API, callback) {
+                    @Override
+                    PlacesBackend.Request start(PlacesBackend backend) {
+                        return backend.getPlacesById(placeIds, this);
+                    }
+                };
+                call.submit();
+                return call;
+            }
+
+            @Override
+            public Request getPlacePhotos(final String placeId, Callback<List<PlacePhotoMetadata>> callback) {
+                Call<List<PlacePhotoMetadata>> call = new Call<List<PlacePhotoMetadata>>(priority, GEO_DATA_API, callback) {
+                    @Override
+                    PlacesBackend.Request start(PlacesBackend backend) {
+                        return backend.getPlacePhotos(placeId, this);
+                    }
+                };
+                call.submit();
+                return call;
+            }
+
+            @Override
+            public Request getScaledPhoto(final PlacePhotoMetadata photo, final int maxWidth, final int maxHeight, Callback<Bitmap> callback) {
+                Call<Bitmap> call = new Call<Bitmap>(priority, GEO_DATA_API, callback) {
+                    @Override
+                    PlacesBackend.Request start(PlacesBackend backend) {
+                        return backend.getScaledPhoto(photo, maxWidth, maxHeight, this);
+                    }
+                };
+                call.submit();
+                return call;
+            }
+        };
+    }
+
+    private void enqueue(Call<?> call) {
+        mCalls.incrementAndGet();
+        if (mQueue.size() >= MAX_QUEUED_CALLS) {
+            Call<?> shed = lowestPriorityCall();
+            if (shed.priority.compareTo(call.priority) < 0) {
+                call.shed("too many Places API calls waiting");
+                return;
+            }
+            mQueue.remove(shed);
+            shed.shed("too many Places API calls waiting");
+        }
+        mQueue.add(call);
+        dispatch();
+    }
+
+    // the oldest call of the lowest priority in the queue
+    private Call<?> lowestPriorityCall() {
+        Call<?> lowest = null;
+        for (Call<?> call : mQueue) {
+            if (lowest == null || call.priority.compareTo(lowest.priority) > 0) {
+                lowest = call;
+            }
+        }
+        return lowest;
+    }
+
+    private void finished() {
+        mInFlight--;
+        dispatch();
+    }
+
+    /**
+     * Makes the queued calls which can be made, highest priority first, and schedules the
+     * next dispatch for the calls waiting for tokens.
+     */
+    private void dispatch() {
+        long now = SystemClock.elapsedRealtime();
+        long wait = Long.MAX_VALUE;
+        // calls waiting for tokens hold back the later calls of their API, and those of lower priority
+        boolean[] waiting = new boolean[mBuckets.length];
+        for (Priority priority : Priority.values()) {
+            Iterator<Call<?>> iterator = mQueue.iterator();
+            while (iterator.hasNext() && mInFlight < MAX_CONCURRENT_CALLS) {
+                Call<?> call = iterator.next();
+                if (call.priority != priority || waiting[call.api]) {
+                    continue;
+                }
+                if (priority == Priority.BACKGROUND && now - call.queuedAt > MAX_BACKGROUND_WAIT) {
+                    iterator.remove();
+                    call.shed("background Places API call waited too long");
+                    continue;
+                }
+                long callWait = mBuckets[call.api].take(priority.reserve);
+                if (callWait > 0) {
+                    if (!call.mDelayed) {
+                        call.mDelayed = true;
+                        mDelayed.incrementAndGet();
+                    }
+                    waiting[call.api] = true;
+                    wait = Math.min(wait, callWait);
+                    continue;
+                }
+                iterator.remove();
+                call.run();
+            }
+        }
+        mHandler.removeCallbacks(mDispatch);
+        if (wait != Long.MAX_VALUE) {
+            mHandler.postDelayed(mDispatch, wait);
+        }
+    }
+
+    @Override
+    public void trimMemory(int stage) {
+        if (stage < MemoryGovernor.STAGE_CRITICAL) {
+            return;
+        }
+        List<Call<?>> shed = new ArrayList<Call<?>>();
+        Iterator<Call<?>> iterator = mQueue.iterator();
+        while (iterator.hasNext()) {
+            Call<?> call = iterator.next();
+            if (call.priority == Priority.BACKGROUND) {
+                iterator.remove();
+                shed.add(call);
+            }
+        }
+        // failed once out of the queue, which their callbacks may add calls to
+        for (Call<?> call : shed) {
+            call.shed("background Places API call shed on low memory");
+        }
+    }
+
+    @Override
+    public JSONObject encodeMemoryStats() throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("queuedCalls", mQueue.size());
+        result.put("callsInFlight", mInFlight);
+        return result;
+    }
+
+    JSONObject encodeStats() throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("calls", mCalls.get());
+        result.put("delayed", mDelayed.get());
+        result.put("shed", mShed.get());
+        result.put("quotaErrors", mQuotaErrors.get());
+        return result;
+    }
+
+    void resetStats() {
+        mCalls.set(0);
+        mDelayed.set(0);
+        mShed.set(0);
+        mQuotaErrors.set(0);
+    }
+}
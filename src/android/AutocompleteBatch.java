@@ -0,0 +1,253 @@
+package plugin.google.places;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.places.AutocompletePrediction;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.PluginResult;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the autocomplete queries of an autocompleteBatch call, a few at a time, and streams
+ * their predictions back in chunks.
+ *
+ * Queries are decoded one at a time, as they are run, and results are sent as soon as a chunk
+ * is full or CHUNK_INTERVAL elapsed: besides the queries themselves, memory use does not grow
+ * with the size of the batch. Chunks are sent as { results, completed, total } objects, each
+ * result being { index, predictions } or { index, error }, in the order they complete. The
+ * last chunk also has done: true and a summary.
+ *
+ * The batch state is only touched from the main looper, where the backend results are
+ * delivered too.
+ */
+class AutocompleteBatch {
+    interface Delegate {
+        void batchDone(AutocompleteBatch batch);
+    }
+
+    static final int DEFAULT_PARALLELISM = 4;
+    static final int MAX_PARALLELISM = 16;
+    static final int DEFAULT_CHUNK_SIZE = 50;
+    static final long CHUNK_INTERVAL = 500; // milliseconds
+
+    final String id;
+    private final JSONArray mQueries;
+    private final int mParallelism;
+    private final int mChunkSize;
+    private final PlacesBackend mBackend;
+    private final CallbackContext mCallbackContext;
+    private final Delegate mDelegate;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final long mStartedAt = SystemClock.elapsedRealtime();
+
+    // calls in flight, by query index
+    private final Map<Integer, PlacesBackend.Request> mRequests = new HashMap<Integer, PlacesBackend.Request>();
+    private int mNext;
+    private int mSucceeded;
+    private int mFailed;
+    private boolean mCanceled;
+    private boolean mDone;
+    // encoded results of the current chunk, comma-separated
+    private final StringBuilder mChunk = new StringBuilder();
+    private int mChunkResults;
+
+    private final Runnable mFlush = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    AutocompleteBatch(String id, JSONArray queries, int parallelism, int chunkSize, PlacesBackend backend,
+                      CallbackContext callbackContext, Delegate delegate) {
+        this.id = id;
+        mQueries = queries;
+        mParallelism = parallelism;
+        mChunkSize = chunkSize;
+        mBackend = backend;
+        mCallbackContext = callbackContext;
+        mDelegate = delegate;
+    }
+
+    void start() {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                runQueries();
+            }
+        });
+    }
+
+    /**
+     * Cancels the queries in flight and those not run yet, and ends the batch.
+     */
+    void cancel() {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mDone) {
+                    return;
+                }
+                mCanceled = true;
+                for (PlacesBackend.Request request : mRequests.values()) {
+                    request.cancel();
+                }
+                mRequests.clear();
+                finish();
+            }
+        });
+    }
+
+    private void runQueries() {
+        while (!mCanceled && mRequests.size() < mParallelism && mNext < mQueries.length()) {
+            final int index = mNext++;
+            AutocompleteRequest request;
+            try {
+                request = decodeQuery(mQueries.get(index));
+            } catch (JSONException e) {
+                failed(index, null, e.getMessage());
+                continue;
+            }
+            PlacesBackend.Request call = mBackend.getAutocompletePredictions(request.query, request.bounds, request.filter,
+                    new PlacesBackend.Callback<List<AutocompletePrediction>>() {
+                        @Override
+                        public void onResult(List<AutocompletePrediction> predictions) {
+                            if (mRequests.remove(index) == null) {
+                                return;
+                            }
+                            try {
+                                ResultEncoder encoder = ResultEncoder.get().beginObject()
+                                        .name("index").value(index)
+                                        .name("predictions").beginArray();
+                                for (AutocompletePrediction prediction : predictions) {
+                                    encoder.autocompletePrediction(prediction);
+                                }
+                                add(encoder.endArray().endObject().toJson());
+                                mSucceeded++;
+                            } catch (JSONException e) {
+                                failed(index, null, e.getMessage());
+                            }
+                            runQueries();
+                        }
+
+                        @Override
+                        public void onFailure(Status status) {
+                            if (mRequests.remove(index) == null) {
+                                return;
+                            }
+                            failed(index, CordovaGooglePlaces.errorCodeOf(status), CordovaGooglePlaces.failureMessageOf(status));
+                            runQueries();
+                        }
+                    });
+            // results are delivered later on, from the main looper
+            mRequests.put(index, call);
+        }
+        if (!mCanceled && mRequests.isEmpty() && mNext == mQueries.length()) {
+            finish();
+        }
+    }
+
+    /**
+     * Decodes a query, given either as a string or as a { query, bounds, filter } object.
+     */
+    private static AutocompleteRequest decodeQuery(Object rawQuery) throws JSONException {
+        if (rawQuery instanceof String) {
+            return new AutocompleteRequest((String)rawQuery, SearchContext.NONE, ResultOptions.ALL);
+        }
+        if (!(rawQuery instanceof JSONObject)) {
+            throw new JSONException("queries should be strings or objects");
+        }
+        JSONObject query = (JSONObject)rawQuery;
+        Object text = query.opt("query");
+        if (!(text instanceof String)) {
+            throw new JSONException("\"query\" should be a string");
+        }
+        return new AutocompleteRequest((String)text, SearchContext.decode(query), ResultOptions.ALL);
+    }
+
+    private void failed(int index, String code, String message) {
+        mFailed++;
+        try {
+            ResultEncoder encoder = ResultEncoder.get().beginObject()
+                    .name("index").value(index)
+                    .name("error").beginObject();
+            if (code != null) {
+                encoder.field("code", code);
+            }
+            add(encoder.field("message", message != null ? message : "query failed").endObject().endObject().toJson());
+        } catch (JSONException e) {
+            // cannot happen: indexes are finite numbers
+        }
+    }
+
+    private void add(String encodedResult) {
+        if (mChunkResults > 0) {
+            mChunk.append(',');
+        }
+        mChunk.append(encodedResult);
+        mChunkResults++;
+        if (mChunkResults >= mChunkSize) {
+            flush();
+        } else if (mChunkResults == 1) {
+            mHandler.postDelayed(mFlush, CHUNK_INTERVAL);
+        }
+    }
+
+    private void flush() {
+        mHandler.removeCallbacks(mFlush);
+        if (mChunkResults > 0 && !mDone) {
+            send(encodeChunk().endObject().toJson(), true);
+        }
+    }
+
+    private void finish() {
+        mHandler.removeCallbacks(mFlush);
+        mDone = true;
+        try {
+            int completed = mSucceeded + mFailed;
+            String chunk = encodeChunk()
+                    .name("done").json("true")
+                    .name("summary").beginObject()
+                    .name("total").value(mQueries.length())
+                    .name("succeeded").value(mSucceeded)
+                    .name("failed").value(mFailed)
+                    .name("canceled").value(mQueries.length() - completed)
+                    .name("time").value(SystemClock.elapsedRealtime() - mStartedAt)
+                    .endObject()
+                    .endObject().toJson();
+            send(chunk, false);
+        } catch (JSONException e) {
+            mCallbackContext.error(e.getMessage());
+        }
+        mDelegate.batchDone(this);
+    }
+
+    // the fields of a chunk, leaving its object open
+    private ResultEncoder encodeChunk() {
+        ResultEncoder encoder = ResultEncoder.get().beginObject().name("results").beginArray().json(mChunk.toString()).endArray();
+        try {
+            encoder.name("completed").value(mSucceeded + mFailed).name("total").value(mQueries.length());
+        } catch (JSONException e) {
+            // cannot happen: counts are finite numbers
+        }
+        mChunk.setLength(0);
+        mChunkResults = 0;
+        return encoder;
+    }
+
+    private void send(String chunk, boolean keepCallback) {
+        PluginResult result = new PluginResult(PluginResult.Status.OK, new ResultEncoder.EncodedJSONObject(chunk));
+        result.setKeepCallback(keepCallback);
+        mCallbackContext.sendPluginResult(result);
+    }
+}
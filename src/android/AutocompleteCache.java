@@ -0,0 +1,132 @@
+package plugin.google.places;
+
+import android.os.SystemClock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bounded cache of encoded autocomplete predictions.
+ *
+ * Entries are evicted in least-recently-used order once the cache is full,
+ * and are ignored (and dropped) once they are older than the configured TTL.
+ * Under memory pressure, the least recently used half of the entries is dropped, and then
+ * all of them.
+ */
+class AutocompleteCache implements MemoryGovernor.Consumer {
+    private final int mMaxEntries;
+    private final long mTtlMillis;
+    private final LinkedHashMap<String, CacheEntry> mEntries;
+
+    private static class CacheEntry {
+        final EncodedResult predictions;
+        final long createdAt;
+
+        CacheEntry(EncodedResult predictions, long createdAt) {
+            this.predictions = predictions;
+            this.createdAt = createdAt;
+        }
+    }
+
+    AutocompleteCache(int maxEntries, long ttlMillis) {
+        mMaxEntries = maxEntries;
+        mTtlMillis = ttlMillis;
+        mEntries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                return size() > mMaxEntries;
+            }
+        };
+    }
+
+    boolean isEnabled() {
+        return mMaxEntries > 0 && mTtlMillis > 0;
+    }
+
+    synchronized EncodedResult get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        CacheEntry entry = mEntries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, SystemClock.elapsedRealtime())) {
+            mEntries.remove(key);
+            return null;
+        }
+        return entry.predictions;
+    }
+
+    synchronized void put(String key, EncodedResult predictions) {
+        if (!isEnabled()) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        mEntries.put(key, new CacheEntry(predictions, now));
+
+        // opportunistically drop expired entries, least recently used first
+        Iterator<CacheEntry> it = mEntries.values().iterator();
+        while (it.hasNext() && isExpired(it.next(), now)) {
+            it.remove();
+        }
+    }
+
+    synchronized void clear() {
+        mEntries.clear();
+    }
+
+    synchronized int size() {
+        return mEntries.size();
+    }
+
+    @Override
+    public synchronized void trimMemory(int stage) {
+        if (stage >= MemoryGovernor.STAGE_LOW) {
+            mEntries.clear();
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        Iterator<CacheEntry> it = mEntries.values().iterator();
+        while (it.hasNext()) {
+            if (isExpired(it.next(), now)) {
+                it.remove();
+            }
+        }
+        int excess = mEntries.size() - mEntries.size() / 2;
+        it = mEntries.values().iterator();
+        for (int i = 0; i < excess; i++) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    @Override
+    public synchronized JSONObject encodeMemoryStats() throws JSONException {
+        long bytes = 0;
+        for (CacheEntry entry : mEntries.values()) {
+            bytes += entry.predictions.byteCount();
+        }
+        JSONObject result = new JSONObject();
+        result.put("entries", mEntries.size());
+        result.put("bytes", bytes);
+        return result;
+    }
+
+    private boolean isExpired(CacheEntry entry, long now) {
+        return now - entry.createdAt > mTtlMillis;
+    }
+
+    /**
+     * Builds the cache key for a query: the normalized query text, followed by the
+     * search bounds and the filter (type and country) of its context.
+     */
+    static String keyFor(String query, SearchContext context) {
+        return query.trim().toLowerCase(Locale.ROOT) + context.key;
+    }
+}
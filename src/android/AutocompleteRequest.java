@@ -0,0 +1,28 @@
+package plugin.google.places;
+
+import com.google.android.gms.location.places.AutocompleteFilter;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+/**
+ * A decoded autocompleteQuery(query, bounds, filter, options) call.
+ */
+class AutocompleteRequest {
+    final String query;
+    final LatLngBounds bounds;
+    final AutocompleteFilter filter;
+    final ResultOptions options;
+    final String cacheKey;
+    // identifies the filter of the request, empty without filter
+    final String filterKey;
+
+    AutocompleteRequest(String query, SearchContext context, ResultOptions options) {
+        this.query = query;
+        this.bounds = context.bounds;
+        this.filter = context.filter;
+        this.options = options;
+        String cacheKey = AutocompleteCache.keyFor(query, context);
+        // the same predictions, with other options, are other results
+        this.cacheKey = options.key.isEmpty() ? cacheKey : cacheKey + "|" + options.key;
+        this.filterKey = context.filterKey;
+    }
+}
@@ -0,0 +1,383 @@
+package plugin.google.places;
+
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.location.places.PlaceLikelihood;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of result lists, decoded by www/GooglePlaces.js into the same
+ * objects as the JSON results.
+ *
+ * Results are laid out by columns (all the names, then all the IDs, etc.), after a header:
+ *
+ * - magic "GP", format version (1 byte), result kind (1 byte), number of items (varint)
+ * - string table of the place type names used by the items: count (varint), then strings
+ *
+ * Integers are unsigned LEB128 varints, doubles are big-endian IEEE 754, and strings are
+ * the varint length of their UTF-8 bytes plus one (0 standing for a missing string), followed
+ * by these bytes. Lists of types are the varint count plus one (0 when missing), followed by
+ * the varint index of each type in the string table.
+ *
+ * Predictions ({@link #KIND_PREDICTIONS}) columns: fullText, primaryText, secondaryText,
+ * placeID, types.
+ *
+ * Likelihoods ({@link #KIND_LIKELIHOODS}) columns: likelihood (doubles), then the places
+ * columns: name, placeID, phoneNumber, formattedAddress, rating (doubles, NaN when missing),
+ * types, priceLevel (byte, 0xFF when missing), coordinate (presence byte, then two doubles
+ * when present), website, viewport (presence byte, then four doubles), attributions.
+ *
+ * The columns of the fields left out by a field mask (see {@link ResultOptions}) hold missing
+ * values, so that the format is the same whatever the fields.
+ *
+ * Like {@link ResultEncoder}, encoders are thread-confined and not reentrant.
+ */
+final class BinaryResultEncoder {
+    static final int VERSION = 1;
+    static final int KIND_PREDICTIONS = 1;
+    static final int KIND_LIKELIHOODS = 2;
+
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final int NO_PRICE_LEVEL = 0xFF;
+
+    private static final ThreadLocal<BinaryResultEncoder> ENCODERS = new ThreadLocal<BinaryResultEncoder>() {
+        @Override
+        protected BinaryResultEncoder initialValue() {
+            return new BinaryResultEncoder();
+        }
+    };
+
+    private byte[] mBuffer = new byte[1024];
+    private int mLength;
+
+    // index in the string table of each type, plus one (0 when not in the table)
+    private int[] mTypeIndexes = new int[64];
+    private int[] mTableTypes = new int[16];
+    private int mTableSize;
+
+    private BinaryResultEncoder() {
+    }
+
+    static BinaryResultEncoder get() {
+        BinaryResultEncoder encoder = ENCODERS.get();
+        if (encoder.mBuffer.length > MAX_RETAINED_CAPACITY) {
+            encoder.mBuffer = new byte[1024];
+        }
+        encoder.mLength = 0;
+        Arrays.fill(encoder.mTypeIndexes, 0);
+        encoder.mTableSize = 0;
+        return encoder;
+    }
+
+    byte[] toBytes() {
+        return Arrays.copyOf(mBuffer, mLength);
+    }
+
+    // ## Results
+
+    BinaryResultEncoder autocompletePredictions(List<AutocompletePrediction> predictions) {
+        return autocompletePredictions(predictions, ResultOptions.ALL_FIELDS);
+    }
+
+    /**
+     * Encodes the given fields of the predictions (see {@link ResultOptions}): the columns of
+     * the others hold missing values, without reading the predictions.
+     */
+    BinaryResultEncoder autocompletePredictions(List<AutocompletePrediction> predictions, int fields) {
+        int count = predictions.size();
+        boolean hasTypes = (fields & ResultOptions.TYPES) != 0;
+        if (hasTypes) {
+            for (AutocompletePrediction prediction : predictions) {
+                addTypes(prediction.getPlaceTypes());
+            }
+        }
+        header(KIND_PREDICTIONS, count);
+
+        if ((fields & ResultOptions.FULL_TEXT) != 0) {
+            for (AutocompletePrediction prediction : predictions) {
+                string(prediction.getFullText(null));
+            }
+        } else {
+            missing(count);
+        }
+        if ((fields & ResultOptions.PRIMARY_TEXT) != 0) {
+            for (AutocompletePrediction prediction : predictions) {
+                string(prediction.getPrimaryText(null));
+            }
+        } else {
+            missing(count);
+        }
+        if ((fields & ResultOptions.SECONDARY_TEXT) != 0) {
+            for (AutocompletePrediction prediction : predictions) {
+                string(prediction.getSecondaryText(null));
+            }
+        } else {
+            missing(count);
+        }
+        if ((fields & ResultOptions.PLACE_ID) != 0) {
+            for (AutocompletePrediction prediction : predictions) {
+                string(prediction.getPlaceId());
+            }
+        } else {
+            missing(count);
+        }
+        if (hasTypes) {
+            for (AutocompletePrediction prediction : predictions) {
+                types(prediction.getPlaceTypes());
+            }
+        } else {
+            missing(count);
+        }
+        return this;
+    }
+
+    BinaryResultEncoder placeLikelihoods(List<PlaceLikelihood> placeLikelihoods) {
+        return placeLikelihoods(placeLikelihoods, ResultOptions.ALL_FIELDS);
+    }
+
+    /**
+     * Encodes the likelihoods and the given fields of their places (see {@link ResultOptions}):
+     * the columns of the others hold missing values, without reading the places.
+     */
+    BinaryResultEncoder placeLikelihoods(List<PlaceLikelihood> placeLikelihoods, int fields) {
+        int count = placeLikelihoods.size();
+        boolean hasTypes = (fields & ResultOptions.TYPES) != 0;
+        if (hasTypes) {
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                addTypes(placeLikelihood.getPlace().getPlaceTypes());
+            }
+        }
+        header(KIND_LIKELIHOODS, count);
+
+        for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+            float64(placeLikelihood.getLikelihood());
+        }
+        if ((fields & ResultOptions.NAME) != 0) {
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                string(placeLikelihood.getPlace().getName());
+            }
+        } else {
+            missing(count);
+        }
+        if ((fields & ResultOptions.PLACE_ID) != 0) {
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                string(placeLikelihood.getPlace().getId());
+            }
+        } else {
+            missing(count);
+        }
+        if ((fields & ResultOptions.PHONE_NUMBER) != 0) {
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                string(placeLikelihood.getPlace().getPhoneNumber());
+            }
+        } else {
+            missing(count);
+        }
+        if ((fields & ResultOptions.FORMATTED_ADDRESS) != 0) {
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                string(placeLikelihood.getPlace().getAddress());
+            }
+        } else {
+            missing(count);
+        }
+        for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+            float rating = (fields & ResultOptions.RATING) != 0 ? placeLikelihood.getPlace().getRating() : 0;
+            float64(rating != 0.0 ? rating : Double.NaN);
+        }
+        if (hasTypes) {
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                types(placeLikelihood.getPlace().getPlaceTypes());
+            }
+        } else {
+            missing(count);
+        }
+        for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+            int priceLevel = (fields & ResultOptions.PRICE_LEVEL) != 0 ? placeLikelihood.getPlace().getPriceLevel() : -1;
+            byte1(ResultEncoder.priceLevel(priceLevel) != null ? priceLevel : NO_PRICE_LEVEL);
+        }
+        if ((fields & ResultOptions.COORDINATE) != 0) {
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                LatLng latLng = placeLikelihood.getPlace().getLatLng();
+                byte1(latLng != null ? 1 : 0);
+                if (latLng != null) {
+                    coordinate(latLng);
+                }
+            }
+        } else {
+            missing(count);
+        }
+        if ((fields & ResultOptions.WEBSITE) != 0) {
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                Place place = placeLikelihood.getPlace();
+                string(place.getWebsiteUri() != null ? place.getWebsiteUri().toString() : null);
+            }
+        } else {
+            missing(count);
+        }
+        if ((fields & ResultOptions.VIEWPORT) != 0) {
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                LatLngBounds viewport = placeLikelihood.getPlace().getViewport();
+                byte1(viewport != null ? 1 : 0);
+                if (viewport != null) {
+                    coordinate(viewport.northeast);
+                    coordinate(viewport.southwest);
+                }
+            }
+        } else {
+            missing(count);
+        }
+        if ((fields & ResultOptions.ATTRIBUTIONS) != 0) {
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                string(placeLikelihood.getPlace().getAttributions());
+            }
+        } else {
+            missing(count);
+        }
+        return this;
+    }
+
+    // ## Primitives
+
+    private void header(int kind, int count) {
+        byte1('G');
+        byte1('P');
+        byte1(VERSION);
+        byte1(kind);
+        varint(count);
+        varint(mTableSize);
+        for (int i = 0; i < mTableSize; i++) {
+            string(ResultEncoder.placeType(mTableTypes[i]));
+        }
+    }
+
+    // a column of missing strings, types, coordinates or viewports, which are all a 0 byte
+    private void missing(int count) {
+        ensureCapacity(count);
+        Arrays.fill(mBuffer, mLength, mLength + count, (byte)0);
+        mLength += count;
+    }
+
+    private void addTypes(List<Integer> types) {
+        if (types == null) {
+            return;
+        }
+        for (int i = 0, n = types.size(); i < n; i++) {
+            int type = types.get(i);
+            if (type < 0) {
+                // unknown types are all encoded as "other"
+                type = Place.TYPE_OTHER;
+            }
+            if (type >= mTypeIndexes.length) {
+                mTypeIndexes = Arrays.copyOf(mTypeIndexes, Math.max(type + 1, mTypeIndexes.length * 2));
+            }
+            if (mTypeIndexes[type] == 0) {
+                if (mTableSize == mTableTypes.length) {
+                    mTableTypes = Arrays.copyOf(mTableTypes, mTableSize * 2);
+                }
+                mTableTypes[mTableSize++] = type;
+                mTypeIndexes[type] = mTableSize;
+            }
+        }
+    }
+
+    private void types(List<Integer> types) {
+        if (types == null) {
+            varint(0);
+            return;
+        }
+        int n = types.size();
+        varint(n + 1);
+        for (int i = 0; i < n; i++) {
+            int type = types.get(i);
+            varint(mTypeIndexes[type < 0 ? Place.TYPE_OTHER : type] - 1);
+        }
+    }
+
+    private void coordinate(LatLng latLng) {
+        float64(latLng.latitude);
+        float64(latLng.longitude);
+    }
+
+    private void string(CharSequence value) {
+        if (value == null) {
+            varint(0);
+            return;
+        }
+        int n = value.length();
+        varint(utf8Length(value) + 1);
+        ensureCapacity(n * 3);
+        byte[] buffer = mBuffer;
+        int pos = mLength;
+        for (int i = 0; i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer[pos++] = (byte)c;
+            } else if (c < 0x800) {
+                buffer[pos++] = (byte)(0xC0 | (c >> 6));
+                buffer[pos++] = (byte)(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[pos++] = (byte)(0xF0 | (codePoint >> 18));
+                buffer[pos++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[pos++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[pos++] = (byte)(0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[pos++] = (byte)(0xE0 | (c >> 12));
+                buffer[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+                buffer[pos++] = (byte)(0x80 | (c & 0x3F));
+            }
+        }
+        mLength = pos;
+    }
+
+    // same as the encoding loop above (lone surrogates take 3 bytes)
+    private static int utf8Length(CharSequence value) {
+        int length = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void varint(int value) {
+        ensureCapacity(5);
+        while ((value & ~0x7F) != 0) {
+            mBuffer[mLength++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        mBuffer[mLength++] = (byte)value;
+    }
+
+    private void float64(double value) {
+        ensureCapacity(8);
+        long bits = Double.doubleToLongBits(value);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            mBuffer[mLength++] = (byte)(bits >>> shift);
+        }
+    }
+
+    private void byte1(int value) {
+        ensureCapacity(1);
+        mBuffer[mLength++] = (byte)value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (mLength + extra > mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, Math.max(mLength + extra, mBuffer.length * 2));
+        }
+    }
+}
@@ -4,24 +4,18 @@ import android.Manifest;
 import android.app.Activity;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.support.annotation.NonNull;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v4.app.ActivityCompat;
 import android.util.Log;
 
-import com.google.android.gms.common.ConnectionResult;
 import com.google.android.gms.common.GooglePlayServicesNotAvailableException;
 import com.google.android.gms.common.GooglePlayServicesRepairableException;
-import com.google.android.gms.common.api.GoogleApiClient;
-import com.google.android.gms.common.api.PendingResult;
-import com.google.android.gms.common.api.ResultCallback;
 import com.google.android.gms.common.api.Status;
-import com.google.android.gms.location.places.AutocompleteFilter;
 import com.google.android.gms.location.places.AutocompletePrediction;
-import com.google.android.gms.location.places.AutocompletePredictionBuffer;
 import com.google.android.gms.location.places.Place;
 import com.google.android.gms.location.places.PlaceLikelihood;
-import com.google.android.gms.location.places.PlaceLikelihoodBuffer;
-import com.google.android.gms.location.places.Places;
 import com.google.android.gms.location.places.ui.PlaceAutocomplete;
 import com.google.android.gms.location.places.ui.PlacePicker;
 import com.google.android.gms.maps.model.LatLng;
@@ -31,47 +25,306 @@ import org.apache.cordova.CallbackContext;
 import org.apache.cordova.CordovaInterface;
 import org.apache.cordova.CordovaPlugin;
 import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class CordovaGooglePlaces extends CordovaPlugin implements GoogleApiClient.OnConnectionFailedListener {
+public class CordovaGooglePlaces extends CordovaPlugin {
     public static final String TAG = "CordovaGooglePlaces";
     public static final int PLACE_PICKER_REQUEST = 1;
     public static final int PLACE_AUTOCOMPLETE_REQUEST = 2;
 
+    // config.xml preferences for the autocomplete cache
+    public static final String PREF_AUTOCOMPLETE_CACHE_SIZE = "GooglePlacesAutocompleteCacheSize";
+    public static final String PREF_AUTOCOMPLETE_CACHE_TTL = "GooglePlacesAutocompleteCacheTTL";
+    public static final int DEFAULT_AUTOCOMPLETE_CACHE_SIZE = 100;
+    public static final int DEFAULT_AUTOCOMPLETE_CACHE_TTL = 300; // seconds
+    // config.xml preferences for the persistent place store
+    public static final String PREF_PLACE_STORE_SIZE = "GooglePlacesPlaceStoreSize";
+    public static final String PREF_PLACE_STORE_TTL = "GooglePlacesPlaceStoreTTL";
+    public static final int DEFAULT_PLACE_STORE_SIZE = 1024; // kilobytes
+    public static final int DEFAULT_PLACE_STORE_TTL = 7 * 24 * 3600; // seconds
+    // config.xml preference for the spatial index of places
+    public static final String PREF_PLACE_INDEX_SIZE = "GooglePlacesPlaceIndexSize";
+    public static final int DEFAULT_PLACE_INDEX_SIZE = 5000; // places
+    // config.xml preference for the local suggestion index
+    public static final String PREF_SUGGESTION_INDEX_SIZE = "GooglePlacesSuggestionIndexSize";
+    public static final int DEFAULT_SUGGESTION_INDEX_SIZE = 500; // places
+    // config.xml preferences for the place photos cache
+    public static final String PREF_PHOTO_MEMORY_CACHE_SIZE = "GooglePlacesPhotoMemoryCacheSize";
+    public static final String PREF_PHOTO_DISK_CACHE_SIZE = "GooglePlacesPhotoDiskCacheSize";
+    public static final int DEFAULT_PHOTO_MEMORY_CACHE_SIZE = 8192; // kilobytes
+    public static final int DEFAULT_PHOTO_DISK_CACHE_SIZE = 20480; // kilobytes
+    public static final int DEFAULT_PHOTO_SIZE = 1024; // pixels
+    public static final int DEFAULT_PHOTO_LIMIT = 10;
+    // config.xml preferences for the rate of the Places API calls, 0 for no limit
+    public static final String PREF_GEO_DATA_API_RATE = "GooglePlacesGeoDataApiRate";
+    public static final String PREF_PLACE_DETECTION_API_RATE = "GooglePlacesPlaceDetectionApiRate";
+    public static final int DEFAULT_GEO_DATA_API_RATE = 10; // calls per second
+    public static final int DEFAULT_PLACE_DETECTION_API_RATE = 2; // calls per second
+
+    public static final int DEFAULT_TYPEAHEAD_DEBOUNCE = 150; // milliseconds
+    public static final int LOOKUP_BATCH_WINDOW = 20; // milliseconds
+
+    // actions whose calls are measured by getStats
+    private static final String[] MEASURED_ACTIONS = {
+            "currentPlace", "watchCurrentPlace", "autocompleteQuery", "typeaheadQuery", "lookUpPlaces",
+            "getCachedPlace", "placesInBounds", "nearestPlaces", "pickPlace", "showPlaceAutocomplete",
+            "autocompleteBatch", "getPlacePhotos"
+    };
+
+    // machine-readable error codes, sent as { code, message } objects
+    public static final String ERROR_SUPERSEDED = "superseded";
+    public static final String ERROR_CANCELED = "canceled";
+    public static final String ERROR_OVERLOADED = "overloaded";
+    public static final String ERROR_UNAVAILABLE = "unavailable";
+    public static final String ERROR_THROTTLED = "throttled";
+    public static final String ERROR_QUOTA_EXCEEDED = "quota_exceeded";
+    public static final String ERROR_TIMEOUT = "timeout";
+
     private CallbackContext mPickPlaceCallbackContext;
+    private ResultOptions mPickPlaceOptions;
     private CallbackContext mShowPlaceAutocompleteCallbackContext;
-    private GoogleApiClient mGoogleApiClient;
+    private ResultOptions mShowPlaceAutocompleteOptions;
+    private ApiConnection mConnection;
+    private ApiScheduler mScheduler;
+    // the Places API calls, made through the scheduler with each priority
+    private PlacesBackend mInteractiveBackend;
+    private PlacesBackend mNormalBackend;
+    private PlacesBackend mBackgroundBackend;
+    private volatile long mTimeToFirstAutocomplete = -1;
+    private AutocompleteCache mAutocompleteCache;
+    private final CurrentPlaceCache mCurrentPlaceCache = new CurrentPlaceCache();
+    private final Map<Integer, TypeaheadSession> mTypeaheadSessions = new HashMap<Integer, TypeaheadSession>();
+    private int mNextTypeaheadSessionId = 1;
+    // search contexts, by handle
+    private final Map<Integer, SearchContext> mSearchContexts = new HashMap<Integer, SearchContext>();
+    private int mNextSearchContextId = 1;
+    private final ConcurrentHashMap<String, PlaceWatch> mPlaceWatches = new ConcurrentHashMap<String, PlaceWatch>();
+    private final Map<String, AutocompleteBatch> mAutocompleteBatches = new ConcurrentHashMap<String, AutocompleteBatch>();
+    private PlaceLookupBatcher mPlaceLookupBatcher;
+    private PlacePrefetcher mPlacePrefetcher;
+    private PlaceStore mPlaceStore;
+    private PlaceIndex mPlaceIndex;
+    private SuggestionIndex mSuggestionIndex;
+    private PlacePhotoCache mPlacePhotoCache;
+    private volatile boolean mBinaryResults;
+    private final FrameMonitor mFrameMonitor = new FrameMonitor();
+    private final EncodingExecutor mEncodingExecutor = new EncodingExecutor(mFrameMonitor);
+    private final Metrics mMetrics = new Metrics(MEASURED_ACTIONS);
+    private final MemoryGovernor mMemoryGovernor = new MemoryGovernor();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private SingleFlight mSingleFlight;
+    // currentPlace and autocompleteQuery requests, to cancel or time out
+    private PendingRequests mPendingRequests;
 
     @Override
     public void initialize(CordovaInterface cordova, CordovaWebView webView) {
         super.initialize(cordova, webView);
 
-        mGoogleApiClient = new GoogleApiClient
-                .Builder(cordova.getActivity())
-                .addApi(Places.GEO_DATA_API)
-                .addApi(Places.PLACE_DETECTION_API)
-                .build();
+        // start connecting right away, so that the first calls do not pay for it
+        mConnection = new ApiConnection(cordova.getActivity());
+        mScheduler = new ApiScheduler(createBackend(),
+                preferences.getInteger(PREF_GEO_DATA_API_RATE, DEFAULT_GEO_DATA_API_RATE),
+                preferences.getInteger(PREF_PLACE_DETECTION_API_RATE, DEFAULT_PLACE_DETECTION_API_RATE));
+        mInteractiveBackend = mScheduler.backend(ApiScheduler.Priority.INTERACTIVE);
+        mNormalBackend = mScheduler.backend(ApiScheduler.Priority.NORMAL);
+        mBackgroundBackend = mScheduler.backend(ApiScheduler.Priority.BACKGROUND);
+        mConnection.start();
+        mSingleFlight = new SingleFlight(webView);
+        mPendingRequests = new PendingRequests(webView);
+
+        int cacheSize = preferences.getInteger(PREF_AUTOCOMPLETE_CACHE_SIZE, DEFAULT_AUTOCOMPLETE_CACHE_SIZE);
+        int cacheTTL = preferences.getInteger(PREF_AUTOCOMPLETE_CACHE_TTL, DEFAULT_AUTOCOMPLETE_CACHE_TTL);
+        mAutocompleteCache = new AutocompleteCache(cacheSize, cacheTTL * 1000L);
+
+        int placeStoreSize = preferences.getInteger(PREF_PLACE_STORE_SIZE, DEFAULT_PLACE_STORE_SIZE);
+        int placeStoreTTL = preferences.getInteger(PREF_PLACE_STORE_TTL, DEFAULT_PLACE_STORE_TTL);
+        mPlaceStore = new PlaceStore(cordova.getActivity().getFilesDir(), placeStoreSize * 1024L, placeStoreTTL * 1000L);
+
+        mPlaceIndex = new PlaceIndex(preferences.getInteger(PREF_PLACE_INDEX_SIZE, DEFAULT_PLACE_INDEX_SIZE));
+
+        int suggestionIndexSize = preferences.getInteger(PREF_SUGGESTION_INDEX_SIZE, DEFAULT_SUGGESTION_INDEX_SIZE);
+        mSuggestionIndex = new SuggestionIndex(cordova.getActivity().getFilesDir(), suggestionIndexSize);
+
+        int photoMemoryCacheSize = preferences.getInteger(PREF_PHOTO_MEMORY_CACHE_SIZE, DEFAULT_PHOTO_MEMORY_CACHE_SIZE);
+        int photoDiskCacheSize = preferences.getInteger(PREF_PHOTO_DISK_CACHE_SIZE, DEFAULT_PHOTO_DISK_CACHE_SIZE);
+        mPlacePhotoCache = new PlacePhotoCache(cordova.getActivity().getCacheDir(), photoMemoryCacheSize * 1024,
+                photoDiskCacheSize * 1024L, mNormalBackend);
+
+        mPlaceLookupBatcher = new PlaceLookupBatcher(LOOKUP_BATCH_WINDOW, mInteractiveBackend, mEncodingExecutor, new PlaceLookupBatcher.Delegate() {
+            @Override
+            public String encodePlace(Place place) throws JSONException {
+                // places are looked up once selected by the user
+                mSuggestionIndex.selected(place);
+                return encodeAndStorePlace(place);
+            }
+        });
+        mPlacePrefetcher = new PlacePrefetcher(mBackgroundBackend, mPlaceLookupBatcher, mEncodingExecutor, new PlacePrefetcher.Delegate() {
+            @Override
+            public String encodePlace(Place place) throws JSONException {
+                // only stored once looked up
+                return ResultEncoder.get().place(place).toJson();
+            }
+
+            @Override
+            public void placeUsed(Place place, String encodedPlace) {
+                mSuggestionIndex.selected(place);
+                storePlace(place, encodedPlace);
+            }
+        });
+
+        mMemoryGovernor.register("autocompleteCache", mAutocompleteCache);
+        mMemoryGovernor.register("currentPlaceCache", mCurrentPlaceCache);
+        mMemoryGovernor.register("prefetch", mPlacePrefetcher);
+        mMemoryGovernor.register("placeIndex", mPlaceIndex);
+        mMemoryGovernor.register("photos", mPlacePhotoCache);
+        mMemoryGovernor.register("scheduler", mScheduler);
+        mMemoryGovernor.register("buffers", new MemoryGovernor.Consumer() {
+            @Override
+            public void trimMemory(int stage) {
+                // released as soon as they are delivered
+            }
+
+            @Override
+            public JSONObject encodeMemoryStats() throws JSONException {
+                return PlayServicesBackend.encodeBufferStats();
+            }
+        });
+        mMemoryGovernor.register("callbacks", new MemoryGovernor.Consumer() {
+            @Override
+            public void trimMemory(int stage) {
+                // the user or the Places API is still to answer these
+            }
+
+            @Override
+            public JSONObject encodeMemoryStats() throws JSONException {
+                JSONObject result = new JSONObject();
+                result.put("pickPlace", mPickPlaceCallbackContext != null ? 1 : 0);
+                result.put("showPlaceAutocomplete", mShowPlaceAutocompleteCallbackContext != null ? 1 : 0);
+                result.put("requests", mPendingRequests.size());
+                result.put("sharedCalls", mSingleFlight.waitingCallbacks());
+                result.put("typeaheadSessions", mTypeaheadSessions.size());
+                result.put("watches", mPlaceWatches.size());
+                result.put("batches", mAutocompleteBatches.size());
+                result.put("searchContexts", mSearchContexts.size());
+                result.put("encodingTasks", mEncodingExecutor.queuedTasks());
+                return result;
+            }
+        });
+        cordova.getActivity().registerComponentCallbacks(mMemoryGovernor);
+    }
+
+    /**
+     * Creates the backend making the Places API calls, once the API client is created.
+     */
+    PlacesBackend createBackend() {
+        return new PlayServicesBackend(mConnection.getClient());
     }
 
     @Override
     public boolean execute(String action, JSONArray args, CallbackContext callbackContext) throws JSONException {
+        Metrics.Action actionMetrics = mMetrics.get(action);
+        if (actionMetrics != null) {
+            callbackContext = new MeasuredCallbackContext(callbackContext, webView, actionMetrics);
+        }
 
         try {
             if (action.equals("currentPlace")) {
-                currentPlace(callbackContext);
+                currentPlace(args, callbackContext);
+                return true;
+            } else if (action.equals("watchCurrentPlace")) {
+                watchCurrentPlace(args, callbackContext);
+                return true;
+            } else if (action.equals("clearWatch")) {
+                clearWatch(args, callbackContext);
                 return true;
             } else if (action.equals("autocompleteQuery")) {
                 autocompleteQuery(args, callbackContext);
                 return true;
+            } else if (action.equals("cancel")) {
+                mPendingRequests.cancel(args.optString(0));
+                callbackContext.success();
+                return true;
+            } else if (action.equals("autocompleteBatch")) {
+                autocompleteBatch(args, callbackContext);
+                return true;
+            } else if (action.equals("cancelBatch")) {
+                cancelBatch(args, callbackContext);
+                return true;
+            } else if (action.equals("lookUpPlaces")) {
+                lookUpPlaces(args, callbackContext);
+                return true;
+            } else if (action.equals("getCachedPlace")) {
+                getCachedPlace(args, callbackContext);
+                return true;
+            } else if (action.equals("getPlacePhotos")) {
+                getPlacePhotos(args, callbackContext);
+                return true;
+            } else if (action.equals("placesInBounds")) {
+                placesInBounds(args, callbackContext);
+                return true;
+            } else if (action.equals("nearestPlaces")) {
+                nearestPlaces(args, callbackContext);
+                return true;
             } else if (action.equals("pickPlace")) {
                 pickPlace(args, callbackContext);
                 return true;
             } else if (action.equals("showPlaceAutocomplete")) {
-                showPlaceAutocomplete(callbackContext);
+                showPlaceAutocomplete(args, callbackContext);
+                return true;
+            } else if (action.equals("setPrefetchCount")) {
+                setPrefetchCount(args, callbackContext);
+                return true;
+            } else if (action.equals("setResultFormat")) {
+                setResultFormat(args, callbackContext);
+                return true;
+            } else if (action.equals("getTransportStats")) {
+                callbackContext.success(EncodedResult.encodeTransportStats());
+                return true;
+            } else if (action.equals("getConnectionStats")) {
+                getConnectionStats(callbackContext);
+                return true;
+            } else if (action.equals("getStats")) {
+                getStats(callbackContext);
+                return true;
+            } else if (action.equals("getMemoryStats")) {
+                getMemoryStats(callbackContext);
+                return true;
+            } else if (action.equals("resetStats")) {
+                mMetrics.reset();
+                mSuggestionIndex.resetStats();
+                mSingleFlight.resetStats();
+                mScheduler.resetStats();
+                mPlacePrefetcher.resetStats();
+                mPlacePhotoCache.resetStats();
+                mCurrentPlaceCache.resetStats();
+                mFrameMonitor.resetStats();
+                callbackContext.success();
+                return true;
+            } else if (action.equals("clearCache")) {
+                clearCache(callbackContext);
+                return true;
+            } else if (action.equals("openTypeaheadSession")) {
+                openTypeaheadSession(args, callbackContext);
+                return true;
+            } else if (action.equals("typeaheadQuery")) {
+                typeaheadQuery(args, callbackContext);
+                return true;
+            } else if (action.equals("closeTypeaheadSession")) {
+                closeTypeaheadSession(args, callbackContext);
+                return true;
+            } else if (action.equals("registerSearchContext")) {
+                registerSearchContext(args, callbackContext);
+                return true;
+            } else if (action.equals("releaseSearchContext")) {
+                releaseSearchContext(args, callbackContext);
                 return true;
             }
         } catch (GooglePlayServicesNotAvailableException e) {
@@ -87,122 +340,859 @@ public class CordovaGooglePlaces extends CordovaPlugin implements GoogleApiClien
         return false;
     }
 
-    private void currentPlace(final CallbackContext callbackContext) throws JSONException {
+    private void currentPlace(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        if (args.length() < 1 || args.length() > 2 || !(args.get(0) instanceof String)) {
+            callbackContext.error("wrong arguments for currentPlace(requestID, options)");
+            return;
+        }
+        final ResultOptions options = decodeResultOptions(args, 1, callbackContext);
+        if (options == null) {
+            return;
+        }
+        long maxAge = 0;
+        JSONObject rawOptions = args.optJSONObject(1);
+        if (rawOptions != null) {
+            maxAge = rawOptions.optLong("maxAgeMs", 0);
+            if (maxAge < 0) {
+                callbackContext.error("\"maxAgeMs\" should be a positive number of milliseconds");
+                return;
+            }
+        }
+        PendingRequests.Pending pending = registerRequest(args, 1, callbackContext);
+        if (pending == null) {
+            return;
+        }
+        callbackContext = pending;
         if (ActivityCompat.checkSelfPermission(cordova.getActivity(), Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
             callbackContext.error("Missing permission ACCESS_FINE_LOCATION");
             return;
         }
-        PendingResult<PlaceLikelihoodBuffer> result = Places.PlaceDetectionApi.getCurrentPlace(mGoogleApiClient, null);
-        result.setResultCallback(new ResultCallback<PlaceLikelihoodBuffer>() {
+        final boolean binaryResults = mBinaryResults;
+        final String key = "currentPlace:" + (binaryResults ? "binary" : "json") + ":" + options.key;
+        // the result of a recent call made from the same cell, with an accurate enough fix, still holds
+        final Location location = LastKnownLocation.get(cordova.getActivity());
+        if (maxAge > 0) {
+            EncodedResult cachedResult = mCurrentPlaceCache.get(key, location, maxAge);
+            if (cachedResult != null) {
+                cachedResult.sendTo(callbackContext);
+                return;
+            }
+        }
+        // calls made at the same time share the same query
+        pending.started(mSingleFlight.run(key, callbackContext, new SingleFlight.Starter() {
             @Override
-            public void onResult(PlaceLikelihoodBuffer likelyPlaces) {
-                try {
-                    JSONArray result = new JSONArray();
-                    for (PlaceLikelihood placeLikelihood : likelyPlaces) {
-                        JSONObject encodedLikelihood = encodePlaceLikelihood(placeLikelihood);
-                        result.put(encodedLikelihood);
-                    }
-                    callbackContext.success(result);
-                } catch (JSONException e) {
-                    callbackContext.error(e.getMessage());
-                } finally {
-                    likelyPlaces.release();
+            public PlacesBackend.Request start(final CallbackContext flight) {
+                if (mConnection.isConnected()) {
+                    return startCurrentPlace(binaryResults, options, key, location, flight);
                 }
+                mConnection.execute(new ApiConnection.Call(flight) {
+                    @Override
+                    void run() {
+                        startCurrentPlace(binaryResults, options, key, location, flight);
+                    }
+                });
+                return null;
+            }
+        }));
+    }
+
+    /**
+     * Queries the current place, and reports the encoded likelihoods to callbackContext after
+     * keeping them for the cell of location.
+     */
+    private PlacesBackend.Request startCurrentPlace(final boolean binaryResults, final ResultOptions options, final String key,
+                                                   final Location location, final CallbackContext callbackContext) {
+        final long apiStart = System.nanoTime();
+        return mNormalBackend.getCurrentPlace(new PlacesBackend.Callback<List<PlaceLikelihood>>() {
+            @Override
+            public void onResult(final List<PlaceLikelihood> placeLikelihoods) {
+                Metrics.recordApiTime(callbackContext, apiStart);
+                final long encodeStart = System.nanoTime();
+                mEncodingExecutor.execute(new EncodingExecutor.Task(callbackContext) {
+                    @Override
+                    void encode() throws JSONException {
+                        List<PlaceLikelihood> trimmedLikelihoods = options.trimLikelihoods(placeLikelihoods);
+                        EncodedResult result = encodePlaceLikelihoods(trimmedLikelihoods, binaryResults, options);
+                        Metrics.recordEncodeTime(callbackContext, encodeStart);
+                        mCurrentPlaceCache.put(key, location, result);
+                        result.sendTo(callbackContext);
+                        if (binaryResults || options.isProjected()) {
+                            // not encoded whole by the result: stored once it is sent
+                            for (PlaceLikelihood placeLikelihood : trimmedLikelihoods) {
+                                storeWholePlace(placeLikelihood.getPlace());
+                            }
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Status status) {
+                Metrics.recordApiTime(callbackContext, apiStart);
+                callbackContext.sendPluginResult(encodeFailure(status));
             }
         });
     }
 
-    private void autocompleteQuery(JSONArray args, final CallbackContext callbackContext) throws JSONException {
-        if (args.length() > 1) {
-            callbackContext.error("wrong arguments for autocompleteQuery(query, bounds, filter)");
+    /**
+     * Encodes a list of place likelihoods. The places of whole JSON results are saved to the
+     * place store on the way; those of binary or projected results are left to storeWholePlace.
+     */
+    private EncodedResult encodePlaceLikelihoods(List<PlaceLikelihood> placeLikelihoods, boolean binaryResults,
+                                                 ResultOptions options) throws JSONException {
+        if (binaryResults) {
+            return EncodedResult.binary(BinaryResultEncoder.get().placeLikelihoods(placeLikelihoods, options.fields).toBytes());
+        }
+
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+            Place place = placeLikelihood.getPlace();
+            encoder.beginObject().name("likelihood").value(placeLikelihood.getLikelihood()).name("place");
+            if (options.isProjected()) {
+                encoder.place(place, options.fields);
+            } else {
+                int placeStart = encoder.position();
+                encoder.place(place);
+                storePlace(place, encoder.toJson(placeStart));
+            }
+            encoder.endObject();
+        }
+        return EncodedResult.json(encoder.endArray().toJson());
+    }
+
+    private void watchCurrentPlace(JSONArray args, final CallbackContext callbackContext) throws JSONException {
+        if (args.length() < 1 || !(args.get(0) instanceof String)) {
+            callbackContext.error("wrong arguments for watchCurrentPlace(options)");
+            return;
+        }
+        String id = args.getString(0);
+        float distance = PlaceWatch.DEFAULT_DISTANCE;
+        long interval = PlaceWatch.DEFAULT_INTERVAL;
+        double threshold = PlaceWatch.DEFAULT_THRESHOLD;
+        if (args.length() > 1 && !args.isNull(1)) {
+            Object rawOptions = args.get(1);
+            if (!(rawOptions instanceof JSONObject)) {
+                callbackContext.error("argument 1 (options) should be an object");
+                return;
+            }
+            JSONObject options = (JSONObject)rawOptions;
+            distance = (float)options.optDouble("distance", distance);
+            interval = options.optLong("interval", interval);
+            threshold = options.optDouble("threshold", threshold);
+        }
+        if (interval <= 0) {
+            callbackContext.error("\"interval\" should be a positive number of milliseconds");
             return;
         }
-        if (args.length() < -1) {
-            callbackContext.error("autocompleteQuery needs at least 1 argument (query) to operate");
+        if (mPlaceWatches.containsKey(id)) {
+            callbackContext.error("watch " + id + " already exists");
+            return;
+        }
+        if (ActivityCompat.checkSelfPermission(cordova.getActivity(), Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            callbackContext.error("Missing permission ACCESS_FINE_LOCATION");
             return;
         }
 
-        Object rawQuery = args.get(0);
-        if (!(rawQuery instanceof String)) {
-            callbackContext.error("argument 0 (query) should be a string");
+        PlaceWatch watch = new PlaceWatch(id, cordova.getActivity(), distance, interval, threshold, callbackContext, webView, new PlaceWatch.Delegate() {
+            @Override
+            public void queryCurrentPlace(PlaceWatch watch) {
+                queryWatchedPlace(watch);
+            }
+
+            @Override
+            public String encodePlace(Place place) throws JSONException {
+                return encodeAndStorePlace(place);
+            }
+
+            @Override
+            public void watchEnded(PlaceWatch watch) {
+                // frees its ID, unless cleared and replaced in the meantime
+                mPlaceWatches.remove(watch.id, watch);
+            }
+        });
+        mPlaceWatches.put(id, watch);
+        watch.start();
+    }
+
+    private void queryWatchedPlace(final PlaceWatch watch) {
+        mConnection.execute(new ApiConnection.Call(watch.callbackContext) {
+            @Override
+            void run() {
+                final long apiStart = System.nanoTime();
+                // watches are not waited for: they must not hold back the other calls
+                mBackgroundBackend.getCurrentPlace(new PlacesBackend.Callback<List<PlaceLikelihood>>() {
+                    @Override
+                    public void onResult(final List<PlaceLikelihood> placeLikelihoods) {
+                        Metrics.recordApiTime(watch.callbackContext, apiStart);
+                        final long encodeStart = System.nanoTime();
+                        mEncodingExecutor.execute(new EncodingExecutor.Task(watch.callbackContext) {
+                            @Override
+                            void encode() throws JSONException {
+                                watch.update(placeLikelihoods);
+                                Metrics.recordEncodeTime(watch.callbackContext, encodeStart);
+                            }
+
+                            @Override
+                            void shed() {
+                                // do not end the watch: the place is queried again at the next check
+                                watch.abandonQuery();
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(Status status) {
+                        Metrics.recordApiTime(watch.callbackContext, apiStart);
+                        watch.fail(status);
+                    }
+                });
+            }
+        });
+    }
+
+    private void clearWatch(JSONArray args, CallbackContext callbackContext) {
+        PlaceWatch watch = mPlaceWatches.remove(args.optString(0));
+        if (watch != null) {
+            watch.stop();
+        }
+        callbackContext.success();
+    }
+
+    private String encodeAndStorePlace(Place place) throws JSONException {
+        String encodedPlace = ResultEncoder.get().place(place).toJson();
+        storePlace(place, encodedPlace);
+        return encodedPlace;
+    }
+
+    /**
+     * Stores a place, and returns its encoded fields given by options.
+     */
+    private String encodeAndStorePlace(Place place, ResultOptions options) throws JSONException {
+        if (!options.isProjected()) {
+            return encodeAndStorePlace(place);
+        }
+        String encodedPlace = ResultEncoder.get().place(place, options.fields).toJson();
+        storeWholePlace(place);
+        return encodedPlace;
+    }
+
+    /**
+     * Stores a place which was not encoded whole. Places already indexed were stored whole
+     * by an earlier result, and are not encoded again.
+     */
+    private void storeWholePlace(Place place) throws JSONException {
+        if (!mPlaceIndex.contains(place.getId())) {
+            storePlace(place, ResultEncoder.get().place(place).toJson());
+        }
+    }
+
+    /**
+     * Decodes the optional result options found at position index in args.
+     *
+     * Returns null when the argument is invalid, after failing the callbackContext.
+     */
+    private static ResultOptions decodeResultOptions(JSONArray args, int index, CallbackContext callbackContext) throws JSONException {
+        if (args.length() <= index || args.isNull(index)) {
+            return ResultOptions.ALL;
+        }
+        Object rawOptions = args.get(index);
+        if (!(rawOptions instanceof JSONObject)) {
+            callbackContext.error("argument " + index + " (options) should be an object");
+            return null;
+        }
+        return ResultOptions.decode((JSONObject)rawOptions);
+    }
+
+    /**
+     * Keeps an encoded place in the place store and in the spatial index.
+     */
+    private void storePlace(Place place, String encodedPlace) {
+        mPlaceStore.put(place.getId(), encodedPlace);
+        mPlaceIndex.put(place, encodedPlace);
+    }
+
+    private void autocompleteQuery(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        if (args.length() < 1 || !(args.get(0) instanceof String)) {
+            callbackContext.error("argument 0 (requestID) should be a string");
+            return;
+        }
+        AutocompleteRequest request = decodeAutocompleteRequest("autocompleteQuery(requestID, query, bounds, filter, options)", args, 1, callbackContext);
+        if (request == null) {
+            return;
+        }
+        // the options follow a search context, or the bounds and filter
+        PendingRequests.Pending pending = registerRequest(args, isSearchContextHandle(args.opt(2)) ? 3 : 4, callbackContext);
+        if (pending == null) {
             return;
         }
+        mPlacePrefetcher.keystroke();
+        suggestLocally(request, pending);
+        pending.started(startAutocompleteQuery(request, pending));
+    }
+
+    /**
+     * Registers the request whose ID is the first of args, timing out after the timeoutMs of
+     * the options found at position index, if any.
+     *
+     * Returns null when the arguments are invalid, after failing the callbackContext.
+     */
+    private PendingRequests.Pending registerRequest(JSONArray args, int index, CallbackContext callbackContext) {
+        String id = args.optString(0);
+        long timeout = 0;
+        JSONObject options = args.optJSONObject(index);
+        if (options != null) {
+            timeout = options.optLong("timeoutMs", 0);
+            if (timeout < 0) {
+                callbackContext.error("\"timeoutMs\" should be a positive number of milliseconds");
+                return null;
+            }
+        }
+        PendingRequests.Pending pending = mPendingRequests.register(id, timeout, callbackContext);
+        if (pending == null) {
+            callbackContext.error("request " + id + " already exists");
+        }
+        return pending;
+    }
+
+    private void autocompleteBatch(JSONArray args, final CallbackContext callbackContext) throws JSONException {
+        if (args.length() < 2 || !(args.get(0) instanceof String) || !(args.get(1) instanceof JSONArray)) {
+            callbackContext.error("wrong arguments for autocompleteBatch(queries, options)");
+            return;
+        }
+        String id = args.getString(0);
+        JSONArray queries = (JSONArray)args.get(1);
+        int parallelism = AutocompleteBatch.DEFAULT_PARALLELISM;
+        int chunkSize = AutocompleteBatch.DEFAULT_CHUNK_SIZE;
+        if (args.length() > 2 && !args.isNull(2)) {
+            Object rawOptions = args.get(2);
+            if (!(rawOptions instanceof JSONObject)) {
+                callbackContext.error("argument 1 (options) should be an object");
+                return;
+            }
+            JSONObject options = (JSONObject)rawOptions;
+            parallelism = options.optInt("parallelism", parallelism);
+            chunkSize = options.optInt("chunkSize", chunkSize);
+        }
+        if (parallelism < 1 || parallelism > AutocompleteBatch.MAX_PARALLELISM) {
+            callbackContext.error("\"parallelism\" should be a number between 1 and " + AutocompleteBatch.MAX_PARALLELISM);
+            return;
+        }
+        if (chunkSize < 1) {
+            callbackContext.error("\"chunkSize\" should be a positive number");
+            return;
+        }
+        if (mAutocompleteBatches.containsKey(id)) {
+            callbackContext.error("batch " + id + " already exists");
+            return;
+        }
+
+        // the queries of a batch are not waited for by the user: they must not hold back autocomplete queries
+        final AutocompleteBatch batch = new AutocompleteBatch(id, queries, parallelism, chunkSize, mNormalBackend, callbackContext,
+                new AutocompleteBatch.Delegate() {
+                    @Override
+                    public void batchDone(AutocompleteBatch batch) {
+                        mAutocompleteBatches.remove(batch.id);
+                    }
+                });
+        mAutocompleteBatches.put(id, batch);
+        mConnection.execute(new ApiConnection.Call(callbackContext) {
+            @Override
+            void run() {
+                batch.start();
+            }
+        });
+    }
+
+    private void cancelBatch(JSONArray args, CallbackContext callbackContext) {
+        AutocompleteBatch batch = mAutocompleteBatches.remove(args.optString(0));
+        if (batch != null) {
+            batch.cancel();
+        }
+        callbackContext.success();
+    }
+
+    /**
+     * Sends the local suggestions for a request right away, as { local: [ predictions ] },
+     * keeping the callback for the predictions of the Places API.
+     */
+    private void suggestLocally(AutocompleteRequest request, CallbackContext callbackContext) throws JSONException {
+        String suggestions = mSuggestionIndex.suggest(request.query, request.filterKey, request.options);
+        if (suggestions == null) {
+            return;
+        }
+        PluginResult result = new PluginResult(PluginResult.Status.OK, new ResultEncoder.EncodedJSONObject("{\"local\":" + suggestions + "}"));
+        result.setKeepCallback(true);
+        callbackContext.sendPluginResult(result);
+    }
+
+    /**
+     * Decodes the (query, [bounds], [filter]), (query, bounds, filter, options) or
+     * (query, context, [options]) arguments found at position offset in args, where bounds
+     * and filter may be null with options, and context is a registered search context.
+     *
+     * Returns null when the arguments are invalid, after failing the callbackContext.
+     */
+    private AutocompleteRequest decodeAutocompleteRequest(String signature, JSONArray args, int offset, CallbackContext callbackContext) throws JSONException {
+        int argCount = args.length() - offset;
+        if (argCount > 4) {
+            callbackContext.error("wrong arguments for " + signature);
+            return null;
+        }
+        if (argCount < 1) {
+            callbackContext.error(signature + " needs at least 1 argument (query) to operate");
+            return null;
+        }
+
+        Object rawQuery = args.get(offset);
+        if (!(rawQuery instanceof String)) {
+            callbackContext.error("argument " + offset + " (query) should be a string");
+            return null;
+        }
         String query = (String)rawQuery;
 
+        Object rawArg1 = argCount > 1 ? args.get(offset + 1) : null;
+        if (isSearchContextHandle(rawArg1)) {
+            // a registered context: nothing left to decode but the options
+            SearchContext context = mSearchContexts.get(((Number)rawArg1).intValue());
+            if (context == null) {
+                callbackContext.error("argument " + (offset + 1) + " (context) should be a registered search context");
+                return null;
+            }
+            if (argCount > 3) {
+                callbackContext.error("wrong arguments for " + signature);
+                return null;
+            }
+            ResultOptions options = decodeResultOptions(args, offset + 2, callbackContext);
+            return options != null ? new AutocompleteRequest(query, context, options) : null;
+        }
+
         LatLngBounds bounds = null;
-        AutocompleteFilter filter = null;
-        if (args.length() == 2) {
-            Object rawArg1 = args.get(1);
-            if (!(rawQuery instanceof JSONObject)) {
-                callbackContext.error("could not interpret argument 1 as either bounds or filter");
-                return;
+        JSONObject rawFilter = null;
+        ResultOptions options = ResultOptions.ALL;
+        if (argCount == 4) {
+            if (rawArg1 != JSONObject.NULL) {
+                if (!(rawArg1 instanceof JSONObject)) {
+                    callbackContext.error("argument " + (offset + 1) + " (bounds) should be an object");
+                    return null;
+                }
+                bounds = RequestDecoder.decodeCoordinateBounds((JSONObject)rawArg1);
+            }
+            if (!args.isNull(offset + 2)) {
+                Object rawArg2 = args.get(offset + 2);
+                if (!(rawArg2 instanceof JSONObject)) {
+                    callbackContext.error("argument " + (offset + 2) + " (filter) should be an object");
+                    return null;
+                }
+                rawFilter = (JSONObject)rawArg2;
+            }
+            options = decodeResultOptions(args, offset + 3, callbackContext);
+            if (options == null) {
+                return null;
+            }
+        } else if (argCount == 2) {
+            if (!(rawArg1 instanceof JSONObject)) {
+                callbackContext.error("could not interpret argument " + (offset + 1) + " as either bounds or filter");
+                return null;
             }
             JSONObject arg1 = (JSONObject)rawArg1;
+            if (arg1.has("northEast") || arg1.has("southWest")) {
+                bounds = RequestDecoder.decodeCoordinateBounds(arg1);
+            } else if (arg1.has("type")) {
+                rawFilter = arg1;
+            } else {
+                callbackContext.error("could not interpret argument " + (offset + 1) + " as either bounds or filter");
+                return null;
+            }
+        } else if (argCount == 3) {
+            if (!(rawArg1 instanceof JSONObject)) {
+                callbackContext.error("argument " + (offset + 1) + " (bounds) should be an object");
+                return null;
+            }
+            bounds = RequestDecoder.decodeCoordinateBounds((JSONObject)rawArg1);
 
-            try {
-                bounds = decodeCoordinateBounds(arg1);
-            } catch (JSONException e) {
-                bounds = null;
-                try {
-                    filter = decodeAutocompleteFilter(arg1);
-                } catch (JSONException e2) {
-                    callbackContext.error("could not interpret argument 1 as either bounds or filter");
+            Object rawArg2 = args.get(offset + 2);
+            if (!(rawArg2 instanceof JSONObject)) {
+                callbackContext.error("argument " + (offset + 2) + " (filter) should be an object");
+                return null;
+            }
+            rawFilter = (JSONObject)rawArg2;
+        }
+
+        return new AutocompleteRequest(query, SearchContext.create(bounds, rawFilter), options);
+    }
+
+    /**
+     * Whether an autocomplete argument is the handle of a search context, rather than bounds
+     * or a filter. JS numbers may be decoded as any kind of number.
+     */
+    private static boolean isSearchContextHandle(Object arg) {
+        return arg instanceof Number && ((Number)arg).doubleValue() == ((Number)arg).intValue();
+    }
+
+    private void registerSearchContext(JSONArray args, CallbackContext callbackContext) {
+        Object rawContext = args.opt(0);
+        if (!(rawContext instanceof JSONObject)) {
+            callbackContext.error("argument 0 (context) should be an object");
+            return;
+        }
+        SearchContext context;
+        try {
+            context = SearchContext.decode((JSONObject)rawContext);
+        } catch (JSONException e) {
+            // reported once here, rather than by every query
+            callbackContext.error(e.getMessage());
+            return;
+        }
+        int handle = mNextSearchContextId++;
+        mSearchContexts.put(handle, context);
+        callbackContext.success(handle);
+    }
+
+    private void releaseSearchContext(JSONArray args, CallbackContext callbackContext) {
+        mSearchContexts.remove(args.optInt(0, -1));
+        callbackContext.success();
+    }
+
+    /**
+     * Runs an autocomplete request, and reports the encoded predictions to callbackContext.
+     *
+     * Returns the pending request, or null when the request was answered from the cache.
+     * Whoever cancels the returned request is responsible for resolving callbackContext.
+     */
+    PlacesBackend.Request startAutocompleteQuery(final AutocompleteRequest request, final CallbackContext callbackContext) {
+        final boolean binaryResults = mBinaryResults;
+        final String cacheKey = (binaryResults ? "binary:" : "json:") + request.cacheKey;
+        EncodedResult cachedPredictions = mAutocompleteCache.get(cacheKey);
+        if (cachedPredictions != null) {
+            cachedPredictions.sendTo(callbackContext);
+            recordAutocompleteAnswered();
+            return null;
+        }
+        // identical queries made at the same time (e.g. by several components) share the same call
+        return mSingleFlight.run(cacheKey, callbackContext, new SingleFlight.Starter() {
+            @Override
+            public PlacesBackend.Request start(CallbackContext flight) {
+                return queryAutocompletePredictions(request, cacheKey, binaryResults, flight);
+            }
+        });
+    }
+
+    /**
+     * Queries the predictions of an autocomplete request, once the client is connected, and
+     * reports them to callbackContext after caching them.
+     *
+     * Returns the pending backend call, or null while waiting for the client to connect.
+     */
+    private PlacesBackend.Request queryAutocompletePredictions(final AutocompleteRequest request, final String cacheKey,
+                                                               final boolean binaryResults, final CallbackContext callbackContext) {
+        if (!mConnection.isConnected()) {
+            mConnection.execute(new ApiConnection.Call(callbackContext) {
+                @Override
+                void run() {
+                    queryAutocompletePredictions(request, cacheKey, binaryResults, callbackContext);
+                }
+            });
+            return null;
+        }
+
+        final int keystroke = mPlacePrefetcher.lastKeystroke();
+        final long apiStart = System.nanoTime();
+        return mInteractiveBackend.getAutocompletePredictions(request.query, request.bounds, request.filter, new PlacesBackend.Callback<List<AutocompletePrediction>>() {
+            @Override
+            public void onResult(List<AutocompletePrediction> allPredictions) {
+                Metrics.recordApiTime(callbackContext, apiStart);
+                // only the predictions returned are prefetched and learnt
+                final List<AutocompletePrediction> predictions = request.options.trimPredictions(allPredictions);
+                mPlacePrefetcher.prefetch(predictions, keystroke);
+                final long encodeStart = System.nanoTime();
+                mEncodingExecutor.execute(new EncodingExecutor.Task(callbackContext) {
+                    @Override
+                    void encode() throws JSONException {
+                        EncodedResult result = encodeAutocompletePredictions(predictions, binaryResults, request.options.fields);
+                        Metrics.recordEncodeTime(callbackContext, encodeStart);
+                        mAutocompleteCache.put(cacheKey, result);
+                        result.sendTo(callbackContext);
+                        recordAutocompleteAnswered();
+                        mSuggestionIndex.offered(predictions, request.filterKey);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Status status) {
+                Metrics.recordApiTime(callbackContext, apiStart);
+                if (status.isCanceled()) {
+                    // the request was abandoned, and whoever canceled it usually answered already
+                    if (!callbackContext.isFinished()) {
+                        callbackContext.error(encodeError(ERROR_CANCELED, "the query was canceled"));
+                    }
                     return;
                 }
+                callbackContext.sendPluginResult(encodeFailure(status));
             }
-        } else {
-            Object rawArg1 = args.get(1);
-            if (!(rawArg1 instanceof String)) {
-                callbackContext.error("argument 1 (bounds) should be an object");
+        });
+    }
+
+    private void recordAutocompleteAnswered() {
+        if (mTimeToFirstAutocomplete < 0) {
+            mTimeToFirstAutocomplete = mConnection.uptime();
+        }
+    }
+
+    private EncodedResult encodeAutocompletePredictions(List<AutocompletePrediction> predictions, boolean binaryResults,
+                                                        int fields) throws JSONException {
+        if (binaryResults) {
+            return EncodedResult.binary(BinaryResultEncoder.get().autocompletePredictions(predictions, fields).toBytes());
+        }
+
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        for (AutocompletePrediction prediction : predictions) {
+            encoder.autocompletePrediction(prediction, fields);
+        }
+        return EncodedResult.json(encoder.endArray().toJson());
+    }
+
+    private void openTypeaheadSession(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        long debounce = DEFAULT_TYPEAHEAD_DEBOUNCE;
+        if (args.length() > 0 && !args.isNull(0)) {
+            Object rawOptions = args.get(0);
+            if (!(rawOptions instanceof JSONObject)) {
+                callbackContext.error("argument 0 (options) should be an object");
                 return;
             }
-            JSONObject arg1 = (JSONObject)rawArg1;
-            bounds = decodeCoordinateBounds(arg1);
+            debounce = ((JSONObject)rawOptions).optLong("debounce", DEFAULT_TYPEAHEAD_DEBOUNCE);
+        }
 
-            Object rawArg2 = args.get(2);
-            if (!(rawArg2 instanceof String)) {
-                callbackContext.error("argument 2 (filter) should be an object");
-                return;
+        int id = mNextTypeaheadSessionId++;
+        mTypeaheadSessions.put(id, new TypeaheadSession(id, debounce, new TypeaheadSession.QueryRunner() {
+            @Override
+            public PlacesBackend.Request run(AutocompleteRequest request, CallbackContext callbackContext) {
+                return startAutocompleteQuery(request, callbackContext);
             }
-            JSONObject arg2 = (JSONObject)rawArg2;
-            filter = decodeAutocompleteFilter(arg2);
+        }));
+        callbackContext.success(id);
+    }
+
+    private void typeaheadQuery(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        TypeaheadSession session = mTypeaheadSessions.get(args.optInt(0, -1));
+        if (session == null) {
+            callbackContext.error("argument 0 (session) should be an open typeahead session");
+            return;
+        }
+        AutocompleteRequest request = decodeAutocompleteRequest("typeaheadQuery(session, query, bounds, filter, options)", args, 1, callbackContext);
+        if (request == null) {
+            return;
+        }
+        mPlacePrefetcher.keystroke();
+        // suggest locally before the debounce window
+        suggestLocally(request, callbackContext);
+        session.submit(request, callbackContext);
+    }
+
+    private void closeTypeaheadSession(JSONArray args, CallbackContext callbackContext) {
+        TypeaheadSession session = mTypeaheadSessions.remove(args.optInt(0, -1));
+        if (session != null) {
+            session.close();
+        }
+        callbackContext.success();
+    }
+
+    private void setPrefetchCount(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        int count = args.optInt(0, -1);
+        if (count < 0) {
+            callbackContext.error("argument 0 (count) should be a positive number, or 0");
+            return;
         }
+        mPlacePrefetcher.setCount(count);
+        callbackContext.success();
+    }
 
-        PendingResult<AutocompletePredictionBuffer> result =
-                Places.GeoDataApi.getAutocompletePredictions(mGoogleApiClient, query, bounds, filter);
-        result.setResultCallback(new ResultCallback<AutocompletePredictionBuffer>() {
+    private void setResultFormat(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        String format = args.optString(0);
+        if (format.equals("json")) {
+            mBinaryResults = false;
+        } else if (format.equals("binary")) {
+            mBinaryResults = true;
+        } else {
+            callbackContext.error("argument 0 (format) should be either \"json\" or \"binary\"");
+            return;
+        }
+        callbackContext.success();
+    }
+
+    private void getConnectionStats(CallbackContext callbackContext) throws JSONException {
+        JSONObject stats = mConnection.encodeStats();
+        if (mTimeToFirstAutocomplete >= 0) {
+            stats.put("timeToFirstAutocomplete", mTimeToFirstAutocomplete);
+        }
+        callbackContext.success(stats);
+    }
+
+    private void getStats(CallbackContext callbackContext) throws JSONException {
+        JSONObject stats = mMetrics.encode();
+        stats.put("suggestions", mSuggestionIndex.encodeStats());
+        stats.put("sharedCalls", mSingleFlight.encodeStats());
+        stats.put("scheduler", mScheduler.encodeStats());
+        stats.put("prefetch", mPlacePrefetcher.encodeStats());
+        stats.put("photos", mPlacePhotoCache.encodeStats());
+        stats.put("currentPlaceCache", mCurrentPlaceCache.encodeStats());
+        stats.put("frames", mFrameMonitor.encodeStats());
+        callbackContext.success(stats);
+    }
+
+    private void getMemoryStats(final CallbackContext callbackContext) {
+        // the consumers report their memory from the main looper, where they are trimmed
+        mHandler.post(new Runnable() {
             @Override
-            public void onResult(@NonNull AutocompletePredictionBuffer autocompletePredictions) {
+            public void run() {
                 try {
-                    JSONArray result = new JSONArray();
-                    for (AutocompletePrediction autocompletePrediction : autocompletePredictions) {
-                        JSONObject encodedLikelihood = encodeAutocompletePrediction(autocompletePrediction);
-                        result.put(encodedLikelihood);
-                    }
-                    callbackContext.success(result);
+                    callbackContext.success(mMemoryGovernor.encodeStats());
                 } catch (JSONException e) {
                     callbackContext.error(e.getMessage());
-                } finally {
-                    autocompletePredictions.release();
                 }
             }
         });
     }
 
+    private void clearCache(CallbackContext callbackContext) {
+        mAutocompleteCache.clear();
+        mCurrentPlaceCache.clear();
+        callbackContext.success();
+    }
+
+    private void lookUpPlaces(JSONArray args, final CallbackContext callbackContext) throws JSONException {
+        if (args.length() != 1) {
+            callbackContext.error("wrong arguments for lookUpPlaces(placeIDs)");
+            return;
+        }
+        Object rawArg0 = args.get(0);
+        if (!(rawArg0 instanceof JSONArray)) {
+            callbackContext.error("argument 0 (placeIDs) should be an array");
+            return;
+        }
+        JSONArray rawPlaceIds = (JSONArray)rawArg0;
+
+        String[] placeIds = new String[rawPlaceIds.length()];
+        for (int i = 0; i < placeIds.length; i++) {
+            Object rawPlaceId = rawPlaceIds.get(i);
+            if (!(rawPlaceId instanceof String)) {
+                callbackContext.error("argument 0 (placeIDs) should only contain strings");
+                return;
+            }
+            placeIds[i] = (String)rawPlaceId;
+        }
+        if (placeIds.length == 0) {
+            callbackContext.success(new JSONArray());
+            return;
+        }
+
+        final String[] lookedUpPlaceIds = placeIds;
+        mConnection.execute(new ApiConnection.Call(callbackContext) {
+            @Override
+            void run() {
+                mPlacePrefetcher.lookUp(lookedUpPlaceIds, callbackContext);
+            }
+        });
+    }
+
+    private void getCachedPlace(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        if (args.length() != 1 || !(args.get(0) instanceof String)) {
+            callbackContext.error("wrong arguments for getCachedPlace(placeID)");
+            return;
+        }
+        mPlaceStore.get(args.getString(0), callbackContext);
+    }
+
+    private void getPlacePhotos(JSONArray args, final CallbackContext callbackContext) throws JSONException {
+        if (args.length() < 1 || args.length() > 2 || !(args.get(0) instanceof String)) {
+            callbackContext.error("wrong arguments for getPlacePhotos(placeID, options)");
+            return;
+        }
+        final String placeId = args.getString(0);
+        int maxWidth = DEFAULT_PHOTO_SIZE;
+        int maxHeight = DEFAULT_PHOTO_SIZE;
+        int limit = DEFAULT_PHOTO_LIMIT;
+        if (args.length() == 2 && !args.isNull(1)) {
+            Object rawOptions = args.get(1);
+            if (!(rawOptions instanceof JSONObject)) {
+                callbackContext.error("argument 1 (options) should be an object");
+                return;
+            }
+            JSONObject options = (JSONObject)rawOptions;
+            maxWidth = options.optInt("maxWidth", maxWidth);
+            maxHeight = options.optInt("maxHeight", maxHeight);
+            limit = options.optInt("limit", limit);
+        }
+        if (maxWidth <= 0 || maxHeight <= 0) {
+            callbackContext.error("\"maxWidth\" and \"maxHeight\" should be positive numbers of pixels");
+            return;
+        }
+        if (limit < 0) {
+            callbackContext.error("\"limit\" should be a positive number, or 0");
+            return;
+        }
+
+        final int photoWidth = maxWidth;
+        final int photoHeight = maxHeight;
+        final int photoLimit = limit;
+        mConnection.execute(new ApiConnection.Call(callbackContext) {
+            @Override
+            void run() {
+                mPlacePhotoCache.getPhotos(placeId, photoWidth, photoHeight, photoLimit, callbackContext);
+            }
+        });
+    }
+
+    private void placesInBounds(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        if (args.length() < 1 || args.length() > 2 || !(args.get(0) instanceof JSONObject)) {
+            callbackContext.error("wrong arguments for placesInBounds(bounds, types)");
+            return;
+        }
+        LatLngBounds bounds = RequestDecoder.decodeCoordinateBounds(args.getJSONObject(0));
+        int[] types = null;
+        if (args.length() == 2 && !args.isNull(1)) {
+            Object rawTypes = args.get(1);
+            if (!(rawTypes instanceof JSONArray)) {
+                callbackContext.error("argument 1 (types) should be an array");
+                return;
+            }
+            types = RequestDecoder.decodePlaceTypes((JSONArray)rawTypes);
+        }
+        callbackContext.success(new ResultEncoder.EncodedJSONArray(mPlaceIndex.placesInBounds(bounds, types)));
+    }
+
+    private void nearestPlaces(JSONArray args, CallbackContext callbackContext) throws JSONException {
+        if (args.length() != 2 || !(args.get(0) instanceof JSONObject)) {
+            callbackContext.error("wrong arguments for nearestPlaces(coordinate, count)");
+            return;
+        }
+        LatLng coordinate = RequestDecoder.decodeCoordinate(args.getJSONObject(0));
+        int count = args.optInt(1, 0);
+        if (count <= 0) {
+            callbackContext.error("argument 1 (count) should be a positive number");
+            return;
+        }
+        callbackContext.success(new ResultEncoder.EncodedJSONArray(mPlaceIndex.nearestPlaces(coordinate, count)));
+    }
+
     private void pickPlace(JSONArray args, CallbackContext callbackContext) throws JSONException, GooglePlayServicesNotAvailableException, GooglePlayServicesRepairableException {
         LatLngBounds bounds = null;
 
-        if (args.length() > 1) {
-            callbackContext.error("wrong arguments for pickPlace(bounds)");
+        if (args.length() > 2) {
+            callbackContext.error("wrong arguments for pickPlace(bounds, options)");
             return;
         }
-        if (args.length() == 1) {
+        if (args.length() >= 1 && !args.isNull(0)) {
             Object rawArg0 = args.get(0);
             if (!(rawArg0 instanceof JSONObject)) {
                 callbackContext.error("argument 0 (bounds) should be an object");
                 return;
             }
-            bounds = decodeCoordinateBounds((JSONObject)rawArg0);
+            bounds = RequestDecoder.decodeCoordinateBounds((JSONObject)rawArg0);
+        }
+        ResultOptions options = decodeResultOptions(args, 1, callbackContext);
+        if (options == null) {
+            return;
         }
 
         // set this plugin as the callback for the next activity result
@@ -219,9 +1209,19 @@ public class CordovaGooglePlaces extends CordovaPlugin implements GoogleApiClien
         activity.startActivityForResult(intent, PLACE_PICKER_REQUEST);
 
         mPickPlaceCallbackContext = callbackContext;
+        mPickPlaceOptions = options;
     }
 
-    private void showPlaceAutocomplete(CallbackContext callbackContext) throws JSONException, GooglePlayServicesNotAvailableException, GooglePlayServicesRepairableException {
+    private void showPlaceAutocomplete(JSONArray args, CallbackContext callbackContext) throws JSONException, GooglePlayServicesNotAvailableException, GooglePlayServicesRepairableException {
+        if (args.length() > 1) {
+            callbackContext.error("wrong arguments for showPlaceAutocomplete(options)");
+            return;
+        }
+        ResultOptions options = decodeResultOptions(args, 0, callbackContext);
+        if (options == null) {
+            return;
+        }
+
         // set this plugin as the callback for the next activity result
         cordova.setActivityResultCallback(this);
 
@@ -231,11 +1231,13 @@ public class CordovaGooglePlaces extends CordovaPlugin implements GoogleApiClien
         activity.startActivityForResult(intent, PLACE_AUTOCOMPLETE_REQUEST);
 
         mShowPlaceAutocompleteCallbackContext = callbackContext;
+        mShowPlaceAutocompleteOptions = options;
     }
 
     @Override
     public void onActivityResult(int requestCode, int resultCode, Intent intent) {
         CallbackContext callbackContext;
+        ResultOptions options;
 
         switch (requestCode) {
             case PLACE_PICKER_REQUEST:
@@ -244,12 +1246,16 @@ public class CordovaGooglePlaces extends CordovaPlugin implements GoogleApiClien
                     return;
                 }
                 mPickPlaceCallbackContext = null;
+                options = mPickPlaceOptions;
 
                 if (resultCode == Activity.RESULT_OK) {
+                    long encodeStart = System.nanoTime();
                     Place place = PlacePicker.getPlace(cordova.getActivity(), intent);
+                    mSuggestionIndex.selected(place);
                     try {
-                        JSONObject encodedPlace = encodePlace(place);
-                        callbackContext.success(encodedPlace);
+                        String encodedPlace = encodeAndStorePlace(place, options);
+                        Metrics.recordEncodeTime(callbackContext, encodeStart);
+                        callbackContext.success(new ResultEncoder.EncodedJSONObject(encodedPlace));
                     } catch (JSONException e) {
                         callbackContext.error(e.getMessage());
                     }
@@ -267,12 +1273,16 @@ public class CordovaGooglePlaces extends CordovaPlugin implements GoogleApiClien
                     return;
                 }
                 mShowPlaceAutocompleteCallbackContext = null;
+                options = mShowPlaceAutocompleteOptions;
 
                 if (resultCode == Activity.RESULT_OK) {
+                    long encodeStart = System.nanoTime();
                     Place place = PlacePicker.getPlace(cordova.getActivity(), intent);
+                    mSuggestionIndex.selected(place);
                     try {
-                        JSONObject encodedPlace = encodePlace(place);
-                        callbackContext.success(encodedPlace);
+                        String encodedPlace = encodeAndStorePlace(place, options);
+                        Metrics.recordEncodeTime(callbackContext, encodeStart);
+                        callbackContext.success(new ResultEncoder.EncodedJSONObject(encodedPlace));
                     } catch (JSONException e) {
                         callbackContext.error(e.getMessage());
                     }
@@ -287,315 +1297,99 @@ public class CordovaGooglePlaces extends CordovaPlugin implements GoogleApiClien
         }
     }
 
-    private AutocompleteFilter decodeAutocompleteFilter(JSONObject obj) throws  JSONException {
-        Object rawType = obj.get("type");
-        if (!(rawType instanceof String)) {
-            throw new JSONException("\"type\" should be an String");
-        }
-        String typeName = (String)rawType;
-        int type = decodeAutocompleteFilterType(typeName);
-
-        String country = null;
-        Object rawCountry = obj.optString("country");
-        if (rawCountry == null) {
-            country = (String)rawType;
-        } else if (!(rawCountry instanceof String)) {
-            throw new JSONException("\"country\" should be an String");
-        }
-
-        AutocompleteFilter.Builder builder = new AutocompleteFilter.Builder();
-        builder.setTypeFilter(type);
-        if (country != null) {
-            builder.setCountry(country);
-        }
-        return builder.build();
-    }
-
-    private int decodeAutocompleteFilterType(String s) throws JSONException {
-        if (s.equals("no_filter")) {
-            return AutocompleteFilter.TYPE_FILTER_NONE;
-        } else if (s.equals("geocode")) {
-            return AutocompleteFilter.TYPE_FILTER_GEOCODE;
-        } else if (s.equals("address")) {
-            return AutocompleteFilter.TYPE_FILTER_ADDRESS;
-        } else if (s.equals("establishment")) {
-            return AutocompleteFilter.TYPE_FILTER_ESTABLISHMENT;
-        } else if (s.equals("region")) {
-            return AutocompleteFilter.TYPE_FILTER_REGIONS;
-        } else if (s.equals("city")) {
-            return AutocompleteFilter.TYPE_FILTER_CITIES;
-        }
-        throw new JSONException("Unknown filter type" + s);
-    }
-
-    private LatLngBounds decodeCoordinateBounds(JSONObject obj) throws JSONException {
-        Object rawNorthEast = obj.get("northEast");
-        if (!(rawNorthEast instanceof JSONObject)) {
-            throw new JSONException("\"northEast\" should be an object");
-        }
-        LatLng northEast = decodeCoordinate((JSONObject) rawNorthEast);
-
-        Object rawSouthWest = obj.get("southWest");
-        if (!(rawSouthWest instanceof JSONObject)) {
-            throw new JSONException("\"southWest\" should be an object");
-        }
-        LatLng southWest = decodeCoordinate((JSONObject) rawSouthWest);
-
-        return new LatLngBounds(northEast, southWest);
+    @Override
+    public void onPause(boolean multitasking) {
+        super.onPause(multitasking);
+        mConnection.stop();
+        mSuggestionIndex.flush();
     }
 
-    private LatLng decodeCoordinate(JSONObject obj) throws JSONException {
-        Object rawLatitude = obj.get("latitude");
-        if (!(rawLatitude instanceof Double)) {
-            throw new JSONException("\"latitude\" should be a number");
-        }
-        double latitude = (Double)rawLatitude;
-
-        Object rawLongitude = obj.get("longitude");
-        if (!(rawLongitude instanceof Double)) {
-            throw new JSONException("\"longitude\" should be a number");
-        }
-        double longitude = (Double)rawLongitude;
-
-        return new LatLng(latitude, longitude);
+    @Override
+    public void onResume(boolean multitasking) {
+        super.onResume(multitasking);
+        mConnection.start();
     }
 
-    private  JSONObject encodeAutocompletePrediction(AutocompletePrediction prediciton) throws JSONException {
-        JSONObject result = new JSONObject();
-        result.put("fullText", prediciton.getFullText(null).toString());
-        result.put("primaryText", prediciton.getPrimaryText(null).toString());
-        result.put("secondaryText", prediciton.getSecondaryText(null).toString());
-        result.put("placeID", prediciton.getPlaceId());
-        result.put("types", encodePlaceTypes(prediciton.getPlaceTypes()));
-        return result;
+    /**
+     * The page was reloaded (or left): the callbacks of its watches, sessions, batches and
+     * requests are gone, and the IDs it gave them are given again by the new page.
+     */
+    @Override
+    public void onReset() {
+        endPageRequests();
+        super.onReset();
     }
 
-    private JSONObject encodePlaceLikelihood(PlaceLikelihood placeLikelihood) throws JSONException {
-        JSONObject result = new JSONObject();
-        result.put("likelihood", placeLikelihood.getLikelihood());
-        result.put("place", encodePlace(placeLikelihood.getPlace()));
-        return result;
+    @Override
+    public void onDestroy() {
+        cordova.getActivity().unregisterComponentCallbacks(mMemoryGovernor);
+        endPageRequests();
+        mConnection.close();
+        mPlaceStore.close();
+        mSuggestionIndex.close();
+        mPlacePhotoCache.close();
+        mEncodingExecutor.shutdown();
+        mFrameMonitor.stop();
+        super.onDestroy();
     }
 
-    private JSONObject encodePlace(Place place) throws JSONException {
-        JSONObject result = new JSONObject();
-        result.put("name", place.getName());
-        result.put("placeID", place.getId());
-
-        if (place.getPhoneNumber() != null) {
-            result.put("phoneNumber", place.getPhoneNumber());
-        }
-        if (place.getAddress() != null) {
-            result.put("formattedAddress", place.getAddress());
-        }
-        if (place.getRating() != 0.0) {
-            result.put("rating", place.getRating());
-        }
-        List<Integer> types = place.getPlaceTypes();
-        if (types != null) {
-            result.put("types", encodePlaceTypes(types));
-        }
-        if (place.getPriceLevel() >= 0) {
-            switch (place.getPriceLevel()) {
-                case 0:
-                    result.put("priceLevel", "free");
-                    break;
-                case 1:
-                    result.put("priceLevel", "cheap");
-                    break;
-                case 2:
-                    result.put("priceLevel", "medium");
-                    break;
-                case 3:
-                    result.put("priceLevel", "high");
-                    break;
-                case 4:
-                    result.put("priceLevel", "expensive");
-                    break;
-            }
+    private void endPageRequests() {
+        for (TypeaheadSession session : mTypeaheadSessions.values()) {
+            session.close();
         }
-        if (place.getLatLng() != null) {
-            result.put("coordinate", encodeCoordinate(place.getLatLng()));
+        mTypeaheadSessions.clear();
+        for (PlaceWatch watch : mPlaceWatches.values()) {
+            watch.stop();
         }
-        if (place.getWebsiteUri() != null) {
-            result.put("website", place.getWebsiteUri().toString());
+        mPlaceWatches.clear();
+        for (AutocompleteBatch batch : mAutocompleteBatches.values()) {
+            batch.cancel();
         }
-        if (place.getViewport() != null) {
-            result.put("viewport", encodeCoordinateBounds(place.getViewport()));
-        }
-        if (place.getAttributions() != null) {
-            result.put("attributions", place.getAttributions());
-        }
-
-        return result;
+        mAutocompleteBatches.clear();
+        mPendingRequests.cancelAll();
+        mSearchContexts.clear();
     }
 
-    private JSONObject encodeCoordinateBounds(LatLngBounds bounds) throws JSONException {
-        JSONObject result = new JSONObject();
-        result.put("northEast", encodeCoordinate(bounds.northeast));
-        result.put("southWest", encodeCoordinate(bounds.southwest));
-        return result;
+    /**
+     * The error result of a failed Places API call: calls shed by the scheduler and calls over
+     * quota fail with their own error code, other calls with the status message.
+     */
+    static PluginResult encodeFailure(Status status) {
+        String code = errorCodeOf(status);
+        if (code == null) {
+            return new PluginResult(PluginResult.Status.ERROR, status.getStatusMessage());
+        }
+        return new PluginResult(PluginResult.Status.ERROR, encodeError(code, failureMessageOf(status)));
     }
 
-    private JSONObject encodeCoordinate(LatLng latLng) throws JSONException {
-        if (latLng == null) {
-            return null;
+    /**
+     * The error code of a failed Places API call, or null when it fails with its status message only.
+     */
+    static String errorCodeOf(Status status) {
+        if (status.getStatusCode() == ApiScheduler.THROTTLED) {
+            return ERROR_THROTTLED;
         }
-        JSONObject result = new JSONObject();
-        result.put("latitude", latLng.latitude);
-        result.put("longitude", latLng.longitude);
-        return result;
+        if (ApiScheduler.isQuotaError(status)) {
+            return ERROR_QUOTA_EXCEEDED;
+        }
+        return null;
     }
 
-    private JSONArray encodePlaceTypes(List<Integer> types) {
-        if (types == null) {
-            return null;
+    static String failureMessageOf(Status status) {
+        if (status.getStatusMessage() == null && ApiScheduler.isQuotaError(status)) {
+            return "Places API quota exceeded";
         }
-        JSONArray results = new JSONArray();
-        for (int t: types) {
-            String type = encodePlaceType(t);
-            results.put(type);
-        }
-        return results;
-    }
-
-    private String encodePlaceType(int type) {
-        switch (type) {
-            case Place.TYPE_OTHER: return "other";
-            case Place.TYPE_ACCOUNTING: return "accounting";
-            case Place.TYPE_AIRPORT: return "airport";
-            case Place.TYPE_AMUSEMENT_PARK: return "amusement_park";
-            case Place.TYPE_AQUARIUM: return "aquarium";
-            case Place.TYPE_ART_GALLERY: return "art_gallery";
-            case Place.TYPE_ATM: return "atm";
-            case Place.TYPE_BAKERY: return "bakery";
-            case Place.TYPE_BANK: return "bank";
-            case Place.TYPE_BAR: return "bar";
-            case Place.TYPE_BEAUTY_SALON: return "beauty_salon";
-            case Place.TYPE_BICYCLE_STORE: return "bicycle_store";
-            case Place.TYPE_BOOK_STORE: return "book_store";
-            case Place.TYPE_BOWLING_ALLEY: return "bowling_alley";
-            case Place.TYPE_BUS_STATION: return "bus_station";
-            case Place.TYPE_CAFE: return "cafe";
-            case Place.TYPE_CAMPGROUND: return "campground";
-            case Place.TYPE_CAR_DEALER: return "car_dealer";
-            case Place.TYPE_CAR_RENTAL: return "car_rental";
-            case Place.TYPE_CAR_REPAIR: return "car_repair";
-            case Place.TYPE_CAR_WASH: return "car_wash";
-            case Place.TYPE_CASINO: return "casino";
-            case Place.TYPE_CEMETERY: return "cemetery";
-            case Place.TYPE_CHURCH: return "church";
-            case Place.TYPE_CITY_HALL: return "city_hall";
-            case Place.TYPE_CLOTHING_STORE: return "clothing_store";
-            case Place.TYPE_CONVENIENCE_STORE: return "convenience_store";
-            case Place.TYPE_COURTHOUSE: return "courhouse";
-            case Place.TYPE_DENTIST: return "dentist";
-            case Place.TYPE_DEPARTMENT_STORE: return "department_store";
-            case Place.TYPE_DOCTOR: return "doctor";
-            case Place.TYPE_ELECTRICIAN: return "electrician";
-            case Place.TYPE_ELECTRONICS_STORE: return "electronics_store";
-            case Place.TYPE_EMBASSY: return "embassy";
-            case Place.TYPE_ESTABLISHMENT: return "establishment";
-            case Place.TYPE_FINANCE: return "finance";
-            case Place.TYPE_FIRE_STATION: return "fire_station";
-            case Place.TYPE_FLORIST: return "florist";
-            case Place.TYPE_FOOD: return "food";
-            case Place.TYPE_FUNERAL_HOME: return "funeral_home";
-            case Place.TYPE_FURNITURE_STORE: return "furniture_store";
-            case Place.TYPE_GAS_STATION: return "gas_station";
-            case Place.TYPE_GENERAL_CONTRACTOR: return "general_contractor";
-            case Place.TYPE_GROCERY_OR_SUPERMARKET: return "grocery_or_supermarket";
-            case Place.TYPE_GYM: return "gym";
-            case Place.TYPE_HAIR_CARE: return "hair_care";
-            case Place.TYPE_HARDWARE_STORE: return "hardware_store";
-            case Place.TYPE_HEALTH: return "health";
-            case Place.TYPE_HINDU_TEMPLE: return "hindu_temple";
-            case Place.TYPE_HOME_GOODS_STORE: return "home_goods_store";
-            case Place.TYPE_HOSPITAL: return "hospital";
-            case Place.TYPE_INSURANCE_AGENCY: return "insurance_agency";
-            case Place.TYPE_JEWELRY_STORE: return "jewelry_store";
-            case Place.TYPE_LAUNDRY: return "lanudry";
-            case Place.TYPE_LAWYER: return "lawyer";
-            case Place.TYPE_LIBRARY: return "library";
-            case Place.TYPE_LIQUOR_STORE: return "liquor_store";
-            case Place.TYPE_LOCAL_GOVERNMENT_OFFICE: return "local_government_office";
-            case Place.TYPE_LOCKSMITH: return "locksmith";
-            case Place.TYPE_LODGING: return "lodging";
-            case Place.TYPE_MEAL_DELIVERY: return "meal_delivery";
-            case Place.TYPE_MEAL_TAKEAWAY: return "meal_takeway";
-            case Place.TYPE_MOSQUE: return "mosque";
-            case Place.TYPE_MOVIE_RENTAL: return "movie_rental";
-            case Place.TYPE_MOVIE_THEATER: return "movie_theatre";
-            case Place.TYPE_MOVING_COMPANY: return "moving_company";
-            case Place.TYPE_MUSEUM: return "museum";
-            case Place.TYPE_NIGHT_CLUB: return "night_club";
-            case Place.TYPE_PAINTER: return "painter";
-            case Place.TYPE_PARK: return "park";
-            case Place.TYPE_PARKING: return "parking";
-            case Place.TYPE_PET_STORE: return "pet_store";
-            case Place.TYPE_PHARMACY: return "pharmacy";
-            case Place.TYPE_PHYSIOTHERAPIST: return "physiotherapist";
-            case Place.TYPE_PLACE_OF_WORSHIP: return "place_of_worship";
-            case Place.TYPE_PLUMBER: return "plumber";
-            case Place.TYPE_POLICE: return "police";
-            case Place.TYPE_POST_OFFICE: return "post_office";
-            case Place.TYPE_REAL_ESTATE_AGENCY: return "real_estate_agency";
-            case Place.TYPE_RESTAURANT: return "restaurant";
-            case Place.TYPE_ROOFING_CONTRACTOR: return "roofing_contractor";
-            case Place.TYPE_RV_PARK: return "rv_park";
-            case Place.TYPE_SCHOOL: return "school";
-            case Place.TYPE_SHOE_STORE: return "shoe_store";
-            case Place.TYPE_SHOPPING_MALL: return "shopping_mall";
-            case Place.TYPE_SPA: return "spa";
-            case Place.TYPE_STADIUM: return "stadium";
-            case Place.TYPE_STORAGE: return "storage";
-            case Place.TYPE_STORE: return "store";
-            case Place.TYPE_SUBWAY_STATION: return "subway_station";
-            case Place.TYPE_SYNAGOGUE: return "synagogue";
-            case Place.TYPE_TAXI_STAND: return "taxi_stand";
-            case Place.TYPE_TRAIN_STATION: return "train_station";
-            case Place.TYPE_TRAVEL_AGENCY: return "travel_agency";
-            case Place.TYPE_UNIVERSITY: return "university";
-            case Place.TYPE_VETERINARY_CARE: return "veterinary_case";
-            case Place.TYPE_ZOO: return "zoo";
-            case Place.TYPE_ADMINISTRATIVE_AREA_LEVEL_1: return "administrative_area_level_1";
-            case Place.TYPE_ADMINISTRATIVE_AREA_LEVEL_2: return "administrative_area_level_2";
-            case Place.TYPE_ADMINISTRATIVE_AREA_LEVEL_3: return "administrative_area_level_3";
-            case Place.TYPE_COLLOQUIAL_AREA: return "colloquial_area";
-            case Place.TYPE_COUNTRY: return "country";
-            case Place.TYPE_FLOOR: return "floor";
-            case Place.TYPE_GEOCODE: return "geocode";
-            case Place.TYPE_INTERSECTION: return "intersection";
-            case Place.TYPE_LOCALITY: return "locality";
-            case Place.TYPE_NATURAL_FEATURE: return "natural_feature";
-            case Place.TYPE_NEIGHBORHOOD: return "neighborhood";
-            case Place.TYPE_POLITICAL: return "political";
-            case Place.TYPE_POINT_OF_INTEREST: return "point_of_interest";
-            case Place.TYPE_POST_BOX: return "post_box";
-            case Place.TYPE_POSTAL_CODE: return "postal_code";
-            case Place.TYPE_POSTAL_CODE_PREFIX: return "postal_code_prefix";
-            case Place.TYPE_POSTAL_TOWN: return "postal_town";
-            case Place.TYPE_PREMISE: return "premise";
-            case Place.TYPE_ROOM: return "room";
-            case Place.TYPE_ROUTE: return "route";
-            case Place.TYPE_STREET_ADDRESS: return "street_address";
-            case Place.TYPE_SUBLOCALITY: return "sublocality";
-            case Place.TYPE_SUBLOCALITY_LEVEL_1: return "sublocality_level_1";
-            case Place.TYPE_SUBLOCALITY_LEVEL_2: return "sublocality_level_2";
-            case Place.TYPE_SUBLOCALITY_LEVEL_3: return "sublocality_level_3";
-            case Place.TYPE_SUBLOCALITY_LEVEL_4: return "sublocality_level_4";
-            case Place.TYPE_SUBLOCALITY_LEVEL_5: return "sublocality_level_5";
-            case Place.TYPE_SUBPREMISE: return "subpremise";
-            case Place.TYPE_SYNTHETIC_GEOCODE: return "synthetic_geocode";
-            case Place.TYPE_TRANSIT_STATION: return "transit_station";
-        }
-
-        // defaults to "other"
-        return "other";
+        return status.getStatusMessage();
     }
 
-    @Override
-    public void onConnectionFailed(@NonNull ConnectionResult connectionResult) {
-        Log.e(TAG, "Could not initalize Google Places SDK: " + connectionResult.getErrorMessage());
+    static JSONObject encodeError(String code, String message) {
+        JSONObject result = new JSONObject();
+        try {
+            result.put("code", code);
+            result.put("message", message);
+        } catch (JSONException e) {
+            // cannot happen: keys are never null
+        }
+        return result;
     }
 }
@@ -0,0 +1,173 @@
+package plugin.google.places;
+
+import android.location.Location;
+import android.os.SystemClock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The latest encoded currentPlace results, by result format and options, along with the cell
+ * of the location fix they were queried at.
+ *
+ * Cells are geohash-style: the latitude and the longitude are halved in turn, CELL_BITS times,
+ * giving cells of about 150 x 150 m (a geohash of 7 characters). A result is reused by the
+ * calls made within their maxAgeMs from the same cell. It is dropped once the device left the
+ * cell, or once the accuracy of the fix degraded: to more than twice the accuracy the result
+ * was queried with, and by more than MIN_ACCURACY_SLACK. Results queried without a fix, or with
+ * a fix less accurate than the size of the cells, are not kept.
+ */
+class CurrentPlaceCache implements MemoryGovernor.Consumer {
+    static final int CELL_BITS = 35;
+    static final float MAX_ACCURACY = 150; // meters, about the size of the cells
+    static final float MIN_ACCURACY_SLACK = 20; // meters
+    private static final int MAX_ENTRIES = 8;
+
+    private static final class CacheEntry {
+        final long cell;
+        final float accuracy;
+        final long createdAt;
+        final EncodedResult result;
+
+        CacheEntry(long cell, float accuracy, long createdAt, EncodedResult result) {
+            this.cell = cell;
+            this.accuracy = accuracy;
+            this.createdAt = createdAt;
+            this.result = result;
+        }
+    }
+
+    // guarded by this
+    private final LinkedHashMap<String, CacheEntry> mEntries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+    private final AtomicLong mMoved = new AtomicLong();
+    private final AtomicLong mDegraded = new AtomicLong();
+
+    /**
+     * The cell of a coordinate, its bits interleaved as those of a geohash (longitude first).
+     */
+    static long cellOf(double latitude, double longitude) {
+        double minLatitude = -90, maxLatitude = 90;
+        double minLongitude = -180, maxLongitude = 180;
+        long cell = 0;
+        for (int bit = 0; bit < CELL_BITS; bit++) {
+            cell <<= 1;
+            if (bit % 2 == 0) {
+                double middle = (minLongitude + maxLongitude) / 2;
+                if (longitude >= middle) {
+                    cell |= 1;
+                    minLongitude = middle;
+                } else {
+                    maxLongitude = middle;
+                }
+            } else {
+                double middle = (minLatitude + maxLatitude) / 2;
+                if (latitude >= middle) {
+                    cell |= 1;
+                    minLatitude = middle;
+                } else {
+                    maxLatitude = middle;
+                }
+            }
+        }
+        return cell;
+    }
+
+    private static boolean isUsable(Location location) {
+        return location != null && location.hasAccuracy() && location.getAccuracy() <= MAX_ACCURACY;
+    }
+
+    /**
+     * Returns the result of key queried at most maxAgeMillis ago, in the cell of location,
+     * or null.
+     */
+    synchronized EncodedResult get(String key, Location location, long maxAgeMillis) {
+        CacheEntry entry = mEntries.get(key);
+        if (entry == null || location == null) {
+            mMisses.incrementAndGet();
+            return null;
+        }
+        if (cellOf(location.getLatitude(), location.getLongitude()) != entry.cell) {
+            mEntries.remove(key);
+            mMoved.incrementAndGet();
+            mMisses.incrementAndGet();
+            return null;
+        }
+        if (!location.hasAccuracy() || location.getAccuracy() > Math.max(entry.accuracy * 2, entry.accuracy + MIN_ACCURACY_SLACK)) {
+            mEntries.remove(key);
+            mDegraded.incrementAndGet();
+            mMisses.incrementAndGet();
+            return null;
+        }
+        if (SystemClock.elapsedRealtime() - entry.createdAt > maxAgeMillis) {
+            mMisses.incrementAndGet();
+            return null;
+        }
+        mHits.incrementAndGet();
+        return entry.result;
+    }
+
+    /**
+     * Keeps the result of key, queried at location.
+     */
+    synchronized void put(String key, Location location, EncodedResult result) {
+        if (!isUsable(location)) {
+            return;
+        }
+        mEntries.put(key, new CacheEntry(cellOf(location.getLatitude(), location.getLongitude()), location.getAccuracy(),
+                SystemClock.elapsedRealtime(), result));
+    }
+
+    synchronized void clear() {
+        mEntries.clear();
+    }
+
+    @Override
+    public synchronized void trimMemory(int stage) {
+        // the results are queried again at the next calls
+        if (stage >= MemoryGovernor.STAGE_LOW) {
+            mEntries.clear();
+        }
+    }
+
+    @Override
+    public synchronized JSONObject encodeMemoryStats() throws JSONException {
+        long bytes = 0;
+        for (CacheEntry entry : mEntries.values()) {
+            bytes += entry.result.byteCount();
+        }
+        JSONObject result = new JSONObject();
+        result.put("entries", mEntries.size());
+        result.put("bytes", bytes);
+        return result;
+    }
+
+    JSONObject encodeStats() throws JSONException {
+        long hits = mHits.get();
+        long misses = mMisses.get();
+        JSONObject result = new JSONObject();
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("moved", mMoved.get());
+        result.put("degraded", mDegraded.get());
+        result.put("hitRatio", hits + misses > 0 ? (double)hits / (hits + misses) : 0);
+        return result;
+    }
+
+    void resetStats() {
+        mHits.set(0);
+        mMisses.set(0);
+        mMoved.set(0);
+        mDegraded.set(0);
+    }
+}
@@ -0,0 +1,75 @@
+package plugin.google.places;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.PluginResult;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An encoded list of results, either as JSON text or in the binary format of
+ * {@link BinaryResultEncoder}, ready to be sent to JS.
+ *
+ * Also counts the results and bytes sent over the bridge in each format.
+ */
+final class EncodedResult {
+    private static final AtomicLong sJsonResults = new AtomicLong();
+    private static final AtomicLong sJsonBytes = new AtomicLong();
+    private static final AtomicLong sBinaryResults = new AtomicLong();
+    private static final AtomicLong sBinaryBytes = new AtomicLong();
+
+    private final String mJson;
+    private final byte[] mBinary;
+
+    private EncodedResult(String json, byte[] binary) {
+        mJson = json;
+        mBinary = binary;
+    }
+
+    static EncodedResult json(String json) {
+        return new EncodedResult(json, null);
+    }
+
+    static EncodedResult binary(byte[] binary) {
+        return new EncodedResult(null, binary);
+    }
+
+    boolean isBinary() {
+        return mBinary != null;
+    }
+
+    /**
+     * The memory taken by the encoded result (JSON text being UTF-16).
+     */
+    int byteCount() {
+        return mBinary != null ? mBinary.length : mJson.length() * 2;
+    }
+
+    void sendTo(CallbackContext callbackContext) {
+        if (mBinary != null) {
+            // array buffers go through the bridge as base64
+            sBinaryResults.incrementAndGet();
+            sBinaryBytes.addAndGet((mBinary.length + 2) / 3 * 4);
+            callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.OK, mBinary));
+        } else {
+            sJsonResults.incrementAndGet();
+            sJsonBytes.addAndGet(mJson.length());
+            callbackContext.success(new ResultEncoder.EncodedJSONArray(mJson));
+        }
+    }
+
+    static JSONObject encodeTransportStats() throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("results", sJsonResults.get());
+        json.put("bytes", sJsonBytes.get());
+        JSONObject binary = new JSONObject();
+        binary.put("results", sBinaryResults.get());
+        binary.put("bytes", sBinaryBytes.get());
+
+        JSONObject result = new JSONObject();
+        result.put("json", json);
+        result.put("binary", binary);
+        return result;
+    }
+}
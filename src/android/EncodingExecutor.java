@@ -0,0 +1,121 @@
+package plugin.google.places;
+
+import android.os.Process;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of background threads encoding results, so that the backend callbacks
+ * (delivered on the main looper) do not have to.
+ *
+ * When the queue is full, the oldest queued task is shed to make room for the new one:
+ * its callback fails with the "overloaded" code. Tasks whose callback was already answered
+ * (e.g. a superseded typeahead query) are skipped.
+ *
+ * Queuing a task has its FrameMonitor follow the frames of the main thread meanwhile.
+ */
+class EncodingExecutor {
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 8;
+    private static final int KEEP_ALIVE = 30; // seconds
+
+    /**
+     * Encodes a result and sends it to its callback.
+     *
+     * Tasks answering several callbacks (or none) are given a null callback, and override
+     * isAwaited and shed.
+     */
+    abstract static class Task implements Runnable {
+        final CallbackContext callbackContext;
+
+        Task(CallbackContext callbackContext) {
+            this.callbackContext = callbackContext;
+        }
+
+        abstract void encode() throws JSONException;
+
+        /**
+         * Whether the result is still awaited: the tasks which are not are skipped.
+         */
+        boolean isAwaited() {
+            return !callbackContext.isFinished();
+        }
+
+        @Override
+        public void run() {
+            if (!isAwaited()) {
+                return;
+            }
+            try {
+                encode();
+            } catch (JSONException e) {
+                callbackContext.error(e.getMessage());
+            }
+        }
+
+        void shed() {
+            if (isAwaited()) {
+                callbackContext.error(CordovaGooglePlaces.encodeError(CordovaGooglePlaces.ERROR_OVERLOADED, "too many results waiting to be encoded"));
+            }
+        }
+    }
+
+    private final ThreadPoolExecutor mExecutor;
+    private final FrameMonitor mFrameMonitor;
+
+    EncodingExecutor(FrameMonitor frameMonitor) {
+        mFrameMonitor = frameMonitor;
+        final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY);
+        mExecutor = new ThreadPoolExecutor(THREADS, THREADS, KEEP_ALIVE, TimeUnit.SECONDS, queue, new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        runnable.run();
+                    }
+                }, "GooglePlaces-encoder-" + mCount.incrementAndGet());
+            }
+        }, new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                if (executor.isShutdown()) {
+                    ((Task)runnable).shed();
+                    return;
+                }
+                // shed the oldest work, which is the most likely to be stale by now
+                Runnable oldest = queue.poll();
+                if (oldest != null) {
+                    ((Task)oldest).shed();
+                }
+                executor.execute(runnable);
+            }
+        });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    void execute(Task task) {
+        mFrameMonitor.encodingQueued();
+        mExecutor.execute(task);
+    }
+
+    int queuedTasks() {
+        return mExecutor.getQueue().size();
+    }
+
+    void shutdown() {
+        mExecutor.shutdown();
+    }
+}
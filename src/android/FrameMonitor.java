@@ -0,0 +1,100 @@
+package plugin.google.places;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Main-thread frame times while results are being encoded, for getStats.
+ *
+ * Frames are followed with a Choreographer frame callback, which records the time between
+ * the vsyncs of consecutive frames: 16.7 ms on a 60 Hz display that never misses a frame,
+ * more when the main thread held frames back. Slow frames are those over SLOW_FRAME_MICROS.
+ *
+ * A frame callback keeps the display ticking, so frames are only followed from the moment
+ * a result is queued for encoding, until IDLE_MILLIS after the last one.
+ */
+class FrameMonitor implements Choreographer.FrameCallback {
+    static final long SLOW_FRAME_MICROS = 32 * 1000; // at least one vsync missed at 60 Hz
+    private static final long IDLE_MILLIS = 500;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Metrics.Histogram mFrames = new Metrics.Histogram();
+    private final AtomicLong mSlowFrames = new AtomicLong();
+    private volatile long mBusyUntil;
+    // only accessed from the main looper, but read from any thread
+    private volatile boolean mFollowing;
+    private long mLastFrameNanos;
+
+    private final Runnable mStart = new Runnable() {
+        @Override
+        public void run() {
+            if (!mFollowing && SystemClock.elapsedRealtime() < mBusyUntil) {
+                mFollowing = true;
+                mLastFrameNanos = 0;
+                Choreographer.getInstance().postFrameCallback(FrameMonitor.this);
+            }
+        }
+    };
+
+    /**
+     * Follows the frames until IDLE_MILLIS from now, from any thread.
+     */
+    void encodingQueued() {
+        mBusyUntil = SystemClock.elapsedRealtime() + IDLE_MILLIS;
+        if (!mFollowing) {
+            mHandler.post(mStart);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (mLastFrameNanos > 0) {
+            long micros = (frameTimeNanos - mLastFrameNanos) / 1000;
+            mFrames.record(micros);
+            if (micros > SLOW_FRAME_MICROS) {
+                mSlowFrames.incrementAndGet();
+            }
+        }
+        mLastFrameNanos = frameTimeNanos;
+        if (SystemClock.elapsedRealtime() < mBusyUntil) {
+            Choreographer.getInstance().postFrameCallback(this);
+            return;
+        }
+        mFollowing = false;
+        // in case a result was queued while stopping
+        mStart.run();
+    }
+
+    void stop() {
+        mBusyUntil = 0;
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mHandler.removeCallbacks(mStart);
+                if (mFollowing) {
+                    Choreographer.getInstance().removeFrameCallback(FrameMonitor.this);
+                    mFollowing = false;
+                }
+            }
+        });
+    }
+
+    JSONObject encodeStats() throws JSONException {
+        // recorded in microseconds, reported in milliseconds
+        JSONObject result = mFrames.encode(1000.0);
+        result.put("slow", mSlowFrames.get());
+        return result;
+    }
+
+    void resetStats() {
+        mFrames.reset();
+        mSlowFrames.set(0);
+    }
+}
@@ -0,0 +1,37 @@
+package plugin.google.places;
+
+import android.content.Context;
+import android.location.Location;
+import android.location.LocationManager;
+
+/**
+ * Most recent location fix known to the system, from any provider.
+ *
+ * This never turns on a location provider: fixes come from the other location
+ * requests of the app (e.g. cordova-plugin-geolocation) or of the system.
+ */
+final class LastKnownLocation {
+    private LastKnownLocation() {
+    }
+
+    static Location get(Context context) {
+        LocationManager locationManager = (LocationManager)context.getSystemService(Context.LOCATION_SERVICE);
+        if (locationManager == null) {
+            return null;
+        }
+
+        Location latest = null;
+        try {
+            for (String provider : locationManager.getProviders(true)) {
+                Location location = locationManager.getLastKnownLocation(provider);
+                if (location != null && (latest == null || location.getTime() > latest.getTime())) {
+                    latest = location;
+                }
+            }
+        } catch (SecurityException e) {
+            // missing location permission
+            return null;
+        }
+        return latest;
+    }
+}
@@ -0,0 +1,58 @@
+package plugin.google.places;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+
+/**
+ * Callback context recording the outcome of an action in its {@link Metrics.Action}.
+ *
+ * It stands for the callback context given to execute(), and answers the same JS callback.
+ * Only the final result is timed; intermediate results (kept callbacks) only count
+ * for the result sizes.
+ */
+class MeasuredCallbackContext extends CallbackContext {
+    // error results are encoded as { code, message } objects, code first
+    private static final String CANCELED_PREFIX = "{\"code\":\"" + CordovaGooglePlaces.ERROR_CANCELED + "\"";
+    private static final String SUPERSEDED_PREFIX = "{\"code\":\"" + CordovaGooglePlaces.ERROR_SUPERSEDED + "\"";
+    private static final String TIMEOUT_PREFIX = "{\"code\":\"" + CordovaGooglePlaces.ERROR_TIMEOUT + "\"";
+
+    final Metrics.Action action;
+    private final long mStartNanos = System.nanoTime();
+
+    MeasuredCallbackContext(CallbackContext callbackContext, CordovaWebView webView, Metrics.Action action) {
+        super(callbackContext.getCallbackId(), webView);
+        this.action = action;
+        action.calls.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void sendPluginResult(PluginResult pluginResult) {
+        boolean wasFinished = isFinished();
+        super.sendPluginResult(pluginResult);
+        if (wasFinished) {
+            // ignored by the superclass as well
+            return;
+        }
+
+        String message = pluginResult.getMessage();
+        if (message != null) {
+            action.resultSize.record(message.length());
+        }
+        if (pluginResult.getKeepCallback() || pluginResult.getStatus() == PluginResult.Status.NO_RESULT.ordinal()) {
+            // intermediate results, or a released callback (e.g. clearWatch)
+            return;
+        }
+        action.latency.record((System.nanoTime() - mStartNanos) / 1000);
+        if (pluginResult.getStatus() == PluginResult.Status.ERROR.ordinal()) {
+            boolean encodedError = message != null && pluginResult.getMessageType() == PluginResult.MESSAGE_TYPE_JSON;
+            if (encodedError && (message.startsWith(CANCELED_PREFIX) || message.startsWith(SUPERSEDED_PREFIX))) {
+                action.cancels.incrementAndGet();
+            } else if (encodedError && message.startsWith(TIMEOUT_PREFIX)) {
+                action.timeouts.incrementAndGet();
+            } else {
+                action.errors.incrementAndGet();
+            }
+        }
+    }
+}
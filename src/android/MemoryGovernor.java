@@ -0,0 +1,114 @@
+package plugin.google.places;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+import android.os.SystemClock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sheds the memory held by the plugin when the system runs low on memory, so that its caches
+ * do not compete with the WebView.
+ *
+ * The trim levels of ComponentCallbacks2 are mapped to three stages, each consumer
+ * deciding what to give up at each stage:
+ *
+ * - {@link #STAGE_MODERATE} (running moderate, UI hidden): shrink the caches, drop expired data
+ * - {@link #STAGE_LOW} (running low, background): drop the caches that are cheap to refill
+ * - {@link #STAGE_CRITICAL} (running critical, moderate, complete, low memory): drop whatever
+ *   is not needed to answer the pending calls, and shed the background calls waiting
+ *
+ * Callbacks waiting for the user (pickPlace, showPlaceAutocomplete) or for the Places API are
+ * never shed, but are reported with the memory held by each consumer by {@link #encodeStats()}.
+ *
+ * The system calls the governor on the main thread, where consumers are trimmed and
+ * report their memory too.
+ */
+class MemoryGovernor implements ComponentCallbacks2 {
+    interface Consumer {
+        /**
+         * Releases memory, more of it at higher stages.
+         */
+        void trimMemory(int stage);
+
+        JSONObject encodeMemoryStats() throws JSONException;
+    }
+
+    static final int STAGE_NONE = 0;
+    static final int STAGE_MODERATE = 1;
+    static final int STAGE_LOW = 2;
+    static final int STAGE_CRITICAL = 3;
+
+    private static final String[] STAGE_NAMES = { "none", "moderate", "low", "critical" };
+
+    // consumers, by name
+    private final Map<String, Consumer> mConsumers = new LinkedHashMap<String, Consumer>();
+    private final long[] mTrims = new long[STAGE_NAMES.length];
+    private int mLastLevel;
+    private long mLastTrimAt = -1;
+
+    void register(String name, Consumer consumer) {
+        mConsumers.put(name, consumer);
+    }
+
+    static int stageOf(int level) {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            return STAGE_CRITICAL;
+        }
+        if (level >= TRIM_MEMORY_BACKGROUND || level == TRIM_MEMORY_RUNNING_LOW) {
+            return STAGE_LOW;
+        }
+        if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+            return STAGE_MODERATE;
+        }
+        return STAGE_NONE;
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        mLastLevel = level;
+        trim(stageOf(level));
+    }
+
+    @Override
+    public void onLowMemory() {
+        trim(STAGE_CRITICAL);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    private void trim(int stage) {
+        if (stage == STAGE_NONE) {
+            return;
+        }
+        mTrims[stage]++;
+        mLastTrimAt = SystemClock.elapsedRealtime();
+        for (Consumer consumer : mConsumers.values()) {
+            consumer.trimMemory(stage);
+        }
+    }
+
+    /**
+     * Reports the trims so far, and the memory held by each consumer. Called on the main looper.
+     */
+    JSONObject encodeStats() throws JSONException {
+        JSONObject trims = new JSONObject();
+        for (int stage = STAGE_MODERATE; stage < STAGE_NAMES.length; stage++) {
+            trims.put(STAGE_NAMES[stage], mTrims[stage]);
+        }
+        JSONObject result = new JSONObject();
+        result.put("trims", trims);
+        result.put("lastTrimLevel", mLastLevel);
+        result.put("lastTrimAge", mLastTrimAt >= 0 ? SystemClock.elapsedRealtime() - mLastTrimAt : -1);
+        for (Map.Entry<String, Consumer> consumer : mConsumers.entrySet()) {
+            result.put(consumer.getKey(), consumer.getValue().encodeMemoryStats());
+        }
+        return result;
+    }
+}
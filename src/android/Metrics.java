@@ -0,0 +1,251 @@
+package plugin.google.places;
+
+import android.os.SystemClock;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-action latency histograms and counters, reported by the getStats action.
+ *
+ * For each action, the following are recorded:
+ *
+ * - calls, errors, cancellations (canceled or superseded requests) and timeouts
+ * - latency: from the call to its final result (in microseconds)
+ * - api: time spent in the Play Services call
+ * - encode: time from the Play Services result to the encoded result, including the wait
+ *   for an encoding thread and the copy of the data buffer
+ * - resultSize: size of the results on the bridge (in characters)
+ *
+ * Recording only updates atomic counters: it never locks nor allocates, and can be done
+ * from any thread. The set of actions is fixed when the plugin is created.
+ */
+class Metrics {
+    /**
+     * Log-linear histogram of non-negative values: values below 16 have their own bucket,
+     * and every power of two above is split into 8 buckets, for a relative error
+     * of 1/8 at most.
+     */
+    static final class Histogram {
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+        private static final int BUCKETS = LINEAR_BUCKETS + (64 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+        private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong mCount = new AtomicLong();
+        private final AtomicLong mSum = new AtomicLong();
+        private final AtomicLong mMax = new AtomicLong();
+
+        void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            mBuckets.incrementAndGet(bucketOf(value));
+            mCount.incrementAndGet();
+            mSum.addAndGet(value);
+            long max;
+            while (value > (max = mMax.get()) && !mMax.compareAndSet(max, value)) {
+                // lost a race with another thread: try again
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                mBuckets.set(i, 0);
+            }
+            mCount.set(0);
+            mSum.set(0);
+            mMax.set(0);
+        }
+
+        long count() {
+            return mCount.get();
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile (between 0 and 100).
+         */
+        long percentile(double percentile) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = mBuckets.get(i);
+                total += counts[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long)Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), mMax.get());
+                }
+            }
+            return mMax.get();
+        }
+
+        /**
+         * Encodes the count, mean, percentiles and maximum of the values, divided by scale.
+         */
+        JSONObject encode(double scale) throws JSONException {
+            long count = mCount.get();
+            JSONObject result = new JSONObject();
+            result.put("count", count);
+            result.put("mean", count > 0 ? mSum.get() / scale / count : 0);
+            result.put("p50", percentile(50) / scale);
+            result.put("p90", percentile(90) / scale);
+            result.put("p99", percentile(99) / scale);
+            result.put("max", mMax.get() / scale);
+            return result;
+        }
+
+        private static int bucketOf(long value) {
+            if (value < LINEAR_BUCKETS) {
+                return (int)value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int)((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+            return LINEAR_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+        }
+
+        private static long lowerBoundOf(int bucket) {
+            if (bucket < LINEAR_BUCKETS) {
+                return bucket;
+            }
+            int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+            int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+            return (long)(SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        }
+
+        private static long upperBoundOf(int bucket) {
+            return bucket + 1 < BUCKETS ? lowerBoundOf(bucket + 1) - 1 : Long.MAX_VALUE;
+        }
+    }
+
+    static final class Action {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong cancels = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+        final Histogram latency = new Histogram();
+        final Histogram api = new Histogram();
+        final Histogram encode = new Histogram();
+        final Histogram resultSize = new Histogram();
+
+        void reset() {
+            calls.set(0);
+            errors.set(0);
+            cancels.set(0);
+            timeouts.set(0);
+            latency.reset();
+            api.reset();
+            encode.reset();
+            resultSize.reset();
+        }
+
+        JSONObject encode() throws JSONException {
+            JSONObject result = new JSONObject();
+            result.put("calls", calls.get());
+            result.put("errors", errors.get());
+            result.put("cancels", cancels.get());
+            result.put("timeouts", timeouts.get());
+            // latencies are recorded in microseconds, and reported in milliseconds
+            result.put("latency", latency.encode(1000.0));
+            if (api.count() > 0) {
+                result.put("api", api.encode(1000.0));
+            }
+            if (encode.count() > 0) {
+                result.put("encode", encode.encode(1000.0));
+            }
+            result.put("resultSize", resultSize.encode(1.0));
+            return result;
+        }
+    }
+
+    private final Map<String, Action> mActions;
+    private volatile long mResetAt = SystemClock.elapsedRealtime();
+
+    Metrics(String... actionNames) {
+        Map<String, Action> actions = new LinkedHashMap<String, Action>();
+        for (String actionName : actionNames) {
+            actions.put(actionName, new Action());
+        }
+        mActions = Collections.unmodifiableMap(actions);
+    }
+
+    /**
+     * Returns the metrics of an action, or null for unknown actions.
+     */
+    Action get(String actionName) {
+        return mActions.get(actionName);
+    }
+
+    void reset() {
+        for (Action action : mActions.values()) {
+            action.reset();
+        }
+        mResetAt = SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Encodes the metrics of the actions that were called since the last reset.
+     */
+    JSONObject encode() throws JSONException {
+        JSONObject actions = new JSONObject();
+        for (Map.Entry<String, Action> entry : mActions.entrySet()) {
+            if (entry.getValue().calls.get() > 0) {
+                actions.put(entry.getKey(), entry.getValue().encode());
+            }
+        }
+        JSONObject result = new JSONObject();
+        result.put("period", SystemClock.elapsedRealtime() - mResetAt);
+        result.put("actions", actions);
+        return result;
+    }
+
+    /**
+     * Records the time spent in a Play Services call made for callbackContext,
+     * started at startNanos (from System.nanoTime).
+     */
+    static void recordApiTime(CallbackContext callbackContext, long startNanos) {
+        if (callbackContext instanceof MeasuredCallbackContext) {
+            ((MeasuredCallbackContext)callbackContext).action.api.record((System.nanoTime() - startNanos) / 1000);
+        } else if (callbackContext instanceof PendingRequests.Pending) {
+            recordApiTime(((PendingRequests.Pending)callbackContext).callbackContext, startNanos);
+        } else if (callbackContext instanceof PlaceWatch.Callback) {
+            recordApiTime(((PlaceWatch.Callback)callbackContext).callbackContext, startNanos);
+        } else if (callbackContext instanceof SingleFlight.Flight) {
+            // a call shared by several requests, read without copying them
+            for (CallbackContext waiting : ((SingleFlight.Flight)callbackContext).waiting()) {
+                recordApiTime(waiting, startNanos);
+            }
+        }
+    }
+
+    /**
+     * Records the time spent encoding a result for callbackContext, started at startNanos.
+     */
+    static void recordEncodeTime(CallbackContext callbackContext, long startNanos) {
+        if (callbackContext instanceof MeasuredCallbackContext) {
+            ((MeasuredCallbackContext)callbackContext).action.encode.record((System.nanoTime() - startNanos) / 1000);
+        } else if (callbackContext instanceof PendingRequests.Pending) {
+            recordEncodeTime(((PendingRequests.Pending)callbackContext).callbackContext, startNanos);
+        } else if (callbackContext instanceof PlaceWatch.Callback) {
+            recordEncodeTime(((PlaceWatch.Callback)callbackContext).callbackContext, startNanos);
+        } else if (callbackContext instanceof SingleFlight.Flight) {
+            for (CallbackContext waiting : ((SingleFlight.Flight)callbackContext).waiting()) {
+                recordEncodeTime(waiting, startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package plugin.google.places;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The currentPlace and autocompleteQuery requests in progress, by the ID given by JS, so that
+ * they can be canceled (cancel action), or time out.
+ *
+ * An abandoned request is answered right away, with the "canceled" or "timeout" code, and its
+ * Places API call is canceled. Its callback being finished, a result arriving late is neither
+ * encoded (see {@link EncodingExecutor}) nor sent.
+ */
+class PendingRequests {
+    /**
+     * The callback context of a request, unregistering it once answered.
+     */
+    final class Pending extends CallbackContext {
+        final String id;
+        // the callback context given to execute()
+        final CallbackContext callbackContext;
+        // guarded by PendingRequests.this
+        private PlacesBackend.Request mRequest;
+        private boolean mAbandoned;
+        // set before the request is registered
+        private Runnable mTimeout;
+
+        private Pending(String id, CallbackContext callbackContext, CordovaWebView webView) {
+            super(callbackContext.getCallbackId(), webView);
+            this.id = id;
+            this.callbackContext = callbackContext;
+        }
+
+        /**
+         * Sets the call answering the request, or cancels it when the request was abandoned
+         * in the meantime.
+         */
+        void started(PlacesBackend.Request request) {
+            if (request == null) {
+                return;
+            }
+            synchronized (PendingRequests.this) {
+                if (!mAbandoned) {
+                    mRequest = request;
+                    return;
+                }
+            }
+            request.cancel();
+        }
+
+        @Override
+        public boolean isFinished() {
+            return callbackContext.isFinished();
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            callbackContext.sendPluginResult(pluginResult);
+            if (!pluginResult.getKeepCallback()) {
+                unregister(this);
+            }
+        }
+    }
+
+    private final CordovaWebView mWebView;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    // guarded by this
+    private final Map<String, Pending> mPending = new HashMap<String, Pending>();
+
+    PendingRequests(CordovaWebView webView) {
+        mWebView = webView;
+    }
+
+    /**
+     * Registers the request of the given ID, answered through callbackContext, and timing out
+     * after timeoutMillis unless 0. Returns the callback context to answer the request with,
+     * or null when a request of the same ID is in progress.
+     */
+    Pending register(String id, long timeoutMillis, CallbackContext callbackContext) {
+        final Pending pending = new Pending(id, callbackContext, mWebView);
+        if (timeoutMillis > 0) {
+            final String message = "the request timed out after " + timeoutMillis + " ms";
+            pending.mTimeout = new Runnable() {
+                @Override
+                public void run() {
+                    abandon(pending, CordovaGooglePlaces.ERROR_TIMEOUT, message);
+                }
+            };
+        }
+        synchronized (this) {
+            if (mPending.containsKey(id)) {
+                return null;
+            }
+            mPending.put(id, pending);
+        }
+        if (pending.mTimeout != null) {
+            mHandler.postDelayed(pending.mTimeout, timeoutMillis);
+        }
+        return pending;
+    }
+
+    /**
+     * Cancels the request of the given ID, if still in progress.
+     */
+    void cancel(String id) {
+        Pending pending;
+        synchronized (this) {
+            pending = mPending.get(id);
+        }
+        if (pending != null) {
+            abandon(pending, CordovaGooglePlaces.ERROR_CANCELED, "the request was canceled");
+        }
+    }
+
+    /**
+     * Cancels every request in progress, e.g. once the page which made them is gone.
+     */
+    void cancelAll() {
+        List<Pending> pending;
+        synchronized (this) {
+            pending = new ArrayList<Pending>(mPending.values());
+        }
+        for (Pending request : pending) {
+            abandon(request, CordovaGooglePlaces.ERROR_CANCELED, "the request was canceled");
+        }
+    }
+
+    synchronized int size() {
+        return mPending.size();
+    }
+
+    private void abandon(Pending pending, String code, String message) {
+        if (!unregister(pending)) {
+            // answered in the meantime
+            return;
+        }
+        PlacesBackend.Request request;
+        synchronized (this) {
+            pending.mAbandoned = true;
+            request = pending.mRequest;
+            pending.mRequest = null;
+        }
+        // answered first, so that the canceled call finds the request finished
+        if (!pending.isFinished()) {
+            pending.callbackContext.error(CordovaGooglePlaces.encodeError(code, message));
+        }
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    /**
+     * Unregisters a request, returning false when it was not registered anymore.
+     */
+    private boolean unregister(Pending pending) {
+        synchronized (this) {
+            if (mPending.get(pending.id) != pending) {
+                return false;
+            }
+            mPending.remove(pending.id);
+        }
+        if (pending.mTimeout != null) {
+            mHandler.removeCallbacks(pending.mTimeout);
+        }
+        return true;
+    }
+}
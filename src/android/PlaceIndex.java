@@ -0,0 +1,311 @@
+package plugin.google.places;
+
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * In-memory spatial index of the places encoded by the plugin, answering placesInBounds and
+ * nearestPlaces without network access.
+ *
+ * Places are kept in arrays sorted by latitude. A bounds query binary-searches the range
+ * of latitudes and checks the longitudes within it; a nearest query scans outwards from the
+ * latitude of the coordinate, until the difference of latitude alone is larger than the
+ * distance of the k-th nearest place found so far. Queries only allocate their result, made
+ * of the encoded places kept along with the index.
+ *
+ * Places are located by their coordinate, or by the center of their viewport without one.
+ * Once the index is full, the places indexed first are evicted. Under memory pressure, the
+ * oldest half of the places is evicted, and then all of them.
+ */
+class PlaceIndex implements MemoryGovernor.Consumer {
+    private static final double EARTH_RADIUS = 6371009; // meters
+    private static final int[] NO_TYPES = new int[0];
+
+    private static final class Entry {
+        final String placeId;
+        final String encodedPlace;
+        final int[] types;
+        final double latitude;
+        final double longitude;
+
+        Entry(String placeId, String encodedPlace, int[] types, double latitude, double longitude) {
+            this.placeId = placeId;
+            this.encodedPlace = encodedPlace;
+            this.types = types;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    private final int mMaxEntries;
+
+    // guarded by this: entries sorted by latitude, with their coordinates in parallel arrays
+    private Entry[] mEntries = new Entry[16];
+    private double[] mLatitudes = new double[16];
+    private double[] mLongitudes = new double[16];
+    private int mSize;
+    // entries by place ID, oldest first
+    private final LinkedHashMap<String, Entry> mEntriesById = new LinkedHashMap<String, Entry>();
+    // nearest places found so far by nearestPlaces(), reused from one call to the next
+    private int[] mNearest = new int[16];
+    private double[] mNearestDistances = new double[16];
+
+    PlaceIndex(int maxEntries) {
+        mMaxEntries = maxEntries;
+    }
+
+    boolean isEnabled() {
+        return mMaxEntries > 0;
+    }
+
+    synchronized int size() {
+        return mSize;
+    }
+
+    synchronized boolean contains(String placeId) {
+        return mEntriesById.containsKey(placeId);
+    }
+
+    /**
+     * Indexes a place, along with its encoding, replacing the previous version of the place.
+     */
+    void put(Place place, String encodedPlace) {
+        if (!isEnabled() || place.getId() == null) {
+            return;
+        }
+        LatLng latLng = place.getLatLng();
+        if (latLng == null && place.getViewport() != null) {
+            latLng = place.getViewport().getCenter();
+        }
+        if (latLng == null) {
+            return;
+        }
+        List<Integer> placeTypes = place.getPlaceTypes();
+        int[] types = NO_TYPES;
+        if (placeTypes != null) {
+            types = new int[placeTypes.size()];
+            for (int i = 0; i < types.length; i++) {
+                types[i] = placeTypes.get(i);
+            }
+        }
+        Entry entry = new Entry(place.getId(), encodedPlace, types, latLng.latitude, latLng.longitude);
+
+        synchronized (this) {
+            Entry previous = mEntriesById.remove(entry.placeId);
+            if (previous != null) {
+                removeAt(indexOf(previous));
+            } else {
+                evictTo(mMaxEntries - 1);
+            }
+            mEntriesById.put(entry.placeId, entry);
+            insert(entry);
+        }
+    }
+
+    @Override
+    public synchronized void trimMemory(int stage) {
+        if (stage >= MemoryGovernor.STAGE_CRITICAL) {
+            evictTo(0);
+            // along with the arrays grown for them
+            mEntries = new Entry[16];
+            mLatitudes = new double[16];
+            mLongitudes = new double[16];
+            mNearest = new int[16];
+            mNearestDistances = new double[16];
+        } else if (stage >= MemoryGovernor.STAGE_LOW) {
+            evictTo(mEntriesById.size() / 2);
+        }
+    }
+
+    @Override
+    public synchronized JSONObject encodeMemoryStats() throws JSONException {
+        long bytes = 0;
+        for (Entry entry : mEntriesById.values()) {
+            bytes += entry.encodedPlace.length() * 2;
+        }
+        JSONObject result = new JSONObject();
+        result.put("entries", mSize);
+        result.put("bytes", bytes);
+        return result;
+    }
+
+    // evicts the places indexed first, down to count places
+    private void evictTo(int count) {
+        Iterator<Entry> eldest = mEntriesById.values().iterator();
+        while (mEntriesById.size() > count) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            removeAt(indexOf(entry));
+        }
+    }
+
+    /**
+     * Encodes the places inside bounds (bounds crossing the antimeridian included) having
+     * one of the given types, or any type when types is null.
+     */
+    synchronized String placesInBounds(LatLngBounds bounds, int[] types) {
+        double west = bounds.southwest.longitude;
+        double east = bounds.northeast.longitude;
+        boolean crossesAntimeridian = west > east;
+
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        double north = bounds.northeast.latitude;
+        for (int i = lowerBound(bounds.southwest.latitude); i < mSize && mLatitudes[i] <= north; i++) {
+            double longitude = mLongitudes[i];
+            boolean inside = crossesAntimeridian
+                    ? longitude >= west || longitude <= east
+                    : longitude >= west && longitude <= east;
+            if (inside && hasType(mEntries[i].types, types)) {
+                encoder.json(mEntries[i].encodedPlace);
+            }
+        }
+        return encoder.endArray().toJson();
+    }
+
+    /**
+     * Encodes the count places nearest to coordinate, nearest first, as { distance, place }
+     * objects (distances in meters).
+     */
+    synchronized String nearestPlaces(LatLng coordinate, int count) throws JSONException {
+        if (mNearest.length < count) {
+            mNearest = new int[count];
+            mNearestDistances = new double[count];
+        }
+        double latitude = coordinate.latitude;
+        double longitude = coordinate.longitude;
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+
+        int found = 0;
+        int up = lowerBound(latitude);
+        int down = up - 1;
+        while (up < mSize || down >= 0) {
+            // next candidate: the closest in latitude, north or south
+            int i;
+            if (down < 0 || (up < mSize && mLatitudes[up] - latitude <= latitude - mLatitudes[down])) {
+                i = up++;
+            } else {
+                i = down--;
+            }
+            double latitudeDistance = Math.toRadians(Math.abs(mLatitudes[i] - latitude)) * EARTH_RADIUS;
+            if (found == count && latitudeDistance >= mNearestDistances[count - 1]) {
+                // every other place is further away
+                break;
+            }
+
+            double distance = distance(latitude, longitude, cosLatitude, mLatitudes[i], mLongitudes[i]);
+            if (found < count || distance < mNearestDistances[found - 1]) {
+                // insertion sort into the nearest places, dropping the furthest when full
+                int position = found < count ? found++ : found - 1;
+                while (position > 0 && mNearestDistances[position - 1] > distance) {
+                    mNearest[position] = mNearest[position - 1];
+                    mNearestDistances[position] = mNearestDistances[position - 1];
+                    position--;
+                }
+                mNearest[position] = i;
+                mNearestDistances[position] = distance;
+            }
+        }
+
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        for (int j = 0; j < found; j++) {
+            encoder.beginObject()
+                    .name("distance").value(Math.round(mNearestDistances[j]))
+                    .name("place").json(mEntries[mNearest[j]].encodedPlace)
+                    .endObject();
+        }
+        return encoder.endArray().toJson();
+    }
+
+    /**
+     * Equirectangular approximation of the distance between two points, in meters: it is never
+     * less than the difference of latitude, and is accurate enough to rank nearby places.
+     */
+    private static double distance(double latitude1, double longitude1, double cosLatitude1, double latitude2, double longitude2) {
+        double longitudeDelta = longitude2 - longitude1;
+        if (longitudeDelta > 180) {
+            longitudeDelta -= 360;
+        } else if (longitudeDelta < -180) {
+            longitudeDelta += 360;
+        }
+        double x = Math.toRadians(longitudeDelta) * cosLatitude1;
+        double y = Math.toRadians(latitude2 - latitude1);
+        return Math.sqrt(x * x + y * y) * EARTH_RADIUS;
+    }
+
+    private static boolean hasType(int[] placeTypes, int[] types) {
+        if (types == null) {
+            return true;
+        }
+        for (int placeType : placeTypes) {
+            for (int type : types) {
+                if (placeType == type) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // index of the first entry whose latitude is at least the given one
+    private int lowerBound(double latitude) {
+        int low = 0;
+        int high = mSize;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mLatitudes[middle] < latitude) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(Entry entry) {
+        for (int i = lowerBound(entry.latitude); i < mSize && mLatitudes[i] == entry.latitude; i++) {
+            if (mEntries[i] == entry) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("place " + entry.placeId + " is missing from the index");
+    }
+
+    private void insert(Entry entry) {
+        if (mSize == mEntries.length) {
+            int capacity = mSize * 2;
+            Entry[] entries = new Entry[capacity];
+            double[] latitudes = new double[capacity];
+            double[] longitudes = new double[capacity];
+            System.arraycopy(mEntries, 0, entries, 0, mSize);
+            System.arraycopy(mLatitudes, 0, latitudes, 0, mSize);
+            System.arraycopy(mLongitudes, 0, longitudes, 0, mSize);
+            mEntries = entries;
+            mLatitudes = latitudes;
+            mLongitudes = longitudes;
+        }
+        int position = lowerBound(entry.latitude);
+        System.arraycopy(mEntries, position, mEntries, position + 1, mSize - position);
+        System.arraycopy(mLatitudes, position, mLatitudes, position + 1, mSize - position);
+        System.arraycopy(mLongitudes, position, mLongitudes, position + 1, mSize - position);
+        mEntries[position] = entry;
+        mLatitudes[position] = entry.latitude;
+        mLongitudes[position] = entry.longitude;
+        mSize++;
+    }
+
+    private void removeAt(int position) {
+        System.arraycopy(mEntries, position + 1, mEntries, position, mSize - position - 1);
+        System.arraycopy(mLatitudes, position + 1, mLatitudes, position, mSize - position - 1);
+        System.arraycopy(mLongitudes, position + 1, mLongitudes, position, mSize - position - 1);
+        mSize--;
+        mEntries[mSize] = null;
+    }
+}
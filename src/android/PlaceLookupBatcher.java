@@ -0,0 +1,154 @@
+package plugin.google.places;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.places.Place;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges the place lookups received within a short window into a single getPlaceById call,
+ * and dispatches the encoded places back to each caller, in the order it asked for them.
+ *
+ * The places are encoded by the encoding executor, off the main looper.
+ *
+ * The pending lookups are only touched from the main looper.
+ */
+class PlaceLookupBatcher {
+    interface Delegate {
+        String encodePlace(Place place) throws JSONException;
+    }
+
+    private static class Lookup {
+        final String[] placeIds;
+        final CallbackContext callbackContext;
+
+        Lookup(String[] placeIds, CallbackContext callbackContext) {
+            this.placeIds = placeIds;
+            this.callbackContext = callbackContext;
+        }
+    }
+
+    private final long mWindowMillis;
+    private final PlacesBackend mBackend;
+    private final EncodingExecutor mEncodingExecutor;
+    private final Delegate mDelegate;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private List<Lookup> mPendingLookups = new ArrayList<Lookup>();
+
+    private final Runnable mFlush = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    PlaceLookupBatcher(long windowMillis, PlacesBackend backend, EncodingExecutor encodingExecutor, Delegate delegate) {
+        mWindowMillis = windowMillis;
+        mBackend = backend;
+        mEncodingExecutor = encodingExecutor;
+        mDelegate = delegate;
+    }
+
+    void lookUp(final String[] placeIds, final CallbackContext callbackContext) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mPendingLookups.isEmpty()) {
+                    mHandler.postDelayed(mFlush, mWindowMillis);
+                }
+                mPendingLookups.add(new Lookup(placeIds, callbackContext));
+            }
+        });
+    }
+
+    private void flush() {
+        final List<Lookup> lookups = mPendingLookups;
+        mPendingLookups = new ArrayList<Lookup>();
+        if (lookups.isEmpty()) {
+            return;
+        }
+
+        Set<String> placeIds = new LinkedHashSet<String>();
+        for (Lookup lookup : lookups) {
+            for (String placeId : lookup.placeIds) {
+                placeIds.add(placeId);
+            }
+        }
+
+        final long apiStart = System.nanoTime();
+        mBackend.getPlacesById(placeIds.toArray(new String[placeIds.size()]), new PlacesBackend.Callback<List<Place>>() {
+            @Override
+            public void onResult(final List<Place> places) {
+                for (Lookup lookup : lookups) {
+                    Metrics.recordApiTime(lookup.callbackContext, apiStart);
+                }
+                final long encodeStart = System.nanoTime();
+                mEncodingExecutor.execute(new EncodingExecutor.Task(null) {
+                    @Override
+                    void encode() {
+                        try {
+                            Map<String, String> encodedPlaces = new HashMap<String, String>();
+                            for (Place place : places) {
+                                encodedPlaces.put(place.getId(), mDelegate.encodePlace(place));
+                            }
+
+                            for (Lookup lookup : lookups) {
+                                ResultEncoder encoder = ResultEncoder.get().beginArray();
+                                for (String placeId : lookup.placeIds) {
+                                    String encodedPlace = encodedPlaces.get(placeId);
+                                    encoder.json(encodedPlace != null ? encodedPlace : "null");
+                                }
+                                JSONArray lookupResult = encoder.endArray().toJSONArray();
+                                Metrics.recordEncodeTime(lookup.callbackContext, encodeStart);
+                                lookup.callbackContext.success(lookupResult);
+                            }
+                        } catch (JSONException e) {
+                            for (Lookup lookup : lookups) {
+                                lookup.callbackContext.error(e.getMessage());
+                            }
+                        }
+                    }
+
+                    @Override
+                    boolean isAwaited() {
+                        for (Lookup lookup : lookups) {
+                            if (!lookup.callbackContext.isFinished()) {
+                                return true;
+                            }
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    void shed() {
+                        for (Lookup lookup : lookups) {
+                            if (!lookup.callbackContext.isFinished()) {
+                                lookup.callbackContext.error(CordovaGooglePlaces.encodeError(CordovaGooglePlaces.ERROR_OVERLOADED, "too many results waiting to be encoded"));
+                            }
+                        }
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Status status) {
+                for (Lookup lookup : lookups) {
+                    Metrics.recordApiTime(lookup.callbackContext, apiStart);
+                    lookup.callbackContext.sendPluginResult(CordovaGooglePlaces.encodeFailure(status));
+                }
+            }
+        });
+    }
+}
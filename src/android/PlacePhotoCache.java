@@ -0,0 +1,742 @@
+package plugin.google.places;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.google.android.gms.common.api.CommonStatusCodes;
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.places.PlacePhotoMetadata;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of place photos, handed to JS as file URIs rather than as inline data.
+ *
+ * Photos are written as JPEG files to a directory of the app cache, named after their place,
+ * their index and the size they were requested at. The directory is bounded in size, the least
+ * recently used files being deleted first. The list of the photos of each place (their sizes
+ * and attributions) is kept in a manifest file next to them, so that cached photos are answered
+ * without any Places API call.
+ *
+ * The latest bitmap fetched for each photo is also kept in memory, in a cache bounded in bytes:
+ * other sizes of the same photo are scaled down from it, or decoded from a larger file on disk,
+ * before falling back to the Places API. Under memory pressure, the memory cache is shrunk
+ * by half, and then emptied along with the photos lists kept in memory.
+ *
+ * Concurrent requests for the same photo at the same size share a single fetch. Requests are
+ * coordinated on the main looper, and all the file accesses and bitmap work happen on a
+ * dedicated thread. Once the cache is closed, the results arriving late are dropped.
+ */
+class PlacePhotoCache implements MemoryGovernor.Consumer {
+    private static final String TAG = CordovaGooglePlaces.TAG;
+    private static final String DIRECTORY_NAME = "googleplaces-photos";
+    private static final String MANIFEST_SUFFIX = ".json";
+    private static final String PHOTO_SUFFIX = ".jpg";
+    private static final int JPEG_QUALITY = 85;
+
+    // places whose photo metadata is kept in memory, to fetch their photos
+    static final int MAX_PLACES = 32;
+
+    /**
+     * A photo of a place, as listed by the Places API or read back from a manifest.
+     */
+    private static final class PhotoInfo {
+        final int width;
+        final int height;
+        final String attributions;
+        // null when read back from a manifest
+        final PlacePhotoMetadata metadata;
+
+        PhotoInfo(int width, int height, String attributions, PlacePhotoMetadata metadata) {
+            this.width = width;
+            this.height = height;
+            this.attributions = attributions;
+            this.metadata = metadata;
+        }
+    }
+
+    /**
+     * A photo written to disk.
+     */
+    private static final class PhotoFile {
+        final File file;
+        final int width;
+        final int height;
+
+        PhotoFile(File file, int width, int height) {
+            this.file = file;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /**
+     * The latest bitmap of a photo kept in memory, fitted within the box it was requested at.
+     */
+    private static final class CachedBitmap {
+        final Bitmap bitmap;
+        final int maxWidth;
+        final int maxHeight;
+
+        CachedBitmap(Bitmap bitmap, int maxWidth, int maxHeight) {
+            this.bitmap = bitmap;
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+        }
+    }
+
+    /**
+     * A getPhotos call, waiting for its photos.
+     */
+    private final class PhotosRequest {
+        final String placeId;
+        final String placeKey;
+        final int maxWidth;
+        final int maxHeight;
+        final int limit;
+        final CallbackContext callbackContext;
+        private List<PhotoInfo> mPhotos;
+        private PhotoFile[] mFiles;
+        private int mRemaining;
+        private boolean mFailed;
+
+        PhotosRequest(String placeId, int maxWidth, int maxHeight, int limit, CallbackContext callbackContext) {
+            this.placeId = placeId;
+            this.placeKey = keyOf(placeId);
+            this.maxWidth = maxWidth;
+            this.maxHeight = maxHeight;
+            this.limit = limit;
+            this.callbackContext = callbackContext;
+        }
+
+        void start() {
+            listPhotos(placeId, placeKey, new PlacesBackend.Callback<List<PhotoInfo>>() {
+                @Override
+                public void onResult(List<PhotoInfo> photos) {
+                    getFiles(photos);
+                }
+
+                @Override
+                public void onFailure(Status status) {
+                    callbackContext.sendPluginResult(CordovaGooglePlaces.encodeFailure(status));
+                }
+            });
+        }
+
+        private void getFiles(List<PhotoInfo> photos) {
+            mPhotos = photos;
+            mFiles = new PhotoFile[Math.min(limit, photos.size())];
+            mRemaining = mFiles.length;
+            if (mRemaining == 0) {
+                answer();
+                return;
+            }
+            for (int i = 0; i < mFiles.length; i++) {
+                final int index = i;
+                getPhotoFile(this, index, new PlacesBackend.Callback<PhotoFile>() {
+                    @Override
+                    public void onResult(PhotoFile file) {
+                        mFiles[index] = file;
+                        if (--mRemaining == 0 && !mFailed) {
+                            answer();
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Status status) {
+                        if (!mFailed) {
+                            mFailed = true;
+                            callbackContext.sendPluginResult(CordovaGooglePlaces.encodeFailure(status));
+                        }
+                    }
+                });
+            }
+        }
+
+        PhotoInfo photo(int index) {
+            return mPhotos.get(index);
+        }
+
+        private void answer() {
+            try {
+                ResultEncoder encoder = ResultEncoder.get().beginArray();
+                for (int i = 0; i < mFiles.length; i++) {
+                    encoder.beginObject()
+                            .field("uri", Uri.fromFile(mFiles[i].file).toString())
+                            .name("width").value(mFiles[i].width)
+                            .name("height").value(mFiles[i].height)
+                            .field("attributions", mPhotos.get(i).attributions)
+                            .endObject();
+                }
+                callbackContext.success(encoder.endArray().toJSONArray());
+            } catch (JSONException e) {
+                callbackContext.error(e.getMessage());
+            }
+        }
+    }
+
+    private final File mDirectory;
+    private final long mMaxDiskBytes;
+    private final PlacesBackend mBackend;
+    private final LruCache<String, CachedBitmap> mBitmaps;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    // only accessed from the main looper: the photos of the latest places listed by the Places API,
+    // and the listings and photo fetches in flight, with the callbacks waiting for them
+    private final LinkedHashMap<String, List<PhotoInfo>> mPlaces = new LinkedHashMap<String, List<PhotoInfo>>(16, 0.75f, true);
+    private final Map<String, List<PlacesBackend.Callback<List<PhotoInfo>>>> mListings = new HashMap<String, List<PlacesBackend.Callback<List<PhotoInfo>>>>();
+    private final Map<String, List<PlacesBackend.Callback<PhotoFile>>> mFetches = new HashMap<String, List<PlacesBackend.Callback<PhotoFile>>>();
+
+    // only accessed from mExecutor, -1 until the directory is scanned
+    private long mDiskBytes = -1;
+
+    private final AtomicLong mRequests = new AtomicLong();
+    private final AtomicLong mShared = new AtomicLong();
+    private final AtomicLong mDiskHits = new AtomicLong();
+    private final AtomicLong mMemoryHits = new AtomicLong();
+    private final AtomicLong mFetched = new AtomicLong();
+
+    PlacePhotoCache(File cacheDirectory, int maxMemoryBytes, long maxDiskBytes, PlacesBackend backend) {
+        mDirectory = new File(cacheDirectory, DIRECTORY_NAME);
+        mMaxDiskBytes = maxDiskBytes;
+        mBackend = backend;
+        mBitmaps = new LruCache<String, CachedBitmap>(Math.max(1, maxMemoryBytes)) {
+            @Override
+            protected int sizeOf(String key, CachedBitmap value) {
+                return value.bitmap.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Answers callbackContext with the first photos of a place, as { uri, width, height,
+     * attributions } objects, each fitting within maxWidth x maxHeight. Called on the main
+     * looper, once the API client is connected.
+     */
+    void getPhotos(String placeId, int maxWidth, int maxHeight, int limit, CallbackContext callbackContext) {
+        mRequests.incrementAndGet();
+        new PhotosRequest(placeId, maxWidth, maxHeight, limit, callbackContext).start();
+    }
+
+    /**
+     * Lists the photos of a place, from memory, from its manifest or from the Places API.
+     */
+    private void listPhotos(final String placeId, final String placeKey, final PlacesBackend.Callback<List<PhotoInfo>> callback) {
+        List<PhotoInfo> photos = mPlaces.get(placeId);
+        if (photos != null) {
+            callback.onResult(photos);
+            return;
+        }
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<PhotoInfo> photos = readManifest(placeKey);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (photos != null) {
+                            callback.onResult(photos);
+                        } else {
+                            fetchPhotoList(placeId, placeKey, callback);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void fetchPhotoList(final String placeId, final String placeKey, PlacesBackend.Callback<List<PhotoInfo>> callback) {
+        List<PlacesBackend.Callback<List<PhotoInfo>>> waiting = mListings.get(placeId);
+        if (waiting != null) {
+            waiting.add(callback);
+            return;
+        }
+        waiting = new ArrayList<PlacesBackend.Callback<List<PhotoInfo>>>();
+        waiting.add(callback);
+        mListings.put(placeId, waiting);
+
+        mBackend.getPlacePhotos(placeId, new PlacesBackend.Callback<List<PlacePhotoMetadata>>() {
+            @Override
+            public void onResult(List<PlacePhotoMetadata> metadata) {
+                final List<PhotoInfo> photos = new ArrayList<PhotoInfo>(metadata.size());
+                for (PlacePhotoMetadata photo : metadata) {
+                    CharSequence attributions = photo.getAttributions();
+                    photos.add(new PhotoInfo(photo.getMaxWidth(), photo.getMaxHeight(),
+                            attributions != null ? attributions.toString() : null, photo));
+                }
+                mPlaces.put(placeId, photos);
+                if (mPlaces.size() > MAX_PLACES) {
+                    mPlaces.remove(mPlaces.keySet().iterator().next());
+                }
+                execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        writeManifest(placeKey, photos);
+                    }
+                });
+                for (PlacesBackend.Callback<List<PhotoInfo>> callback : mListings.remove(placeId)) {
+                    callback.onResult(photos);
+                }
+            }
+
+            @Override
+            public void onFailure(Status status) {
+                for (PlacesBackend.Callback<List<PhotoInfo>> callback : mListings.remove(placeId)) {
+                    callback.onFailure(status);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the file of a photo at the size of a request, from disk or memory when possible,
+     * otherwise from the Places API.
+     */
+    private void getPhotoFile(final PhotosRequest request, final int index, PlacesBackend.Callback<PhotoFile> callback) {
+        final String name = request.placeKey + "-" + index + "-" + request.maxWidth + "x" + request.maxHeight + PHOTO_SUFFIX;
+        List<PlacesBackend.Callback<PhotoFile>> waiting = mFetches.get(name);
+        if (waiting != null) {
+            mShared.incrementAndGet();
+            waiting.add(callback);
+            return;
+        }
+        waiting = new ArrayList<PlacesBackend.Callback<PhotoFile>>();
+        waiting.add(callback);
+        mFetches.put(name, waiting);
+
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                PhotoFile found = null;
+                try {
+                    found = findPhotoFile(name, request.placeKey, index, request.maxWidth, request.maxHeight);
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not make photo " + name + " from the cache, fetching it", e);
+                }
+                final PhotoFile file = found;
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (file != null) {
+                            delivered(name, file, null);
+                        } else {
+                            fetchPhotoFile(request, index, name);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Fetches a photo from the Places API, listing the photos of its place again if they were
+     * read back from a manifest.
+     */
+    private void fetchPhotoFile(final PhotosRequest request, final int index, final String name) {
+        PhotoInfo photo = request.photo(index);
+        if (photo.metadata == null) {
+            fetchPhotoList(request.placeId, request.placeKey, new PlacesBackend.Callback<List<PhotoInfo>>() {
+                @Override
+                public void onResult(List<PhotoInfo> photos) {
+                    if (index < photos.size()) {
+                        fetchScaledPhoto(photos.get(index), request, index, name);
+                    } else {
+                        delivered(name, null, new Status(CommonStatusCodes.ERROR, "photo " + index + " of place " + request.placeId + " no longer exists"));
+                    }
+                }
+
+                @Override
+                public void onFailure(Status status) {
+                    delivered(name, null, status);
+                }
+            });
+        } else {
+            fetchScaledPhoto(photo, request, index, name);
+        }
+    }
+
+    private void fetchScaledPhoto(PhotoInfo photo, final PhotosRequest request, final int index, final String name) {
+        mBackend.getScaledPhoto(photo.metadata, request.maxWidth, request.maxHeight, new PlacesBackend.Callback<Bitmap>() {
+            @Override
+            public void onResult(final Bitmap bitmap) {
+                mFetched.incrementAndGet();
+                execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        Bitmap fitted = fit(bitmap, request.maxWidth, request.maxHeight);
+                        String bitmapKey = request.placeKey + "-" + index;
+                        CachedBitmap cached = mBitmaps.get(bitmapKey);
+                        if (cached == null || cached.bitmap.getByteCount() < fitted.getByteCount()) {
+                            mBitmaps.put(bitmapKey, new CachedBitmap(fitted, request.maxWidth, request.maxHeight));
+                        }
+                        deliverWritten(name, fitted);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Status status) {
+                delivered(name, null, status);
+            }
+        });
+    }
+
+    private void delivered(String name, PhotoFile file, Status failure) {
+        for (PlacesBackend.Callback<PhotoFile> callback : mFetches.remove(name)) {
+            if (file != null) {
+                callback.onResult(file);
+            } else {
+                callback.onFailure(failure);
+            }
+        }
+    }
+
+    // on mExecutor: writes a bitmap to the named file, and delivers it on the main looper
+    private void deliverWritten(final String name, Bitmap bitmap) {
+        PhotoFile written = null;
+        Status failure = null;
+        try {
+            written = write(name, bitmap);
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write photo " + name, e);
+            failure = new Status(CommonStatusCodes.ERROR, "could not write photo: " + e.getMessage());
+        }
+        final PhotoFile file = written;
+        final Status status = failure;
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                delivered(name, file, status);
+            }
+        });
+    }
+
+    /**
+     * Finds a photo on disk, or makes it from a larger version of the photo in memory or on disk.
+     * Called on mExecutor.
+     */
+    private PhotoFile findPhotoFile(String name, String placeKey, int index, int maxWidth, int maxHeight) throws IOException {
+        File file = new File(mDirectory, name);
+        if (file.isFile()) {
+            mDiskHits.incrementAndGet();
+            file.setLastModified(System.currentTimeMillis());
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            BitmapFactory.decodeFile(file.getPath(), options);
+            return new PhotoFile(file, options.outWidth, options.outHeight);
+        }
+
+        CachedBitmap cached = mBitmaps.get(placeKey + "-" + index);
+        if (cached != null && cached.maxWidth >= maxWidth && cached.maxHeight >= maxHeight) {
+            mMemoryHits.incrementAndGet();
+            return write(name, fit(cached.bitmap, maxWidth, maxHeight));
+        }
+
+        File larger = largerPhotoFile(placeKey, index, maxWidth, maxHeight);
+        if (larger != null) {
+            Bitmap bitmap = decode(larger, maxWidth, maxHeight);
+            if (bitmap != null) {
+                mDiskHits.incrementAndGet();
+                larger.setLastModified(System.currentTimeMillis());
+                return write(name, fit(bitmap, maxWidth, maxHeight));
+            }
+        }
+        return null;
+    }
+
+    // the smallest file of a photo requested at a size covering maxWidth x maxHeight
+    private File largerPhotoFile(String placeKey, int index, int maxWidth, int maxHeight) {
+        String prefix = placeKey + "-" + index + "-";
+        String[] names = mDirectory.list();
+        File larger = null;
+        long largerArea = Long.MAX_VALUE;
+        if (names == null) {
+            return null;
+        }
+        for (String name : names) {
+            if (!name.startsWith(prefix) || !name.endsWith(PHOTO_SUFFIX)) {
+                continue;
+            }
+            String size = name.substring(prefix.length(), name.length() - PHOTO_SUFFIX.length());
+            int x = size.indexOf('x');
+            try {
+                int width = Integer.parseInt(size.substring(0, x));
+                int height = Integer.parseInt(size.substring(x + 1));
+                if (width >= maxWidth && height >= maxHeight && (long)width * height < largerArea) {
+                    larger = new File(mDirectory, name);
+                    largerArea = (long)width * height;
+                }
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                // not a photo of this cache
+            }
+        }
+        return larger;
+    }
+
+    /**
+     * Decodes a photo file, subsampled as much as possible while still covering maxWidth x maxHeight.
+     */
+    private static Bitmap decode(File file, int maxWidth, int maxHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        double scale = Math.min(1, Math.min((double)maxWidth / options.outWidth, (double)maxHeight / options.outHeight));
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= options.outWidth * scale
+                && options.outHeight / (sampleSize * 2) >= options.outHeight * scale) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        return BitmapFactory.decodeFile(file.getPath(), options);
+    }
+
+    /**
+     * Scales a bitmap down to fit within maxWidth x maxHeight, keeping its aspect ratio.
+     */
+    private static Bitmap fit(Bitmap bitmap, int maxWidth, int maxHeight) {
+        double scale = Math.min((double)maxWidth / bitmap.getWidth(), (double)maxHeight / bitmap.getHeight());
+        if (scale >= 1) {
+            return bitmap;
+        }
+        int width = Math.max(1, (int)Math.round(bitmap.getWidth() * scale));
+        int height = Math.max(1, (int)Math.round(bitmap.getHeight() * scale));
+        return Bitmap.createScaledBitmap(bitmap, width, height, true);
+    }
+
+    // on mExecutor
+    private PhotoFile write(String name, Bitmap bitmap) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (!bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, bytes)) {
+            throw new IOException("could not compress photo");
+        }
+        File file = new File(mDirectory, name);
+        writeFile(file, bytes.toByteArray());
+        return new PhotoFile(file, bitmap.getWidth(), bitmap.getHeight());
+    }
+
+    // on mExecutor
+    private List<PhotoInfo> readManifest(String placeKey) {
+        File file = new File(mDirectory, placeKey + MANIFEST_SUFFIX);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            byte[] bytes = new byte[(int)file.length()];
+            InputStream input = new FileInputStream(file);
+            try {
+                int read = 0;
+                while (read < bytes.length) {
+                    int count = input.read(bytes, read, bytes.length - read);
+                    if (count < 0) {
+                        throw new IOException("truncated manifest");
+                    }
+                    read += count;
+                }
+            } finally {
+                input.close();
+            }
+            JSONArray manifest = new JSONArray(new String(bytes, "UTF-8"));
+            List<PhotoInfo> photos = new ArrayList<PhotoInfo>(manifest.length());
+            for (int i = 0; i < manifest.length(); i++) {
+                JSONObject photo = manifest.getJSONObject(i);
+                photos.add(new PhotoInfo(photo.getInt("width"), photo.getInt("height"),
+                        photo.isNull("attributions") ? null : photo.getString("attributions"), null));
+            }
+            file.setLastModified(System.currentTimeMillis());
+            return photos;
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Could not read photo manifest " + file.getName() + ", listing the photos again", e);
+            return null;
+        }
+    }
+
+    // on mExecutor
+    private void writeManifest(String placeKey, List<PhotoInfo> photos) {
+        try {
+            ResultEncoder encoder = ResultEncoder.get().beginArray();
+            for (PhotoInfo photo : photos) {
+                encoder.beginObject()
+                        .name("width").value(photo.width)
+                        .name("height").value(photo.height)
+                        .field("attributions", photo.attributions)
+                        .endObject();
+            }
+            writeFile(new File(mDirectory, placeKey + MANIFEST_SUFFIX), encoder.endArray().toJson().getBytes("UTF-8"));
+        } catch (IOException | JSONException e) {
+            Log.w(TAG, "Could not write photo manifest of " + placeKey, e);
+        }
+    }
+
+    // on mExecutor: writes a file atomically, then trims the directory to its maximum size
+    private void writeFile(File file, byte[] bytes) throws IOException {
+        scanDirectory();
+        long previousLength = file.length();
+        File temporary = new File(mDirectory, file.getName() + ".tmp");
+        OutputStream output = new FileOutputStream(temporary);
+        try {
+            output.write(bytes);
+        } finally {
+            output.close();
+        }
+        if (!temporary.renameTo(file)) {
+            temporary.delete();
+            throw new IOException("could not rename " + temporary.getName());
+        }
+        mDiskBytes += bytes.length - previousLength;
+        if (mDiskBytes > mMaxDiskBytes) {
+            trim(file);
+        }
+    }
+
+    private void scanDirectory() {
+        if (mDiskBytes >= 0) {
+            return;
+        }
+        mDirectory.mkdirs();
+        mDiskBytes = 0;
+        File[] files = mDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                mDiskBytes += file.length();
+            }
+        }
+    }
+
+    // deletes the least recently used files, but the one just written, until the directory fits
+    private void trim(File kept) {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        final long[] lastModified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            lastModified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                return lastModified[i1] < lastModified[i2] ? -1 : (lastModified[i1] == lastModified[i2] ? 0 : 1);
+            }
+        });
+        for (int i = 0; i < order.length && mDiskBytes > mMaxDiskBytes; i++) {
+            File file = files[order[i]];
+            if (file.equals(kept)) {
+                continue;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                mDiskBytes -= length;
+            }
+        }
+    }
+
+    /**
+     * The name of the files of a place: place IDs are hashed, as they can be longer than file names.
+     */
+    private static String keyOf(String placeId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(placeId.getBytes("UTF-8"));
+            StringBuilder key = new StringBuilder(2 * digest.length);
+            for (byte b : digest) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            // cannot happen: SHA-1 and UTF-8 are always available
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void close() {
+        mExecutor.shutdown();
+    }
+
+    /**
+     * Runs task on the thread of the cache, unless the cache is closed.
+     */
+    private void execute(Runnable task) {
+        try {
+            mExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // closed (e.g. from onDestroy) while the Places API was answering
+        }
+    }
+
+    @Override
+    public void trimMemory(int stage) {
+        if (stage < MemoryGovernor.STAGE_LOW) {
+            mBitmaps.trimToSize(mBitmaps.maxSize() / 2);
+            return;
+        }
+        mBitmaps.evictAll();
+        if (stage >= MemoryGovernor.STAGE_CRITICAL) {
+            // listed again from the manifests on disk
+            mPlaces.clear();
+        }
+    }
+
+    @Override
+    public JSONObject encodeMemoryStats() throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("bytes", mBitmaps.size());
+        result.put("places", mPlaces.size());
+        result.put("pendingListings", mListings.size());
+        result.put("pendingFetches", mFetches.size());
+        return result;
+    }
+
+    JSONObject encodeStats() throws JSONException {
+        JSONObject result = new JSONObject();
+        result.put("requests", mRequests.get());
+        result.put("shared", mShared.get());
+        result.put("memoryHits", mMemoryHits.get());
+        result.put("diskHits", mDiskHits.get());
+        result.put("fetched", mFetched.get());
+        result.put("memoryBytes", mBitmaps.size());
+        return result;
+    }
+
+    void resetStats() {
+        mRequests.set(0);
+        mShared.set(0);
+        mMemoryHits.set(0);
+        mDiskHits.set(0);
+        mFetched.set(0);
+    }
+}
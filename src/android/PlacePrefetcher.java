@@ -0,0 +1,363 @@
+package plugin.google.places;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.Place;
+
+import org.apache.cordova.CallbackContext;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fetches the details of the top autocomplete predictions ahead of time, since the user
+ * usually picks one of the first ones: the lookup of the picked place is then answered
+ * right away, or joins the fetch in flight.
+ *
+ * Prefetching is off until a count of predictions is set. Places are fetched in a single
+ * background call, canceled by the next keystroke (unless a lookup waits for it), and kept
+ * for PREFETCH_TTL. Lookups of places not prefetched go through the lookup batcher.
+ *
+ * Under memory pressure, expired places are dropped, and then all of them.
+ *
+ * The places fetched are encoded by the encoding executor, and handed back to the main
+ * looper, which is the only one touching the prefetched places. The fetch counts as in flight
+ * until then.
+ */
+class PlacePrefetcher implements MemoryGovernor.Consumer {
+    interface Delegate {
+        String encodePlace(Place place) throws JSONException;
+
+        /**
+         * Called the first time a prefetched place is looked up.
+         */
+        void placeUsed(Place place, String encodedPlace);
+    }
+
+    static final long PREFETCH_TTL = 60 * 1000; // milliseconds
+    static final int MAX_ENTRIES = 32;
+
+    private static final class Entry {
+        final Place place;
+        final String encodedPlace;
+        final long expiresAt;
+        boolean used;
+
+        Entry(Place place, String encodedPlace, long expiresAt) {
+            this.place = place;
+            this.encodedPlace = encodedPlace;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Lookup {
+        final String[] placeIds;
+        final CallbackContext callbackContext;
+
+        Lookup(String[] placeIds, CallbackContext callbackContext) {
+            this.placeIds = placeIds;
+            this.callbackContext = callbackContext;
+        }
+    }
+
+    private final PlacesBackend mBackend;
+    private final PlaceLookupBatcher mBatcher;
+    private final EncodingExecutor mEncodingExecutor;
+    private final Delegate mDelegate;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private volatile int mCount;
+    private final AtomicInteger mKeystrokes = new AtomicInteger();
+
+    // prefetched places, oldest first
+    private final LinkedHashMap<String, Entry> mEntries = new LinkedHashMap<String, Entry>();
+    // the fetch in flight, and the lookups waiting for it
+    private PlacesBackend.Request mRequest;
+    private Set<String> mRequestedIds;
+    private List<Lookup> mWaitingLookups = new ArrayList<Lookup>();
+
+    private final AtomicLong mPrefetched = new AtomicLong();
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+    private final AtomicLong mWasted = new AtomicLong();
+
+    PlacePrefetcher(PlacesBackend backend, PlaceLookupBatcher batcher, EncodingExecutor encodingExecutor, Delegate delegate) {
+        mBackend = backend;
+        mBatcher = batcher;
+        mEncodingExecutor = encodingExecutor;
+        mDelegate = delegate;
+    }
+
+    /**
+     * Sets the number of top predictions prefetched, 0 to stop prefetching.
+     */
+    void setCount(int count) {
+        mCount = count;
+    }
+
+    /**
+     * Records a keystroke, which cancels the fetch in flight, and returns its number.
+     */
+    int keystroke() {
+        final int keystroke = mKeystrokes.incrementAndGet();
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (mRequest != null && mWaitingLookups.isEmpty()) {
+                    mRequest.cancel();
+                    mWasted.addAndGet(mRequestedIds.size());
+                    mRequest = null;
+                    mRequestedIds = null;
+                }
+            }
+        });
+        return keystroke;
+    }
+
+    /**
+     * The number of the latest keystroke.
+     */
+    int lastKeystroke() {
+        return mKeystrokes.get();
+    }
+
+    /**
+     * Prefetches the top predictions received for the given keystroke, unless the user typed
+     * again since. Called on the main looper.
+     */
+    void prefetch(List<AutocompletePrediction> predictions, int keystroke) {
+        int count = mCount;
+        if (count <= 0 || keystroke != mKeystrokes.get() || mRequest != null) {
+            return;
+        }
+        removeExpiredEntries();
+        final Set<String> placeIds = new LinkedHashSet<String>();
+        for (int i = 0; i < predictions.size() && i < count; i++) {
+            String placeId = predictions.get(i).getPlaceId();
+            if (placeId != null && !mEntries.containsKey(placeId)) {
+                placeIds.add(placeId);
+            }
+        }
+        if (placeIds.isEmpty()) {
+            return;
+        }
+
+        mPrefetched.addAndGet(placeIds.size());
+        mRequestedIds = placeIds;
+        mRequest = mBackend.getPlacesById(placeIds.toArray(new String[placeIds.size()]), new PlacesBackend.Callback<List<Place>>() {
+            @Override
+            public void onResult(final List<Place> places) {
+                final long expiresAt = SystemClock.elapsedRealtime() + PREFETCH_TTL;
+                mEncodingExecutor.execute(new EncodingExecutor.Task(null) {
+                    @Override
+                    void encode() {
+                        final List<Entry> entries = new ArrayList<Entry>(places.size());
+                        for (Place place : places) {
+                            try {
+                                entries.add(new Entry(place, mDelegate.encodePlace(place), expiresAt));
+                            } catch (JSONException e) {
+                                // looked up again if picked
+                            }
+                        }
+                        mHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (fetchEnded(placeIds)) {
+                                    for (Entry entry : entries) {
+                                        put(entry.place.getId(), entry);
+                                    }
+                                    mWasted.addAndGet(placeIds.size() - entries.size());
+                                    answerWaitingLookups();
+                                }
+                            }
+                        });
+                    }
+
+                    @Override
+                    boolean isAwaited() {
+                        // dropped on the main looper if canceled meanwhile
+                        return true;
+                    }
+
+                    @Override
+                    void shed() {
+                        mHandler.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (fetchEnded(placeIds)) {
+                                    mWasted.addAndGet(placeIds.size());
+                                    answerWaitingLookups();
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Status status) {
+                if (fetchEnded(placeIds)) {
+                    mWasted.addAndGet(placeIds.size());
+                    answerWaitingLookups();
+                }
+            }
+        });
+    }
+
+    /**
+     * Ends the fetch of placeIds, unless it was canceled (and counted as wasted) already.
+     */
+    private boolean fetchEnded(Set<String> placeIds) {
+        if (mRequestedIds != placeIds) {
+            return false;
+        }
+        mRequest = null;
+        mRequestedIds = null;
+        return true;
+    }
+
+    /**
+     * Looks places up, from the prefetched places when possible, or through the lookup
+     * batcher. Called on the main looper.
+     */
+    void lookUp(String[] placeIds, CallbackContext callbackContext) {
+        removeExpiredEntries();
+        if (mCount <= 0 && mEntries.isEmpty() && mRequest == null) {
+            mBatcher.lookUp(placeIds, callbackContext);
+            return;
+        }
+        boolean prefetched = true;
+        boolean inFlight = false;
+        for (String placeId : placeIds) {
+            if (!mEntries.containsKey(placeId)) {
+                prefetched = false;
+                inFlight = mRequestedIds != null && mRequestedIds.contains(placeId);
+                if (!inFlight) {
+                    break;
+                }
+            }
+        }
+        if (prefetched) {
+            answer(placeIds, callbackContext);
+        } else if (inFlight) {
+            mWaitingLookups.add(new Lookup(placeIds, callbackContext));
+        } else {
+            mMisses.addAndGet(placeIds.length);
+            mBatcher.lookUp(placeIds, callbackContext);
+        }
+    }
+
+    private void answerWaitingLookups() {
+        List<Lookup> lookups = mWaitingLookups;
+        mWaitingLookups = new ArrayList<Lookup>();
+        for (Lookup lookup : lookups) {
+            lookUp(lookup.placeIds, lookup.callbackContext);
+        }
+    }
+
+    private void answer(String[] placeIds, CallbackContext callbackContext) {
+        ResultEncoder encoder = ResultEncoder.get().beginArray();
+        for (String placeId : placeIds) {
+            Entry entry = mEntries.get(placeId);
+            if (!entry.used) {
+                entry.used = true;
+                mDelegate.placeUsed(entry.place, entry.encodedPlace);
+            }
+            encoder.json(entry.encodedPlace);
+        }
+        mHits.addAndGet(placeIds.length);
+        callbackContext.success(encoder.endArray().toJSONArray());
+    }
+
+    private void put(String placeId, Entry entry) {
+        Entry previous = mEntries.remove(placeId);
+        if (previous != null) {
+            discarded(previous);
+        }
+        mEntries.put(placeId, entry);
+        if (mEntries.size() > MAX_ENTRIES) {
+            Iterator<Entry> oldest = mEntries.values().iterator();
+            discarded(oldest.next());
+            oldest.remove();
+        }
+    }
+
+    // entries all live for PREFETCH_TTL, so the oldest ones expire first
+    private void removeExpiredEntries() {
+        long now = SystemClock.elapsedRealtime();
+        Iterator<Entry> iterator = mEntries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.expiresAt > now) {
+                break;
+            }
+            iterator.remove();
+            discarded(entry);
+        }
+    }
+
+    @Override
+    public void trimMemory(int stage) {
+        if (stage < MemoryGovernor.STAGE_LOW) {
+            removeExpiredEntries();
+            return;
+        }
+        for (Entry entry : mEntries.values()) {
+            discarded(entry);
+        }
+        mEntries.clear();
+    }
+
+    @Override
+    public JSONObject encodeMemoryStats() throws JSONException {
+        long bytes = 0;
+        for (Entry entry : mEntries.values()) {
+            bytes += entry.encodedPlace.length() * 2;
+        }
+        JSONObject result = new JSONObject();
+        result.put("entries", mEntries.size());
+        result.put("bytes", bytes);
+        result.put("waitingLookups", mWaitingLookups.size());
+        return result;
+    }
+
+    private void discarded(Entry entry) {
+        if (!entry.used) {
+            mWasted.incrementAndGet();
+        }
+    }
+
+    JSONObject encodeStats() throws JSONException {
+        long prefetched = mPrefetched.get();
+        long hits = mHits.get();
+        long misses = mMisses.get();
+        long wasted = mWasted.get();
+        JSONObject result = new JSONObject();
+        result.put("count", mCount);
+        result.put("prefetched", prefetched);
+        result.put("hits", hits);
+        result.put("misses", misses);
+        result.put("wasted", wasted);
+        result.put("hitRatio", hits + misses > 0 ? (double)hits / (hits + misses) : 0);
+        result.put("wasteRatio", prefetched > 0 ? (double)wasted / prefetched : 0);
+        return result;
+    }
+
+    void resetStats() {
+        mPrefetched.set(0);
+        mHits.set(0);
+        mMisses.set(0);
+        mWasted.set(0);
+    }
+}
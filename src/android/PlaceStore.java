@@ -0,0 +1,297 @@
+package plugin.google.places;
+
+import android.util.Log;
+
+import org.apache.cordova.CallbackContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Persistent store of encoded places, keyed by place ID.
+ *
+ * Places are appended to a log file, and an in-memory index gives the position of the
+ * latest record of each place. Each record expires after a TTL, and once the log grows
+ * past its maximum size it is compacted: expired and overwritten records are dropped,
+ * along with the oldest places if needed.
+ *
+ * A record is made of the place ID (modified UTF-8), its expiry date (wall clock, in
+ * milliseconds), and the length-prefixed UTF-8 JSON of the encoded place.
+ *
+ * All the file accesses happen on a dedicated thread; the index is loaded there too,
+ * so that creating the store never blocks. Once the store is closed, places are not stored
+ * anymore, and are all unknown.
+ */
+class PlaceStore {
+    private static final String TAG = CordovaGooglePlaces.TAG;
+    private static final String FILE_NAME = "googleplaces-places.log";
+
+    private static class Record {
+        final long offset;
+        final int length;
+        final long expiresAt;
+
+        Record(long offset, int length, long expiresAt) {
+            this.offset = offset;
+            this.length = length;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final File mFile;
+    private final long mMaxBytes;
+    private final long mTtlMillis;
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+
+    // only accessed from mExecutor, in insertion order (oldest first)
+    private final LinkedHashMap<String, Record> mIndex = new LinkedHashMap<String, Record>();
+    private RandomAccessFile mLog;
+    private long mLiveBytes;
+
+    PlaceStore(File directory, long maxBytes, long ttlMillis) {
+        mFile = new File(directory, FILE_NAME);
+        mMaxBytes = maxBytes;
+        mTtlMillis = ttlMillis;
+
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    load();
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not load the place store, starting afresh", e);
+                    reset();
+                }
+            }
+        });
+    }
+
+    boolean isEnabled() {
+        return mMaxBytes > 0 && mTtlMillis > 0;
+    }
+
+    void put(final String placeId, final String encodedPlace) {
+        if (!isEnabled() || placeId == null) {
+            return;
+        }
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mLog == null) {
+                    return;
+                }
+                try {
+                    append(placeId, System.currentTimeMillis() + mTtlMillis, encodedPlace);
+                    if (mLog.length() > mMaxBytes) {
+                        compact();
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not write to the place store, starting afresh", e);
+                    reset();
+                }
+            }
+        });
+    }
+
+    /**
+     * Sends the stored place to callbackContext, or no result when it is unknown or expired.
+     */
+    void get(final String placeId, final CallbackContext callbackContext) {
+        boolean open = execute(new Runnable() {
+            @Override
+            public void run() {
+                Record record = mIndex.get(placeId);
+                if (record != null && record.expiresAt < System.currentTimeMillis()) {
+                    mIndex.remove(placeId);
+                    mLiveBytes -= record.length;
+                    record = null;
+                }
+                if (record == null || mLog == null) {
+                    callbackContext.success();
+                    return;
+                }
+
+                try {
+                    callbackContext.success(new ResultEncoder.EncodedJSONObject(read(record)));
+                } catch (IOException e) {
+                    callbackContext.error(e.getMessage());
+                }
+            }
+        });
+        if (!open) {
+            callbackContext.success();
+        }
+    }
+
+    void close() {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                closeLog();
+            }
+        });
+        mExecutor.shutdown();
+    }
+
+    /**
+     * Runs task on the thread of the store, returning false when the store is closed.
+     */
+    private boolean execute(Runnable task) {
+        try {
+            mExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // closed (e.g. from onDestroy) while a result was being encoded
+            return false;
+        }
+    }
+
+    private void load() throws IOException {
+        mLog = new RandomAccessFile(mFile, "rw");
+        long length = mLog.length();
+        long offset = 0;
+        try {
+            while (offset < length) {
+                mLog.seek(offset);
+                String placeId = mLog.readUTF();
+                long expiresAt = mLog.readLong();
+                int payloadLength = mLog.readInt();
+                long end = mLog.getFilePointer() + payloadLength;
+                if (payloadLength < 0 || end > length) {
+                    break;
+                }
+                index(placeId, new Record(offset, (int)(end - offset), expiresAt));
+                offset = end;
+            }
+        } catch (EOFException e) {
+            // truncated record, from an interrupted write
+        }
+        if (offset < length) {
+            Log.w(TAG, "Dropping " + (length - offset) + " bytes of truncated records from the place store");
+            mLog.setLength(offset);
+        }
+
+        long now = System.currentTimeMillis();
+        Iterator<Record> it = mIndex.values().iterator();
+        while (it.hasNext()) {
+            Record record = it.next();
+            if (record.expiresAt < now) {
+                mLiveBytes -= record.length;
+                it.remove();
+            }
+        }
+    }
+
+    private void append(String placeId, long expiresAt, String payload) throws IOException {
+        byte[] bytes = payload.getBytes("UTF-8");
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length + placeId.length() + 16);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeUTF(placeId);
+        out.writeLong(expiresAt);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+
+        long offset = mLog.length();
+        mLog.seek(offset);
+        mLog.write(buffer.toByteArray());
+        index(placeId, new Record(offset, buffer.size(), expiresAt));
+    }
+
+    private String read(Record record) throws IOException {
+        mLog.seek(record.offset);
+        mLog.readUTF();
+        mLog.readLong();
+        byte[] bytes = new byte[mLog.readInt()];
+        mLog.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private void index(String placeId, Record record) {
+        // re-insert, so that the index stays ordered from oldest to newest
+        Record previous = mIndex.remove(placeId);
+        if (previous != null) {
+            mLiveBytes -= previous.length;
+        }
+        mIndex.put(placeId, record);
+        mLiveBytes += record.length;
+    }
+
+    /**
+     * Rewrites the live records to a new log, dropping expired records, and then the oldest
+     * ones until the log is down to 3/4 of its maximum size.
+     */
+    private void compact() throws IOException {
+        long now = System.currentTimeMillis();
+        long targetBytes = mMaxBytes / 4 * 3;
+        Iterator<Record> it = mIndex.values().iterator();
+        while (it.hasNext()) {
+            Record record = it.next();
+            if (record.expiresAt < now || mLiveBytes > targetBytes) {
+                mLiveBytes -= record.length;
+                it.remove();
+            }
+        }
+
+        File compactedFile = new File(mFile.getPath() + ".tmp");
+        RandomAccessFile compacted = new RandomAccessFile(compactedFile, "rw");
+        try {
+            compacted.setLength(0);
+            long offset = 0;
+            for (Map.Entry<String, Record> entry : mIndex.entrySet()) {
+                Record record = entry.getValue();
+                byte[] bytes = new byte[record.length];
+                mLog.seek(record.offset);
+                mLog.readFully(bytes);
+                compacted.write(bytes);
+                entry.setValue(new Record(offset, record.length, record.expiresAt));
+                offset += record.length;
+            }
+        } finally {
+            compacted.close();
+        }
+
+        closeLog();
+        if (!compactedFile.renameTo(mFile)) {
+            throw new IOException("could not replace " + mFile + " with its compacted version");
+        }
+        mLog = new RandomAccessFile(mFile, "rw");
+    }
+
+    private void reset() {
+        closeLog();
+        mIndex.clear();
+        mLiveBytes = 0;
+        if (mFile.exists() && !mFile.delete()) {
+            Log.e(TAG, "Could not delete " + mFile);
+            return;
+        }
+        try {
+            mLog = new RandomAccessFile(mFile, "rw");
+        } catch (IOException e) {
+            Log.e(TAG, "Could not open the place store, it is disabled", e);
+        }
+    }
+
+    private void closeLog() {
+        if (mLog == null) {
+            return;
+        }
+        try {
+            mLog.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Could not close the place store", e);
+        }
+        mLog = null;
+    }
+}
@@ -0,0 +1,242 @@
+package plugin.google.places;
+
+import android.content.Context;
+import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.location.places.PlaceLikelihood;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Watches the place where the device is located, for watchCurrentPlace.
+ *
+ * Every interval, the last known location of the device is checked, and the current place
+ * is only queried again once the device moved by the configured distance (or when its
+ * location is unknown). Only the changes since the previous results are sent to JS, in
+ * a single message kept on the callback:
+ *
+ *     { entered: [ { likelihood, place } ], changed: [ { placeID, likelihood } ], left: [ placeID ] }
+ *
+ * where changed places are those whose likelihood moved by more than the threshold.
+ * Nothing is sent when nothing changed.
+ *
+ * The schedule is only touched from the main looper. Results are handled on the encoding
+ * threads, one query at a time. The watch ends with the final result of its callback, be it
+ * released by stop() or a failure (e.g. connection failure, missing permission).
+ */
+class PlaceWatch {
+    static final float DEFAULT_DISTANCE = 50; // meters
+    static final long DEFAULT_INTERVAL = 30 * 1000; // milliseconds
+    static final double DEFAULT_THRESHOLD = 0.1;
+
+    interface Delegate {
+        void queryCurrentPlace(PlaceWatch watch);
+
+        String encodePlace(Place place) throws JSONException;
+
+        /**
+         * Called once the final result of the watch was sent, from any thread.
+         */
+        void watchEnded(PlaceWatch watch);
+    }
+
+    /**
+     * The callback context of the watch, ending it with its final result.
+     */
+    final class Callback extends CallbackContext {
+        // the callback context given to execute()
+        final CallbackContext callbackContext;
+
+        private Callback(CallbackContext callbackContext, CordovaWebView webView) {
+            super(callbackContext.getCallbackId(), webView);
+            this.callbackContext = callbackContext;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return callbackContext.isFinished();
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            callbackContext.sendPluginResult(pluginResult);
+            if (!pluginResult.getKeepCallback()) {
+                mDelegate.watchEnded(PlaceWatch.this);
+            }
+        }
+    }
+
+    final String id;
+    final Callback callbackContext;
+    private final Context mContext;
+    private final float mDistance;
+    private final long mIntervalMillis;
+    private final double mThreshold;
+    private final Delegate mDelegate;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private Location mLastQueryLocation;
+    private long mLastQueryTime = -1;
+    private volatile boolean mQueryInFlight;
+
+    // likelihood of the places sent so far, only accessed by the query in flight
+    private final Map<String, Double> mLikelihoods = new HashMap<String, Double>();
+
+    private final Runnable mCheck = new Runnable() {
+        @Override
+        public void run() {
+            if (callbackContext.isFinished()) {
+                return;
+            }
+            check();
+            mHandler.postDelayed(this, mIntervalMillis);
+        }
+    };
+
+    PlaceWatch(String id, Context context, float distance, long intervalMillis, double threshold, CallbackContext callbackContext,
+               CordovaWebView webView, Delegate delegate) {
+        this.id = id;
+        this.callbackContext = new Callback(callbackContext, webView);
+        mContext = context;
+        mDistance = distance;
+        mIntervalMillis = intervalMillis;
+        mThreshold = threshold;
+        mDelegate = delegate;
+    }
+
+    void start() {
+        mHandler.post(mCheck);
+    }
+
+    /**
+     * Stops watching, and releases the JS callback without calling it.
+     */
+    void stop() {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mHandler.removeCallbacks(mCheck);
+                if (!callbackContext.isFinished()) {
+                    callbackContext.sendPluginResult(new PluginResult(PluginResult.Status.NO_RESULT));
+                }
+            }
+        });
+    }
+
+    private void check() {
+        if (mQueryInFlight) {
+            return;
+        }
+        Location location = LastKnownLocation.get(mContext);
+        if (mLastQueryTime >= 0 && location != null && mLastQueryLocation != null
+                && location.distanceTo(mLastQueryLocation) < mDistance) {
+            return;
+        }
+
+        mLastQueryLocation = location;
+        mLastQueryTime = SystemClock.elapsedRealtime();
+        mQueryInFlight = true;
+        mDelegate.queryCurrentPlace(this);
+    }
+
+    /**
+     * Sends the changes between the previous results and placeLikelihoods, if any.
+     */
+    void update(List<PlaceLikelihood> placeLikelihoods) throws JSONException {
+        try {
+            List<PlaceLikelihood> entered = new ArrayList<PlaceLikelihood>();
+            List<PlaceLikelihood> changed = new ArrayList<PlaceLikelihood>();
+            Map<String, Double> left = new HashMap<String, Double>(mLikelihoods);
+
+            for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+                String placeId = placeLikelihood.getPlace().getId();
+                double likelihood = placeLikelihood.getLikelihood();
+                Double previous = left.remove(placeId);
+                if (previous == null) {
+                    entered.add(placeLikelihood);
+                    mLikelihoods.put(placeId, likelihood);
+                } else if (Math.abs(likelihood - previous) > mThreshold) {
+                    changed.add(placeLikelihood);
+                    mLikelihoods.put(placeId, likelihood);
+                }
+            }
+            for (String placeId : left.keySet()) {
+                mLikelihoods.remove(placeId);
+            }
+            if (entered.isEmpty() && changed.isEmpty() && left.isEmpty()) {
+                return;
+            }
+
+            // encoders are not reentrant: encode the new places first
+            List<String> enteredPlaces = new ArrayList<String>(entered.size());
+            for (PlaceLikelihood placeLikelihood : entered) {
+                enteredPlaces.add(mDelegate.encodePlace(placeLikelihood.getPlace()));
+            }
+
+            ResultEncoder encoder = ResultEncoder.get().beginObject().name("entered").beginArray();
+            for (int i = 0; i < entered.size(); i++) {
+                encoder.beginObject()
+                        .name("likelihood").value(entered.get(i).getLikelihood())
+                        .name("place").json(enteredPlaces.get(i))
+                        .endObject();
+            }
+            encoder.endArray().name("changed").beginArray();
+            for (PlaceLikelihood placeLikelihood : changed) {
+                encoder.beginObject()
+                        .field("placeID", placeLikelihood.getPlace().getId())
+                        .name("likelihood").value(placeLikelihood.getLikelihood())
+                        .endObject();
+            }
+            encoder.endArray().name("left").beginArray();
+            for (String placeId : left.keySet()) {
+                encoder.value(placeId);
+            }
+            encoder.endArray().endObject();
+
+            send(new PluginResult(PluginResult.Status.OK, new ResultEncoder.EncodedJSONObject(encoder.toJson())));
+        } finally {
+            mQueryInFlight = false;
+        }
+    }
+
+    /**
+     * Reports a failed query, without ending the watch.
+     */
+    void fail(Status status) {
+        mQueryInFlight = false;
+        send(CordovaGooglePlaces.encodeFailure(status));
+    }
+
+    /**
+     * Forgets a query whose results were dropped: the next check queries again.
+     */
+    void abandonQuery() {
+        mQueryInFlight = false;
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                mLastQueryTime = -1;
+            }
+        });
+    }
+
+    private void send(PluginResult result) {
+        if (!callbackContext.isFinished()) {
+            result.setKeepCallback(true);
+            callbackContext.sendPluginResult(result);
+        }
+    }
+}
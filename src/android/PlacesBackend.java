@@ -0,0 +1,57 @@
+package plugin.google.places;
+
+import android.graphics.Bitmap;
+
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.location.places.AutocompleteFilter;
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.location.places.PlaceLikelihood;
+import com.google.android.gms.location.places.PlacePhotoMetadata;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import java.util.List;
+
+/**
+ * The Places API calls made by the plugin.
+ *
+ * Calls are made from the main looper, once the API client is connected, and their results
+ * are delivered on the main looper too, as lists of frozen items which need not be released.
+ * Canceled calls never deliver a result.
+ *
+ * {@link PlayServicesBackend} is the implementation used by the plugin; other implementations
+ * can stand in for it, e.g. to load test the plugin without Google Play Services.
+ */
+interface PlacesBackend {
+    interface Callback<T> {
+        void onResult(T result);
+
+        void onFailure(Status status);
+    }
+
+    /**
+     * A call in flight.
+     */
+    interface Request {
+        void cancel();
+    }
+
+    Request getCurrentPlace(Callback<List<PlaceLikelihood>> callback);
+
+    Request getAutocompletePredictions(String query, LatLngBounds bounds, AutocompleteFilter filter, Callback<List<AutocompletePrediction>> callback);
+
+    /**
+     * Looks places up by ID: unknown places are missing from the result.
+     */
+    Request getPlacesById(String[] placeIds, Callback<List<Place>> callback);
+
+    /**
+     * Lists the photos of a place, as frozen metadata.
+     */
+    Request getPlacePhotos(String placeId, Callback<List<PlacePhotoMetadata>> callback);
+
+    /**
+     * Fetches a photo, scaled down to fit within maxWidth x maxHeight.
+     */
+    Request getScaledPhoto(PlacePhotoMetadata photo, int maxWidth, int maxHeight, Callback<Bitmap> callback);
+}
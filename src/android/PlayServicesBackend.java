@@ -0,0 +1,169 @@
+package plugin.google.places;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+
+import com.google.android.gms.common.api.GoogleApiClient;
+import com.google.android.gms.common.api.PendingResult;
+import com.google.android.gms.common.api.Result;
+import com.google.android.gms.common.api.ResultCallback;
+import com.google.android.gms.common.data.AbstractDataBuffer;
+import com.google.android.gms.common.data.Freezable;
+import com.google.android.gms.location.places.AutocompleteFilter;
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.AutocompletePredictionBuffer;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.location.places.PlaceBuffer;
+import com.google.android.gms.location.places.PlaceLikelihood;
+import com.google.android.gms.location.places.PlaceLikelihoodBuffer;
+import com.google.android.gms.location.places.PlacePhotoMetadata;
+import com.google.android.gms.location.places.PlacePhotoMetadataBuffer;
+import com.google.android.gms.location.places.PlacePhotoMetadataResult;
+import com.google.android.gms.location.places.PlacePhotoResult;
+import com.google.android.gms.location.places.Places;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Places API calls made through Google Play Services.
+ *
+ * Data buffers are copied out and released as soon as they are delivered, so that the
+ * items can be encoded later on, from another thread. The buffers delivered and released
+ * are counted, so that a missed release shows up in the memory stats. The buffers of canceled
+ * calls are released right away, without copying their items.
+ */
+class PlayServicesBackend implements PlacesBackend {
+    private static final AtomicLong sBuffersDelivered = new AtomicLong();
+    private static final AtomicLong sBuffersReleased = new AtomicLong();
+
+    private final GoogleApiClient mClient;
+
+    PlayServicesBackend(GoogleApiClient client) {
+        mClient = client;
+    }
+
+    @Override
+    public Request getCurrentPlace(Callback<List<PlaceLikelihood>> callback) {
+        PendingResult<PlaceLikelihoodBuffer> result = Places.PlaceDetectionApi.getCurrentPlace(mClient, null);
+        return deliver(result, callback);
+    }
+
+    @Override
+    public Request getAutocompletePredictions(String query, LatLngBounds bounds, AutocompleteFilter filter, Callback<List<AutocompletePrediction>> callback) {
+        PendingResult<AutocompletePredictionBuffer> result = Places.GeoDataApi.getAutocompletePredictions(mClient, query, bounds, filter);
+        return deliver(result, callback);
+    }
+
+    @Override
+    public Request getPlacesById(String[] placeIds, Callback<List<Place>> callback) {
+        PendingResult<PlaceBuffer> result = Places.GeoDataApi.getPlaceById(mClient, placeIds);
+        return deliver(result, callback);
+    }
+
+    @Override
+    public Request getPlacePhotos(String placeId, final Callback<List<PlacePhotoMetadata>> callback) {
+        final PendingResult<PlacePhotoMetadataResult> result = Places.GeoDataApi.getPlacePhotos(mClient, placeId);
+        result.setResultCallback(new ResultCallback<PlacePhotoMetadataResult>() {
+            @Override
+            public void onResult(@NonNull PlacePhotoMetadataResult photos) {
+                PlacePhotoMetadataBuffer buffer = photos.getPhotoMetadata();
+                if (buffer != null) {
+                    sBuffersDelivered.incrementAndGet();
+                }
+                List<PlacePhotoMetadata> items;
+                try {
+                    if (result.isCanceled()) {
+                        // delivered as the call was canceled: released without being copied
+                        return;
+                    }
+                    if (!photos.getStatus().isSuccess()) {
+                        callback.onFailure(photos.getStatus());
+                        return;
+                    }
+                    items = new ArrayList<PlacePhotoMetadata>(buffer.getCount());
+                    for (PlacePhotoMetadata item : buffer) {
+                        items.add(item.freeze());
+                    }
+                } finally {
+                    if (buffer != null) {
+                        buffer.release();
+                        sBuffersReleased.incrementAndGet();
+                    }
+                }
+                callback.onResult(items);
+            }
+        });
+        return cancelable(result);
+    }
+
+    @Override
+    public Request getScaledPhoto(PlacePhotoMetadata photo, int maxWidth, int maxHeight, final Callback<Bitmap> callback) {
+        final PendingResult<PlacePhotoResult> result = photo.getScaledPhoto(mClient, maxWidth, maxHeight);
+        result.setResultCallback(new ResultCallback<PlacePhotoResult>() {
+            @Override
+            public void onResult(@NonNull PlacePhotoResult photo) {
+                if (!photo.getStatus().isSuccess()) {
+                    callback.onFailure(photo.getStatus());
+                    return;
+                }
+                callback.onResult(photo.getBitmap());
+            }
+        });
+        return cancelable(result);
+    }
+
+    private static <T extends Freezable<T>, B extends AbstractDataBuffer<T> & Result> Request deliver(
+            final PendingResult<B> result, final Callback<List<T>> callback) {
+        result.setResultCallback(new ResultCallback<B>() {
+            @Override
+            public void onResult(@NonNull B buffer) {
+                sBuffersDelivered.incrementAndGet();
+                List<T> items;
+                try {
+                    if (result.isCanceled()) {
+                        // delivered as the call was canceled: released without being copied
+                        return;
+                    }
+                    if (!buffer.getStatus().isSuccess()) {
+                        callback.onFailure(buffer.getStatus());
+                        return;
+                    }
+                    items = new ArrayList<T>(buffer.getCount());
+                    for (T item : buffer) {
+                        items.add(item.freeze());
+                    }
+                } finally {
+                    buffer.release();
+                    sBuffersReleased.incrementAndGet();
+                }
+                callback.onResult(items);
+            }
+        });
+        return cancelable(result);
+    }
+
+    static JSONObject encodeBufferStats() throws JSONException {
+        long delivered = sBuffersDelivered.get();
+        long released = sBuffersReleased.get();
+        JSONObject result = new JSONObject();
+        result.put("delivered", delivered);
+        result.put("released", released);
+        result.put("outstanding", delivered - released);
+        return result;
+    }
+
+    private static Request cancelable(final PendingResult<?> result) {
+        return new Request() {
+            @Override
+            public void cancel() {
+                result.cancel();
+            }
+        };
+    }
+}
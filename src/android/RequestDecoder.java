@@ -0,0 +1,113 @@
+package plugin.google.places;
+
+import com.google.android.gms.location.places.AutocompleteFilter;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Decodes the JSON arguments of the plugin actions.
+ */
+final class RequestDecoder {
+    private RequestDecoder() {
+    }
+
+    static AutocompleteFilter decodeAutocompleteFilter(JSONObject obj) throws  JSONException {
+        Object rawType = obj.get("type");
+        if (!(rawType instanceof String)) {
+            throw new JSONException("\"type\" should be an String");
+        }
+        String typeName = (String)rawType;
+        int type = decodeAutocompleteFilterType(typeName);
+
+        String country = null;
+        if (!obj.isNull("country")) {
+            Object rawCountry = obj.get("country");
+            if (!(rawCountry instanceof String)) {
+                throw new JSONException("\"country\" should be an String");
+            }
+            country = (String)rawCountry;
+        }
+
+        AutocompleteFilter.Builder builder = new AutocompleteFilter.Builder();
+        builder.setTypeFilter(type);
+        if (country != null) {
+            builder.setCountry(country);
+        }
+        return builder.build();
+    }
+
+    private static int decodeAutocompleteFilterType(String s) throws JSONException {
+        if (s.equals("no_filter")) {
+            return AutocompleteFilter.TYPE_FILTER_NONE;
+        } else if (s.equals("geocode")) {
+            return AutocompleteFilter.TYPE_FILTER_GEOCODE;
+        } else if (s.equals("address")) {
+            return AutocompleteFilter.TYPE_FILTER_ADDRESS;
+        } else if (s.equals("establishment")) {
+            return AutocompleteFilter.TYPE_FILTER_ESTABLISHMENT;
+        } else if (s.equals("region")) {
+            return AutocompleteFilter.TYPE_FILTER_REGIONS;
+        } else if (s.equals("city")) {
+            return AutocompleteFilter.TYPE_FILTER_CITIES;
+        }
+        throw new JSONException("Unknown filter type" + s);
+    }
+
+    /**
+     * Decodes an array of place type names, such as "restaurant".
+     */
+    static int[] decodePlaceTypes(JSONArray array) throws JSONException {
+        int[] types = new int[array.length()];
+        for (int i = 0; i < types.length; i++) {
+            Object rawType = array.get(i);
+            if (!(rawType instanceof String)) {
+                throw new JSONException("place types should be strings");
+            }
+            types[i] = ResultEncoder.placeTypeOf((String)rawType);
+            if (types[i] < 0) {
+                throw new JSONException("unknown place type " + rawType);
+            }
+        }
+        return types;
+    }
+
+    static LatLngBounds decodeCoordinateBounds(JSONObject obj) throws JSONException {
+        Object rawNorthEast = obj.get("northEast");
+        if (!(rawNorthEast instanceof JSONObject)) {
+            throw new JSONException("\"northEast\" should be an object");
+        }
+        LatLng northEast = decodeCoordinate((JSONObject) rawNorthEast);
+
+        Object rawSouthWest = obj.get("southWest");
+        if (!(rawSouthWest instanceof JSONObject)) {
+            throw new JSONException("\"southWest\" should be an object");
+        }
+        LatLng southWest = decodeCoordinate((JSONObject) rawSouthWest);
+
+        // checked by LatLngBounds as well, which throws IllegalArgumentException
+        if (southWest.latitude > northEast.latitude) {
+            throw new JSONException("the latitude of \"southWest\" should not exceed the one of \"northEast\"");
+        }
+        return new LatLngBounds(southWest, northEast);
+    }
+
+    static LatLng decodeCoordinate(JSONObject obj) throws JSONException {
+        Object rawLatitude = obj.get("latitude");
+        if (!(rawLatitude instanceof Double)) {
+            throw new JSONException("\"latitude\" should be a number");
+        }
+        double latitude = (Double)rawLatitude;
+
+        Object rawLongitude = obj.get("longitude");
+        if (!(rawLongitude instanceof Double)) {
+            throw new JSONException("\"longitude\" should be a number");
+        }
+        double longitude = (Double)rawLongitude;
+
+        return new LatLng(latitude, longitude);
+    }
+}
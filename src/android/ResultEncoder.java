@@ -0,0 +1,529 @@
+package plugin.google.places;
+
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.Place;
+import com.google.android.gms.location.places.PlaceLikelihood;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming JSON encoder for the plugin results.
+ *
+ * Results are written straight into a character buffer, which is reused by all the results
+ * encoded on the same thread (see {@link #get()}), instead of building JSONObject trees that
+ * Cordova would serialize once more. The output is identical to what org.json produces
+ * for the same fields, in the same order.
+ *
+ * Encoders are thread-confined and not reentrant: a result must be fully encoded, and
+ * taken out with {@link #toJson()}, before the next call to {@link #get()} on the same thread.
+ */
+final class ResultEncoder {
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<ResultEncoder> ENCODERS = new ThreadLocal<ResultEncoder>() {
+        @Override
+        protected ResultEncoder initialValue() {
+            return new ResultEncoder();
+        }
+    };
+
+    // place type names, indexed by type, and the other way around
+    private static final String[] PLACE_TYPE_NAMES;
+    private static final Map<String, Integer> PLACE_TYPES = new HashMap<String, Integer>();
+
+    static {
+        Object[] types = {
+                Place.TYPE_OTHER, "other",
+                Place.TYPE_ACCOUNTING, "accounting",
+                Place.TYPE_AIRPORT, "airport",
+                Place.TYPE_AMUSEMENT_PARK, "amusement_park",
+                Place.TYPE_AQUARIUM, "aquarium",
+                Place.TYPE_ART_GALLERY, "art_gallery",
+                Place.TYPE_ATM, "atm",
+                Place.TYPE_BAKERY, "bakery",
+                Place.TYPE_BANK, "bank",
+                Place.TYPE_BAR, "bar",
+                Place.TYPE_BEAUTY_SALON, "beauty_salon",
+                Place.TYPE_BICYCLE_STORE, "bicycle_store",
+                Place.TYPE_BOOK_STORE, "book_store",
+                Place.TYPE_BOWLING_ALLEY, "bowling_alley",
+                Place.TYPE_BUS_STATION, "bus_station",
+                Place.TYPE_CAFE, "cafe",
+                Place.TYPE_CAMPGROUND, "campground",
+                Place.TYPE_CAR_DEALER, "car_dealer",
+                Place.TYPE_CAR_RENTAL, "car_rental",
+                Place.TYPE_CAR_REPAIR, "car_repair",
+                Place.TYPE_CAR_WASH, "car_wash",
+                Place.TYPE_CASINO, "casino",
+                Place.TYPE_CEMETERY, "cemetery",
+                Place.TYPE_CHURCH, "church",
+                Place.TYPE_CITY_HALL, "city_hall",
+                Place.TYPE_CLOTHING_STORE, "clothing_store",
+                Place.TYPE_CONVENIENCE_STORE, "convenience_store",
+                Place.TYPE_COURTHOUSE, "courhouse",
+                Place.TYPE_DENTIST, "dentist",
+                Place.TYPE_DEPARTMENT_STORE, "department_store",
+                Place.TYPE_DOCTOR, "doctor",
+                Place.TYPE_ELECTRICIAN, "electrician",
+                Place.TYPE_ELECTRONICS_STORE, "electronics_store",
+                Place.TYPE_EMBASSY, "embassy",
+                Place.TYPE_ESTABLISHMENT, "establishment",
+                Place.TYPE_FINANCE, "finance",
+                Place.TYPE_FIRE_STATION, "fire_station",
+                Place.TYPE_FLORIST, "florist",
+                Place.TYPE_FOOD, "food",
+                Place.TYPE_FUNERAL_HOME, "funeral_home",
+                Place.TYPE_FURNITURE_STORE, "furniture_store",
+                Place.TYPE_GAS_STATION, "gas_station",
+                Place.TYPE_GENERAL_CONTRACTOR, "general_contractor",
+                Place.TYPE_GROCERY_OR_SUPERMARKET, "grocery_or_supermarket",
+                Place.TYPE_GYM, "gym",
+                Place.TYPE_HAIR_CARE, "hair_care",
+                Place.TYPE_HARDWARE_STORE, "hardware_store",
+                Place.TYPE_HEALTH, "health",
+                Place.TYPE_HINDU_TEMPLE, "hindu_temple",
+                Place.TYPE_HOME_GOODS_STORE, "home_goods_store",
+                Place.TYPE_HOSPITAL, "hospital",
+                Place.TYPE_INSURANCE_AGENCY, "insurance_agency",
+                Place.TYPE_JEWELRY_STORE, "jewelry_store",
+                Place.TYPE_LAUNDRY, "lanudry",
+                Place.TYPE_LAWYER, "lawyer",
+                Place.TYPE_LIBRARY, "library",
+                Place.TYPE_LIQUOR_STORE, "liquor_store",
+                Place.TYPE_LOCAL_GOVERNMENT_OFFICE, "local_government_office",
+                Place.TYPE_LOCKSMITH, "locksmith",
+                Place.TYPE_LODGING, "lodging",
+                Place.TYPE_MEAL_DELIVERY, "meal_delivery",
+                Place.TYPE_MEAL_TAKEAWAY, "meal_takeway",
+                Place.TYPE_MOSQUE, "mosque",
+                Place.TYPE_MOVIE_RENTAL, "movie_rental",
+                Place.TYPE_MOVIE_THEATER, "movie_theatre",
+                Place.TYPE_MOVING_COMPANY, "moving_company",
+                Place.TYPE_MUSEUM, "museum",
+                Place.TYPE_NIGHT_CLUB, "night_club",
+                Place.TYPE_PAINTER, "painter",
+                Place.TYPE_PARK, "park",
+                Place.TYPE_PARKING, "parking",
+                Place.TYPE_PET_STORE, "pet_store",
+                Place.TYPE_PHARMACY, "pharmacy",
+                Place.TYPE_PHYSIOTHERAPIST, "physiotherapist",
+                Place.TYPE_PLACE_OF_WORSHIP, "place_of_worship",
+                Place.TYPE_PLUMBER, "plumber",
+                Place.TYPE_POLICE, "police",
+                Place.TYPE_POST_OFFICE, "post_office",
+                Place.TYPE_REAL_ESTATE_AGENCY, "real_estate_agency",
+                Place.TYPE_RESTAURANT, "restaurant",
+                Place.TYPE_ROOFING_CONTRACTOR, "roofing_contractor",
+                Place.TYPE_RV_PARK, "rv_park",
+                Place.TYPE_SCHOOL, "school",
+                Place.TYPE_SHOE_STORE, "shoe_store",
+                Place.TYPE_SHOPPING_MALL, "shopping_mall",
+                Place.TYPE_SPA, "spa",
+                Place.TYPE_STADIUM, "stadium",
+                Place.TYPE_STORAGE, "storage",
+                Place.TYPE_STORE, "store",
+                Place.TYPE_SUBWAY_STATION, "subway_station",
+                Place.TYPE_SYNAGOGUE, "synagogue",
+                Place.TYPE_TAXI_STAND, "taxi_stand",
+                Place.TYPE_TRAIN_STATION, "train_station",
+                Place.TYPE_TRAVEL_AGENCY, "travel_agency",
+                Place.TYPE_UNIVERSITY, "university",
+                Place.TYPE_VETERINARY_CARE, "veterinary_case",
+                Place.TYPE_ZOO, "zoo",
+                Place.TYPE_ADMINISTRATIVE_AREA_LEVEL_1, "administrative_area_level_1",
+                Place.TYPE_ADMINISTRATIVE_AREA_LEVEL_2, "administrative_area_level_2",
+                Place.TYPE_ADMINISTRATIVE_AREA_LEVEL_3, "administrative_area_level_3",
+                Place.TYPE_COLLOQUIAL_AREA, "colloquial_area",
+                Place.TYPE_COUNTRY, "country",
+                Place.TYPE_FLOOR, "floor",
+                Place.TYPE_GEOCODE, "geocode",
+                Place.TYPE_INTERSECTION, "intersection",
+                Place.TYPE_LOCALITY, "locality",
+                Place.TYPE_NATURAL_FEATURE, "natural_feature",
+                Place.TYPE_NEIGHBORHOOD, "neighborhood",
+                Place.TYPE_POLITICAL, "political",
+                Place.TYPE_POINT_OF_INTEREST, "point_of_interest",
+                Place.TYPE_POST_BOX, "post_box",
+                Place.TYPE_POSTAL_CODE, "postal_code",
+                Place.TYPE_POSTAL_CODE_PREFIX, "postal_code_prefix",
+                Place.TYPE_POSTAL_TOWN, "postal_town",
+                Place.TYPE_PREMISE, "premise",
+                Place.TYPE_ROOM, "room",
+                Place.TYPE_ROUTE, "route",
+                Place.TYPE_STREET_ADDRESS, "street_address",
+                Place.TYPE_SUBLOCALITY, "sublocality",
+                Place.TYPE_SUBLOCALITY_LEVEL_1, "sublocality_level_1",
+                Place.TYPE_SUBLOCALITY_LEVEL_2, "sublocality_level_2",
+                Place.TYPE_SUBLOCALITY_LEVEL_3, "sublocality_level_3",
+                Place.TYPE_SUBLOCALITY_LEVEL_4, "sublocality_level_4",
+                Place.TYPE_SUBLOCALITY_LEVEL_5, "sublocality_level_5",
+                Place.TYPE_SUBPREMISE, "subpremise",
+                Place.TYPE_SYNTHETIC_GEOCODE, "synthetic_geocode",
+                Place.TYPE_TRANSIT_STATION, "transit_station",
+        };
+        int maxType = 0;
+        for (int i = 0; i < types.length; i += 2) {
+            maxType = Math.max(maxType, (Integer)types[i]);
+        }
+        PLACE_TYPE_NAMES = new String[maxType + 1];
+        for (int i = 0; i < types.length; i += 2) {
+            PLACE_TYPE_NAMES[(Integer)types[i]] = (String)types[i + 1];
+            PLACE_TYPES.put((String)types[i + 1], (Integer)types[i]);
+        }
+    }
+
+    private StringBuilder mBuffer = new StringBuilder(1024);
+
+    private ResultEncoder() {
+    }
+
+    /**
+     * Returns the (emptied) encoder of the current thread.
+     */
+    static ResultEncoder get() {
+        ResultEncoder encoder = ENCODERS.get();
+        if (encoder.mBuffer.capacity() > MAX_RETAINED_CAPACITY) {
+            // do not hold on to the buffer of an unusually large result
+            encoder.mBuffer = new StringBuilder(1024);
+        }
+        encoder.mBuffer.setLength(0);
+        return encoder;
+    }
+
+    String toJson() {
+        return mBuffer.toString();
+    }
+
+    JSONArray toJSONArray() {
+        return new EncodedJSONArray(toJson());
+    }
+
+    JSONObject toJSONObject() {
+        return new EncodedJSONObject(toJson());
+    }
+
+    /**
+     * Current position in the output, to be given to {@link #toJson(int)}.
+     */
+    int position() {
+        return mBuffer.length();
+    }
+
+    /**
+     * The JSON written since the given position.
+     */
+    String toJson(int position) {
+        return mBuffer.substring(position);
+    }
+
+    // ## Places
+
+    ResultEncoder autocompletePrediction(AutocompletePrediction prediction) throws JSONException {
+        return autocompletePrediction(prediction, ResultOptions.ALL_FIELDS);
+    }
+
+    /**
+     * Writes the given fields of a prediction (see {@link ResultOptions}), leaving the others unread.
+     */
+    ResultEncoder autocompletePrediction(AutocompletePrediction prediction, int fields) throws JSONException {
+        beginObject();
+        if ((fields & ResultOptions.FULL_TEXT) != 0) {
+            field("fullText", prediction.getFullText(null));
+        }
+        if ((fields & ResultOptions.PRIMARY_TEXT) != 0) {
+            field("primaryText", prediction.getPrimaryText(null));
+        }
+        if ((fields & ResultOptions.SECONDARY_TEXT) != 0) {
+            field("secondaryText", prediction.getSecondaryText(null));
+        }
+        if ((fields & ResultOptions.PLACE_ID) != 0) {
+            field("placeID", prediction.getPlaceId());
+        }
+        if ((fields & ResultOptions.TYPES) != 0) {
+            List<Integer> types = prediction.getPlaceTypes();
+            if (types != null) {
+                name("types").placeTypes(types);
+            }
+        }
+        return endObject();
+    }
+
+    ResultEncoder placeLikelihood(PlaceLikelihood placeLikelihood) throws JSONException {
+        return placeLikelihood(placeLikelihood, ResultOptions.ALL_FIELDS);
+    }
+
+    ResultEncoder placeLikelihood(PlaceLikelihood placeLikelihood, int fields) throws JSONException {
+        beginObject();
+        name("likelihood").value(placeLikelihood.getLikelihood());
+        name("place").place(placeLikelihood.getPlace(), fields);
+        return endObject();
+    }
+
+    ResultEncoder place(Place place) throws JSONException {
+        return place(place, ResultOptions.ALL_FIELDS);
+    }
+
+    /**
+     * Writes the given fields of a place (see {@link ResultOptions}), leaving the others unread.
+     */
+    ResultEncoder place(Place place, int fields) throws JSONException {
+        beginObject();
+        if ((fields & ResultOptions.NAME) != 0) {
+            field("name", place.getName());
+        }
+        if ((fields & ResultOptions.PLACE_ID) != 0) {
+            field("placeID", place.getId());
+        }
+        if ((fields & ResultOptions.PHONE_NUMBER) != 0) {
+            field("phoneNumber", place.getPhoneNumber());
+        }
+        if ((fields & ResultOptions.FORMATTED_ADDRESS) != 0) {
+            field("formattedAddress", place.getAddress());
+        }
+        if ((fields & ResultOptions.RATING) != 0 && place.getRating() != 0.0) {
+            name("rating").value(place.getRating());
+        }
+        if ((fields & ResultOptions.TYPES) != 0) {
+            List<Integer> types = place.getPlaceTypes();
+            if (types != null) {
+                name("types").placeTypes(types);
+            }
+        }
+        if ((fields & ResultOptions.PRICE_LEVEL) != 0) {
+            field("priceLevel", priceLevel(place.getPriceLevel()));
+        }
+        if ((fields & ResultOptions.COORDINATE) != 0 && place.getLatLng() != null) {
+            name("coordinate").coordinate(place.getLatLng());
+        }
+        if ((fields & ResultOptions.WEBSITE) != 0 && place.getWebsiteUri() != null) {
+            field("website", place.getWebsiteUri().toString());
+        }
+        if ((fields & ResultOptions.VIEWPORT) != 0 && place.getViewport() != null) {
+            name("viewport").coordinateBounds(place.getViewport());
+        }
+        if ((fields & ResultOptions.ATTRIBUTIONS) != 0) {
+            field("attributions", place.getAttributions());
+        }
+        return endObject();
+    }
+
+    ResultEncoder coordinateBounds(LatLngBounds bounds) throws JSONException {
+        beginObject();
+        name("northEast").coordinate(bounds.northeast);
+        name("southWest").coordinate(bounds.southwest);
+        return endObject();
+    }
+
+    ResultEncoder coordinate(LatLng latLng) throws JSONException {
+        beginObject();
+        name("latitude").value(latLng.latitude);
+        name("longitude").value(latLng.longitude);
+        return endObject();
+    }
+
+    ResultEncoder placeTypes(List<Integer> types) {
+        beginArray();
+        for (int i = 0, n = types.size(); i < n; i++) {
+            value(placeType(types.get(i)));
+        }
+        return endArray();
+    }
+
+    static String placeType(int type) {
+        String name = null;
+        if (type >= 0 && type < PLACE_TYPE_NAMES.length) {
+            name = PLACE_TYPE_NAMES[type];
+        }
+        // defaults to "other"
+        return name != null ? name : "other";
+    }
+
+    /**
+     * The place type of the given name, or -1 for unknown names.
+     */
+    static int placeTypeOf(String name) {
+        Integer type = PLACE_TYPES.get(name);
+        return type != null ? type : -1;
+    }
+
+    static String priceLevel(int priceLevel) {
+        switch (priceLevel) {
+            case 0: return "free";
+            case 1: return "cheap";
+            case 2: return "medium";
+            case 3: return "high";
+            case 4: return "expensive";
+        }
+        return null;
+    }
+
+    // ## JSON primitives
+
+    ResultEncoder beginObject() {
+        separate();
+        mBuffer.append('{');
+        return this;
+    }
+
+    ResultEncoder endObject() {
+        mBuffer.append('}');
+        return this;
+    }
+
+    ResultEncoder beginArray() {
+        separate();
+        mBuffer.append('[');
+        return this;
+    }
+
+    ResultEncoder endArray() {
+        mBuffer.append(']');
+        return this;
+    }
+
+    ResultEncoder name(String name) {
+        separate();
+        string(name);
+        mBuffer.append(':');
+        return this;
+    }
+
+    /**
+     * Writes a string field, or nothing if value is null (as JSONObject.put does).
+     */
+    ResultEncoder field(String name, CharSequence value) {
+        if (value != null) {
+            name(name).value(value);
+        }
+        return this;
+    }
+
+    ResultEncoder value(CharSequence value) {
+        separate();
+        if (value == null) {
+            mBuffer.append("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    ResultEncoder value(double value) throws JSONException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new JSONException("Forbidden numeric value: " + value);
+        }
+        separate();
+        long longValue = (long)value;
+        if (value == 0 && Double.doubleToRawLongBits(value) != 0) {
+            mBuffer.append("-0");
+        } else if (value == (double)longValue) {
+            mBuffer.append(longValue);
+        } else {
+            mBuffer.append(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes an already encoded JSON value.
+     */
+    ResultEncoder json(String json) {
+        separate();
+        mBuffer.append(json);
+        return this;
+    }
+
+    // adds a comma, unless at the start of the output, of an array or object, or after a name
+    private void separate() {
+        int length = mBuffer.length();
+        if (length == 0) {
+            return;
+        }
+        char last = mBuffer.charAt(length - 1);
+        if (last != '[' && last != '{' && last != ':') {
+            mBuffer.append(',');
+        }
+    }
+
+    private void string(CharSequence value) {
+        StringBuilder out = mBuffer;
+        out.append('"');
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    out.append('\\').append(c);
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                default:
+                    if (c <= 0x1F) {
+                        out.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Carries already encoded JSON to a PluginResult, which only needs its toString().
+     *
+     * These cannot be nested in other JSONObject or JSONArray instances, which would
+     * not see their content.
+     */
+    static final class EncodedJSONArray extends JSONArray {
+        private final String mJson;
+
+        EncodedJSONArray(String json) {
+            mJson = json;
+        }
+
+        @Override
+        public String toString() {
+            return mJson;
+        }
+    }
+
+    /**
+     * See {@link EncodedJSONArray}.
+     */
+    static final class EncodedJSONObject extends JSONObject {
+        private final String mJson;
+
+        EncodedJSONObject(String json) {
+            mJson = json;
+        }
+
+        @Override
+        public String toString() {
+            return mJson;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package plugin.google.places;
+
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.PlaceLikelihood;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The decoded { fields, limit, minLikelihood, types, excludedTypes } options of the calls
+ * returning places or predictions.
+ *
+ * fields is the list of the result fields to return (all of them by default): the encoders
+ * neither read nor write the others. Results are then filtered by their types (they must
+ * have one of types, and none of excludedTypes), by likelihood for the current place, and
+ * cut down to the first limit results (the most likely ones for the current place).
+ */
+final class ResultOptions {
+    // place fields
+    static final int NAME = 1;
+    static final int PLACE_ID = 1 << 1;
+    static final int PHONE_NUMBER = 1 << 2;
+    static final int FORMATTED_ADDRESS = 1 << 3;
+    static final int RATING = 1 << 4;
+    static final int TYPES = 1 << 5;
+    static final int PRICE_LEVEL = 1 << 6;
+    static final int COORDINATE = 1 << 7;
+    static final int WEBSITE = 1 << 8;
+    static final int VIEWPORT = 1 << 9;
+    static final int ATTRIBUTIONS = 1 << 10;
+    // prediction fields (besides placeID and types)
+    static final int FULL_TEXT = 1 << 11;
+    static final int PRIMARY_TEXT = 1 << 12;
+    static final int SECONDARY_TEXT = 1 << 13;
+
+    static final int ALL_FIELDS = (1 << 14) - 1;
+
+    private static final String[] FIELD_NAMES = {
+            "name", "placeID", "phoneNumber", "formattedAddress", "rating", "types", "priceLevel",
+            "coordinate", "website", "viewport", "attributions", "fullText", "primaryText", "secondaryText"
+    };
+
+    static final ResultOptions ALL = new ResultOptions(ALL_FIELDS, Integer.MAX_VALUE, 0, null, null);
+
+    final int fields;
+    final int limit;
+    final double minLikelihood;
+    // place types, null when not filtered
+    final int[] types;
+    final int[] excludedTypes;
+    // identifies the options, empty for the defaults
+    final String key;
+
+    private ResultOptions(int fields, int limit, double minLikelihood, int[] types, int[] excludedTypes) {
+        this.fields = fields;
+        this.limit = limit;
+        this.minLikelihood = minLikelihood;
+        this.types = types;
+        this.excludedTypes = excludedTypes;
+        if (fields == ALL_FIELDS && limit == Integer.MAX_VALUE && minLikelihood <= 0 && types == null && excludedTypes == null) {
+            this.key = "";
+        } else {
+            this.key = Integer.toHexString(fields) + "|" + limit + "|" + minLikelihood + "|"
+                    + (types != null ? Arrays.toString(types) : "") + "|"
+                    + (excludedTypes != null ? Arrays.toString(excludedTypes) : "");
+        }
+    }
+
+    /**
+     * Decodes the given options, or returns ALL when obj is null.
+     */
+    static ResultOptions decode(JSONObject obj) throws JSONException {
+        if (obj == null) {
+            return ALL;
+        }
+        int fields = ALL_FIELDS;
+        if (!obj.isNull("fields")) {
+            Object rawFields = obj.get("fields");
+            if (!(rawFields instanceof JSONArray)) {
+                throw new JSONException("\"fields\" should be an array");
+            }
+            fields = decodeFields((JSONArray)rawFields);
+        }
+        int limit = Integer.MAX_VALUE;
+        if (!obj.isNull("limit")) {
+            limit = obj.getInt("limit");
+            if (limit < 1) {
+                throw new JSONException("\"limit\" should be a positive number");
+            }
+        }
+        double minLikelihood = obj.optDouble("minLikelihood", 0);
+        if (Double.isNaN(minLikelihood)) {
+            throw new JSONException("\"minLikelihood\" should be a number");
+        }
+        return new ResultOptions(fields, limit, minLikelihood, decodeTypes(obj, "types"), decodeTypes(obj, "excludedTypes"));
+    }
+
+    private static int decodeFields(JSONArray array) throws JSONException {
+        int fields = 0;
+        for (int i = 0; i < array.length(); i++) {
+            int index = Arrays.asList(FIELD_NAMES).indexOf(array.opt(i));
+            if (index < 0) {
+                throw new JSONException("unknown field " + array.opt(i));
+            }
+            fields |= 1 << index;
+        }
+        return fields;
+    }
+
+    private static int[] decodeTypes(JSONObject obj, String name) throws JSONException {
+        if (obj.isNull(name)) {
+            return null;
+        }
+        Object rawTypes = obj.get(name);
+        if (!(rawTypes instanceof JSONArray)) {
+            throw new JSONException("\"" + name + "\" should be an array");
+        }
+        int[] types = RequestDecoder.decodePlaceTypes((JSONArray)rawTypes);
+        Arrays.sort(types);
+        return types;
+    }
+
+    boolean has(int field) {
+        return (fields & field) != 0;
+    }
+
+    /**
+     * Whether some fields are left out of the results.
+     */
+    boolean isProjected() {
+        return fields != ALL_FIELDS;
+    }
+
+    /**
+     * The likelihoods to return, most likely first when limited.
+     */
+    List<PlaceLikelihood> trimLikelihoods(List<PlaceLikelihood> placeLikelihoods) {
+        if (key.isEmpty()) {
+            return placeLikelihoods;
+        }
+        List<PlaceLikelihood> result = new ArrayList<PlaceLikelihood>(placeLikelihoods.size());
+        for (PlaceLikelihood placeLikelihood : placeLikelihoods) {
+            if (placeLikelihood.getLikelihood() >= minLikelihood && matchesTypes(placeLikelihood.getPlace().getPlaceTypes())) {
+                result.add(placeLikelihood);
+            }
+        }
+        if (result.size() > limit) {
+            Collections.sort(result, new Comparator<PlaceLikelihood>() {
+                @Override
+                public int compare(PlaceLikelihood a, PlaceLikelihood b) {
+                    return Float.compare(b.getLikelihood(), a.getLikelihood());
+                }
+            });
+            return result.subList(0, limit);
+        }
+        return result;
+    }
+
+    /**
+     * The predictions to return, in the order of the Places API.
+     */
+    List<AutocompletePrediction> trimPredictions(List<AutocompletePrediction> predictions) {
+        if (types == null && excludedTypes == null) {
+            return predictions.size() > limit ? predictions.subList(0, limit) : predictions;
+        }
+        List<AutocompletePrediction> result = new ArrayList<AutocompletePrediction>(Math.min(predictions.size(), limit));
+        for (AutocompletePrediction prediction : predictions) {
+            if (result.size() == limit) {
+                break;
+            }
+            if (matchesTypes(prediction.getPlaceTypes())) {
+                result.add(prediction);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether a place with the given types has one of types, and none of excludedTypes.
+     */
+    boolean matchesTypes(List<Integer> placeTypes) {
+        if (types == null && excludedTypes == null) {
+            return true;
+        }
+        boolean included = types == null;
+        if (placeTypes != null) {
+            for (int i = 0, n = placeTypes.size(); i < n; i++) {
+                int type = placeTypes.get(i);
+                if (excludedTypes != null && Arrays.binarySearch(excludedTypes, type) >= 0) {
+                    return false;
+                }
+                if (types != null && Arrays.binarySearch(types, type) >= 0) {
+                    included = true;
+                }
+            }
+        }
+        return included;
+    }
+}
@@ -0,0 +1,86 @@
+package plugin.google.places;
+
+import com.google.android.gms.location.places.AutocompleteFilter;
+import com.google.android.gms.maps.model.LatLngBounds;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Locale;
+
+/**
+ * The bounds and filter of autocomplete queries, decoded once.
+ *
+ * Contexts registered by registerSearchContext are then given to autocompleteQuery and
+ * typeaheadQuery by their handle, so that the queries typed in the same search box do not
+ * decode the same bounds and filter, nor build their part of the cache key, over and over.
+ */
+final class SearchContext {
+    static final SearchContext NONE = new SearchContext(null, null, null, null);
+
+    final LatLngBounds bounds;
+    final AutocompleteFilter filter;
+    // identifies the filter, empty without filter
+    final String filterKey;
+    // the bounds and filter part of the cache keys
+    final String key;
+
+    SearchContext(LatLngBounds bounds, AutocompleteFilter filter, String filterType, String filterCountry) {
+        this.bounds = bounds;
+        this.filter = filter;
+        this.filterKey = filterType == null && filterCountry == null ? ""
+                : filterType + "|" + (filterCountry != null ? filterCountry.toUpperCase(Locale.ROOT) : null);
+
+        StringBuilder key = new StringBuilder();
+        key.append('|');
+        if (bounds != null) {
+            key.append(bounds.northeast.latitude).append(',')
+                    .append(bounds.northeast.longitude).append(',')
+                    .append(bounds.southwest.latitude).append(',')
+                    .append(bounds.southwest.longitude);
+        }
+        key.append('|');
+        if (filterType != null) {
+            key.append(filterType);
+        }
+        key.append('|');
+        if (filterCountry != null) {
+            key.append(filterCountry.toUpperCase(Locale.ROOT));
+        }
+        this.key = key.toString();
+    }
+
+    /**
+     * Decodes the bounds and filter fields of obj, both optional.
+     */
+    static SearchContext decode(JSONObject obj) throws JSONException {
+        LatLngBounds bounds = null;
+        if (!obj.isNull("bounds")) {
+            Object rawBounds = obj.get("bounds");
+            if (!(rawBounds instanceof JSONObject)) {
+                throw new JSONException("\"bounds\" should be an object");
+            }
+            bounds = RequestDecoder.decodeCoordinateBounds((JSONObject)rawBounds);
+        }
+        JSONObject rawFilter = null;
+        if (!obj.isNull("filter")) {
+            Object filterArg = obj.get("filter");
+            if (!(filterArg instanceof JSONObject)) {
+                throw new JSONException("\"filter\" should be an object");
+            }
+            rawFilter = (JSONObject)filterArg;
+        }
+        return create(bounds, rawFilter);
+    }
+
+    /**
+     * Creates the context of the given bounds and filter, both optional.
+     */
+    static SearchContext create(LatLngBounds bounds, JSONObject rawFilter) throws JSONException {
+        if (rawFilter == null) {
+            return bounds != null ? new SearchContext(bounds, null, null, null) : NONE;
+        }
+        return new SearchContext(bounds, RequestDecoder.decodeAutocompleteFilter(rawFilter),
+                rawFilter.optString("type", null), rawFilter.optString("country", null));
+    }
+}
@@ -0,0 +1,220 @@
+package plugin.google.places;
+
+import org.apache.cordova.CallbackContext;
+import org.apache.cordova.CordovaWebView;
+import org.apache.cordova.PluginResult;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merges identical requests made while one of them is in flight: the later requests wait for
+ * the Places API call of the first one, instead of making their own, and its result, encoded
+ * once, is sent to each of them.
+ *
+ * Requests are identical when their keys are, which callers build from the action and from
+ * everything its result depends on (query, bounds, filter, result format). A flight ends with
+ * its final result: later requests start a new flight, so results are never stale.
+ *
+ * Canceling a request only detaches it from its flight; the call is canceled once no request
+ * waits for it anymore.
+ */
+class SingleFlight {
+    interface Starter {
+        /**
+         * Starts the call answering a flight, reporting to callbackContext. Returns the call,
+         * or null when it cannot be canceled.
+         */
+        PlacesBackend.Request start(CallbackContext callbackContext);
+    }
+
+    /**
+     * The callback context given to the call of a flight, sending its results to every
+     * request waiting for it.
+     */
+    final class Flight extends CallbackContext {
+        private final String mKey;
+        // replaced under SingleFlight.this as requests join or leave, never modified
+        private volatile CallbackContext[] mWaiting;
+        // guarded by SingleFlight.this
+        private PlacesBackend.Request mRequest;
+        private boolean mDone;
+
+        private Flight(String key, CallbackContext callbackContext, CordovaWebView webView) {
+            super(callbackContext.getCallbackId(), webView);
+            mKey = key;
+            mWaiting = new CallbackContext[] { callbackContext };
+        }
+
+        /**
+         * The requests waiting for the flight, read without locking nor copying: the array
+         * must not be modified.
+         */
+        CallbackContext[] waiting() {
+            return mWaiting;
+        }
+
+        @Override
+        public boolean isFinished() {
+            synchronized (SingleFlight.this) {
+                if (mDone) {
+                    return true;
+                }
+                for (CallbackContext callbackContext : mWaiting) {
+                    if (!callbackContext.isFinished()) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+
+        @Override
+        public void sendPluginResult(PluginResult pluginResult) {
+            CallbackContext[] waiting;
+            synchronized (SingleFlight.this) {
+                if (mDone) {
+                    return;
+                }
+                if (!pluginResult.getKeepCallback()) {
+                    mDone = true;
+                    end(this);
+                }
+                waiting = mWaiting;
+            }
+            for (CallbackContext callbackContext : waiting) {
+                if (!callbackContext.isFinished()) {
+                    callbackContext.sendPluginResult(pluginResult);
+                }
+            }
+        }
+
+        private PlacesBackend.Request requestOf(final CallbackContext callbackContext) {
+            return new PlacesBackend.Request() {
+                @Override
+                public void cancel() {
+                    leave(Flight.this, callbackContext);
+                }
+            };
+        }
+    }
+
+    private final CordovaWebView mWebView;
+    // guarded by this
+    private final Map<String, Flight> mFlights = new HashMap<String, Flight>();
+    private final AtomicLong mRequests = new AtomicLong();
+    private final AtomicLong mShared = new AtomicLong();
+
+    SingleFlight(CordovaWebView webView) {
+        mWebView = webView;
+    }
+
+    /**
+     * Answers callbackContext with the result of the flight of key, starting the flight when
+     * none is in progress. Returns the request of callbackContext, to be canceled when its
+     * result is not needed anymore.
+     */
+    PlacesBackend.Request run(String key, CallbackContext callbackContext, Starter starter) {
+        mRequests.incrementAndGet();
+        Flight flight;
+        synchronized (this) {
+            flight = mFlights.get(key);
+            if (flight != null) {
+                flight.mWaiting = added(flight.mWaiting, callbackContext);
+                mShared.incrementAndGet();
+                return flight.requestOf(callbackContext);
+            }
+            flight = new Flight(key, callbackContext, mWebView);
+            mFlights.put(key, flight);
+        }
+
+        PlacesBackend.Request request = starter.start(flight);
+        boolean abandoned;
+        synchronized (this) {
+            flight.mRequest = request;
+            abandoned = flight.mWaiting.length == 0;
+        }
+        if (abandoned && request != null) {
+            // every request left while the call was starting
+            request.cancel();
+        }
+        return flight.requestOf(callbackContext);
+    }
+
+    private void leave(Flight flight, CallbackContext callbackContext) {
+        PlacesBackend.Request request = null;
+        synchronized (this) {
+            CallbackContext[] waiting = removed(flight.mWaiting, callbackContext);
+            if (waiting == flight.mWaiting) {
+                return;
+            }
+            flight.mWaiting = waiting;
+            if (waiting.length > 0) {
+                return;
+            }
+            end(flight);
+            request = flight.mRequest;
+        }
+        if (request != null) {
+            request.cancel();
+        }
+    }
+
+    private static CallbackContext[] added(CallbackContext[] waiting, CallbackContext callbackContext) {
+        CallbackContext[] result = Arrays.copyOf(waiting, waiting.length + 1);
+        result[waiting.length] = callbackContext;
+        return result;
+    }
+
+    /**
+     * Returns waiting without callbackContext, or waiting itself when callbackContext is not in it.
+     */
+    private static CallbackContext[] removed(CallbackContext[] waiting, CallbackContext callbackContext) {
+        for (int i = 0; i < waiting.length; i++) {
+            if (waiting[i] == callbackContext) {
+                CallbackContext[] result = new CallbackContext[waiting.length - 1];
+                System.arraycopy(waiting, 0, result, 0, i);
+                System.arraycopy(waiting, i + 1, result, i, waiting.length - i - 1);
+                return result;
+            }
+        }
+        return waiting;
+    }
+
+    // guarded by this
+    private void end(Flight flight) {
+        if (mFlights.get(flight.mKey) == flight) {
+            mFlights.remove(flight.mKey);
+        }
+    }
+
+    /**
+     * The number of callbacks waiting for a flight.
+     */
+    synchronized int waitingCallbacks() {
+        int count = 0;
+        for (Flight flight : mFlights.values()) {
+            count += flight.mWaiting.length;
+        }
+        return count;
+    }
+
+    JSONObject encodeStats() throws JSONException {
+        long requests = mRequests.get();
+        long shared = mShared.get();
+        JSONObject result = new JSONObject();
+        result.put("requests", requests);
+        result.put("shared", shared);
+        result.put("rate", requests > 0 ? (double)shared / requests : 0);
+        return result;
+    }
+
+    void resetStats() {
+        mRequests.set(0);
+        mShared.set(0);
+    }
+}
@@ -0,0 +1,539 @@
+package plugin.google.places;
+
+import android.util.Log;
+
+import com.google.android.gms.location.places.AutocompletePrediction;
+import com.google.android.gms.location.places.Place;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Pattern;
+
+/**
+ * On-device index of the places offered to the user (as autocomplete predictions) or selected
+ * by the user (looked up, picked...), answering autocomplete queries locally while the Places
+ * API is queried.
+ *
+ * Suggestions are indexed by the words of their full text, in lower case and without accents,
+ * in a sorted map: the suggestions for a query are those with a word starting with each of
+ * the words of the query. They are ranked by a score which grows each time their place is
+ * offered (by 0.1) or selected (by 1), and which is halved every week. Once the index is full,
+ * the suggestion with the lowest score is evicted. Suggestions offered for a filtered query are
+ * only suggested again for queries with the same filter; the bounds of the queries are only
+ * a bias for the Places API, and are ignored.
+ *
+ * The index is loaded on first use, in the background (it suggests nothing until then), and
+ * saved every {@link #SAVE_INTERVAL} changes and when the app is paused. The file holds
+ * a format version (byte) and the number of suggestions (int), followed by the suggestions:
+ * place ID, primary text, secondary text and full text (modified UTF-8, the full text being
+ * empty when it is made of the other two), types (byte count and shorts), filter (modified
+ * UTF-8), score (float) and last update (wall clock, in milliseconds).
+ *
+ * Lookups are made from the calling thread; changes, loading and saving happen on a
+ * dedicated thread. Once the index is closed, changes are dropped.
+ */
+class SuggestionIndex {
+    private static final String TAG = CordovaGooglePlaces.TAG;
+    private static final String FILE_NAME = "googleplaces-suggestions.bin";
+    private static final int FORMAT_VERSION = 1;
+    private static final int SAVE_INTERVAL = 50; // changes
+    private static final double HALF_LIFE = 7 * 24 * 3600 * 1000.0; // milliseconds
+    private static final double OFFERED_WEIGHT = 0.1;
+    private static final double SELECTED_WEIGHT = 1;
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    static final int MAX_SUGGESTIONS = 5;
+
+    private static class Suggestion {
+        final String placeId;
+        String primaryText;
+        String secondaryText;
+        String fullText;
+        List<Integer> types;
+        String filterKey;
+        String[] words;
+        double score;
+        long updatedAt;
+
+        Suggestion(String placeId) {
+            this.placeId = placeId;
+        }
+
+        double scoreAt(long now) {
+            return score * Math.pow(0.5, (now - updatedAt) / HALF_LIFE);
+        }
+
+        void bump(double weight, long now) {
+            score = scoreAt(now) + weight;
+            updatedAt = now;
+        }
+    }
+
+    private final File mFile;
+    private final int mMaxEntries;
+    private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+    private final Metrics.Histogram mLookupTime = new Metrics.Histogram(); // microseconds
+
+    // guarded by this: suggestions by place ID, and by word
+    private final Map<String, Suggestion> mSuggestions = new HashMap<String, Suggestion>();
+    private final TreeMap<String, List<Suggestion>> mWords = new TreeMap<String, List<Suggestion>>();
+    private boolean mLoadStarted;
+
+    // only accessed from mExecutor
+    private int mUnsavedChanges;
+
+    SuggestionIndex(File directory, int maxEntries) {
+        mFile = new File(directory, FILE_NAME);
+        mMaxEntries = maxEntries;
+    }
+
+    boolean isEnabled() {
+        return mMaxEntries > 0;
+    }
+
+    /**
+     * Returns the encoded predictions suggested for a query, best first, or null when there
+     * are none. filterKey identifies the filter of the query, and is empty without filter;
+     * options give the fields, types and number of the predictions.
+     */
+    String suggest(String query, String filterKey, ResultOptions options) throws JSONException {
+        if (!isEnabled()) {
+            return null;
+        }
+        ensureLoaded();
+        String[] queryWords = wordsOf(query);
+        if (queryWords.length == 0) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        List<Suggestion> matches = new ArrayList<Suggestion>();
+        final Map<Suggestion, Double> scores = new HashMap<Suggestion, Double>();
+        synchronized (this) {
+            // the longest word of the query is the most selective one
+            String key = queryWords[0];
+            for (String word : queryWords) {
+                if (word.length() > key.length()) {
+                    key = word;
+                }
+            }
+            Set<Suggestion> candidates = new LinkedHashSet<Suggestion>();
+            for (List<Suggestion> suggestions : mWords.subMap(key, key + Character.MAX_VALUE).values()) {
+                candidates.addAll(suggestions);
+            }
+            for (Suggestion candidate : candidates) {
+                if ((filterKey.isEmpty() || filterKey.equals(candidate.filterKey)) && matches(candidate.words, queryWords)
+                        && options.matchesTypes(candidate.types)) {
+                    matches.add(candidate);
+                    scores.put(candidate, candidate.scoreAt(now));
+                }
+            }
+
+            if (matches.isEmpty()) {
+                mLookupTime.record((System.nanoTime() - start) / 1000);
+                return null;
+            }
+            Collections.sort(matches, new Comparator<Suggestion>() {
+                @Override
+                public int compare(Suggestion a, Suggestion b) {
+                    return Double.compare(scores.get(b), scores.get(a));
+                }
+            });
+
+            ResultEncoder encoder = ResultEncoder.get().beginArray();
+            int count = Math.min(Math.min(MAX_SUGGESTIONS, options.limit), matches.size());
+            for (Suggestion suggestion : matches.subList(0, count)) {
+                encoder.beginObject();
+                if (options.has(ResultOptions.FULL_TEXT)) {
+                    encoder.field("fullText", suggestion.fullText);
+                }
+                if (options.has(ResultOptions.PRIMARY_TEXT)) {
+                    encoder.field("primaryText", suggestion.primaryText);
+                }
+                if (options.has(ResultOptions.SECONDARY_TEXT)) {
+                    encoder.field("secondaryText", suggestion.secondaryText);
+                }
+                if (options.has(ResultOptions.PLACE_ID)) {
+                    encoder.field("placeID", suggestion.placeId);
+                }
+                if (suggestion.types != null && options.has(ResultOptions.TYPES)) {
+                    encoder.name("types").placeTypes(suggestion.types);
+                }
+                encoder.endObject();
+            }
+            String result = encoder.endArray().toJson();
+            mLookupTime.record((System.nanoTime() - start) / 1000);
+            return result;
+        }
+    }
+
+    /**
+     * Learns the predictions offered for a query with the given filter.
+     */
+    void offered(List<AutocompletePrediction> predictions, final String filterKey) {
+        if (!isEnabled() || predictions.isEmpty()) {
+            return;
+        }
+        ensureLoaded();
+        final List<Suggestion> offered = new ArrayList<Suggestion>(predictions.size());
+        for (AutocompletePrediction prediction : predictions) {
+            if (prediction.getPlaceId() == null) {
+                continue;
+            }
+            Suggestion suggestion = new Suggestion(prediction.getPlaceId());
+            suggestion.primaryText = toString(prediction.getPrimaryText(null));
+            suggestion.secondaryText = toString(prediction.getSecondaryText(null));
+            suggestion.fullText = toString(prediction.getFullText(null));
+            suggestion.types = prediction.getPlaceTypes();
+            offered.add(suggestion);
+        }
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                long now = System.currentTimeMillis();
+                synchronized (SuggestionIndex.this) {
+                    for (Suggestion suggestion : offered) {
+                        Suggestion existing = mSuggestions.get(suggestion.placeId);
+                        if (existing != null) {
+                            // keep the latest texts and filter
+                            unindex(existing);
+                            suggestion.score = existing.score;
+                            suggestion.updatedAt = existing.updatedAt;
+                        }
+                        suggestion.filterKey = filterKey;
+                        suggestion.bump(OFFERED_WEIGHT, now);
+                        index(suggestion, now);
+                    }
+                }
+                changed(offered.size());
+            }
+        });
+    }
+
+    /**
+     * Learns a place selected by the user.
+     */
+    void selected(Place place) {
+        if (!isEnabled() || place.getId() == null || place.getName() == null) {
+            return;
+        }
+        ensureLoaded();
+        final Suggestion selected = new Suggestion(place.getId());
+        String name = place.getName().toString();
+        String address = toString(place.getAddress());
+        selected.primaryText = name;
+        if (address == null) {
+            selected.fullText = name;
+        } else if (address.startsWith(name + ", ")) {
+            // e.g. street addresses, named after their address
+            selected.secondaryText = address.substring(name.length() + 2);
+            selected.fullText = address;
+        } else {
+            selected.secondaryText = address;
+            selected.fullText = name + ", " + address;
+        }
+        selected.types = place.getPlaceTypes();
+        selected.filterKey = "";
+
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                long now = System.currentTimeMillis();
+                synchronized (SuggestionIndex.this) {
+                    Suggestion existing = mSuggestions.get(selected.placeId);
+                    if (existing != null) {
+                        // keep the texts of the predictions, which were actually offered
+                        existing.bump(SELECTED_WEIGHT, now);
+                    } else {
+                        selected.bump(SELECTED_WEIGHT, now);
+                        index(selected, now);
+                    }
+                }
+                changed(1);
+            }
+        });
+    }
+
+    /**
+     * Saves the index in the background, if it changed since it was last saved.
+     */
+    void flush() {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mUnsavedChanges > 0) {
+                    save();
+                }
+            }
+        });
+    }
+
+    void close() {
+        flush();
+        mExecutor.shutdown();
+    }
+
+    /**
+     * Runs task on the thread of the index, unless the index is closed.
+     */
+    private void execute(Runnable task) {
+        try {
+            mExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // closed (e.g. from onDestroy) while a result was being encoded or looked up
+        }
+    }
+
+    JSONObject encodeStats() throws JSONException {
+        JSONObject result = new JSONObject();
+        synchronized (this) {
+            result.put("entries", mSuggestions.size());
+        }
+        result.put("lookupTime", mLookupTime.encode(1000.0));
+        return result;
+    }
+
+    void resetStats() {
+        mLookupTime.reset();
+    }
+
+    private void ensureLoaded() {
+        synchronized (this) {
+            if (mLoadStarted) {
+                return;
+            }
+            mLoadStarted = true;
+        }
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!mFile.exists()) {
+                    return;
+                }
+                try {
+                    load();
+                } catch (IOException e) {
+                    Log.w(TAG, "Could not load the suggestion index, starting afresh", e);
+                    synchronized (SuggestionIndex.this) {
+                        mSuggestions.clear();
+                        mWords.clear();
+                    }
+                    if (!mFile.delete()) {
+                        Log.e(TAG, "Could not delete " + mFile);
+                    }
+                }
+            }
+        });
+    }
+
+    private void load() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(mFile)));
+        try {
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new IOException("unsupported format");
+            }
+            int count = in.readInt();
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < count; i++) {
+                Suggestion suggestion = new Suggestion(in.readUTF());
+                suggestion.primaryText = emptyToNull(in.readUTF());
+                suggestion.secondaryText = emptyToNull(in.readUTF());
+                suggestion.fullText = emptyToNull(in.readUTF());
+                if (suggestion.fullText == null) {
+                    suggestion.fullText = joinTexts(suggestion.primaryText, suggestion.secondaryText);
+                }
+                int typeCount = in.readByte() & 0xff;
+                List<Integer> types = new ArrayList<Integer>(typeCount);
+                for (int j = 0; j < typeCount; j++) {
+                    types.add((int)in.readShort());
+                }
+                suggestion.types = types;
+                suggestion.filterKey = in.readUTF();
+                suggestion.score = in.readFloat();
+                suggestion.updatedAt = in.readLong();
+                synchronized (this) {
+                    // suggestions learned in the meantime are more recent
+                    if (!mSuggestions.containsKey(suggestion.placeId)) {
+                        index(suggestion, now);
+                    }
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void save() {
+        List<Suggestion> suggestions;
+        synchronized (this) {
+            suggestions = new ArrayList<Suggestion>(mSuggestions.values());
+        }
+        File tmpFile = new File(mFile.getPath() + ".tmp");
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+            try {
+                out.writeByte(FORMAT_VERSION);
+                out.writeInt(suggestions.size());
+                for (Suggestion suggestion : suggestions) {
+                    out.writeUTF(suggestion.placeId);
+                    out.writeUTF(nullToEmpty(suggestion.primaryText));
+                    out.writeUTF(nullToEmpty(suggestion.secondaryText));
+                    boolean joined = suggestion.fullText != null
+                            && suggestion.fullText.equals(joinTexts(suggestion.primaryText, suggestion.secondaryText));
+                    out.writeUTF(joined ? "" : nullToEmpty(suggestion.fullText));
+                    int typeCount = suggestion.types != null ? Math.min(suggestion.types.size(), 255) : 0;
+                    out.writeByte(typeCount);
+                    for (int i = 0; i < typeCount; i++) {
+                        out.writeShort(suggestion.types.get(i));
+                    }
+                    out.writeUTF(suggestion.filterKey);
+                    out.writeFloat((float)suggestion.score);
+                    out.writeLong(suggestion.updatedAt);
+                }
+            } finally {
+                out.close();
+            }
+            if (!tmpFile.renameTo(mFile)) {
+                throw new IOException("could not replace " + mFile);
+            }
+            mUnsavedChanges = 0;
+        } catch (IOException e) {
+            Log.w(TAG, "Could not save the suggestion index", e);
+        }
+    }
+
+    private void changed(int changes) {
+        mUnsavedChanges += changes;
+        if (mUnsavedChanges >= SAVE_INTERVAL) {
+            save();
+        }
+    }
+
+    // called with the lock held
+    private void index(Suggestion suggestion, long now) {
+        if (!mSuggestions.containsKey(suggestion.placeId) && mSuggestions.size() >= mMaxEntries) {
+            Suggestion weakest = null;
+            double weakestScore = Double.MAX_VALUE;
+            for (Suggestion candidate : mSuggestions.values()) {
+                double score = candidate.scoreAt(now);
+                if (score < weakestScore) {
+                    weakest = candidate;
+                    weakestScore = score;
+                }
+            }
+            unindex(weakest);
+        }
+
+        suggestion.words = wordsOf(suggestion.fullText != null ? suggestion.fullText : suggestion.primaryText);
+        mSuggestions.put(suggestion.placeId, suggestion);
+        for (String word : suggestion.words) {
+            List<Suggestion> suggestions = mWords.get(word);
+            if (suggestions == null) {
+                suggestions = new ArrayList<Suggestion>(1);
+                mWords.put(word, suggestions);
+            }
+            if (!suggestions.contains(suggestion)) {
+                suggestions.add(suggestion);
+            }
+        }
+    }
+
+    // called with the lock held
+    private void unindex(Suggestion suggestion) {
+        mSuggestions.remove(suggestion.placeId);
+        for (String word : suggestion.words) {
+            List<Suggestion> suggestions = mWords.get(word);
+            if (suggestions != null) {
+                suggestions.remove(suggestion);
+                if (suggestions.isEmpty()) {
+                    mWords.remove(word);
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether every query word is the prefix of one of the words.
+     */
+    private static boolean matches(String[] words, String[] queryWords) {
+        for (String queryWord : queryWords) {
+            boolean found = false;
+            for (String word : words) {
+                if (word.startsWith(queryWord)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The words of a text, in lower case and without accents.
+     */
+    static String[] wordsOf(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        List<String> words = new ArrayList<String>();
+        for (String word : WORD_SEPARATORS.split(normalized)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words.toArray(new String[words.size()]);
+    }
+
+    private static String joinTexts(String primaryText, String secondaryText) {
+        if (secondaryText == null) {
+            return primaryText;
+        }
+        return primaryText + ", " + secondaryText;
+    }
+
+    private static String toString(CharSequence text) {
+        return text != null ? text.toString() : null;
+    }
+
+    private static String nullToEmpty(String text) {
+        return text != null ? text : "";
+    }
+
+    private static String emptyToNull(String text) {
+        return text.isEmpty() ? null : text;
+    }
+}
@@ -0,0 +1,94 @@
+package plugin.google.places;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.apache.cordova.CallbackContext;
+
+/**
+ * Debounces the autocomplete queries typed in a single search box.
+ *
+ * A query is only sent once the debounce window has elapsed without a newer one, and
+ * a newer query supersedes the previous one: if it was not sent yet it is dropped, otherwise
+ * its backend request is canceled. Either way its callback fails with the "superseded" code,
+ * so only the latest predictions are ever encoded and sent to JS.
+ *
+ * The session state is only touched from the main looper, where Play Services results
+ * are delivered too.
+ */
+class TypeaheadSession {
+    interface QueryRunner {
+        PlacesBackend.Request run(AutocompleteRequest request, CallbackContext callbackContext);
+    }
+
+    final int id;
+    private final long mDebounceMillis;
+    private final QueryRunner mRunner;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private Runnable mScheduledQuery;
+    private CallbackContext mScheduledCallbackContext;
+    private PlacesBackend.Request mInFlightQuery;
+    private CallbackContext mInFlightCallbackContext;
+
+    TypeaheadSession(int id, long debounceMillis, QueryRunner runner) {
+        this.id = id;
+        mDebounceMillis = debounceMillis;
+        mRunner = runner;
+    }
+
+    void submit(final AutocompleteRequest request, final CallbackContext callbackContext) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                abandonPendingQueries(CordovaGooglePlaces.ERROR_SUPERSEDED, "query superseded by a newer one");
+
+                mScheduledCallbackContext = callbackContext;
+                mScheduledQuery = new Runnable() {
+                    @Override
+                    public void run() {
+                        mScheduledQuery = null;
+                        mScheduledCallbackContext = null;
+                        mInFlightCallbackContext = callbackContext;
+                        mInFlightQuery = mRunner.run(request, callbackContext);
+                    }
+                };
+                mHandler.postDelayed(mScheduledQuery, mDebounceMillis);
+            }
+        });
+    }
+
+    void close() {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                abandonPendingQueries(CordovaGooglePlaces.ERROR_CANCELED, "typeahead session closed");
+            }
+        });
+    }
+
+    private void abandonPendingQueries(String code, String message) {
+        if (mScheduledQuery != null) {
+            mHandler.removeCallbacks(mScheduledQuery);
+            fail(mScheduledCallbackContext, code, message);
+            mScheduledQuery = null;
+            mScheduledCallbackContext = null;
+        }
+        if (mInFlightCallbackContext != null) {
+            // the query may also be waiting for the client to connect, without a request yet
+            if (mInFlightQuery != null) {
+                mInFlightQuery.cancel();
+            }
+            fail(mInFlightCallbackContext, code, message);
+            mInFlightQuery = null;
+            mInFlightCallbackContext = null;
+        }
+    }
+
+    private static void fail(CallbackContext callbackContext, String code, String message) {
+        // the query may have completed already
+        if (!callbackContext.isFinished()) {
+            callbackContext.error(CordovaGooglePlaces.encodeError(code, message));
+        }
+    }
+}
@@ -1 +1,679 @@
-"use strict";function getRawTag(e){var o=hasOwnProperty.call(e,symToStringTag$1),t=e[symToStringTag$1];try{e[symToStringTag$1]=void 0;var n=!0}catch(e){}var r=nativeObjectToString.call(e);return n&&(o?e[symToStringTag$1]=t:delete e[symToStringTag$1]),r}function objectToString(e){return nativeObjectToString$1.call(e)}function baseGetTag(e){return null==e?void 0===e?undefinedTag:nullTag:symToStringTag&&symToStringTag in Object(e)?_getRawTag(e):_objectToString(e)}function isObject(e){var o=typeof e;return null!=e&&("object"==o||"function"==o)}function isFunction(e){if(!isObject_1(e))return!1;var o=_baseGetTag(e);return o==funcTag||o==genTag||o==asyncTag||o==proxyTag}function _classCallCheck(e,o){if(!(e instanceof o))throw new TypeError("Cannot call a class as a function")}var commonjsGlobal="undefined"!=typeof window?window:"undefined"!=typeof global?global:"undefined"!=typeof self?self:{},freeGlobal="object"==typeof commonjsGlobal&&commonjsGlobal&&commonjsGlobal.Object===Object&&commonjsGlobal,_freeGlobal=freeGlobal,freeSelf="object"==typeof self&&self&&self.Object===Object&&self,root=_freeGlobal||freeSelf||Function("return this")(),_root=root,Symbol$1=_root.Symbol,_Symbol=Symbol$1,objectProto=Object.prototype,hasOwnProperty=objectProto.hasOwnProperty,nativeObjectToString=objectProto.toString,symToStringTag$1=_Symbol?_Symbol.toStringTag:void 0,_getRawTag=getRawTag,objectProto$1=Object.prototype,nativeObjectToString$1=objectProto$1.toString,_objectToString=objectToString,nullTag="[object Null]",undefinedTag="[object Undefined]",symToStringTag=_Symbol?_Symbol.toStringTag:void 0,_baseGetTag=baseGetTag,isObject_1=isObject,asyncTag="[object AsyncFunction]",funcTag="[object Function]",genTag="[object GeneratorFunction]",proxyTag="[object Proxy]",isFunction_1=isFunction,_createClass=function(){function e(e,o){for(var t=0;t<o.length;t++){var n=o[t];n.enumerable=n.enumerable||!1,n.configurable=!0,"value"in n&&(n.writable=!0),Object.defineProperty(e,n.key,n)}}return function(o,t,n){return t&&e(o.prototype,t),n&&e(o,n),o}}(),GooglePlaces=function(){function e(){_classCallCheck(this,e)}return _createClass(e,[{key:"currentPlace",value:function(e,o){cordova.exec(e,function(e){return o(new Error(e))},"GooglePlaces","currentPlace",[])}},{key:"autocompleteQuery",value:function(){for(var e=[],o=[],t=arguments.length,n=Array(t),r=0;r<t;r++)n[r]=arguments[r];var a=!0,c=!1,l=void 0;try{for(var i,u=n[Symbol.iterator]();!(a=(i=u.next()).done);a=!0){var s=i.value;isFunction_1(s)?o.push(s):e.push(s)}}catch(e){c=!0,l=e}finally{try{!a&&u.return&&u.return()}finally{if(c)throw l}}var g=function(){},f=function(){};o.length>0&&(g=o[0],o.length>1&&(f=function(e){return o[1](new Error(e))})),e.length>3||o.length>2?f(new Error("GooglePlaces: wrong arguments for autocompleteQuery(query, bounds, filter, success, failure)")):cordova.exec(g,f,"GooglePlaces","autocompleteQuery",e)}},{key:"pickPlace",value:function(){for(var e=[],o=[],t=arguments.length,n=Array(t),r=0;r<t;r++)n[r]=arguments[r];var a=!0,c=!1,l=void 0;try{for(var i,u=n[Symbol.iterator]();!(a=(i=u.next()).done);a=!0){var s=i.value;isFunction_1(s)?o.push(s):e.push(s)}}catch(e){c=!0,l=e}finally{try{!a&&u.return&&u.return()}finally{if(c)throw l}}var g=function(){},f=function(){};o.length>0&&(g=o[0],o.length>1&&(f=function(e){return o[1](new Error(e))})),e.length>1||o.length>2?f(new Error("GooglePlaces: wrong arguments for pickPlace(bounds, success, failure)")):cordova.exec(g,f,"GooglePlaces","pickPlace",[])}},{key:"showPlaceAutocomplete",value:function(e,o){cordova.exec(e,function(e){return o(new Error(e))},"GooglePlaces","showPlaceAutocomplete",[])}}]),e}(),AutocompleteFilterTypes={NoFilter:"no_filter",Geocode:"geocode",Address:"address",Establishment:"establishment",Region:"region",City:"city"};module.exports=new GooglePlaces,module.exports.AutocompleteFilterTypes=AutocompleteFilterTypes;
+"use strict";
+
+function isFunction(value) {
+  return typeof value === "function";
+}
+
+function noop() {}
+
+// Errors are sent by the native side either as plain messages, or as
+// `{ code, message }` objects: the code is kept on the `Error` object.
+var toError = function toError(err) {
+  if (err && typeof err === "object") {
+    var error = new Error(err.message);
+    error.code = err.code;
+    return error;
+  }
+  return new Error(err);
+};
+
+var failWith = function failWith(failure) {
+  return function(err) {
+    return failure(toError(err));
+  };
+};
+
+var PRICE_LEVELS = ["free", "cheap", "medium", "high", "expensive"];
+var RESULT_KIND_PREDICTIONS = 1;
+var RESULT_KIND_LIKELIHOODS = 2;
+
+var now = function now() {
+  return typeof performance !== "undefined" ? performance.now() : Date.now();
+};
+
+// time spent decoding binary results, reported by `getTransportStats`
+var binaryDecoding = { results: 0, time: 0 };
+
+function BinaryReader(buffer) {
+  this.view = new DataView(buffer);
+  this.bytes = new Uint8Array(buffer);
+  this.pos = 0;
+}
+
+BinaryReader.prototype.byte = function() {
+  return this.bytes[this.pos++];
+};
+
+BinaryReader.prototype.varint = function() {
+  var result = 0;
+  var scale = 1;
+  var b;
+  do {
+    b = this.bytes[this.pos++];
+    result += (b & 0x7f) * scale;
+    scale *= 128;
+  } while (b & 0x80);
+  return result;
+};
+
+BinaryReader.prototype.float64 = function() {
+  var value = this.view.getFloat64(this.pos);
+  this.pos += 8;
+  return value;
+};
+
+// strings are prefixed by their length plus one, 0 standing for a missing string
+BinaryReader.prototype.string = function() {
+  var length = this.varint();
+  if (length === 0) {
+    return undefined;
+  }
+  var bytes = this.bytes;
+  var end = this.pos + length - 1;
+  var result = "";
+  while (this.pos < end) {
+    var b = bytes[this.pos++];
+    if (b < 0x80) {
+      result += String.fromCharCode(b);
+    } else if (b < 0xe0) {
+      result += String.fromCharCode(((b & 0x1f) << 6) | (bytes[this.pos++] & 0x3f));
+    } else if (b < 0xf0) {
+      result += String.fromCharCode(
+        ((b & 0x0f) << 12) | ((bytes[this.pos++] & 0x3f) << 6) | (bytes[this.pos++] & 0x3f)
+      );
+    } else {
+      var codePoint =
+        ((b & 0x07) << 18) |
+        ((bytes[this.pos++] & 0x3f) << 12) |
+        ((bytes[this.pos++] & 0x3f) << 6) |
+        (bytes[this.pos++] & 0x3f);
+      result += String.fromCharCode(
+        0xd800 + ((codePoint - 0x10000) >> 10),
+        0xdc00 + ((codePoint - 0x10000) & 0x3ff)
+      );
+    }
+  }
+  return result;
+};
+
+BinaryReader.prototype.types = function(table) {
+  var count = this.varint();
+  if (count === 0) {
+    return undefined;
+  }
+  var types = new Array(count - 1);
+  for (var i = 0; i < types.length; i++) {
+    types[i] = table[this.varint()];
+  }
+  return types;
+};
+
+BinaryReader.prototype.coordinate = function() {
+  return { latitude: this.float64(), longitude: this.float64() };
+};
+
+BinaryReader.prototype.column = function(count, read) {
+  var values = new Array(count);
+  for (var i = 0; i < count; i++) {
+    values[i] = read();
+  }
+  return values;
+};
+
+// missing fields are left out, as in the JSON results
+var setField = function setField(obj, key, value) {
+  if (value !== undefined) {
+    obj[key] = value;
+  }
+};
+
+var setFields = function setFields(obj, columns, i) {
+  for (var c = 0; c < columns.length; c++) {
+    setField(obj, columns[c][0], columns[c][1][i]);
+  }
+  return obj;
+};
+
+var decodeBinaryResult = function decodeBinaryResult(buffer) {
+  var reader = new BinaryReader(buffer);
+  if (reader.byte() !== 0x47 || reader.byte() !== 0x50 || reader.byte() !== 1) {
+    throw new Error("GooglePlaces: unsupported binary result");
+  }
+  var kind = reader.byte();
+  var count = reader.varint();
+  var table = reader.column(reader.varint(), function() {
+    return reader.string();
+  });
+
+  var string = function string() {
+    return reader.string();
+  };
+  var types = function types() {
+    return reader.types(table);
+  };
+  var results = new Array(count);
+  var columns;
+  var i;
+
+  if (kind === RESULT_KIND_PREDICTIONS) {
+    columns = [
+      ["fullText", reader.column(count, string)],
+      ["primaryText", reader.column(count, string)],
+      ["secondaryText", reader.column(count, string)],
+      ["placeID", reader.column(count, string)],
+      ["types", reader.column(count, types)],
+    ];
+    for (i = 0; i < count; i++) {
+      results[i] = setFields({}, columns, i);
+    }
+  } else if (kind === RESULT_KIND_LIKELIHOODS) {
+    var likelihoods = reader.column(count, function() {
+      return reader.float64();
+    });
+    columns = [
+      ["name", reader.column(count, string)],
+      ["placeID", reader.column(count, string)],
+      ["phoneNumber", reader.column(count, string)],
+      ["formattedAddress", reader.column(count, string)],
+      [
+        "rating",
+        reader.column(count, function() {
+          var rating = reader.float64();
+          return isNaN(rating) ? undefined : rating;
+        }),
+      ],
+      ["types", reader.column(count, types)],
+      [
+        "priceLevel",
+        reader.column(count, function() {
+          return PRICE_LEVELS[reader.byte()];
+        }),
+      ],
+      [
+        "coordinate",
+        reader.column(count, function() {
+          return reader.byte() ? reader.coordinate() : undefined;
+        }),
+      ],
+      ["website", reader.column(count, string)],
+      [
+        "viewport",
+        reader.column(count, function() {
+          return reader.byte()
+            ? { northEast: reader.coordinate(), southWest: reader.coordinate() }
+            : undefined;
+        }),
+      ],
+      ["attributions", reader.column(count, string)],
+    ];
+    for (i = 0; i < count; i++) {
+      results[i] = { likelihood: likelihoods[i], place: setFields({}, columns, i) };
+    }
+  } else {
+    throw new Error("GooglePlaces: unsupported binary result");
+  }
+  return results;
+};
+
+// Wraps a success callback to decode binary results
+var decodeResults = function decodeResults(success) {
+  return function(result) {
+    if (!(result instanceof ArrayBuffer)) {
+      success(result);
+      return;
+    }
+    var start = now();
+    var decoded = decodeBinaryResult(result);
+    binaryDecoding.results++;
+    binaryDecoding.time += now() - start;
+    success(decoded);
+  };
+};
+
+// Passes on the local suggestions sent as `{ local: [ predictions ] }` right away, and
+// then the predictions of the Places API merged with them, without the duplicates
+var mergeLocalSuggestions = function mergeLocalSuggestions(success, limit) {
+  var local = [];
+  return function(result) {
+    if (result && !Array.isArray(result) && Array.isArray(result.local)) {
+      local = result.local;
+      success(local, { local: true });
+      return;
+    }
+    // without their IDs (see the `fields` option), predictions cannot be told apart
+    var localIDs = new Set(
+      local.map(function(prediction) {
+        return prediction.placeID;
+      })
+    );
+    var merged = local.concat(
+      result.filter(function(prediction) {
+        return prediction.placeID === undefined || !localIDs.has(prediction.placeID);
+      })
+    );
+    success(limit ? merged.slice(0, limit) : merged, { local: false });
+  };
+};
+
+// The `limit` of the options of the autocomplete query found at position `offset` in
+// `params`: the options follow either a search context handle, or the bounds and filter
+var limitOf = function limitOf(params, offset) {
+  var options = params[typeof params[offset + 1] === "number" ? offset + 2 : offset + 3];
+  return options && options.limit;
+};
+
+var ROUND_TRIP_SAMPLES = 256;
+var roundTrips = {};
+
+var recordRoundTrip = function recordRoundTrip(action, time) {
+  var samples = roundTrips[action];
+  if (!samples) {
+    samples = roundTrips[action] = { values: new Float64Array(ROUND_TRIP_SAMPLES), count: 0 };
+  }
+  samples.values[samples.count++ % ROUND_TRIP_SAMPLES] = time;
+};
+
+var encodeRoundTrips = function encodeRoundTrips(samples) {
+  var values = Array.from(
+    samples.values.subarray(0, Math.min(samples.count, ROUND_TRIP_SAMPLES))
+  ).sort(function(a, b) {
+    return a - b;
+  });
+  var percentile = function percentile(p) {
+    return values[Math.max(0, Math.ceil((p / 100) * values.length) - 1)];
+  };
+  return {
+    count: values.length,
+    p50: percentile(50),
+    p90: percentile(90),
+    p99: percentile(99),
+    max: values[values.length - 1],
+  };
+};
+
+// Same as `cordova.exec`, recording the round trip of the call
+var exec = function exec(success, failure, service, action, args) {
+  var start = now();
+  var recorded = false;
+  var record = function record() {
+    if (!recorded) {
+      recorded = true;
+      recordRoundTrip(action, now() - start);
+    }
+  };
+  cordova.exec(
+    function(result) {
+      record();
+      success(result);
+    },
+    function(err) {
+      record();
+      failure(err);
+    },
+    service,
+    action,
+    args
+  );
+};
+
+// identifiers of the `watchCurrentPlace` watches
+var nextWatchID = 1;
+
+// identifiers of the `autocompleteBatch` batches
+var nextBatchID = 1;
+
+// identifiers of the `currentPlace` and `autocompleteQuery` requests, only sent to the
+// Android side: the iOS one neither takes nor cancels them
+var nextRequestID = 1;
+
+var newRequestID = function newRequestID() {
+  return cordova.platformId === "android" ? String(nextRequestID++) : undefined;
+};
+
+var withRequestID = function withRequestID(requestID, args) {
+  return requestID !== undefined ? [requestID].concat(args) : args;
+};
+
+var toArray = function toArray(args) {
+  return Array.prototype.slice.call(args);
+};
+
+var orNoop = function orNoop(callback) {
+  return callback === undefined ? noop : callback;
+};
+
+// Splits the arguments of the methods taking a variable number of parameters, followed
+// by their `success` and `failure` callbacks
+var splitArguments = function splitArguments(params, args) {
+  var callbacks = [];
+  for (var i = 0; i < args.length; i++) {
+    if (isFunction(args[i])) {
+      callbacks.push(args[i]);
+    } else {
+      params.push(args[i]);
+    }
+  }
+  return callbacks;
+};
+
+function GooglePlaces() {
+  if (!(this instanceof GooglePlaces)) {
+    throw new TypeError("Cannot call a class as a function");
+  }
+}
+
+GooglePlaces.prototype.currentPlace = function() {
+  var args = toArray(arguments);
+  var options = isFunction(args[0]) ? null : args.shift();
+  var success = orNoop(args[0]);
+  var failure = orNoop(args[1]);
+
+  var requestID = newRequestID();
+  exec(
+    decodeResults(success),
+    failWith(failure),
+    "GooglePlaces",
+    "currentPlace",
+    withRequestID(requestID, options ? [options] : [])
+  );
+  return requestID;
+};
+
+GooglePlaces.prototype.watchCurrentPlace = function() {
+  var args = toArray(arguments);
+  var options = isFunction(args[0]) ? {} : args.shift();
+  var success = orNoop(args[0]);
+  var failure = orNoop(args[1]);
+
+  var watchID = String(nextWatchID++);
+  exec(success, failWith(failure), "GooglePlaces", "watchCurrentPlace", [watchID, options || {}]);
+  return watchID;
+};
+
+GooglePlaces.prototype.clearWatch = function(watchID, success, failure) {
+  exec(orNoop(success), failWith(orNoop(failure)), "GooglePlaces", "clearWatch", [watchID]);
+};
+
+GooglePlaces.prototype.autocompleteQuery = function() {
+  var params = [];
+  var callbacks = splitArguments(params, arguments);
+
+  var success = noop;
+  var failure = noop;
+  if (callbacks.length > 0) {
+    success = callbacks[0];
+    if (callbacks.length > 1) {
+      failure = failWith(callbacks[1]);
+    }
+  }
+
+  if (params.length > 4 || callbacks.length > 2) {
+    var err = new Error(
+      "GooglePlaces: wrong arguments for autocompleteQuery(query, bounds, filter, options, success, failure)"
+    );
+    failure(err);
+    return;
+  }
+
+  var requestID = newRequestID();
+  exec(
+    decodeResults(mergeLocalSuggestions(success, limitOf(params, 0))),
+    failure,
+    "GooglePlaces",
+    "autocompleteQuery",
+    withRequestID(requestID, params)
+  );
+  return requestID;
+};
+
+GooglePlaces.prototype.cancel = function(requestID, success, failure) {
+  failure = orNoop(failure);
+  if (cordova.platformId !== "android") {
+    failure(new Error("GooglePlaces: cancel is only available on Android"));
+    return;
+  }
+  exec(orNoop(success), failWith(failure), "GooglePlaces", "cancel", [requestID]);
+};
+
+GooglePlaces.prototype.autocompleteBatch = function(queries) {
+  var args = toArray(arguments).slice(1);
+  var options = isFunction(args[0]) ? {} : args.shift();
+  var progress = orNoop(args[0]);
+  var failure = orNoop(args[1]);
+
+  var batchID = String(nextBatchID++);
+  exec(progress, failWith(failure), "GooglePlaces", "autocompleteBatch", [
+    batchID,
+    queries,
+    options || {},
+  ]);
+  return batchID;
+};
+
+GooglePlaces.prototype.cancelBatch = function(batchID, success, failure) {
+  exec(orNoop(success), failWith(orNoop(failure)), "GooglePlaces", "cancelBatch", [batchID]);
+};
+
+GooglePlaces.prototype.pickPlace = function() {
+  var params = [];
+  var callbacks = splitArguments(params, arguments);
+
+  var success = noop;
+  var failure = noop;
+  if (callbacks.length > 0) {
+    success = callbacks[0];
+    if (callbacks.length > 1) {
+      failure = function(err) {
+        return callbacks[1](new Error(err));
+      };
+    }
+  }
+
+  if (params.length > 2 || callbacks.length > 2) {
+    var err = new Error(
+      "GooglePlaces: wrong arguments for pickPlace(bounds, options, success, failure)"
+    );
+    failure(err);
+    return;
+  }
+
+  exec(success, failure, "GooglePlaces", "pickPlace", params);
+};
+
+GooglePlaces.prototype.lookUpPlaces = function(placeIDs, success, failure) {
+  exec(success, failWith(orNoop(failure)), "GooglePlaces", "lookUpPlaces", [placeIDs]);
+};
+
+GooglePlaces.prototype.getCachedPlace = function(placeID, success, failure) {
+  exec(success, failWith(orNoop(failure)), "GooglePlaces", "getCachedPlace", [placeID]);
+};
+
+GooglePlaces.prototype.getPlacePhotos = function(placeID) {
+  var args = toArray(arguments).slice(1);
+  var options = isFunction(args[0]) ? {} : args.shift();
+  var success = orNoop(args[0]);
+  var failure = orNoop(args[1]);
+
+  exec(success, failWith(failure), "GooglePlaces", "getPlacePhotos", [placeID, options || {}]);
+};
+
+GooglePlaces.prototype.placesInBounds = function(bounds) {
+  var args = toArray(arguments).slice(1);
+  var types = isFunction(args[0]) ? null : args.shift();
+  var success = args[0];
+  var failure = orNoop(args[1]);
+  exec(success, failWith(failure), "GooglePlaces", "placesInBounds", [bounds, types]);
+};
+
+GooglePlaces.prototype.nearestPlaces = function(coordinate, count, success, failure) {
+  exec(success, failWith(orNoop(failure)), "GooglePlaces", "nearestPlaces", [coordinate, count]);
+};
+
+GooglePlaces.prototype.openTypeaheadSession = function() {
+  var args = toArray(arguments);
+  var options = isFunction(args[0]) ? {} : args.shift();
+  var success = orNoop(args[0]);
+  var failure = orNoop(args[1]);
+
+  exec(success, failWith(failure), "GooglePlaces", "openTypeaheadSession", [options || {}]);
+};
+
+GooglePlaces.prototype.typeaheadQuery = function(session) {
+  var params = [session];
+  var callbacks = splitArguments(params, toArray(arguments).slice(1));
+
+  var success = noop;
+  var failure = noop;
+  if (callbacks.length > 0) {
+    success = callbacks[0];
+    if (callbacks.length > 1) {
+      failure = failWith(callbacks[1]);
+    }
+  }
+
+  if (params.length > 5 || callbacks.length > 2) {
+    var err = new Error(
+      "GooglePlaces: wrong arguments for typeaheadQuery(session, query, bounds, filter, options, success, failure)"
+    );
+    failure(err);
+    return;
+  }
+
+  exec(
+    decodeResults(mergeLocalSuggestions(success, limitOf(params, 1))),
+    failure,
+    "GooglePlaces",
+    "typeaheadQuery",
+    params
+  );
+};
+
+GooglePlaces.prototype.closeTypeaheadSession = function(session, success, failure) {
+  exec(orNoop(success), failWith(orNoop(failure)), "GooglePlaces", "closeTypeaheadSession", [
+    session,
+  ]);
+};
+
+GooglePlaces.prototype.registerSearchContext = function(context, success, failure) {
+  exec(success, failWith(orNoop(failure)), "GooglePlaces", "registerSearchContext", [
+    context || {},
+  ]);
+};
+
+GooglePlaces.prototype.releaseSearchContext = function(handle, success, failure) {
+  exec(orNoop(success), failWith(orNoop(failure)), "GooglePlaces", "releaseSearchContext", [
+    handle,
+  ]);
+};
+
+GooglePlaces.prototype.setPrefetchCount = function(count, success, failure) {
+  exec(orNoop(success), failWith(orNoop(failure)), "GooglePlaces", "setPrefetchCount", [count]);
+};
+
+GooglePlaces.prototype.setResultFormat = function(format, success, failure) {
+  exec(orNoop(success), failWith(orNoop(failure)), "GooglePlaces", "setResultFormat", [format]);
+};
+
+GooglePlaces.prototype.getTransportStats = function(success, failure) {
+  exec(
+    function(stats) {
+      stats.binary.decodedResults = binaryDecoding.results;
+      stats.binary.decodeTime = binaryDecoding.time;
+      success(stats);
+    },
+    failWith(orNoop(failure)),
+    "GooglePlaces",
+    "getTransportStats",
+    []
+  );
+};
+
+GooglePlaces.prototype.getConnectionStats = function(success, failure) {
+  exec(success, failWith(orNoop(failure)), "GooglePlaces", "getConnectionStats", []);
+};
+
+GooglePlaces.prototype.getStats = function(success, failure) {
+  cordova.exec(
+    function(stats) {
+      var actions = Object.keys(stats.actions);
+      for (var i = 0; i < actions.length; i++) {
+        if (roundTrips[actions[i]]) {
+          stats.actions[actions[i]].roundTrip = encodeRoundTrips(roundTrips[actions[i]]);
+        }
+      }
+      success(stats);
+    },
+    failWith(orNoop(failure)),
+    "GooglePlaces",
+    "getStats",
+    []
+  );
+};
+
+GooglePlaces.prototype.getMemoryStats = function(success, failure) {
+  cordova.exec(success, failWith(orNoop(failure)), "GooglePlaces", "getMemoryStats", []);
+};
+
+GooglePlaces.prototype.resetStats = function(success, failure) {
+  roundTrips = {};
+  cordova.exec(orNoop(success), failWith(orNoop(failure)), "GooglePlaces", "resetStats", []);
+};
+
+GooglePlaces.prototype.clearCache = function(success, failure) {
+  failure = orNoop(failure);
+  exec(
+    orNoop(success),
+    function(err) {
+      return failure(new Error(err));
+    },
+    "GooglePlaces",
+    "clearCache",
+    []
+  );
+};
+
+GooglePlaces.prototype.showPlaceAutocomplete = function() {
+  var args = toArray(arguments);
+  var options = isFunction(args[0]) ? null : args.shift();
+  var success = orNoop(args[0]);
+  var failure = orNoop(args[1]);
+
+  exec(
+    success,
+    function(err) {
+      return failure(new Error(err));
+    },
+    "GooglePlaces",
+    "showPlaceAutocomplete",
+    options ? [options] : []
+  );
+};
+
+var AutocompleteFilterTypes = {
+  NoFilter: "no_filter",
+  Geocode: "geocode",
+  Address: "address",
+  Establishment: "establishment",
+  Region: "region",
+  City: "city",
+};
+
+var ResultFormats = {
+  JSON: "json",
+  Binary: "binary",
+};
+
+var ErrorCodes = {
+  Superseded: "superseded",
+  Canceled: "canceled",
+  Overloaded: "overloaded",
+  Unavailable: "unavailable",
+  Throttled: "throttled",
+  QuotaExceeded: "quota_exceeded",
+  Timeout: "timeout",
+};
+
+module.exports = new GooglePlaces();
+module.exports.AutocompleteFilterTypes = AutocompleteFilterTypes;
+module.exports.ResultFormats = ResultFormats;
+module.exports.ErrorCodes = ErrorCodes;
@@ -1,5 +1,327 @@
 import isFunction from "lodash/isFunction";
 
+// Errors are sent by the native side either as plain messages, or as
+// `{ code, message }` objects: the code is kept on the `Error` object.
+const toError = err => {
+  if (err && typeof err === "object") {
+    const error = new Error(err.message);
+    error.code = err.code;
+    return error;
+  }
+  return new Error(err);
+};
+
+// ## Binary results
+//
+// When the binary result format is enabled (see `setResultFormat`), the native side
+// sends lists of results as array buffers, laid out by columns: see
+// `src/android/BinaryResultEncoder.java` for the format.
+//
+// They are decoded into the very same objects as the JSON results.
+const PRICE_LEVELS = ["free", "cheap", "medium", "high", "expensive"];
+const RESULT_KIND_PREDICTIONS = 1;
+const RESULT_KIND_LIKELIHOODS = 2;
+
+const now = () =>
+  typeof performance !== "undefined" ? performance.now() : Date.now();
+
+// time spent decoding binary results, reported by `getTransportStats`
+const binaryDecoding = { results: 0, time: 0 };
+
+class BinaryReader {
+  constructor(buffer) {
+    this.view = new DataView(buffer);
+    this.bytes = new Uint8Array(buffer);
+    this.pos = 0;
+  }
+
+  byte() {
+    return this.bytes[this.pos++];
+  }
+
+  varint() {
+    let result = 0;
+    let scale = 1;
+    let b;
+    do {
+      b = this.bytes[this.pos++];
+      result += (b & 0x7f) * scale;
+      scale *= 128;
+    } while (b & 0x80);
+    return result;
+  }
+
+  float64() {
+    const value = this.view.getFloat64(this.pos);
+    this.pos += 8;
+    return value;
+  }
+
+  // strings are prefixed by their length plus one, 0 standing for a missing string
+  string() {
+    const length = this.varint();
+    if (length === 0) {
+      return undefined;
+    }
+    const bytes = this.bytes;
+    const end = this.pos + length - 1;
+    let result = "";
+    while (this.pos < end) {
+      const b = bytes[this.pos++];
+      if (b < 0x80) {
+        result += String.fromCharCode(b);
+      } else if (b < 0xe0) {
+        result += String.fromCharCode(((b & 0x1f) << 6) | (bytes[this.pos++] & 0x3f));
+      } else if (b < 0xf0) {
+        result += String.fromCharCode(
+          ((b & 0x0f) << 12) |
+            ((bytes[this.pos++] & 0x3f) << 6) |
+            (bytes[this.pos++] & 0x3f),
+        );
+      } else {
+        const codePoint =
+          ((b & 0x07) << 18) |
+          ((bytes[this.pos++] & 0x3f) << 12) |
+          ((bytes[this.pos++] & 0x3f) << 6) |
+          (bytes[this.pos++] & 0x3f);
+        result += String.fromCharCode(
+          0xd800 + ((codePoint - 0x10000) >> 10),
+          0xdc00 + ((codePoint - 0x10000) & 0x3ff),
+        );
+      }
+    }
+    return result;
+  }
+
+  types(table) {
+    const count = this.varint();
+    if (count === 0) {
+      return undefined;
+    }
+    const types = new Array(count - 1);
+    for (let i = 0; i < types.length; i++) {
+      types[i] = table[this.varint()];
+    }
+    return types;
+  }
+
+  coordinate() {
+    return { latitude: this.float64(), longitude: this.float64() };
+  }
+
+  column(count, read) {
+    const values = new Array(count);
+    for (let i = 0; i < count; i++) {
+      values[i] = read();
+    }
+    return values;
+  }
+}
+
+// missing fields are left out, as in the JSON results
+const setField = (obj, key, value) => {
+  if (value !== undefined) {
+    obj[key] = value;
+  }
+};
+
+const decodeBinaryResult = buffer => {
+  const reader = new BinaryReader(buffer);
+  if (reader.byte() !== 0x47 || reader.byte() !== 0x50 || reader.byte() !== 1) {
+    throw new Error("GooglePlaces: unsupported binary result");
+  }
+  const kind = reader.byte();
+  const count = reader.varint();
+  const table = reader.column(reader.varint(), () => reader.string());
+
+  const string = () => reader.string();
+  const types = () => reader.types(table);
+  const results = new Array(count);
+
+  if (kind === RESULT_KIND_PREDICTIONS) {
+    const columns = [
+      ["fullText", reader.column(count, string)],
+      ["primaryText", reader.column(count, string)],
+      ["secondaryText", reader.column(count, string)],
+      ["placeID", reader.column(count, string)],
+      ["types", reader.column(count, types)],
+    ];
+    for (let i = 0; i < count; i++) {
+      const prediction = {};
+      for (let [key, values] of columns) {
+        setField(prediction, key, values[i]);
+      }
+      results[i] = prediction;
+    }
+  } else if (kind === RESULT_KIND_LIKELIHOODS) {
+    const likelihoods = reader.column(count, () => reader.float64());
+    const columns = [
+      ["name", reader.column(count, string)],
+      ["placeID", reader.column(count, string)],
+      ["phoneNumber", reader.column(count, string)],
+      ["formattedAddress", reader.column(count, string)],
+      [
+        "rating",
+        reader.column(count, () => {
+          const rating = reader.float64();
+          return isNaN(rating) ? undefined : rating;
+        }),
+      ],
+      ["types", reader.column(count, types)],
+      ["priceLevel", reader.column(count, () => PRICE_LEVELS[reader.byte()])],
+      [
+        "coordinate",
+        reader.column(
+          count,
+          () => (reader.byte() ? reader.coordinate() : undefined),
+        ),
+      ],
+      ["website", reader.column(count, string)],
+      [
+        "viewport",
+        reader.column(
+          count,
+          () =>
+            reader.byte()
+              ? { northEast: reader.coordinate(), southWest: reader.coordinate() }
+              : undefined,
+        ),
+      ],
+      ["attributions", reader.column(count, string)],
+    ];
+    for (let i = 0; i < count; i++) {
+      const place = {};
+      for (let [key, values] of columns) {
+        setField(place, key, values[i]);
+      }
+      results[i] = { likelihood: likelihoods[i], place };
+    }
+  } else {
+    throw new Error("GooglePlaces: unsupported binary result");
+  }
+  return results;
+};
+
+// Wraps a success callback to decode binary results
+const decodeResults = success => result => {
+  if (!(result instanceof ArrayBuffer)) {
+    success(result);
+    return;
+  }
+  const start = now();
+  const decoded = decodeBinaryResult(result);
+  binaryDecoding.results++;
+  binaryDecoding.time += now() - start;
+  success(decoded);
+};
+
+// ## Local suggestions
+//
+// On Android, autocomplete queries may first be answered with suggestions from the
+// on-device index, sent as `{ local: [ predictions ] }`: they are passed on right away,
+// and the predictions of the Places API are merged with them once they arrive, without
+// the duplicates (same `placeID`). The local suggestions come first, so that they
+// stay in place.
+//
+// The second argument of `success` tells both calls apart. The merged predictions are
+// cut down to the `limit` of the query options, if any.
+const mergeLocalSuggestions = (success, limit) => {
+  let local = [];
+  return result => {
+    if (result && !Array.isArray(result) && Array.isArray(result.local)) {
+      local = result.local;
+      success(local, { local: true });
+      return;
+    }
+    // without their IDs (see the `fields` option), predictions cannot be told apart
+    const localIDs = new Set(local.map(prediction => prediction.placeID));
+    const merged = local.concat(
+      result.filter(
+        prediction => prediction.placeID === undefined || !localIDs.has(prediction.placeID),
+      ),
+    );
+    success(limit ? merged.slice(0, limit) : merged, { local: false });
+  };
+};
+
+// The `limit` of the options of the autocomplete query found at position `offset` in
+// `params`: the options follow either a search context handle, or the bounds and filter
+const limitOf = (params, offset) => {
+  const options = params[typeof params[offset + 1] === "number" ? offset + 2 : offset + 3];
+  return options && options.limit;
+};
+
+// ## Round trips
+//
+// Time between each call and its first callback, as seen from JS, kept for the
+// latest `ROUND_TRIP_SAMPLES` calls of each action and reported by `getStats`
+// (compared with the native latency, it gives the time spent on the bridge).
+const ROUND_TRIP_SAMPLES = 256;
+let roundTrips = {};
+
+const recordRoundTrip = (action, time) => {
+  let samples = roundTrips[action];
+  if (!samples) {
+    samples = roundTrips[action] = { values: new Float64Array(ROUND_TRIP_SAMPLES), count: 0 };
+  }
+  samples.values[samples.count++ % ROUND_TRIP_SAMPLES] = time;
+};
+
+const encodeRoundTrips = samples => {
+  const values = Array.from(
+    samples.values.subarray(0, Math.min(samples.count, ROUND_TRIP_SAMPLES)),
+  ).sort((a, b) => a - b);
+  const percentile = p => values[Math.max(0, Math.ceil((p / 100) * values.length) - 1)];
+  return {
+    count: values.length,
+    p50: percentile(50),
+    p90: percentile(90),
+    p99: percentile(99),
+    max: values[values.length - 1],
+  };
+};
+
+// Same as `cordova.exec`, recording the round trip of the call
+const exec = (success, failure, service, action, args) => {
+  const start = now();
+  let recorded = false;
+  const record = () => {
+    if (!recorded) {
+      recorded = true;
+      recordRoundTrip(action, now() - start);
+    }
+  };
+  cordova.exec(
+    result => {
+      record();
+      success(result);
+    },
+    err => {
+      record();
+      failure(err);
+    },
+    service,
+    action,
+    args,
+  );
+};
+
+// identifiers of the `watchCurrentPlace` watches
+let nextWatchID = 1;
+
+// identifiers of the `autocompleteBatch` batches
+let nextBatchID = 1;
+
+// identifiers of the `currentPlace` and `autocompleteQuery` requests, only sent to the
+// Android side: the iOS one neither takes nor cancels them
+let nextRequestID = 1;
+
+const newRequestID = () =>
+  cordova.platformId === "android" ? String(nextRequestID++) : undefined;
+
+const withRequestID = (requestID, args) =>
+  requestID !== undefined ? [requestID, ...args] : args;
+
 //
 // # GooglePlaces
 //
@@ -8,7 +330,7 @@ import isFunction from "lodash/isFunction";
 class GooglePlaces {
   // ## currentPlace
   //
-  // `currentPlace`(`sucess`, `failure`)
+  // `currentPlace`(`[options]`, `sucess`, `failure`)
   //
   // Discover the place where the device is currently located.
   //
@@ -19,6 +341,19 @@ class GooglePlaces {
   //
   // ### Parameters
   //
+  // - `options`: (optional, Android only) the result options, an object with the following
+  //   fields, all optional:
+  //   - `fields`: the place fields to return, such as `["placeID", "name", "coordinate"]`
+  //     (all of them by default): the other fields are neither read nor sent.
+  //   - `limit`: the number of places to return, the most likely ones.
+  //   - `minLikelihood`: the likelihood below which places are left out.
+  //   - `types` and `excludedTypes`: place types (such as `"restaurant"`) to only return
+  //     the places with one of `types`, and none of `excludedTypes`.
+  //   - `timeoutMs`: the time after which the request fails with the
+  //     `GooglePlaces.ErrorCodes.Timeout` code, if still in progress.
+  //   - `maxAgeMs`: the age up to which the result of a previous call with the same
+  //     options is returned right away, if the device did not leave the area (of about
+  //     150 x 150 m) it was queried in, and its location did not become less accurate.
   // - `success` is called in case of success, it will contain "place likehood" objects
   //   with a `place` and `likehood` fields:
   //   ```javascript
@@ -32,19 +367,93 @@ class GooglePlaces {
   //   ```
   // - `failure` is called in case of an error, with an error objects
   //
-  currentPlace(success, failure) {
-    cordova.exec(
-      success,
-      err => failure(new Error(err)),
+  // On Android, returns a request identifier to be passed to `cancel` (`undefined` on iOS).
+  //
+  currentPlace(...args) {
+    let options = isFunction(args[0]) ? null : args.shift();
+    let [success = () => {}, failure = () => {}] = args;
+
+    const requestID = newRequestID();
+    exec(
+      decodeResults(success),
+      err => failure(toError(err)),
       "GooglePlaces",
       "currentPlace",
-      [],
+      withRequestID(requestID, options ? [options] : []),
+    );
+    return requestID;
+  }
+
+  // ## watchCurrentPlace
+  //
+  // `watchCurrentPlace`(`[options]`, `success`, `[failure]`)
+  //
+  // Watches the place where the device is currently located (Android only), and returns
+  // a watch identifier to be passed to `clearWatch`.
+  //
+  // The location of the device is checked every `interval`, and the current place is only
+  // queried again once the device moved by `distance` meters (or when its location is
+  // unknown). Only the changes are reported, and nothing is reported when nothing changed.
+  //
+  // As for `currentPlace`, geolocation must be enabled in the app. The location of the device
+  // is taken from the latest fix known to the system: watching the position with the
+  // [geolocation plugin](https://github.com/apache/cordova-plugin-geolocation) keeps it fresh.
+  //
+  // ### Parameters
+  //
+  // - `options`: (optional) an object with the following fields:
+  //   - `distance`: movement (in meters) after which the place is queried again, defaults to 50.
+  //     With 0, the place is queried on every check.
+  //   - `interval`: delay (in milliseconds) between two checks, defaults to 30000
+  //   - `threshold`: change of likelihood above which a place is reported as changed,
+  //     defaults to 0.1
+  // - `success` is called with the changes since the previous call (on the first call, all
+  //   the places have entered):
+  //   ```javascript
+  //   {
+  //     entered: [ { place: { ... }, likelihood: 0.87 } ], // new "place likehood" objects
+  //     changed: [ { placeID: "XXXXX", likelihood: 0.42 } ], // places whose likelihood changed
+  //     left: [ "YYYYY" ] // IDs of the places that are no longer likely
+  //   }
+  //   ```
+  // - `failure` is called in case of an error, with an error object. The watch goes on after
+  //   a failed query, but ends if it could not be started or if Google Play Services are
+  //   unavailable.
+  //
+  watchCurrentPlace(...args) {
+    let options = isFunction(args[0]) ? {} : args.shift();
+    let [success = () => {}, failure = () => {}] = args;
+
+    const watchID = String(nextWatchID++);
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "watchCurrentPlace",
+      [watchID, options || {}],
+    );
+    return watchID;
+  }
+
+  // ## clearWatch
+  //
+  // `clearWatch`(`watchID`, `[success]`, `[failure]`)
+  //
+  // Stops a watch started by `watchCurrentPlace`: its `success` callback is not called anymore.
+  //
+  clearWatch(watchID, success = () => {}, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "clearWatch",
+      [watchID],
     );
   }
 
   // ## autocompleteQuery
   //
-  // `autocompleteQuery`(`query`, `[bounds]`, `[filter]`, `success`, `[failure]`)
+  // `autocompleteQuery`(`query`, `[bounds]`, `[filter]`, `[options]`, `success`, `[failure]`)
   //
   // Runs a query to offer auto-completion results from a query.
   //
@@ -83,6 +492,14 @@ class GooglePlaces {
   //   }
   //   ```
   //
+  // - `options`: (Android only) the result options, as for `currentPlace`: `fields` are
+  //   those of the predictions (`fullText`, `primaryText`, `secondaryText`, `placeID` and
+  //   `types`), and `limit` is the number of predictions, in the order of the Places API.
+  //   `bounds` and `filter` must then be given, or be `null`. `timeoutMs` also applies.
+  //
+  // On Android, `bounds` and `filter` can also be given as the handle of a search context
+  // (see `registerSearchContext`), followed by the optional `options`.
+  //
   // - `success` is called in case of success, it will contain "autocomplete prediction" objects
   //   with info fields:
   //   ```javascript
@@ -94,7 +511,15 @@ class GooglePlaces {
   //     types: [ "a", "list", "of", "types", "for", "the", "result" ]
   //   }
   //   ```
+  //
+  //   On Android, `success` may be called twice: first right away, with suggestions
+  //   from the places previously offered to or selected by the user (most frequent and
+  //   recent first), and then with these suggestions followed by the predictions of the
+  //   Places API. Its second argument is `{ local: true }` for the first call, and
+  //   `{ local: false }` for the final one.
   // - `failure` is called in case of an error, with an error object.
+  //
+  // On Android, returns a request identifier to be passed to `cancel` (`undefined` on iOS).
   autocompleteQuery(...args) {
     let params = [];
     let callbacks = [];
@@ -112,24 +537,122 @@ class GooglePlaces {
     if (callbacks.length > 0) {
       success = callbacks[0];
       if (callbacks.length > 1) {
-        failure = err => callbacks[1](new Error(err));
+        failure = err => callbacks[1](toError(err));
       }
     }
 
-    if (params.length > 3 || callbacks.length > 2) {
+    if (params.length > 4 || callbacks.length > 2) {
       const err = new Error(
-        "GooglePlaces: wrong arguments for autocompleteQuery(query, bounds, filter, success, failure)",
+        "GooglePlaces: wrong arguments for autocompleteQuery(query, bounds, filter, options, success, failure)",
       );
       failure(err);
       return;
     }
 
-    cordova.exec(success, failure, "GooglePlaces", "autocompleteQuery", params);
+    const requestID = newRequestID();
+    exec(
+      decodeResults(mergeLocalSuggestions(success, limitOf(params, 0))),
+      failure,
+      "GooglePlaces",
+      "autocompleteQuery",
+      withRequestID(requestID, params),
+    );
+    return requestID;
   }
 
-  // ## showPlaceAutocomplete
+  // ## cancel
+  //
+  // `cancel`(`requestID`, `[success]`, `[failure]`)
+  //
+  // Cancels a `currentPlace` or `autocompleteQuery` request still in progress (Android
+  // only): its `failure` callback is called right away with the
+  // `GooglePlaces.ErrorCodes.Canceled` code, and its Places API call is canceled, unless
+  // other identical requests wait for it.
+  //
+  cancel(requestID, success = () => {}, failure = () => {}) {
+    // requests have no identifier on iOS, where they cannot be canceled
+    if (cordova.platformId !== "android") {
+      failure(new Error("GooglePlaces: cancel is only available on Android"));
+      return;
+    }
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "cancel",
+      [requestID],
+    );
+  }
+
+  // ## autocompleteBatch
+  //
+  // `autocompleteBatch`(`queries`, `[options]`, `progress`, `[failure]`)
+  //
+  // Runs many autocomplete queries in a single call (Android only), a few at a time, and
+  // returns a batch identifier to be passed to `cancelBatch`.
+  //
+  // The results are reported in chunks, as they come, in the order the queries complete.
+  // The batch queries are made behind the `autocompleteQuery` calls, within the rate limits
+  // of the Places API: they are neither cached nor offered as local suggestions.
+  //
+  // ### Parameters
+  //
+  // - `queries`: an array of queries, each either a string or an object with a `query`
+  //   string and the optional `bounds` and `filter` of `autocompleteQuery`.
+  // - `options`: (optional) an object with the following fields:
+  //   - `parallelism`: number of queries made at the same time, from 1 to 16, defaults to 4
+  //   - `chunkSize`: number of results after which a chunk is reported, defaults to 50.
+  //     Chunks are also reported every 500 ms.
+  // - `progress` is called with each chunk:
+  //   ```javascript
+  //   {
+  //     results: [
+  //       { index: 0, predictions: [ { ... } ] }, // "autocomplete prediction" objects of queries[0]
+  //       { index: 3, error: { code: "throttled", message: "..." } }
+  //     ],
+  //     completed: 4, // number of queries completed so far
+  //     total: 10
+  //   }
+  //   ```
+  //   The last chunk also has `done: true` and a summary:
+  //   `{ total: 10, succeeded: 9, failed: 1, canceled: 0, time: 1234 }` (`time` in milliseconds).
+  // - `failure` is called if the batch could not be run, with an error object.
+  //
+  autocompleteBatch(queries, ...args) {
+    let options = isFunction(args[0]) ? {} : args.shift();
+    let [progress = () => {}, failure = () => {}] = args;
+
+    const batchID = String(nextBatchID++);
+    exec(
+      progress,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "autocompleteBatch",
+      [batchID, queries, options || {}],
+    );
+    return batchID;
+  }
+
+  // ## cancelBatch
+  //
+  // `cancelBatch`(`batchID`, `[success]`, `[failure]`)
   //
-  // `showPlaceAutocomplete`(`sucess`, `failure`)
+  // Cancels a batch started by `autocompleteBatch`: the queries not completed yet are
+  // canceled, and the last chunk is reported right away.
+  //
+  cancelBatch(batchID, success = () => {}, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "cancelBatch",
+      [batchID],
+    );
+  }
+
+  // ## pickPlace
+  //
+  // `pickPlace`(`[bounds]`, `[options]`, `sucess`, `failure`)
   //
   // Show the native UI for Picking a nearby place
   //
@@ -157,6 +680,9 @@ class GooglePlaces {
   //    }
   //    ```
   //
+  // - `options`: (optional, Android only) the result options, of which only `fields`
+  //   applies (see `currentPlace`). `bounds` must then be given, or be `null`.
+  //
   // - `success` is called in case of success, it will contain "place" objects
   //   with a `place` and `likehood` fields:
   //   ```javascript
@@ -189,25 +715,578 @@ class GooglePlaces {
       }
     }
 
-    if (params.length > 1 || callbacks.length > 2) {
+    if (params.length > 2 || callbacks.length > 2) {
       const err = new Error(
-        "GooglePlaces: wrong arguments for pickPlace(bounds, success, failure)",
+        "GooglePlaces: wrong arguments for pickPlace(bounds, options, success, failure)",
       );
       failure(err);
       return;
     }
 
-    cordova.exec(success, failure, "GooglePlaces", "pickPlace", []);
+    exec(success, failure, "GooglePlaces", "pickPlace", params);
+  }
+
+  // ## lookUpPlaces
+  //
+  // `lookUpPlaces`(`placeIDs`, `success`, `[failure]`)
+  //
+  // Fetches the full details of places, given their IDs.
+  //
+  // Lookups made at the same time are merged into a single request by the native side.
+  //
+  // ### Parameters
+  //
+  // - `placeIDs`: an array of place IDs, as found in the `placeID` field of
+  //   places and predictions
+  // - `success` is called with an array of "place" objects, in the same order as `placeIDs`
+  //   (unknown places are `null`)
+  // - `failure` is called in case of an error, with an error object
+  //
+  lookUpPlaces(placeIDs, success, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "lookUpPlaces",
+      [placeIDs],
+    );
+  }
+
+  // ## getCachedPlace
+  //
+  // `getCachedPlace`(`placeID`, `success`, `[failure]`)
+  //
+  // Reads a place from the persistent store of the native side, without any network access.
+  //
+  // All the places returned by the plugin are kept in this store for a while, even
+  // across app restarts.
+  //
+  // ### Parameters
+  //
+  // - `placeID`: the ID of the place
+  // - `success` is called with the "place" object, or with no value when the place
+  //   is not in the store
+  // - `failure` is called in case of an error, with an error object
+  //
+  getCachedPlace(placeID, success, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "getCachedPlace",
+      [placeID],
+    );
+  }
+
+  // ## getPlacePhotos
+  //
+  // `getPlacePhotos`(`placeID`, `[options]`, `success`, `[failure]`)
+  //
+  // Fetches the photos of a place (Android only), as local files rather than inline data:
+  // their URIs can be used right away as the `src` of images.
+  //
+  // Photos are cached on the native side, in memory and in the cache directory of the app,
+  // so that showing them again makes no network access.
+  //
+  // ### Parameters
+  //
+  // - `placeID`: the ID of the place
+  // - `options`: (optional) an object with the following fields:
+  //   - `maxWidth`, `maxHeight`: maximum size of the photos, in pixels, both defaulting to 1024
+  //   - `limit`: maximum number of photos, defaults to 10
+  // - `success` is called with the photos, most relevant first:
+  //   ```javascript
+  //   {
+  //     uri: "file:///.../photo.jpg",
+  //     width: 1024,
+  //     height: 768,
+  //     attributions: "..." // HTML attributions to show next to the photo, if any
+  //   }
+  //   ```
+  // - `failure` is called in case of an error, with an error object
+  //
+  getPlacePhotos(placeID, ...args) {
+    let options = isFunction(args[0]) ? {} : args.shift();
+    let [success = () => {}, failure = () => {}] = args;
+
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "getPlacePhotos",
+      [placeID, options || {}],
+    );
+  }
+
+  // ## placesInBounds
+  //
+  // `placesInBounds`(`bounds`, `[types]`, `success`, `[failure]`)
+  //
+  // Lists the places known to the native side inside a region, without any network access
+  // (Android only).
+  //
+  // Known places are those returned by the plugin since the app started (by `currentPlace`,
+  // `pickPlace`, `showPlaceAutocomplete` or `lookUpPlaces`).
+  //
+  // ### Parameters
+  //
+  // - `bounds`: the region, as a "coordinate region" object (see `autocompleteQuery`); it may
+  //   cross the antimeridian
+  // - `types`: an optional array of place types, such as `"restaurant"`: only the places
+  //   having one of them are listed
+  // - `success` is called with an array of "place" objects, from south to north
+  // - `failure` is called in case of an error, with an error object
+  //
+  placesInBounds(bounds, ...args) {
+    const types = isFunction(args[0]) ? null : args.shift();
+    const [success, failure = () => {}] = args;
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "placesInBounds",
+      [bounds, types],
+    );
+  }
+
+  // ## nearestPlaces
+  //
+  // `nearestPlaces`(`coordinate`, `count`, `success`, `[failure]`)
+  //
+  // Lists the places known to the native side nearest to a coordinate, without any network
+  // access (Android only). See `placesInBounds` for the known places.
+  //
+  // ### Parameters
+  //
+  // - `coordinate`: a `{ latitude, longitude }` object
+  // - `count`: the maximum number of places listed
+  // - `success` is called with an array of `{ distance, place }` objects, nearest first,
+  //   where `distance` is the distance to `coordinate` in meters
+  // - `failure` is called in case of an error, with an error object
+  //
+  nearestPlaces(coordinate, count, success, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "nearestPlaces",
+      [coordinate, count],
+    );
+  }
+
+  // ## openTypeaheadSession
+  //
+  // `openTypeaheadSession`(`[options]`, `success`, `[failure]`)
+  //
+  // Opens a "typeahead session", to be used by a single search box which queries
+  // predictions on every keystroke (see `typeaheadQuery`).
+  //
+  // ### Parameters
+  //
+  // - `options`: (optional) an object with the following fields:
+  //   - `debounce`: delay (in milliseconds) to wait for a newer query before actually
+  //     sending a query, defaults to 150
+  // - `success` is called with the session identifier
+  // - `failure` is called in case of an error, with an error object
+  //
+  openTypeaheadSession(...args) {
+    let options = isFunction(args[0]) ? {} : args.shift();
+    let [success = () => {}, failure = () => {}] = args;
+
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "openTypeaheadSession",
+      [options || {}],
+    );
+  }
+
+  // ## typeaheadQuery
+  //
+  // `typeaheadQuery`(`session`, `query`, `[bounds]`, `[filter]`, `[options]`, `success`, `[failure]`)
+  //
+  // Same as `autocompleteQuery`, within a typeahead session: each query supersedes the
+  // previous ones of the same session, so that only the latest predictions are returned.
+  //
+  // Superseded queries fail with an error whose `code` is `ErrorCodes.Superseded`, and
+  // can usually be ignored.
+  //
+  // ### Parameters
+  //
+  // - `session`: the session identifier, as given by `openTypeaheadSession`
+  // - `query`, `bounds`, `filter` and `options`: see `autocompleteQuery`, except for
+  //   `timeoutMs`: the session cancels the queries itself
+  // - `success` is called with the "autocomplete prediction" objects, possibly twice as for
+  //   `autocompleteQuery`: local suggestions are sent without waiting for the debounce delay
+  // - `failure` is called in case of an error, with an error object
+  //
+  typeaheadQuery(session, ...args) {
+    let params = [session];
+    let callbacks = [];
+
+    for (let arg of args) {
+      if (isFunction(arg)) {
+        callbacks.push(arg);
+      } else {
+        params.push(arg);
+      }
+    }
+
+    let success = () => {};
+    let failure = () => {};
+    if (callbacks.length > 0) {
+      success = callbacks[0];
+      if (callbacks.length > 1) {
+        failure = err => callbacks[1](toError(err));
+      }
+    }
+
+    if (params.length > 5 || callbacks.length > 2) {
+      const err = new Error(
+        "GooglePlaces: wrong arguments for typeaheadQuery(session, query, bounds, filter, options, success, failure)",
+      );
+      failure(err);
+      return;
+    }
+
+    exec(
+      decodeResults(mergeLocalSuggestions(success, limitOf(params, 1))),
+      failure,
+      "GooglePlaces",
+      "typeaheadQuery",
+      params,
+    );
+  }
+
+  // ## closeTypeaheadSession
+  //
+  // `closeTypeaheadSession`(`session`, `[success]`, `[failure]`)
+  //
+  // Closes a typeahead session: its pending query, if any, fails with an error whose
+  // `code` is `ErrorCodes.Canceled`.
+  //
+  closeTypeaheadSession(session, success = () => {}, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "closeTypeaheadSession",
+      [session],
+    );
+  }
+
+  // ## registerSearchContext
+  //
+  // `registerSearchContext`(`context`, `success`, `[failure]`)
+  //
+  // Registers the bounds and filter of a search box (Android only), and passes a handle to
+  // `success`. The handle is then given to `autocompleteQuery` or `typeaheadQuery` in place
+  // of the bounds and filter (`autocompleteQuery(query, handle, [options], ...)`): they are
+  // decoded once, here, instead of on every query.
+  //
+  // ### Parameters
+  //
+  // - `context`: an object with optional `bounds` and `filter` fields, as for `autocompleteQuery`
+  // - `success` is called with the handle of the context
+  // - `failure` is called with an error object when the bounds or the filter are invalid
+  //
+  registerSearchContext(context, success, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "registerSearchContext",
+      [context || {}],
+    );
+  }
+
+  // ## releaseSearchContext
+  //
+  // `releaseSearchContext`(`handle`, `[success]`, `[failure]`)
+  //
+  // Releases a context registered by `registerSearchContext`: its handle cannot be used anymore.
+  //
+  releaseSearchContext(handle, success = () => {}, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "releaseSearchContext",
+      [handle],
+    );
+  }
+
+  // ## setPrefetchCount
+  //
+  // `setPrefetchCount`(`count`, `[success]`, `[failure]`)
+  //
+  // Prefetches the details of the top `count` predictions of each autocomplete query,
+  // in the background, so that looking up the place picked by the user with `lookUpPlaces`
+  // is answered right away (Android only). `0` (the default) turns prefetching off.
+  //
+  // Prefetched places are kept for a minute, and prefetching is canceled by the next
+  // query. Each prefetched place costs a place details request against the Places API
+  // quota: `getStats` reports how many were used (`hitRatio`) or wasted (`wasteRatio`).
+  //
+  setPrefetchCount(count, success = () => {}, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "setPrefetchCount",
+      [count],
+    );
+  }
+
+  // ## setResultFormat
+  //
+  // `setResultFormat`(`format`, `[success]`, `[failure]`)
+  //
+  // Chooses how the native side sends the lists of results of `currentPlace`,
+  // `autocompleteQuery` and `typeaheadQuery`:
+  //
+  // - `ResultFormats.JSON` (the default): as JSON
+  // - `ResultFormats.Binary`: in a compact binary format, transparently decoded by this module.
+  //   The payloads are smaller, which pays off for large lists of results.
+  //
+  // The results are the same objects in both cases.
+  //
+  setResultFormat(format, success = () => {}, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "setResultFormat",
+      [format],
+    );
+  }
+
+  // ## getTransportStats
+  //
+  // `getTransportStats`(`success`, `[failure]`)
+  //
+  // Reports how many lists of results were sent in each format, along with their size
+  // on the bridge (in bytes), and the time spent decoding binary results (in milliseconds):
+  //
+  // ```javascript
+  // {
+  //   json: { results: 12, bytes: 24032 },
+  //   binary: { results: 3, bytes: 4096, decodedResults: 3, decodeTime: 1.2 }
+  // }
+  // ```
+  //
+  getTransportStats(success, failure = () => {}) {
+    exec(
+      stats => {
+        stats.binary.decodedResults = binaryDecoding.results;
+        stats.binary.decodeTime = binaryDecoding.time;
+        success(stats);
+      },
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "getTransportStats",
+      [],
+    );
+  }
+
+  // ## getConnectionStats
+  //
+  // `getConnectionStats`(`success`, `[failure]`)
+  //
+  // Reports the state of the connection to Google Play Services (Android only):
+  //
+  // ```javascript
+  // {
+  //   connected: true,
+  //   connections: 1, // successful connections since the plugin was loaded
+  //   failures: 0, // failed connection attempts
+  //   timeToConnect: 420, // delay between the plugin load and the first connection (in ms)
+  //   timeToFirstAutocomplete: 980, // delay between the plugin load and the first autocomplete results (in ms)
+  //   lastError: "..." // error of the last connection attempt, if it failed
+  // }
+  // ```
+  //
+  getConnectionStats(success, failure = () => {}) {
+    exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "getConnectionStats",
+      [],
+    );
+  }
+
+  // ## getStats
+  //
+  // `getStats`(`success`, `[failure]`)
+  //
+  // Reports metrics for each action called since the plugin was loaded, or since the last
+  // call to `resetStats` (Android only). Durations are in milliseconds, and percentiles
+  // are approximated within 12.5%:
+  //
+  // ```javascript
+  // {
+  //   period: 60000, // time covered by the metrics
+  //   actions: {
+  //     autocompleteQuery: {
+  //       calls: 42,
+  //       errors: 1,
+  //       cancels: 3, // canceled or superseded calls
+  //       timeouts: 0, // calls past their timeoutMs
+  //       latency: { count: 42, mean: 180, p50: 160, p90: 300, p99: 510, max: 530 },
+  //       api: { ... }, // time spent in the Google Play Services calls
+  //       encode: { ... }, // time spent encoding the results
+  //       resultSize: { ... }, // size of the results on the bridge (in characters)
+  //       roundTrip: { count: 42, p50: 165, p90: 310, p99: 520, max: 540 } // as seen from JS
+  //     }
+  //   },
+  //   suggestions: { // the on-device suggestion index
+  //     entries: 120,
+  //     lookupTime: { ... } // time spent looking suggestions up
+  //   },
+  //   sharedCalls: { // identical currentPlace and autocomplete queries made at the same time
+  //     requests: 50,
+  //     shared: 8, // requests answered by the call of another one
+  //     rate: 0.16
+  //   },
+  //   scheduler: { // Places API calls, made within the configured rates
+  //     calls: 50,
+  //     delayed: 4, // calls which waited for the rate limit
+  //     shed: 0, // calls dropped, which failed with `ErrorCodes.Throttled`
+  //     quotaErrors: 0 // calls which failed with `ErrorCodes.QuotaExceeded`
+  //   },
+  //   prefetch: { // places prefetched for autocomplete predictions (see `setPrefetchCount`)
+  //     count: 3,
+  //     prefetched: 60,
+  //     hits: 9, // places looked up, which were prefetched
+  //     misses: 1, // places looked up, which were not
+  //     wasted: 45, // places prefetched, which were never looked up
+  //     hitRatio: 0.9,
+  //     wasteRatio: 0.75
+  //   },
+  //   currentPlaceCache: { // currentPlace results reused (see `maxAgeMs`)
+  //     hits: 6,
+  //     misses: 2,
+  //     moved: 1, // results dropped as the device left their area
+  //     degraded: 0, // results dropped as the location became less accurate
+  //     hitRatio: 0.75
+  //   },
+  //   frames: { // time between main-thread frames, while results were being encoded
+  //     count: 240, mean: 17.1, p50: 16.7, p90: 16.7, p99: 33.3, max: 50,
+  //     slow: 4 // frames over 32 ms
+  //   }
+  // }
+  // ```
+  //
+  getStats(success, failure = () => {}) {
+    cordova.exec(
+      stats => {
+        for (let action of Object.keys(stats.actions)) {
+          if (roundTrips[action]) {
+            stats.actions[action].roundTrip = encodeRoundTrips(roundTrips[action]);
+          }
+        }
+        success(stats);
+      },
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "getStats",
+      [],
+    );
+  }
+
+  // ## getMemoryStats
+  //
+  // `getMemoryStats`(`success`, `[failure]`)
+  //
+  // Reports the memory held by the plugin, which it sheds in stages as the system runs low
+  // on memory (Android only). Sizes are in bytes:
+  //
+  // ```javascript
+  // {
+  //   trims: { moderate: 2, low: 1, critical: 0 }, // memory trims, by stage
+  //   lastTrimLevel: 10, // the trim level of the last one (see `ComponentCallbacks2`)
+  //   lastTrimAge: 42000, // time since the last one, -1 before the first one
+  //   autocompleteCache: { entries: 20, bytes: 48000 },
+  //   currentPlaceCache: { entries: 1, bytes: 12000 },
+  //   prefetch: { entries: 3, bytes: 9000, waitingLookups: 0 },
+  //   placeIndex: { entries: 120, bytes: 8000 },
+  //   photos: { bytes: 2000000, places: 4, pendingListings: 0, pendingFetches: 1 },
+  //   scheduler: { queuedCalls: 0, callsInFlight: 1 },
+  //   buffers: { delivered: 50, released: 50, outstanding: 0 }, // Google Play Services buffers
+  //   callbacks: { // calls waiting for an answer
+  //     requests: 1, // currentPlace and autocompleteQuery requests (see `cancel`)
+  //     pickPlace: 0,
+  //     showPlaceAutocomplete: 0,
+  //     sharedCalls: 0,
+  //     typeaheadSessions: 1,
+  //     watches: 0,
+  //     batches: 0,
+  //     searchContexts: 1,
+  //     encodingTasks: 0
+  //   }
+  // }
+  // ```
+  //
+  getMemoryStats(success, failure = () => {}) {
+    cordova.exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "getMemoryStats",
+      [],
+    );
+  }
+
+  // ## resetStats
+  //
+  // `resetStats`(`[success]`, `[failure]`)
+  //
+  // Resets the metrics reported by `getStats`.
+  //
+  resetStats(success = () => {}, failure = () => {}) {
+    roundTrips = {};
+    cordova.exec(
+      success,
+      err => failure(toError(err)),
+      "GooglePlaces",
+      "resetStats",
+      [],
+    );
+  }
+
+  // ## clearCache
+  //
+  // `clearCache`(`[success]`, `[failure]`)
+  //
+  // Drops all the `autocompleteQuery` and `currentPlace` results cached by the native side.
+  //
+  // ### Parameters
+  //
+  // - `success` is called once the cache has been emptied
+  // - `failure` is called in case of an error, with an error object
+  //
+  clearCache(success = () => {}, failure = () => {}) {
+    exec(
+      success,
+      err => failure(new Error(err)),
+      "GooglePlaces",
+      "clearCache",
+      [],
+    );
   }
 
   // ## showPlaceAutocomplete
   //
-  // `showPlaceAutocomplete`(`sucess`, `failure`)
+  // `showPlaceAutocomplete`(`[options]`, `sucess`, `failure`)
   //
   // Show the native UI for Place Autocomplete
   //
   // ### Parameters
   //
+  // - `options`: (optional, Android only) the result options, of which only `fields`
+  //   applies (see `currentPlace`).
   // - `success` is called in case of success, it will contain "place" objects
   //   with a `place` and `likehood` fields:
   //   ```javascript
@@ -219,13 +1298,16 @@ class GooglePlaces {
   //   ```
   // - `failure` is called in case of an error, with an error objects
   //
-  showPlaceAutocomplete(success, failure) {
-    cordova.exec(
+  showPlaceAutocomplete(...args) {
+    let options = isFunction(args[0]) ? null : args.shift();
+    let [success = () => {}, failure = () => {}] = args;
+
+    exec(
       success,
       err => failure(new Error(err)),
       "GooglePlaces",
       "showPlaceAutocomplete",
-      [],
+      options ? [options] : [],
     );
   }
 }
@@ -246,5 +1328,35 @@ const AutocompleteFilterTypes = {
   City: "city",
 };
 
+// ## Result formats for the `setResultFormat` method.
+const ResultFormats = {
+  JSON: "json",
+  Binary: "binary",
+};
+
+// ## Error codes
+//
+// Errors reported with a machine-readable `code` field.
+const ErrorCodes = {
+  // - `ErrorCodes.Superseded`: the query was replaced by a newer one (see `typeaheadQuery`)
+  Superseded: "superseded",
+  // - `ErrorCodes.Canceled`: the request was canceled
+  Canceled: "canceled",
+  // - `ErrorCodes.Overloaded`: the request was dropped, as too many results were waiting
+  //   to be processed
+  Overloaded: "overloaded",
+  // - `ErrorCodes.Unavailable`: Google Play Services could not be reached
+  Unavailable: "unavailable",
+  // - `ErrorCodes.Throttled`: the request was dropped by the native side to stay within
+  //   the Places API quota, as too many requests were waiting
+  Throttled: "throttled",
+  // - `ErrorCodes.QuotaExceeded`: the Places API quota or rate limit was exceeded
+  QuotaExceeded: "quota_exceeded",
+  // - `ErrorCodes.Timeout`: the request did not complete within its `timeoutMs`
+  Timeout: "timeout",
+};
+
 module.exports = new GooglePlaces();
 module.exports.AutocompleteFilterTypes = AutocompleteFilterTypes;
+module.exports.ResultFormats = ResultFormats;
+module.exports.ErrorCodes = ErrorCodes;